@@ -0,0 +1,89 @@
+#!/usr/bin/env bash
+# Measures startup time and resident memory of every launch variant of LiteCRM.
+#
+#   ./gradlew bootJar && scripts/measure-startup.sh
+#
+# Variants: jar (plain java -jar), cds (extracted jar + AppCDS archive), aot and aot-cds (Spring AOT without and with the archive)
+# and native (GraalVM binary, when built with ./gradlew nativeCompile -Pnative).
+# Each variant is started RUNS times against the database from DB_URI/DB_USERNAME/DB_PASSWORD;
+# the median of "process running for" from the startup log and of VmRSS right after startup are reported.
+set -euo pipefail
+
+ROOT="$(cd "$(dirname "$0")/.." && pwd)"
+JAR="${JAR:-$ROOT/build/libs/LiteCRM-0.0.1.jar}"
+NATIVE="${NATIVE:-$ROOT/build/native/nativeCompile/LiteCRM}"
+RUNS="${RUNS:-5}"
+PORT="${PORT:-18080}"
+TIMEOUT_SECONDS="${TIMEOUT_SECONDS:-120}"
+JAVA="${JAVA_HOME:+$JAVA_HOME/bin/}java"
+WORK="$ROOT/build/startup"
+
+# Creates an AppCDS archive the same way the Dockerfile does: a training run that stops right after the
+# context refresh and needs no database. Extra arguments are JVM options of the run, which must match the
+# options the archive is used with.
+train_cds() {
+    local archive="$1"
+    shift
+    (cd "$WORK/app" && "$JAVA" -XX:ArchiveClassesAtExit="$archive" "$@" -Dspring.context.exit=onRefresh \
+        -jar "$(basename "$JAR")" \
+        --spring.datasource.url=jdbc:postgresql://localhost:1/none \
+        --spring.flyway.enabled=false \
+        --spring.jpa.hibernate.ddl-auto=none \
+        --spring.jpa.properties.hibernate.boot.allow_jdbc_metadata_access=false > "$WORK/training.log" 2>&1)
+}
+
+# Prints "<startup seconds> <rss kilobytes>" for one start of the given command.
+measure_once() {
+    local log="$WORK/run.log"
+    "$@" --server.port="$PORT" > "$log" 2>&1 &
+    local pid=$!
+    local deadline=$((SECONDS + TIMEOUT_SECONDS))
+    until grep -q "Started LiteCrmApplication" "$log"; do
+        if ! kill -0 "$pid" 2> /dev/null || ((SECONDS > deadline)); then
+            kill "$pid" 2> /dev/null || true
+            echo "startup failed, see $log" >&2
+            return 1
+        fi
+        sleep 0.2
+    done
+    local rss
+    rss="$(awk '/^VmRSS:/ {print $2}' "/proc/$pid/status")"
+    kill "$pid"
+    wait "$pid" 2> /dev/null || true
+    local startup
+    startup="$(grep -o 'process running for [0-9.]*' "$log" | grep -o '[0-9.]*$')"
+    echo "$startup $rss"
+}
+
+median() {
+    sort -n | awk '{v[NR] = $1} END {print (NR % 2) ? v[(NR + 1) / 2] : (v[NR / 2] + v[NR / 2 + 1]) / 2}'
+}
+
+measure() {
+    local name="$1"
+    shift
+    local results=()
+    for ((i = 1; i <= RUNS; i++)); do
+        results+=("$(measure_once "$@")")
+    done
+    local startup rss
+    startup="$(printf '%s\n' "${results[@]}" | awk '{print $1}' | median)"
+    rss="$(printf '%s\n' "${results[@]}" | awk '{print $2}' | median)"
+    printf '%-8s %12.2f %10d\n' "$name" "$startup" "$((${rss%.*} / 1024))"
+}
+
+rm -rf "$WORK"
+mkdir -p "$WORK"
+"$JAVA" -Djarmode=tools -jar "$JAR" extract --destination "$WORK/app" > /dev/null
+train_cds app.jsa
+train_cds app-aot.jsa -Dspring.aot.enabled=true
+APP_JAR="$WORK/app/$(basename "$JAR")"
+
+printf '%-8s %12s %10s\n' variant startup_s rss_mb
+measure jar "$JAVA" -jar "$JAR"
+measure cds "$JAVA" -XX:SharedArchiveFile="$WORK/app/app.jsa" -jar "$APP_JAR"
+measure aot "$JAVA" -Dspring.aot.enabled=true -jar "$APP_JAR"
+measure aot-cds "$JAVA" -XX:SharedArchiveFile="$WORK/app/app-aot.jsa" -Dspring.aot.enabled=true -jar "$APP_JAR"
+if [[ -x "$NATIVE" ]]; then
+    measure native "$NATIVE"
+fi
@@ -0,0 +1,72 @@
+package ru.nsu.fit.mihanizzm.litecrm.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import ru.nsu.fit.mihanizzm.litecrm.models.dtos.SellerResponseDto;
+import ru.nsu.fit.mihanizzm.litecrm.models.dtos.TransactionRequestDto;
+import ru.nsu.fit.mihanizzm.litecrm.models.dtos.TransactionResponseDto;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON (de)serialization of the DTO records with an {@link ObjectMapper} configured the way
+ * Spring MVC configures its message converter. {@code pageSize} mimics the list endpoints.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DtoSerializationBenchmark {
+    @Param({"1", "100"})
+    public int pageSize;
+
+    private ObjectMapper objectMapper;
+
+    private List<TransactionResponseDto> transactions;
+    private List<SellerResponseDto> sellers;
+    private byte[] transactionRequestJson;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+        LocalDateTime now = LocalDateTime.of(2025, 3, 14, 12, 30);
+        transactions = new ArrayList<>(pageSize);
+        sellers = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            transactions.add(new TransactionResponseDto(i, i % 10, new BigDecimal("6.90"), "CARD", now));
+            sellers.add(new SellerResponseDto(i, "Seller " + i, "seller" + i + "@gmail.com", now));
+        }
+        transactionRequestJson = objectMapper.writeValueAsBytes(
+                new TransactionRequestDto(8, new BigDecimal("22.80"), "TRANSFER")
+        );
+    }
+
+    @Benchmark
+    public byte[] writeTransactions() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(transactions);
+    }
+
+    @Benchmark
+    public byte[] writeSellers() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(sellers);
+    }
+
+    @Benchmark
+    public TransactionRequestDto readTransactionRequest() throws IOException {
+        return objectMapper.readValue(transactionRequestJson, TransactionRequestDto.class);
+    }
+}
@@ -0,0 +1,64 @@
+package ru.nsu.fit.mihanizzm.litecrm.benchmarks;
+
+import org.mapstruct.factory.Mappers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import ru.nsu.fit.mihanizzm.litecrm.models.PaymentType;
+import ru.nsu.fit.mihanizzm.litecrm.models.Seller;
+import ru.nsu.fit.mihanizzm.litecrm.models.Transaction;
+import ru.nsu.fit.mihanizzm.litecrm.models.dtos.SellerResponseDto;
+import ru.nsu.fit.mihanizzm.litecrm.models.dtos.TransactionRequestDto;
+import ru.nsu.fit.mihanizzm.litecrm.models.dtos.TransactionResponseDto;
+import ru.nsu.fit.mihanizzm.litecrm.models.mappers.SellerMapper;
+import ru.nsu.fit.mihanizzm.litecrm.models.mappers.TransactionMapper;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity/DTO conversions done on every CRUD call, through the MapStruct generated mappers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MappingBenchmark {
+    private TransactionMapper transactionMapper;
+    private SellerMapper sellerMapper;
+
+    private Seller seller;
+    private Transaction transaction;
+    private TransactionRequestDto transactionRequest;
+
+    @Setup
+    public void setUp() {
+        transactionMapper = Mappers.getMapper(TransactionMapper.class);
+        sellerMapper = Mappers.getMapper(SellerMapper.class);
+
+        LocalDateTime now = LocalDateTime.of(2025, 3, 14, 12, 30);
+        seller = new Seller(8, "John", "john17@gmail.com", now, new ArrayList<>());
+        transaction = new Transaction(148, seller, new BigDecimal("6.90"), PaymentType.CARD, now);
+        transactionRequest = new TransactionRequestDto(8, new BigDecimal("22.80"), "TRANSFER");
+    }
+
+    @Benchmark
+    public TransactionResponseDto transactionToResponse() {
+        return transactionMapper.toResponse(transaction);
+    }
+
+    @Benchmark
+    public Transaction transactionRequestToEntity() {
+        return transactionMapper.toEntity(transactionRequest);
+    }
+
+    @Benchmark
+    public SellerResponseDto sellerToResponse() {
+        return sellerMapper.toResponse(seller);
+    }
+}
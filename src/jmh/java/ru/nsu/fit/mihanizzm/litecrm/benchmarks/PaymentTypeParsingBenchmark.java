@@ -0,0 +1,50 @@
+package ru.nsu.fit.mihanizzm.litecrm.benchmarks;
+
+import org.mapstruct.factory.Mappers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import ru.nsu.fit.mihanizzm.litecrm.exception.InvalidPaymentTypeException;
+import ru.nsu.fit.mihanizzm.litecrm.models.PaymentType;
+import ru.nsu.fit.mihanizzm.litecrm.models.mappers.TransactionMapper;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link TransactionMapper#stringToEnum(String)} for a known payment type and for a rejected one.
+ * {@link InvalidPaymentTypeException} is stackless like every client exception, so the rejected case
+ * mostly pays for the {@link IllegalArgumentException} of {@code Enum.valueOf}, which still fills in
+ * its stack trace.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PaymentTypeParsingBenchmark {
+    private TransactionMapper transactionMapper;
+
+    private String valid = "TRANSFER";
+    private String invalid = "CRYPTO";
+
+    @Setup
+    public void setUp() {
+        transactionMapper = Mappers.getMapper(TransactionMapper.class);
+    }
+
+    @Benchmark
+    public PaymentType valid() {
+        return transactionMapper.stringToEnum(valid);
+    }
+
+    @Benchmark
+    public Object invalid() {
+        try {
+            return transactionMapper.stringToEnum(invalid);
+        } catch (InvalidPaymentTypeException e) {
+            return e;
+        }
+    }
+}
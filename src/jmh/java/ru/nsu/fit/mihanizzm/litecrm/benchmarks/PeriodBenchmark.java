@@ -0,0 +1,32 @@
+package ru.nsu.fit.mihanizzm.litecrm.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import ru.nsu.fit.mihanizzm.litecrm.models.Period;
+import ru.nsu.fit.mihanizzm.litecrm.models.PeriodType;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Period boundary computation behind the top seller query.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PeriodBenchmark {
+    @Param({"DAY", "MONTH", "QUARTER", "YEAR"})
+    public PeriodType type;
+
+    private final LocalDateTime referenceDate = LocalDateTime.of(2025, 3, 14, 12, 30);
+
+    @Benchmark
+    public Period periodOf() {
+        return Period.of(type, referenceDate);
+    }
+}
@@ -0,0 +1,100 @@
+package ru.nsu.fit.mihanizzm.litecrm.benchmarks;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.OutputStreamAppender;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.slf4j.MDC;
+import org.springframework.boot.logging.logback.StructuredLogEncoder;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Logging overhead per request: the three per-call lines a service method used to write at INFO
+ * against the same calls at DEBUG (the current default, filtered out by level), through a synchronous
+ * or asynchronous appender with the ECS JSON encoder.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RequestLoggingBenchmark {
+    @Param({"sync", "async"})
+    public String appender;
+
+    private LoggerContext context;
+    private Logger logger;
+    private int sellerId;
+
+    @Setup
+    public void setUp() {
+        context = new LoggerContext();
+        context.putObject(Environment.class.getName(), new StandardEnvironment());
+
+        StructuredLogEncoder encoder = new StructuredLogEncoder();
+        encoder.setContext(context);
+        encoder.setFormat("ecs");
+        encoder.start();
+
+        OutputStreamAppender<ILoggingEvent> output = new OutputStreamAppender<>();
+        output.setContext(context);
+        output.setEncoder(encoder);
+        output.setOutputStream(OutputStream.nullOutputStream());
+        output.start();
+
+        Appender<ILoggingEvent> root = output;
+        if ("async".equals(appender)) {
+            AsyncAppender async = new AsyncAppender();
+            async.setContext(context);
+            async.setQueueSize(8192);
+            async.setNeverBlock(true);
+            async.addAppender(output);
+            async.start();
+            root = async;
+        }
+
+        Logger rootLogger = context.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME);
+        rootLogger.detachAndStopAllAppenders();
+        rootLogger.addAppender(root);
+        rootLogger.setLevel(Level.INFO);
+
+        logger = context.getLogger("ru.nsu.fit.mihanizzm.litecrm.services.impl.SellerServiceImpl");
+        MDC.put("requestId", "7f3c1f0e-8f44-4a8e-9a3c-2b8e5d1c0a11");
+    }
+
+    @TearDown
+    public void tearDown() {
+        MDC.clear();
+        context.stop();
+    }
+
+    @Benchmark
+    public void perCallLogsAtInfo() {
+        int id = sellerId++;
+        logger.info("finding a seller by id: {} to get transactions", id);
+        logger.info("getting a seller transactions with id: {}", id);
+        logger.info("successfully found seller transactions by id: {}", id);
+    }
+
+    @Benchmark
+    public void perCallLogsAtDebug() {
+        int id = sellerId++;
+        logger.debug("finding a seller by id: {} to get transactions", id);
+        logger.debug("getting a seller transactions with id: {}", id);
+        logger.debug("successfully found seller transactions by id: {}", id);
+    }
+}
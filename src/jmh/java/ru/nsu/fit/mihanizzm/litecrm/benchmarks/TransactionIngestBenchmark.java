@@ -0,0 +1,79 @@
+package ru.nsu.fit.mihanizzm.litecrm.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.mapstruct.factory.Mappers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import ru.nsu.fit.mihanizzm.litecrm.ingest.TransactionBatch;
+import ru.nsu.fit.mihanizzm.litecrm.models.PaymentType;
+import ru.nsu.fit.mihanizzm.litecrm.models.Transaction;
+import ru.nsu.fit.mihanizzm.litecrm.models.dtos.TransactionRequestDto;
+import ru.nsu.fit.mihanizzm.litecrm.models.mappers.TransactionMapper;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decoding of created transactions, in records per second: a JSON body per transaction read into
+ * {@link TransactionRequestDto} and mapped to the entity, as {@code POST /api/v1/transactions} does, against one
+ * binary {@link TransactionBatch} of {@value #RECORDS} records. The database insert isn't included.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class TransactionIngestBenchmark {
+    private static final int RECORDS = 1000;
+
+    private ObjectMapper objectMapper;
+    private TransactionMapper transactionMapper;
+    private byte[][] jsonBodies;
+    private ByteBuffer binaryBody;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        transactionMapper = Mappers.getMapper(TransactionMapper.class);
+
+        PaymentType[] paymentTypes = PaymentType.values();
+        jsonBodies = new byte[RECORDS][];
+        binaryBody = ByteBuffer.allocate((int) TransactionBatch.byteSize(RECORDS)).putInt(RECORDS);
+        for (int i = 0; i < RECORDS; i++) {
+            int sellerId = 1 + i % 100;
+            long cents = 100 + i * 37L;
+            PaymentType paymentType = paymentTypes[i % paymentTypes.length];
+            jsonBodies[i] = objectMapper.writeValueAsBytes(
+                    new TransactionRequestDto(sellerId, BigDecimal.valueOf(cents, 2), paymentType.name())
+            );
+            binaryBody.putInt(sellerId).putLong(cents).put((byte) paymentType.ordinal());
+        }
+        binaryBody.flip();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public void json(Blackhole blackhole) throws IOException {
+        for (byte[] body : jsonBodies) {
+            TransactionRequestDto request = objectMapper.readValue(body, TransactionRequestDto.class);
+            Transaction transaction = transactionMapper.toEntity(request);
+            blackhole.consume(request.sellerId());
+            blackhole.consume(transaction);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public TransactionBatch binary() {
+        return TransactionBatch.decode(binaryBody, RECORDS);
+    }
+}
@@ -0,0 +1,88 @@
+package ru.nsu.fit.mihanizzm.litecrm.loadtest;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-model load generator: requests are scheduled at a fixed arrival rate regardless of how fast
+ * the server answers, each on its own virtual thread, so a slow response never delays the next
+ * send. Only requests scheduled after the warm-up are recorded.
+ */
+final class FixedRateDriver {
+    private final Workload workload;
+    private final int ratePerSecond;
+    private final Map<Operation, OperationStats> stats = new EnumMap<>(Operation.class);
+
+    FixedRateDriver(Workload workload, int ratePerSecond) {
+        this.workload = workload;
+        this.ratePerSecond = ratePerSecond;
+        for (Operation operation : Operation.values()) {
+            stats.put(operation, new OperationStats());
+        }
+    }
+
+    Map<Operation, OperationStats.Snapshot> run(Duration warmup, Duration duration) throws InterruptedException {
+        long intervalNanos = 1_000_000_000L / ratePerSecond;
+        long start = System.nanoTime();
+        long measureFrom = start + warmup.toNanos();
+        long end = measureFrom + duration.toNanos();
+
+        try (HttpClient client = HttpClient.newHttpClient();
+             ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long i = 0; ; i++) {
+                long intendedStart = start + i * intervalNanos;
+                if (intendedStart >= end) {
+                    break;
+                }
+                parkUntil(intendedStart);
+
+                Workload.Request request = workload.next();
+                OperationStats operationStats = intendedStart >= measureFrom ? stats.get(request.operation()) : null;
+                executor.execute(() -> send(client, request, intendedStart, operationStats));
+            }
+            // Closing the executor waits for in-flight requests, bounded by the request timeout.
+        }
+
+        Map<Operation, OperationStats.Snapshot> snapshots = new EnumMap<>(Operation.class);
+        stats.forEach((operation, operationStats) -> snapshots.put(operation, operationStats.snapshot()));
+        return snapshots;
+    }
+
+    private static void send(
+            HttpClient client,
+            Workload.Request request,
+            long intendedStart,
+            OperationStats operationStats
+    ) {
+        long sent = System.nanoTime();
+        int status;
+        try {
+            status = client.send(request.httpRequest(), HttpResponse.BodyHandlers.discarding()).statusCode();
+        } catch (IOException e) {
+            status = -1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        if (operationStats != null) {
+            operationStats.record(intendedStart, sent, System.nanoTime(), status);
+        }
+    }
+
+    private static void parkUntil(long deadlineNanos) throws InterruptedException {
+        long remaining;
+        while ((remaining = deadlineNanos - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package ru.nsu.fit.mihanizzm.litecrm.loadtest;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Prints throughput and latency percentiles per operation and writes the full percentile
+ * distributions as {@code .hgrm} files, which HdrHistogram's plotter can overlay across runs.
+ */
+final class LatencyReport {
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+    private static final double MICROS_PER_MILLI = 1_000.0;
+
+    private final Map<Operation, OperationStats.Snapshot> snapshots;
+    private final Duration duration;
+    private final int ratePerSecond;
+
+    LatencyReport(Map<Operation, OperationStats.Snapshot> snapshots, Duration duration, int ratePerSecond) {
+        this.snapshots = snapshots;
+        this.duration = duration;
+        this.ratePerSecond = ratePerSecond;
+    }
+
+    void print(PrintStream out) {
+        Histogram totalResponse = new Histogram(3);
+        Histogram totalService = new Histogram(3);
+        long succeeded = 0;
+        long total = 0;
+        for (OperationStats.Snapshot snapshot : snapshots.values()) {
+            totalResponse.add(snapshot.responseTime());
+            totalService.add(snapshot.serviceTime());
+            succeeded += snapshot.succeeded();
+            total += snapshot.total();
+        }
+
+        double seconds = duration.toMillis() / 1_000.0;
+        out.printf(Locale.ROOT, "%nOffered %d req/s for %s: %d requests, %.1f req/s completed, %.1f req/s 2xx%n",
+                ratePerSecond, duration, total, total / seconds, succeeded / seconds);
+
+        out.printf("%nResponse time, ms (from scheduled start, corrected for coordinated omission)%n");
+        printTable(out, true, totalResponse);
+        out.printf("%nService time, ms (from actual send, uncorrected)%n");
+        printTable(out, false, totalService);
+    }
+
+    void write(Path dir) throws IOException {
+        Files.createDirectories(dir);
+        for (Map.Entry<Operation, OperationStats.Snapshot> entry : snapshots.entrySet()) {
+            if (entry.getValue().total() == 0) {
+                continue;
+            }
+            String name = entry.getKey().name().toLowerCase(Locale.ROOT);
+            writeDistribution(dir.resolve(name + ".response.hgrm"), entry.getValue().responseTime());
+            writeDistribution(dir.resolve(name + ".service.hgrm"), entry.getValue().serviceTime());
+        }
+    }
+
+    private void printTable(PrintStream out, boolean responseTime, Histogram total) {
+        out.printf(Locale.ROOT, "%-24s %8s %6s %6s %6s %9s %9s %9s %9s %9s%n",
+                "operation", "count", "4xx", "503", "fail", "p50", "p90", "p99", "p99.9", "max");
+        for (Map.Entry<Operation, OperationStats.Snapshot> entry : snapshots.entrySet()) {
+            OperationStats.Snapshot snapshot = entry.getValue();
+            if (snapshot.total() == 0) {
+                continue;
+            }
+            printRow(
+                    out,
+                    entry.getKey().name(),
+                    snapshot,
+                    responseTime ? snapshot.responseTime() : snapshot.serviceTime()
+            );
+        }
+        long clientErrors = snapshots.values().stream().mapToLong(OperationStats.Snapshot::clientErrors).sum();
+        long rejected = snapshots.values().stream().mapToLong(OperationStats.Snapshot::rejected).sum();
+        long failed = snapshots.values().stream().mapToLong(OperationStats.Snapshot::failed).sum();
+        out.printf(Locale.ROOT, "%-24s %8d %6d %6d %6d%s%n",
+                "TOTAL", total.getTotalCount(), clientErrors, rejected, failed, percentiles(total));
+    }
+
+    private static void printRow(PrintStream out, String name, OperationStats.Snapshot snapshot, Histogram histogram) {
+        out.printf(Locale.ROOT, "%-24s %8d %6d %6d %6d%s%n",
+                name, snapshot.total(), snapshot.clientErrors(), snapshot.rejected(), snapshot.failed(),
+                percentiles(histogram));
+    }
+
+    private static String percentiles(Histogram histogram) {
+        StringBuilder row = new StringBuilder();
+        for (double percentile : PERCENTILES) {
+            row.append(String.format(Locale.ROOT, " %9.2f",
+                    histogram.getValueAtPercentile(percentile) / MICROS_PER_MILLI));
+        }
+        row.append(String.format(Locale.ROOT, " %9.2f", histogram.getMaxValue() / MICROS_PER_MILLI));
+        return row.toString();
+    }
+
+    private static void writeDistribution(Path file, Histogram histogram) throws IOException {
+        try (PrintStream out = new PrintStream(Files.newOutputStream(file))) {
+            histogram.outputPercentileDistribution(out, MICROS_PER_MILLI);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package ru.nsu.fit.mihanizzm.litecrm.loadtest;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.testcontainers.containers.PostgreSQLContainer;
+import ru.nsu.fit.mihanizzm.litecrm.LiteCrmApplication;
+import ru.nsu.fit.mihanizzm.litecrm.seed.DataSeeder;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.util.Map;
+
+/**
+ * Entry point of {@code ./gradlew loadTest}: starts Postgres (a Testcontainers instance unless
+ * {@code loadtest.jdbc-url} is given), boots the application against it on a random port, seeds
+ * the data set with {@link DataSeeder} and drives the mixed workload at the configured rate.
+ */
+public final class LoadTestRunner {
+    private LoadTestRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestSettings settings = LoadTestSettings.fromSystemProperties();
+
+        PostgreSQLContainer<?> postgres = null;
+        String jdbcUrl = settings.jdbcUrl();
+        String username = settings.username();
+        String password = settings.password();
+        if (jdbcUrl == null) {
+            postgres = new PostgreSQLContainer<>("postgres:17")
+                    .withDatabaseName("lite-crm-db")
+                    .withUsername(username)
+                    .withPassword(password);
+            postgres.start();
+            jdbcUrl = postgres.getJdbcUrl();
+        }
+
+        try (ConfigurableApplicationContext app = startApplication(settings, jdbcUrl, username, password);
+             Connection connection = DriverManager.getConnection(jdbcUrl, username, password)) {
+            int port = ((WebServerApplicationContext) app).getWebServer().getPort();
+
+            SeededData data = settings.seedData()
+                    ? SeededData.from(app.getBean(DataSeeder.class).seed())
+                    : SeededData.fromDatabase(connection);
+
+            System.out.printf("driving %d req/s for %s after %s warm-up, %.0f%% analytics%n",
+                    settings.ratePerSecond(), settings.duration(), settings.warmup(), settings.analyticsShare() * 100);
+            Workload workload = new Workload("http://localhost:" + port, data, settings);
+            Map<Operation, OperationStats.Snapshot> snapshots = new FixedRateDriver(workload, settings.ratePerSecond())
+                    .run(settings.warmup(), settings.duration());
+
+            LatencyReport report = new LatencyReport(snapshots, settings.duration(), settings.ratePerSecond());
+            report.print(System.out);
+            report.write(settings.reportDir());
+            System.out.printf("%nPercentile distributions written to %s%n", settings.reportDir().toAbsolutePath());
+        } finally {
+            if (postgres != null) {
+                postgres.stop();
+            }
+        }
+    }
+
+    private static ConfigurableApplicationContext startApplication(
+            LoadTestSettings settings,
+            String jdbcUrl,
+            String username,
+            String password
+    ) {
+        // Passed as command line arguments so they take precedence over application.yml.
+        return new SpringApplicationBuilder(LiteCrmApplication.class).run(
+                "--server.port=0",
+                "--spring.datasource.url=" + jdbcUrl,
+                "--spring.datasource.username=" + username,
+                "--spring.datasource.password=" + password,
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN",
+                "--logging.level.ru.nsu.fit.mihanizzm.litecrm.seed=INFO",
+                "--litecrm.seed.sellers=" + settings.sellers(),
+                "--litecrm.seed.transactions=" + settings.transactions(),
+                "--litecrm.seed.zipf-exponent=" + settings.zipfExponent(),
+                "--litecrm.seed.random-seed=" + settings.seed(),
+                "--litecrm.seed.end-date=" + settings.epoch().toLocalDate()
+        );
+    }
+}
@@ -0,0 +1,56 @@
+package ru.nsu.fit.mihanizzm.litecrm.loadtest;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Load test parameters, read from {@code loadtest.*} system properties (the Gradle task forwards
+ * {@code -Ploadtest.*} project properties). The same seed and settings produce the same data set
+ * and the same request sequence.
+ *
+ * @param epoch   the instant analytics requests pick their periods back from, and the end of the seeded
+ *                transactions; fixed by default, so that runs on different days see the same data
+ * @param jdbcUrl when set, this database is used instead of starting a Postgres container
+ */
+record LoadTestSettings(
+        int sellers,
+        int transactions,
+        double zipfExponent,
+        long seed,
+        boolean seedData,
+        int ratePerSecond,
+        Duration warmup,
+        Duration duration,
+        double analyticsShare,
+        LocalDateTime epoch,
+        String jdbcUrl,
+        String username,
+        String password,
+        Path reportDir
+) {
+    static LoadTestSettings fromSystemProperties() {
+        return new LoadTestSettings(
+                Integer.parseInt(property("sellers", "10000")),
+                Integer.parseInt(property("transactions", "1000000")),
+                Double.parseDouble(property("zipf-exponent", "1.1")),
+                Long.parseLong(property("seed", "42")),
+                Boolean.parseBoolean(property("seed-data", "true")),
+                Integer.parseInt(property("rate", "200")),
+                DurationStyle.detectAndParse(property("warmup", "15s")),
+                DurationStyle.detectAndParse(property("duration", "60s")),
+                Double.parseDouble(property("analytics-share", "0.1")),
+                LocalDateTime.parse(property("epoch", "2025-01-01T00:00")),
+                property("jdbc-url", null),
+                property("username", "test-user"),
+                property("password", "easy-password"),
+                Path.of(property("report-dir", "build/reports/loadtest"))
+        );
+    }
+
+    private static String property(String name, String defaultValue) {
+        return System.getProperty("loadtest." + name, defaultValue);
+    }
+}
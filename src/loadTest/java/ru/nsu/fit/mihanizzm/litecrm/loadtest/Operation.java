@@ -0,0 +1,31 @@
+package ru.nsu.fit.mihanizzm.litecrm.loadtest;
+
+/**
+ * Request types of the mixed workload. Weights are relative within the CRUD or the analytics group;
+ * the split between the groups is {@link LoadTestSettings#analyticsShare()}.
+ */
+enum Operation {
+    GET_TRANSACTION(false, 45),
+    GET_SELLER(false, 25),
+    GET_SELLER_TRANSACTIONS(false, 5),
+    CREATE_TRANSACTION(false, 25),
+    TOP_SELLER(true, 50),
+    SELLERS_MAX_SUM(true, 20),
+    BEST_DAY(true, 30);
+
+    private final boolean analytics;
+    private final int weight;
+
+    Operation(boolean analytics, int weight) {
+        this.analytics = analytics;
+        this.weight = weight;
+    }
+
+    boolean isAnalytics() {
+        return analytics;
+    }
+
+    int getWeight() {
+        return weight;
+    }
+}
@@ -0,0 +1,69 @@
+package ru.nsu.fit.mihanizzm.litecrm.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencies of one operation, recorded from many threads. Response time is measured from the
+ * moment the request was scheduled to be sent, so time spent queued behind a stalled server counts
+ * (no coordinated omission). Service time is measured from the actual send, for comparison.
+ */
+final class OperationStats {
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private final Recorder responseTime = new Recorder(SIGNIFICANT_DIGITS);
+    private final Recorder serviceTime = new Recorder(SIGNIFICANT_DIGITS);
+    private final LongAdder succeeded = new LongAdder();
+    private final LongAdder clientErrors = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    void record(long intendedStartNanos, long sentNanos, long completedNanos, int status) {
+        responseTime.recordValue(toMicros(completedNanos - intendedStartNanos));
+        serviceTime.recordValue(toMicros(completedNanos - sentNanos));
+        if (status >= 200 && status < 300) {
+            succeeded.increment();
+        } else if (status == 503) {
+            rejected.increment();
+        } else if (status >= 400 && status < 500) {
+            clientErrors.increment();
+        } else {
+            failed.increment();
+        }
+    }
+
+    Snapshot snapshot() {
+        return new Snapshot(
+                responseTime.getIntervalHistogram(),
+                serviceTime.getIntervalHistogram(),
+                succeeded.sum(),
+                clientErrors.sum(),
+                rejected.sum(),
+                failed.sum()
+        );
+    }
+
+    /**
+     * @param clientErrors 4xx answers, e.g. a period without transactions; a valid outcome for the API
+     * @param rejected     503 answers from the concurrency limiter or the analytics bulkhead
+     * @param failed       other statuses, timeouts and I/O errors
+     */
+    record Snapshot(
+            Histogram responseTime,
+            Histogram serviceTime,
+            long succeeded,
+            long clientErrors,
+            long rejected,
+            long failed
+    ) {
+        long total() {
+            return succeeded + clientErrors + rejected + failed;
+        }
+    }
+
+    private static long toMicros(long nanos) {
+        return Math.max(1, nanos / 1_000);
+    }
+}
@@ -0,0 +1,37 @@
+package ru.nsu.fit.mihanizzm.litecrm.loadtest;
+
+import ru.nsu.fit.mihanizzm.litecrm.seed.SeedResult;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keys the workload draws from. Seller IDs are ordered by popularity, most popular first.
+ */
+record SeededData(int[] sellerIds, long minTransactionId, long maxTransactionId) {
+    static SeededData from(SeedResult result) {
+        return new SeededData(result.sellerIdsByPopularity(), result.firstTransactionId(), result.lastTransactionId());
+    }
+
+    /**
+     * Keys of a database seeded earlier; its popularity ranking is unknown, so sellers are taken in ID order.
+     */
+    static SeededData fromDatabase(Connection connection) throws SQLException {
+        List<Integer> ids = new ArrayList<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT id FROM app.seller ORDER BY id")) {
+            while (rs.next()) {
+                ids.add(rs.getInt(1));
+            }
+        }
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT min(id), max(id) FROM app.transaction")) {
+            rs.next();
+            return new SeededData(ids.stream().mapToInt(Integer::intValue).toArray(), rs.getLong(1), rs.getLong(2));
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package ru.nsu.fit.mihanizzm.litecrm.loadtest;
+
+import ru.nsu.fit.mihanizzm.litecrm.seed.DiscreteDistribution;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic request sequence for a given seed and epoch. New transactions follow the same Zipf seller
+ * popularity as the seeded data. Reads of a seller's transactions pick sellers uniformly: the
+ * endpoint is not paginated, and the hottest seller alone holds a sizeable share of all rows.
+ */
+final class Workload {
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+    private static final String[] PAYMENT_TYPES = {"CARD", "TRANSFER", "CASH"};
+    private static final String[] TOP_SELLER_PERIODS = {"DAY", "MONTH", "QUARTER"};
+    private static final Operation[] CRUD = group(false);
+    private static final Operation[] ANALYTICS = group(true);
+
+    record Request(Operation operation, HttpRequest httpRequest) {
+    }
+
+    private final String baseUrl;
+    private final SeededData data;
+    private final double analyticsShare;
+    private final SplittableRandom random;
+    private final DiscreteDistribution popularity;
+    private final LocalDateTime epoch;
+
+    Workload(String baseUrl, SeededData data, LoadTestSettings settings) {
+        this.baseUrl = baseUrl;
+        this.data = data;
+        this.analyticsShare = settings.analyticsShare();
+        this.random = new SplittableRandom(settings.seed() + 1);
+        this.popularity = DiscreteDistribution.zipf(data.sellerIds().length, settings.zipfExponent());
+        this.epoch = settings.epoch();
+    }
+
+    Request next() {
+        Operation operation = pick(random.nextDouble() < analyticsShare ? ANALYTICS : CRUD);
+        HttpRequest.Builder builder = switch (operation) {
+            case GET_TRANSACTION -> get("/api/v1/transactions/" + randomTransactionId());
+            case GET_SELLER -> get("/api/v1/sellers/" + uniformSellerId());
+            case GET_SELLER_TRANSACTIONS -> get("/api/v1/sellers/" + uniformSellerId() + "/transactions");
+            case CREATE_TRANSACTION -> request("/api/v1/transactions")
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(String.format(
+                            "{\"sellerId\":%d,\"amount\":%d.%02d,\"paymentType\":\"%s\"}",
+                            popularSellerId(),
+                            1 + random.nextInt(500),
+                            random.nextInt(100),
+                            PAYMENT_TYPES[random.nextInt(PAYMENT_TYPES.length)]
+                    )));
+            case TOP_SELLER -> get(String.format(
+                    "/api/v1/analytics/top-seller?period=%s&referenceDate=%s",
+                    TOP_SELLER_PERIODS[random.nextInt(TOP_SELLER_PERIODS.length)],
+                    randomPastDate()
+            ));
+            case SELLERS_MAX_SUM -> {
+                LocalDateTime start = randomPastDate();
+                yield get(String.format(
+                        "/api/v1/analytics/sellers-max-sum?threshold=%d&start=%s&end=%s",
+                        100 * (1 + random.nextInt(50)),
+                        start,
+                        start.plusMonths(1)
+                ));
+            }
+            case BEST_DAY -> get("/api/v1/analytics/best-day/" + uniformSellerId());
+        };
+        return new Request(operation, builder.build());
+    }
+
+    private static Operation[] group(boolean analytics) {
+        return Arrays.stream(Operation.values())
+                .filter(o -> o.isAnalytics() == analytics)
+                .toArray(Operation[]::new);
+    }
+
+    private Operation pick(Operation[] group) {
+        int roll = random.nextInt(Arrays.stream(group).mapToInt(Operation::getWeight).sum());
+        for (Operation operation : group) {
+            roll -= operation.getWeight();
+            if (roll < 0) {
+                return operation;
+            }
+        }
+        throw new IllegalStateException("Unreachable: weights are positive");
+    }
+
+    private HttpRequest.Builder get(String path) {
+        return request(path).GET();
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(REQUEST_TIMEOUT);
+    }
+
+    private long randomTransactionId() {
+        return random.nextLong(data.minTransactionId(), data.maxTransactionId() + 1);
+    }
+
+    private int uniformSellerId() {
+        return data.sellerIds()[random.nextInt(data.sellerIds().length)];
+    }
+
+    private int popularSellerId() {
+        return data.sellerIds()[popularity.sample(random)];
+    }
+
+    private LocalDateTime randomPastDate() {
+        return epoch.minusSeconds(random.nextLong(365L * 24 * 60 * 60));
+    }
+}
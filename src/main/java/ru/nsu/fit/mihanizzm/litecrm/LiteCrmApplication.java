@@ -2,12 +2,21 @@ package ru.nsu.fit.mihanizzm.litecrm;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import ru.nsu.fit.mihanizzm.litecrm.seed.SeedRunner;
 
 @SpringBootApplication
+@ConfigurationPropertiesScan
+@ImportRuntimeHints(LiteCrmRuntimeHints.class)
 public class LiteCrmApplication {
 
 	public static void main(String[] args) {
-		SpringApplication.run(LiteCrmApplication.class, args);
+		ConfigurableApplicationContext context = SpringApplication.run(LiteCrmApplication.class, args);
+		if (context.getEnvironment().matchesProfiles(SeedRunner.PROFILE)) {
+			System.exit(SpringApplication.exit(context));
+		}
 	}
 
 }
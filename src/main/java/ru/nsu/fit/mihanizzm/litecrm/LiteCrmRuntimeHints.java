@@ -0,0 +1,57 @@
+package ru.nsu.fit.mihanizzm.litecrm;
+
+import net.ttddyy.dsproxy.proxy.ProxyJdbcObject;
+import org.hibernate.envers.DefaultRevisionEntity;
+import org.hibernate.envers.strategy.internal.DefaultAuditStrategy;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import ru.nsu.fit.mihanizzm.litecrm.models.dtos.LeaderboardDeltaDto;
+import ru.nsu.fit.mihanizzm.litecrm.models.dtos.LeaderboardResponseDto;
+
+import javax.sql.DataSource;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+/**
+ * Reflection and proxy metadata for the native image that Spring AOT can't infer from bean definitions.
+ * Entities, repositories and MapStruct mappers are beans or managed types, so they are covered already.
+ */
+public class LiteCrmRuntimeHints implements RuntimeHintsRegistrar {
+    private static final Class<?>[] PROXIED_JDBC_TYPES = {
+            DataSource.class,
+            Connection.class,
+            Statement.class,
+            PreparedStatement.class,
+            CallableStatement.class,
+            ResultSet.class
+    };
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        // datasource-proxy wraps every JDBC object in a JDK proxy implementing ProxyJdbcObject first
+        for (Class<?> type : PROXIED_JDBC_TYPES) {
+            hints.proxies().registerJdkProxy(ProxyJdbcObject.class, type);
+        }
+
+        // Envers adds its revision entity and audit strategy to the metamodel by class name at bootstrap
+        hints.reflection().registerType(
+                DefaultRevisionEntity.class,
+                MemberCategory.DECLARED_FIELDS,
+                MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
+                MemberCategory.INVOKE_DECLARED_METHODS
+        );
+        hints.reflection().registerType(DefaultAuditStrategy.class, MemberCategory.INVOKE_DECLARED_CONSTRUCTORS);
+
+        // Leaderboard events are written with a plain ObjectMapper rather than through a controller
+        new BindingReflectionHintsRegistrar().registerReflectionHints(
+                hints.reflection(),
+                LeaderboardResponseDto.class,
+                LeaderboardDeltaDto.class
+        );
+    }
+}
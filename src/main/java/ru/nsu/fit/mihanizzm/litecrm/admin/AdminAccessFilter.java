@@ -0,0 +1,66 @@
+package ru.nsu.fit.mihanizzm.litecrm.admin;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * Guards everything under {@value #PATH_PREFIX} with a shared token: the admin API exposes heap and thread details,
+ * moves sellers between shards, rebuilds projections and resets jobs, so it stays disabled until
+ * {@code litecrm.admin.token} is configured.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 5)
+@RequiredArgsConstructor
+public class AdminAccessFilter extends OncePerRequestFilter {
+    public static final String TOKEN_HEADER = "X-Admin-Token";
+    public static final String PATH_PREFIX = "/api/v1/admin";
+
+    private final AdminProperties properties;
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return !path.equals(PATH_PREFIX) && !path.startsWith(PATH_PREFIX + "/");
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+        String expected = properties.token();
+        if (expected == null || expected.isBlank()) {
+            reject(response, HttpStatus.NOT_FOUND, "Admin API is disabled");
+            return;
+        }
+        String actual = request.getHeader(TOKEN_HEADER);
+        // Constant-time comparison, so the token can't be guessed from response timings.
+        if (actual == null || !MessageDigest.isEqual(
+                expected.getBytes(StandardCharsets.UTF_8),
+                actual.getBytes(StandardCharsets.UTF_8))) {
+            reject(response, HttpStatus.UNAUTHORIZED, "Missing or invalid " + TOKEN_HEADER + " header");
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private static void reject(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType("text/plain");
+        response.getWriter().write(message);
+    }
+}
@@ -0,0 +1,14 @@
+package ru.nsu.fit.mihanizzm.litecrm.admin;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Access to the admin API.
+ *
+ * @param token value of the {@code X-Admin-Token} header required under {@code /api/v1/admin};
+ *              the admin API is disabled while it is not set
+ */
+@ConfigurationProperties(prefix = "litecrm.admin")
+public record AdminProperties(
+        String token
+) {}
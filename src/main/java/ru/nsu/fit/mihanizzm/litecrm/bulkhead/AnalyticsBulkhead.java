@@ -0,0 +1,25 @@
+package ru.nsu.fit.mihanizzm.litecrm.bulkhead;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+@Component
+public class AnalyticsBulkhead {
+    private final Executor executor;
+
+    public AnalyticsBulkhead(@Qualifier("analyticsExecutor") Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Runs the call on the analytics executor. Throws {@link java.util.concurrent.RejectedExecutionException}
+     * right away when the executor queue is full.
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> call) {
+        return CompletableFuture.supplyAsync(call, executor);
+    }
+}
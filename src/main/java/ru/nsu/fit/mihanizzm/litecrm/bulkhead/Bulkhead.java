@@ -0,0 +1,6 @@
+package ru.nsu.fit.mihanizzm.litecrm.bulkhead;
+
+public enum Bulkhead {
+    OLTP,
+    ANALYTICS
+}
@@ -0,0 +1,104 @@
+package ru.nsu.fit.mihanizzm.litecrm.bulkhead;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import ru.nsu.fit.mihanizzm.litecrm.sharding.ShardDataSources;
+import ru.nsu.fit.mihanizzm.litecrm.sharding.ShardRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Splits database access into two bulkheads. CRUD requests keep their own connection pool, while analytics
+ * queries run on a dedicated executor that borrows connections from a smaller pool with a shorter
+ * statement timeout, so a slow aggregation cannot starve transaction inserts.
+ */
+@Configuration
+public class BulkheadConfig {
+    @Bean(destroyMethod = "close")
+    public HikariDataSource oltpDataSource(DataSourceProperties dataSourceProperties, BulkheadProperties properties) {
+        return createPool(dataSourceProperties.initializeDataSourceBuilder(), properties.oltp(), "oltp");
+    }
+
+    @Bean(destroyMethod = "close")
+    public HikariDataSource analyticsDataSource(
+            DataSourceProperties dataSourceProperties,
+            BulkheadProperties properties
+    ) {
+        HikariDataSource dataSource = createPool(
+                dataSourceProperties.initializeDataSourceBuilder(),
+                properties.analytics(),
+                "analytics"
+        );
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    /**
+     * Routes by bulkhead and, with sharding enabled, by shard first.
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(ShardDataSources shardDataSources) {
+        if (shardDataSources.count() == 1) {
+            return bulkheads(shardDataSources.oltp(0), shardDataSources.analytics(0));
+        }
+        Map<Object, Object> shards = new HashMap<>();
+        for (int shard = 0; shard < shardDataSources.count(); shard++) {
+            shards.put(shard, bulkheads(shardDataSources.oltp(shard), shardDataSources.analytics(shard)));
+        }
+        ShardRoutingDataSource dataSource = new ShardRoutingDataSource();
+        dataSource.setTargetDataSources(shards);
+        dataSource.setDefaultTargetDataSource(shards.get(0));
+        return dataSource;
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor analyticsExecutor(
+            BulkheadProperties properties,
+            ObservationRegistry observationRegistry
+    ) {
+        BulkheadProperties.Executor settings = properties.analyticsExecutor();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("analytics-");
+        executor.setCorePoolSize(settings.poolSize());
+        executor.setMaxPoolSize(settings.poolSize());
+        executor.setQueueCapacity(settings.queueCapacity());
+        executor.setTaskDecorator(new BulkheadTaskDecorator(Bulkhead.ANALYTICS, observationRegistry));
+        return executor;
+    }
+
+    public static HikariDataSource createPool(
+            DataSourceBuilder<?> builder,
+            BulkheadProperties.Pool settings,
+            String poolName
+    ) {
+        HikariDataSource dataSource = builder
+                .type(HikariDataSource.class)
+                .build();
+        dataSource.setPoolName(poolName);
+        dataSource.setMaximumPoolSize(settings.maximumPoolSize());
+        dataSource.setMinimumIdle(settings.minimumIdle());
+        dataSource.setConnectionTimeout(settings.connectionTimeout().toMillis());
+        dataSource.setConnectionInitSql("SET statement_timeout = " + settings.statementTimeout().toMillis());
+        return dataSource;
+    }
+
+    private static DataSource bulkheads(DataSource oltpDataSource, DataSource analyticsDataSource) {
+        BulkheadRoutingDataSource dataSource = new BulkheadRoutingDataSource();
+        dataSource.setTargetDataSources(Map.of(
+                Bulkhead.OLTP, oltpDataSource,
+                Bulkhead.ANALYTICS, analyticsDataSource
+        ));
+        dataSource.setDefaultTargetDataSource(oltpDataSource);
+        dataSource.afterPropertiesSet();
+        return dataSource;
+    }
+}
@@ -0,0 +1,25 @@
+package ru.nsu.fit.mihanizzm.litecrm.bulkhead;
+
+/**
+ * Bulkhead of the current thread. Threads that were not assigned to a bulkhead explicitly
+ * (request threads, schedulers) belong to {@link Bulkhead#OLTP}.
+ */
+public final class BulkheadContext {
+    private static final ThreadLocal<Bulkhead> CURRENT = new ThreadLocal<>();
+
+    private BulkheadContext() {
+    }
+
+    public static Bulkhead current() {
+        Bulkhead bulkhead = CURRENT.get();
+        return bulkhead == null ? Bulkhead.OLTP : bulkhead;
+    }
+
+    public static void set(Bulkhead bulkhead) {
+        CURRENT.set(bulkhead);
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+    }
+}
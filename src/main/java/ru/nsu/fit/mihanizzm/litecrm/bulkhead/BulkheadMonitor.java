@@ -0,0 +1,52 @@
+package ru.nsu.fit.mihanizzm.litecrm.bulkhead;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import ru.nsu.fit.mihanizzm.litecrm.models.dtos.BulkheadResponseDto;
+
+import java.util.List;
+
+@Component
+public class BulkheadMonitor {
+    private final HikariDataSource oltpDataSource;
+    private final HikariDataSource analyticsDataSource;
+    private final ThreadPoolTaskExecutor analyticsExecutor;
+
+    public BulkheadMonitor(
+            @Qualifier("oltpDataSource") HikariDataSource oltpDataSource,
+            @Qualifier("analyticsDataSource") HikariDataSource analyticsDataSource,
+            @Qualifier("analyticsExecutor") ThreadPoolTaskExecutor analyticsExecutor
+    ) {
+        this.oltpDataSource = oltpDataSource;
+        this.analyticsDataSource = analyticsDataSource;
+        this.analyticsExecutor = analyticsExecutor;
+    }
+
+    public List<BulkheadResponseDto> snapshot() {
+        return List.of(
+                poolSnapshot(Bulkhead.OLTP, oltpDataSource, null),
+                poolSnapshot(Bulkhead.ANALYTICS, analyticsDataSource, analyticsExecutor)
+        );
+    }
+
+    private BulkheadResponseDto poolSnapshot(
+            Bulkhead bulkhead,
+            HikariDataSource dataSource,
+            ThreadPoolTaskExecutor executor
+    ) {
+        HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+        return new BulkheadResponseDto(
+                bulkhead.name(),
+                dataSource.getMaximumPoolSize(),
+                pool == null ? 0 : pool.getActiveConnections(),
+                pool == null ? 0 : pool.getIdleConnections(),
+                pool == null ? 0 : pool.getThreadsAwaitingConnection(),
+                executor == null ? null : executor.getActiveCount(),
+                executor == null ? null : executor.getQueueSize(),
+                executor == null ? null : executor.getQueueCapacity()
+        );
+    }
+}
@@ -0,0 +1,40 @@
+package ru.nsu.fit.mihanizzm.litecrm.bulkhead;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "litecrm.bulkhead")
+public record BulkheadProperties(
+        @DefaultValue
+        Pool oltp,
+
+        @DefaultValue
+        Pool analytics,
+
+        @DefaultValue
+        Executor analyticsExecutor
+) {
+    public record Pool(
+            @DefaultValue("10")
+            int maximumPoolSize,
+
+            @DefaultValue("2")
+            int minimumIdle,
+
+            @DefaultValue("5s")
+            Duration connectionTimeout,
+
+            @DefaultValue("30s")
+            Duration statementTimeout
+    ) {}
+
+    public record Executor(
+            @DefaultValue("4")
+            int poolSize,
+
+            @DefaultValue("50")
+            int queueCapacity
+    ) {}
+}
@@ -0,0 +1,10 @@
+package ru.nsu.fit.mihanizzm.litecrm.bulkhead;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+public class BulkheadRoutingDataSource extends AbstractRoutingDataSource {
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return BulkheadContext.current();
+    }
+}
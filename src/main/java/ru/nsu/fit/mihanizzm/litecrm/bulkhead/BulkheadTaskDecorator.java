@@ -0,0 +1,46 @@
+package ru.nsu.fit.mihanizzm.litecrm.bulkhead;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.MDC;
+import org.springframework.core.task.TaskDecorator;
+import ru.nsu.fit.mihanizzm.litecrm.sql.SqlStats;
+import ru.nsu.fit.mihanizzm.litecrm.sql.SqlStatsContext;
+
+import java.util.Map;
+
+/**
+ * Runs tasks inside the given bulkhead and carries the MDC, the {@link SqlStats} and the current observation
+ * of the submitting thread over, so log lines, queries and spans on executor threads are attributed to the request.
+ */
+@RequiredArgsConstructor
+public class BulkheadTaskDecorator implements TaskDecorator {
+    private final Bulkhead bulkhead;
+    private final ObservationRegistry observationRegistry;
+
+    @Override
+    public Runnable decorate(Runnable runnable) {
+        Map<String, String> mdc = MDC.getCopyOfContextMap();
+        SqlStats sqlStats = SqlStatsContext.current();
+        Observation observation = observationRegistry.getCurrentObservation();
+        return () -> {
+            BulkheadContext.set(bulkhead);
+            if (mdc != null) {
+                MDC.setContextMap(mdc);
+            }
+            SqlStatsContext.set(sqlStats);
+            Observation.Scope scope = observation == null ? null : observation.openScope();
+            try {
+                runnable.run();
+            } finally {
+                if (scope != null) {
+                    scope.close();
+                }
+                SqlStatsContext.clear();
+                MDC.clear();
+                BulkheadContext.clear();
+            }
+        };
+    }
+}
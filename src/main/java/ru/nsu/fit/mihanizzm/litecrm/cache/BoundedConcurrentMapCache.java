@@ -0,0 +1,40 @@
+package ru.nsu.fit.mihanizzm.litecrm.cache;
+
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link ConcurrentMapCache} that holds at most {@code maxEntries} entries. When full it evicts whichever
+ * entry the map iterates first. That is close to random, which is good enough for caches kept fresh by
+ * invalidation rather than by expiry.
+ */
+class BoundedConcurrentMapCache extends ConcurrentMapCache {
+    private final int maxEntries;
+
+    BoundedConcurrentMapCache(String name, int maxEntries) {
+        super(name, new ConcurrentHashMap<>(), false);
+        this.maxEntries = maxEntries;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        makeRoomFor(key);
+        super.put(key, value);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        makeRoomFor(key);
+        return super.putIfAbsent(key, value);
+    }
+
+    private void makeRoomFor(Object key) {
+        Iterator<Object> keys = getNativeCache().keySet().iterator();
+        while (getNativeCache().size() >= maxEntries && !getNativeCache().containsKey(key) && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package ru.nsu.fit.mihanizzm.litecrm.cache;
+
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.cache.support.NoOpCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+/**
+ * Local caches of service results. Every instance keeps its own copy, and writes on any instance evict
+ * the affected entries everywhere through {@link CacheInvalidationBus}.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+    @Bean
+    public CacheManager cacheManager(CacheProperties properties) {
+        if (!properties.enabled()) {
+            return new NoOpCacheManager();
+        }
+        ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager() {
+            @Override
+            protected ConcurrentMapCache createConcurrentMapCache(String name) {
+                return new BoundedConcurrentMapCache(name, properties.maxEntries());
+            }
+        };
+        // Fixed names, so that a typo in @Cacheable fails instead of creating a cache nobody invalidates
+        cacheManager.setCacheNames(List.of(
+                CacheNames.SELLERS,
+                CacheNames.TRANSACTIONS,
+                CacheNames.TOP_SELLER,
+                CacheNames.BEST_DAY
+        ));
+        return cacheManager;
+    }
+}
@@ -0,0 +1,168 @@
+package ru.nsu.fit.mihanizzm.litecrm.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Publishes {@link ChangeEvent}s once the surrounding transaction commits. The local caches are evicted right away
+ * on the committing thread; the other instances are told through {@code pg_notify} by a background sender that
+ * coalesces the events of a {@link CacheProperties#batchWindow()} into as few notifications as possible. If the
+ * queue overflows or a notification can't be sent, a full flush is sent instead, since a lost event could leave
+ * a stale entry on another instance forever.
+ */
+@Slf4j
+@Component
+public class CacheInvalidationBus implements AutoCloseable {
+    /** PostgreSQL rejects payloads of 8000 bytes and more; encoded events are ASCII. */
+    static final int MAX_PAYLOAD_LENGTH = 7999;
+    private static final long CLOSE_TIMEOUT_MILLIS = 5000;
+
+    private final CacheProperties properties;
+    private final CacheInvalidator invalidator;
+    private final JdbcTemplate jdbcTemplate;
+    private final BlockingQueue<ChangeEvent> queue;
+    private final AtomicBoolean flushPending = new AtomicBoolean();
+    private final Counter notificationsSent;
+    private final Thread senderThread;
+    private volatile boolean closed;
+
+    public CacheInvalidationBus(
+            CacheProperties properties,
+            CacheInvalidator invalidator,
+            DataSource dataSource,
+            MeterRegistry meterRegistry
+    ) {
+        this.properties = properties;
+        this.invalidator = invalidator;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.queue = new ArrayBlockingQueue<>(properties.queueCapacity());
+        this.notificationsSent = Counter.builder("litecrm.cache.notifications")
+                .description("Cache invalidation notifications")
+                .tag("direction", "sent")
+                .register(meterRegistry);
+        this.senderThread = properties.enabled()
+                ? Thread.ofPlatform().name("cache-invalidation-sender").daemon().start(this::sendLoop)
+                : null;
+    }
+
+    /**
+     * Publishes the events after the current transaction commits, or right away outside a transaction.
+     * Nothing is published for a rolled back transaction.
+     */
+    public void publish(ChangeEvent... events) {
+        if (!properties.enabled()) {
+            return;
+        }
+        List<ChangeEvent> batch = List.of(events);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    dispatch(batch);
+                }
+            });
+        } else {
+            dispatch(batch);
+        }
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        closed = true;
+        if (senderThread != null) {
+            senderThread.join(CLOSE_TIMEOUT_MILLIS);
+        }
+    }
+
+    private void dispatch(List<ChangeEvent> events) {
+        invalidator.apply(events);
+        for (ChangeEvent event : events) {
+            if (closed || !queue.offer(event)) {
+                flushPending.set(true);
+            }
+        }
+    }
+
+    private void sendLoop() {
+        try {
+            while (!closed || !queue.isEmpty()) {
+                ChangeEvent first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null && !flushPending.get()) {
+                    continue;
+                }
+                if (!closed) {
+                    // Lets a burst of writes accumulate into one notification
+                    Thread.sleep(properties.batchWindow().toMillis());
+                }
+                List<ChangeEvent> events = new ArrayList<>();
+                if (first != null) {
+                    events.add(first);
+                }
+                queue.drainTo(events);
+                send(events);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void send(List<ChangeEvent> events) throws InterruptedException {
+        Set<String> encoded = new LinkedHashSet<>();
+        if (flushPending.getAndSet(false)) {
+            encoded.add(ChangeEvent.flushAll().encode());
+        } else {
+            events.forEach(event -> encoded.add(event.encode()));
+        }
+        try {
+            for (String payload : payloads(encoded)) {
+                jdbcTemplate.execute("SELECT pg_notify(?, ?)", (PreparedStatement statement) -> {
+                    statement.setString(1, properties.channel());
+                    statement.setString(2, payload);
+                    return statement.execute();
+                });
+                notificationsSent.increment();
+            }
+        } catch (DataAccessException e) {
+            flushPending.set(true);
+            log.warn("couldn't send cache invalidation, a full flush will be sent once the database is back", e);
+            Thread.sleep(properties.reconnectDelay().toMillis());
+        }
+    }
+
+    static List<String> payloads(Set<String> encoded) {
+        List<String> payloads = new ArrayList<>();
+        StringBuilder payload = new StringBuilder();
+        for (String event : encoded) {
+            if (payload.isEmpty()) {
+                payload.append(event);
+            } else if (payload.length() + ChangeEvent.SEPARATOR.length() + event.length() > MAX_PAYLOAD_LENGTH) {
+                payloads.add(payload.toString());
+                payload.setLength(0);
+                payload.append(event);
+            } else {
+                payload.append(ChangeEvent.SEPARATOR).append(event);
+            }
+        }
+        if (!payload.isEmpty()) {
+            payloads.add(payload.toString());
+        }
+        return payloads;
+    }
+}
@@ -0,0 +1,153 @@
+package ru.nsu.fit.mihanizzm.litecrm.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashSet;
+import java.util.Properties;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Listens for {@link ChangeEvent}s from all instances, this one included, and evicts the local caches.
+ * Notifications that arrive within {@link CacheProperties#batchWindow()} of each other are applied together.
+ * <p>
+ * The listener holds its own connection outside the pools: {@code LISTEN} is bound to a session, and a pool
+ * would recycle it. Notifications sent while the connection is down are lost, so the caches are flushed
+ * whenever it is lost and again once the listener is subscribed anew.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "litecrm.cache", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class CacheInvalidationListener implements AutoCloseable {
+    private static final int POLL_MILLIS = 500;
+    private static final long HEARTBEAT_NANOS = TimeUnit.SECONDS.toNanos(10);
+    private static final int VALIDATION_TIMEOUT_SECONDS = 5;
+    private static final long CLOSE_TIMEOUT_MILLIS = 5000;
+
+    private final CacheProperties properties;
+    private final CacheInvalidator invalidator;
+    private final String url;
+    private final Properties connectionProperties = new Properties();
+    private final Counter notificationsReceived;
+    private final Thread listenerThread;
+    private final CountDownLatch subscribed = new CountDownLatch(1);
+    private volatile boolean closed;
+
+    public CacheInvalidationListener(
+            CacheProperties properties,
+            CacheInvalidator invalidator,
+            DataSourceProperties dataSourceProperties,
+            MeterRegistry meterRegistry
+    ) {
+        this.properties = properties;
+        this.invalidator = invalidator;
+        this.url = dataSourceProperties.determineUrl();
+        this.connectionProperties.setProperty("user", dataSourceProperties.determineUsername());
+        this.connectionProperties.setProperty("password", dataSourceProperties.determinePassword());
+        this.connectionProperties.setProperty("tcpKeepAlive", "true");
+        this.connectionProperties.setProperty("ApplicationName", "litecrm-cache-listener");
+        this.notificationsReceived = Counter.builder("litecrm.cache.notifications")
+                .description("Cache invalidation notifications")
+                .tag("direction", "received")
+                .register(meterRegistry);
+        this.listenerThread = Thread.ofPlatform()
+                .name("cache-invalidation-listener")
+                .daemon()
+                .start(this::listenLoop);
+    }
+
+    /**
+     * Waits until the listener is subscribed for the first time. Entries put into the caches before that are
+     * flushed once it is.
+     *
+     * @return whether the listener is subscribed
+     */
+    public boolean awaitSubscribed(Duration timeout) throws InterruptedException {
+        return subscribed.await(timeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        closed = true;
+        listenerThread.join(CLOSE_TIMEOUT_MILLIS);
+    }
+
+    private void listenLoop() {
+        try {
+            while (!closed) {
+                try (Connection connection = DriverManager.getConnection(url, connectionProperties);
+                     Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + properties.channel());
+                    invalidator.flushAll();
+                    subscribed.countDown();
+                    log.info("listening for cache invalidations on channel {}", properties.channel());
+                    receive(connection);
+                } catch (SQLException e) {
+                    if (!closed) {
+                        invalidator.flushAll();
+                        log.warn(
+                                "cache invalidation listener is disconnected, reconnecting in {}",
+                                properties.reconnectDelay(),
+                                e
+                        );
+                        Thread.sleep(properties.reconnectDelay().toMillis());
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void receive(Connection connection) throws SQLException {
+        PGConnection notifications = connection.unwrap(PGConnection.class);
+        long lastActivity = System.nanoTime();
+        while (!closed) {
+            PGNotification[] received = notifications.getNotifications(POLL_MILLIS);
+            if (received == null || received.length == 0) {
+                // A silently dropped connection would otherwise look like a quiet channel
+                if (System.nanoTime() - lastActivity > HEARTBEAT_NANOS) {
+                    if (!connection.isValid(VALIDATION_TIMEOUT_SECONDS)) {
+                        throw new SQLException("listener connection is no longer valid");
+                    }
+                    lastActivity = System.nanoTime();
+                }
+                continue;
+            }
+
+            Set<ChangeEvent> batch = new LinkedHashSet<>();
+            collect(received, batch);
+            long deadline = System.nanoTime() + properties.batchWindow().toNanos();
+            long remaining;
+            while ((remaining = deadline - System.nanoTime()) > 0) {
+                int waitMillis = (int) Math.max(1, TimeUnit.NANOSECONDS.toMillis(remaining));
+                collect(notifications.getNotifications(waitMillis), batch);
+            }
+            invalidator.apply(batch);
+            lastActivity = System.nanoTime();
+        }
+    }
+
+    private void collect(PGNotification[] received, Set<ChangeEvent> batch) {
+        if (received == null) {
+            return;
+        }
+        for (PGNotification notification : received) {
+            batch.addAll(ChangeEvent.decodeAll(notification.getParameter()));
+        }
+        notificationsReceived.increment(received.length);
+    }
+}
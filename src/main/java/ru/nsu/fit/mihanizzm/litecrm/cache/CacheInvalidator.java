@@ -0,0 +1,125 @@
+package ru.nsu.fit.mihanizzm.litecrm.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import ru.nsu.fit.mihanizzm.litecrm.models.Period;
+import ru.nsu.fit.mihanizzm.litecrm.models.dtos.SellerResponseDto;
+import ru.nsu.fit.mihanizzm.litecrm.models.dtos.TransactionResponseDto;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiPredicate;
+import java.util.function.Consumer;
+
+/**
+ * Evicts the local cache entries a batch of {@link ChangeEvent}s may have made stale:
+ * <ul>
+ *     <li>a seller event evicts the seller, its best day, its transactions and the periods it is top seller of;</li>
+ *     <li>a transaction event evicts the transaction, its seller's best day and the top seller of every period
+ *     containing its day.</li>
+ * </ul>
+ * Other local state derived from the database can follow the same events through {@link #addListener}.
+ */
+@Component
+public class CacheInvalidator {
+    private final CacheManager cacheManager;
+    private final Counter eventBatches;
+    private final Counter fullFlushes;
+    private final List<Consumer<Collection<ChangeEvent>>> listeners = new CopyOnWriteArrayList<>();
+
+    public CacheInvalidator(CacheManager cacheManager, MeterRegistry meterRegistry) {
+        this.cacheManager = cacheManager;
+        this.eventBatches = Counter.builder("litecrm.cache.invalidations")
+                .description("Batches of change events applied to the local caches")
+                .tag("kind", "events")
+                .register(meterRegistry);
+        this.fullFlushes = Counter.builder("litecrm.cache.invalidations")
+                .description("Batches of change events applied to the local caches")
+                .tag("kind", "flush")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Registers a listener called with every batch of events applied here, local or published by other instances.
+     * Full flushes after a lost notification connection aren't passed on.
+     */
+    public void addListener(Consumer<Collection<ChangeEvent>> listener) {
+        listeners.add(listener);
+    }
+
+    public void apply(Collection<ChangeEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        listeners.forEach(listener -> listener.accept(events));
+        Set<Integer> sellers = new HashSet<>();
+        Set<Integer> transactions = new HashSet<>();
+        Set<Integer> affectedSellers = new HashSet<>();
+        Set<LocalDate> days = new HashSet<>();
+        for (ChangeEvent event : events) {
+            switch (event.type()) {
+                case ALL -> {
+                    flushAll();
+                    return;
+                }
+                case SELLER -> sellers.add(event.id());
+                case TRANSACTION -> {
+                    transactions.add(event.id());
+                    days.add(event.day());
+                }
+            }
+            affectedSellers.add(event.sellerId());
+        }
+
+        evictKeys(CacheNames.SELLERS, sellers);
+        evictKeys(CacheNames.BEST_DAY, affectedSellers);
+        evictKeys(CacheNames.TRANSACTIONS, transactions);
+        if (!sellers.isEmpty()) {
+            evictIf(CacheNames.TRANSACTIONS, (key, value) ->
+                    value instanceof TransactionResponseDto transaction && sellers.contains(transaction.sellerId()));
+        }
+        evictIf(CacheNames.TOP_SELLER, (key, value) ->
+                key instanceof Period period && days.stream().anyMatch(day -> period.contains(day.atStartOfDay()))
+                        || value instanceof SellerResponseDto seller && sellers.contains(seller.id()));
+        eventBatches.increment();
+    }
+
+    public void flushAll() {
+        for (String name : cacheManager.getCacheNames()) {
+            Cache cache = cacheManager.getCache(name);
+            if (cache != null) {
+                cache.clear();
+            }
+        }
+        fullFlushes.increment();
+    }
+
+    private void evictKeys(String name, Set<Integer> keys) {
+        Cache cache = cacheManager.getCache(name);
+        if (cache != null) {
+            keys.forEach(cache::evict);
+        }
+    }
+
+    /** Scans the whole cache, which stays cheap for caches of a few thousand entries. */
+    private void evictIf(String name, BiPredicate<Object, Object> stale) {
+        Cache cache = cacheManager.getCache(name);
+        if (cache == null) {
+            return;
+        }
+        if (cache.getNativeCache() instanceof ConcurrentMap<?, ?> entries) {
+            entries.entrySet().removeIf((Map.Entry<?, ?> entry) -> stale.test(entry.getKey(), entry.getValue()));
+        } else {
+            cache.clear();
+        }
+    }
+}
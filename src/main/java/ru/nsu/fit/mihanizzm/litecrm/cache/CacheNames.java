@@ -0,0 +1,15 @@
+package ru.nsu.fit.mihanizzm.litecrm.cache;
+
+/**
+ * Caches of service results. Keys are the entity id, except {@link #TOP_SELLER}, which is keyed by
+ * {@link ru.nsu.fit.mihanizzm.litecrm.models.Period}.
+ */
+public final class CacheNames {
+    public static final String SELLERS = "sellers";
+    public static final String TRANSACTIONS = "transactions";
+    public static final String TOP_SELLER = "top-seller";
+    public static final String BEST_DAY = "best-day";
+
+    private CacheNames() {
+    }
+}
@@ -0,0 +1,46 @@
+package ru.nsu.fit.mihanizzm.litecrm.cache;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * In-process caches of service results and their invalidation across instances.
+ *
+ * @param maxEntries     upper bound of every cache; an arbitrary entry is evicted to make room
+ * @param channel        PostgreSQL {@code LISTEN/NOTIFY} channel change events are sent over
+ * @param batchWindow    events arriving within this window are coalesced into one notification
+ *                       and one round of local evictions
+ * @param queueCapacity  events waiting to be sent; on overflow a full flush is sent instead
+ * @param reconnectDelay pause before the listener reconnects after losing its connection
+ */
+@ConfigurationProperties(prefix = "litecrm.cache")
+public record CacheProperties(
+        @DefaultValue("true")
+        boolean enabled,
+
+        @DefaultValue("10000")
+        int maxEntries,
+
+        @DefaultValue(DEFAULT_CHANNEL)
+        String channel,
+
+        @DefaultValue("50ms")
+        Duration batchWindow,
+
+        @DefaultValue("10000")
+        int queueCapacity,
+
+        @DefaultValue("1s")
+        Duration reconnectDelay
+) {
+    public static final String DEFAULT_CHANNEL = "litecrm_cache_invalidation";
+
+    public CacheProperties {
+        // The channel is an identifier in LISTEN, which can't take a bind parameter
+        if (!channel.matches("[a-z_][a-z0-9_]*")) {
+            throw new IllegalArgumentException("litecrm.cache.channel must be a lowercase identifier, got " + channel);
+        }
+    }
+}
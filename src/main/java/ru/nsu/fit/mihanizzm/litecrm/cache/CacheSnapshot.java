@@ -0,0 +1,267 @@
+package ru.nsu.fit.mihanizzm.litecrm.cache;
+
+import ru.nsu.fit.mihanizzm.litecrm.models.Period;
+import ru.nsu.fit.mihanizzm.litecrm.models.dtos.BestDayResponseDto;
+import ru.nsu.fit.mihanizzm.litecrm.models.dtos.SellerResponseDto;
+import ru.nsu.fit.mihanizzm.litecrm.models.dtos.TransactionResponseDto;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+/**
+ * Entries of the caches at one point in time, stored as a binary file: a header with the format version, the time
+ * of the snapshot and the audit revision up to which the entries are known to be fresh, then the entries of every
+ * cache, then a CRC32C of all of the above. Keys and values are written field by field, tagged with their type;
+ * entries of other types are not stored.
+ *
+ * @param watermark changes recorded in audit revisions after this one may not be reflected in the entries
+ */
+record CacheSnapshot(long takenAtMillis, long watermark, Map<String, Map<Object, Object>> caches) {
+    private static final int MAGIC = 0x4C43_534E;
+    private static final short VERSION = 1;
+    private static final int INITIAL_CAPACITY = 64 * 1024;
+
+    private static final byte INTEGER = 1;
+    private static final byte PERIOD = 2;
+    private static final byte SELLER = 3;
+    private static final byte TRANSACTION = 4;
+    private static final byte BEST_DAY = 5;
+
+    static boolean supports(Object value) {
+        return value instanceof Integer
+                || value instanceof Period
+                || value instanceof SellerResponseDto
+                || value instanceof TransactionResponseDto
+                || value instanceof BestDayResponseDto;
+    }
+
+    /**
+     * Writes the snapshot through a file channel and forces it to disk.
+     */
+    void write(Path file) throws IOException {
+        Output out = new Output();
+        out.buffer.putInt(MAGIC).putShort(VERSION).putLong(takenAtMillis).putLong(watermark).putInt(caches.size());
+        for (Map.Entry<String, Map<Object, Object>> cache : caches.entrySet()) {
+            out.putString(cache.getKey());
+            out.ensure(Integer.BYTES).putInt(cache.getValue().size());
+            for (Map.Entry<Object, Object> entry : cache.getValue().entrySet()) {
+                out.putValue(entry.getKey());
+                out.putValue(entry.getValue());
+            }
+        }
+        ByteBuffer content = out.buffer.flip();
+        CRC32C crc = new CRC32C();
+        crc.update(content.duplicate());
+        ByteBuffer checksum = ByteBuffer.allocate(Integer.BYTES).putInt(0, (int) crc.getValue());
+
+        try (FileChannel channel = FileChannel.open(
+                file,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE
+        )) {
+            while (content.hasRemaining() || checksum.hasRemaining()) {
+                channel.write(new ByteBuffer[] {content, checksum});
+            }
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Maps the file and reads the snapshot from it.
+     *
+     * @throws IOException if the file is damaged or of another format version
+     */
+    static CacheSnapshot read(Path file) throws IOException {
+        MappedByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        int length = mapped.capacity() - Integer.BYTES;
+        if (length < Integer.BYTES + Short.BYTES) {
+            throw new IOException(file + " is truncated");
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(mapped.slice(0, length));
+        if (mapped.getInt(length) != (int) crc.getValue()) {
+            throw new IOException(file + " is damaged, its checksum doesn't match");
+        }
+        ByteBuffer in = mapped.slice(0, length);
+        if (in.getInt() != MAGIC || in.getShort() != VERSION) {
+            throw new IOException(file + " is not a cache snapshot of version " + VERSION);
+        }
+
+        try {
+            long takenAtMillis = in.getLong();
+            long watermark = in.getLong();
+            int cacheCount = in.getInt();
+            Map<String, Map<Object, Object>> caches = new LinkedHashMap<>();
+            for (int i = 0; i < cacheCount; i++) {
+                String name = getString(in);
+                int entryCount = in.getInt();
+                Map<Object, Object> entries = new LinkedHashMap<>();
+                for (int j = 0; j < entryCount; j++) {
+                    entries.put(getValue(in), getValue(in));
+                }
+                caches.put(name, entries);
+            }
+            return new CacheSnapshot(takenAtMillis, watermark, caches);
+        } catch (RuntimeException e) {
+            // A checksum collision or a bug; either way the file can't be used
+            throw new IOException(file + " can't be parsed", e);
+        }
+    }
+
+    private static Object getValue(ByteBuffer in) throws IOException {
+        byte type = in.get();
+        return switch (type) {
+            case INTEGER -> in.getInt();
+            case PERIOD -> new Period(getDateTime(in), getDateTime(in));
+            case SELLER -> new SellerResponseDto(getInteger(in), getString(in), getString(in), getDateTime(in));
+            case TRANSACTION -> new TransactionResponseDto(
+                    getInteger(in),
+                    getInteger(in),
+                    getDecimal(in),
+                    getString(in),
+                    getDateTime(in)
+            );
+            case BEST_DAY -> new BestDayResponseDto(in.get() == 0 ? null : LocalDate.ofEpochDay(in.getLong()));
+            default -> throw new IOException("Unknown value type " + type);
+        };
+    }
+
+    private static Integer getInteger(ByteBuffer in) {
+        return in.get() == 0 ? null : in.getInt();
+    }
+
+    private static String getString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static LocalDateTime getDateTime(ByteBuffer in) {
+        if (in.get() == 0) {
+            return null;
+        }
+        long seconds = in.getLong();
+        return LocalDateTime.ofEpochSecond(seconds, in.getInt(), ZoneOffset.UTC);
+    }
+
+    private static BigDecimal getDecimal(ByteBuffer in) {
+        int scale = in.getInt();
+        int length = in.getShort();
+        if (length < 0) {
+            return null;
+        }
+        byte[] unscaled = new byte[length];
+        in.get(unscaled);
+        return new BigDecimal(new BigInteger(unscaled), scale);
+    }
+
+    /**
+     * A heap buffer that grows as values are written.
+     */
+    private static final class Output {
+        private ByteBuffer buffer = ByteBuffer.allocate(INITIAL_CAPACITY);
+
+        ByteBuffer ensure(int bytes) {
+            if (buffer.remaining() < bytes) {
+                ByteBuffer grown = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes));
+                buffer = grown.put(buffer.flip());
+            }
+            return buffer;
+        }
+
+        void putValue(Object value) {
+            switch (value) {
+                case Integer integer -> ensure(5).put(INTEGER).putInt(integer);
+                case Period period -> {
+                    ensure(1).put(PERIOD);
+                    putDateTime(period.start());
+                    putDateTime(period.end());
+                }
+                case SellerResponseDto seller -> {
+                    ensure(1).put(SELLER);
+                    putInteger(seller.id());
+                    putString(seller.name());
+                    putString(seller.contactInfo());
+                    putDateTime(seller.registrationDate());
+                }
+                case TransactionResponseDto transaction -> {
+                    ensure(1).put(TRANSACTION);
+                    putInteger(transaction.id());
+                    putInteger(transaction.sellerId());
+                    putDecimal(transaction.amount());
+                    putString(transaction.paymentType());
+                    putDateTime(transaction.transactionDate());
+                }
+                case BestDayResponseDto bestDay -> {
+                    ensure(10).put(BEST_DAY);
+                    if (bestDay.bestDay() == null) {
+                        buffer.put((byte) 0);
+                    } else {
+                        buffer.put((byte) 1).putLong(bestDay.bestDay().toEpochDay());
+                    }
+                }
+                default -> throw new IllegalArgumentException("Can't store " + value.getClass().getName());
+            }
+        }
+
+        private void putInteger(Integer value) {
+            ensure(5);
+            if (value == null) {
+                buffer.put((byte) 0);
+            } else {
+                buffer.put((byte) 1).putInt(value);
+            }
+        }
+
+        private void putString(String value) {
+            if (value == null) {
+                ensure(Integer.BYTES).putInt(-1);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            ensure(Integer.BYTES + bytes.length).putInt(bytes.length).put(bytes);
+        }
+
+        private void putDateTime(LocalDateTime value) {
+            ensure(13);
+            if (value == null) {
+                buffer.put((byte) 0);
+            } else {
+                buffer.put((byte) 1).putLong(value.toEpochSecond(ZoneOffset.UTC)).putInt(value.getNano());
+            }
+        }
+
+        private void putDecimal(BigDecimal value) {
+            if (value == null) {
+                ensure(Integer.BYTES + Short.BYTES).putInt(0).putShort((short) -1);
+                return;
+            }
+            byte[] unscaled = value.unscaledValue().toByteArray();
+            ensure(Integer.BYTES + Short.BYTES + unscaled.length)
+                    .putInt(value.scale())
+                    .putShort((short) unscaled.length)
+                    .put(unscaled);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package ru.nsu.fit.mihanizzm.litecrm.cache;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Snapshots of the caches taken by {@link CacheSnapshotter}.
+ *
+ * @param enabled       whether the caches are saved periodically and on shutdown, and restored on startup
+ * @param directory     directory of the snapshot files; every instance needs a directory of its own
+ * @param interval      delay between two snapshots
+ * @param catchUpMargin changes committed this long before a snapshot are still replayed after restoring it,
+ *                      which covers slow transactions, late notifications and clock skew between instances
+ * @param retained      snapshot files kept; an older one is restored if the latest is damaged
+ */
+@ConfigurationProperties(prefix = "litecrm.cache.snapshot")
+public record CacheSnapshotProperties(
+        @DefaultValue("true")
+        boolean enabled,
+
+        @DefaultValue("snapshots")
+        Path directory,
+
+        @DefaultValue("5m")
+        Duration interval,
+
+        @DefaultValue("1m")
+        Duration catchUpMargin,
+
+        @DefaultValue("2")
+        int retained
+) {}
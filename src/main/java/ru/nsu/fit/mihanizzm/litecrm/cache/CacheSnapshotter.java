@@ -0,0 +1,277 @@
+package ru.nsu.fit.mihanizzm.litecrm.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Component;
+import ru.nsu.fit.mihanizzm.litecrm.seed.SeedRunner;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Saves the caches to a {@link CacheSnapshot} periodically and on shutdown, and restores the latest snapshot on
+ * startup, so that a restarted instance starts with warm caches instead of recomputing every entry.
+ * <p>
+ * Changes made while the instance was down are caught up from the Envers audit tables: every seller and
+ * transaction changed in a revision after the watermark of the snapshot is turned into a {@link ChangeEvent} and
+ * evicted. The watermark is the last revision older than the snapshot by the catch-up margin plus the lag of the
+ * projector, since analytics entries only go stale once a change is projected.
+ * <p>
+ * Only the Spring caches are saved. The leaderboard and the daily totals are saved by
+ * {@link ru.nsu.fit.mihanizzm.litecrm.totals.TotalsSnapshotter} instead, with outbox event IDs as the watermark: the
+ * transaction date isn't audited, so the audit tables couldn't tell which days of a seller changed.
+ */
+@Slf4j
+@Component
+@Profile("!" + SeedRunner.PROFILE)
+@ConditionalOnExpression("${litecrm.cache.enabled:true} and ${litecrm.cache.snapshot.enabled:true} " +
+        "and !${litecrm.sharding.enabled:false}")
+public class CacheSnapshotter implements AutoCloseable {
+    private static final String ENVERS_ENABLED = "spring.jpa.properties.hibernate.integration.envers.enabled";
+    private static final String FILE_PREFIX = "cache-";
+    private static final String FILE_SUFFIX = ".snapshot";
+    private static final Duration SUBSCRIBE_TIMEOUT = Duration.ofSeconds(10);
+    private static final List<String> CACHES = List.of(
+            CacheNames.SELLERS,
+            CacheNames.TRANSACTIONS,
+            CacheNames.TOP_SELLER,
+            CacheNames.BEST_DAY
+    );
+
+    private static final String WATERMARK = "SELECT rev FROM revinfo WHERE revtstmp < ? ORDER BY rev DESC LIMIT 1";
+    private static final String PROJECTION_LAG = "SELECT COALESCE(" +
+            "CAST(EXTRACT(EPOCH FROM localtimestamp - MIN(created_at)) * 1000 AS BIGINT), 0) " +
+            "FROM app.transaction_event";
+    private static final String CHANGED_SELLERS = "SELECT DISTINCT id FROM app.seller_aud WHERE rev > ?";
+    // Every seller a changed transaction ever had, and its day; a deleted transaction has no day left
+    private static final String CHANGED_TRANSACTIONS = "SELECT DISTINCT a.id, a.seller_id, t.transaction_date " +
+            "FROM app.transaction_aud a " +
+            "JOIN (SELECT DISTINCT id FROM app.transaction_aud WHERE rev > ?) c ON c.id = a.id " +
+            "LEFT JOIN app.transaction t ON t.id = a.id " +
+            "WHERE a.seller_id IS NOT NULL";
+
+    private final CacheManager cacheManager;
+    private final CacheInvalidator invalidator;
+    private final CacheInvalidationListener listener;
+    private final CacheProperties cacheProperties;
+    private final CacheSnapshotProperties properties;
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean audited;
+    private final ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+
+    public CacheSnapshotter(
+            CacheManager cacheManager,
+            CacheInvalidator invalidator,
+            CacheInvalidationListener listener,
+            CacheProperties cacheProperties,
+            CacheSnapshotProperties properties,
+            JdbcTemplate jdbcTemplate,
+            Environment environment
+    ) {
+        this.cacheManager = cacheManager;
+        this.invalidator = invalidator;
+        this.listener = listener;
+        this.cacheProperties = cacheProperties;
+        this.properties = properties;
+        this.jdbcTemplate = jdbcTemplate;
+        this.audited = environment.getProperty(ENVERS_ENABLED, Boolean.class, true);
+        scheduler.setThreadNamePrefix("cache-snapshot-");
+        scheduler.initialize();
+    }
+
+    /**
+     * Runs before the warm-up and before the instance reports ready.
+     */
+    @EventListener(ApplicationStartedEvent.class)
+    public void restore() {
+        if (!audited) {
+            log.info("cache snapshots are off: changes made while the instance is down can't be caught up " +
+                    "without the audit tables");
+            return;
+        }
+        // The listener flushes the caches once subscribed; restored entries must come after that
+        try {
+            if (!listener.awaitSubscribed(SUBSCRIBE_TIMEOUT)) {
+                log.warn("not restoring the cache snapshot, the invalidation listener isn't subscribed");
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        long startNanos = System.nanoTime();
+        for (Path file : snapshotFiles()) {
+            CacheSnapshot snapshot;
+            try {
+                snapshot = CacheSnapshot.read(file);
+            } catch (IOException e) {
+                log.warn("skipping cache snapshot {}", file, e);
+                continue;
+            }
+
+            int restored = 0;
+            for (Map.Entry<String, Map<Object, Object>> entries : snapshot.caches().entrySet()) {
+                Cache cache = cacheManager.getCache(entries.getKey());
+                if (cache != null) {
+                    entries.getValue().forEach(cache::putIfAbsent);
+                    restored += entries.getValue().size();
+                }
+            }
+            List<ChangeEvent> changes;
+            try {
+                changes = changesSince(snapshot.watermark());
+            } catch (RuntimeException e) {
+                invalidator.flushAll();
+                log.warn("dropped the restored cache entries, couldn't catch up on the changes since", e);
+                return;
+            }
+            if (changes.size() > cacheProperties.maxEntries()) {
+                invalidator.flushAll();
+            } else {
+                invalidator.apply(changes);
+            }
+            log.info(
+                    "restored {} cache entries from {} taken at {}, caught up on {} changes in {} ms",
+                    restored,
+                    file.getFileName(),
+                    Instant.ofEpochMilli(snapshot.takenAtMillis()),
+                    changes.size(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos)
+            );
+            return;
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (audited) {
+            scheduler.scheduleWithFixedDelay(
+                    this::saveQuietly,
+                    Instant.now().plus(properties.interval()),
+                    properties.interval()
+            );
+        }
+    }
+
+    /**
+     * Writes a snapshot of the current entries and deletes the snapshots beyond the retained ones.
+     */
+    public void save() throws IOException {
+        long startNanos = System.nanoTime();
+        long takenAtMillis = System.currentTimeMillis();
+        Long projectionLag = jdbcTemplate.queryForObject(PROJECTION_LAG, Long.class);
+        long cutoffMillis = takenAtMillis - properties.catchUpMargin().toMillis()
+                - (projectionLag == null ? 0 : projectionLag);
+        List<Long> revisions = jdbcTemplate.queryForList(WATERMARK, Long.class, cutoffMillis);
+        long watermark = revisions.isEmpty() ? 0 : revisions.getFirst();
+
+        Map<String, Map<Object, Object>> caches = new LinkedHashMap<>();
+        int saved = 0;
+        for (String name : CACHES) {
+            Cache cache = cacheManager.getCache(name);
+            if (cache != null && cache.getNativeCache() instanceof ConcurrentMap<?, ?> entries) {
+                Map<Object, Object> copy = new HashMap<>();
+                entries.forEach((key, value) -> {
+                    if (CacheSnapshot.supports(key) && CacheSnapshot.supports(value)) {
+                        copy.put(key, value);
+                    }
+                });
+                caches.put(name, copy);
+                saved += copy.size();
+            }
+        }
+
+        Files.createDirectories(properties.directory());
+        Path file = properties.directory().resolve(String.format("%s%020d%s", FILE_PREFIX, takenAtMillis, FILE_SUFFIX));
+        Path temporary = properties.directory().resolve(file.getFileName() + ".tmp");
+        new CacheSnapshot(takenAtMillis, watermark, caches).write(temporary);
+        Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE);
+
+        List<Path> files = snapshotFiles();
+        for (Path old : files.subList(Math.min(Math.max(properties.retained(), 1), files.size()), files.size())) {
+            Files.deleteIfExists(old);
+        }
+        log.info(
+                "saved {} cache entries to {} up to revision {} in {} ms",
+                saved,
+                file.getFileName(),
+                watermark,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos)
+        );
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdown();
+        if (audited) {
+            saveQuietly();
+        }
+    }
+
+    private void saveQuietly() {
+        try {
+            save();
+        } catch (IOException | RuntimeException e) {
+            log.warn("couldn't save a cache snapshot", e);
+        }
+    }
+
+    private List<ChangeEvent> changesSince(long watermark) {
+        List<ChangeEvent> changes = new ArrayList<>(jdbcTemplate.queryForList(CHANGED_SELLERS, Integer.class, watermark)
+                .stream()
+                .map(ChangeEvent::seller)
+                .toList());
+        jdbcTemplate.query(CHANGED_TRANSACTIONS, rs -> {
+            LocalDateTime date = rs.getObject(3, LocalDateTime.class);
+            changes.add(date == null
+                    // Deleting a transaction only lowers the totals of its seller, which matter if it was on top
+                    ? ChangeEvent.seller(rs.getInt(2))
+                    : ChangeEvent.transaction(rs.getInt(1), rs.getInt(2), date.toLocalDate()));
+        }, watermark);
+        return changes;
+    }
+
+    /**
+     * Snapshot files, the latest first.
+     */
+    private List<Path> snapshotFiles() {
+        if (!Files.isDirectory(properties.directory())) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(properties.directory())) {
+            return files
+                    .filter(file -> {
+                        String name = file.getFileName().toString();
+                        return name.startsWith(FILE_PREFIX) && name.endsWith(FILE_SUFFIX);
+                    })
+                    .sorted(Comparator.comparing((Path file) -> file.getFileName().toString()).reversed())
+                    .toList();
+        } catch (IOException e) {
+            log.warn("couldn't list the cache snapshots in {}", properties.directory(), e);
+            return List.of();
+        }
+    }
+}
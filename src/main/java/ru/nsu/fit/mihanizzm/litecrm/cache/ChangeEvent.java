@@ -0,0 +1,76 @@
+package ru.nsu.fit.mihanizzm.litecrm.cache;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A committed write that may make cached results stale. Encoded compactly, so that a batch of a few hundred
+ * events fits into one {@code NOTIFY} payload: {@code S<id>} for a seller, {@code T<id>:<sellerId>:<epochDay>}
+ * for a transaction and {@code *} for "flush everything".
+ *
+ * @param sellerId owner of a transaction; a transaction moved to another seller produces one event per seller
+ * @param day      day of a transaction, analytics over periods containing it are affected
+ */
+public record ChangeEvent(Type type, int id, int sellerId, LocalDate day) {
+    static final String SEPARATOR = ",";
+
+    private static final ChangeEvent FLUSH_ALL = new ChangeEvent(Type.ALL, 0, 0, null);
+
+    public enum Type {
+        SELLER,
+        TRANSACTION,
+        ALL
+    }
+
+    public static ChangeEvent seller(int id) {
+        return new ChangeEvent(Type.SELLER, id, id, null);
+    }
+
+    public static ChangeEvent transaction(int id, int sellerId, LocalDate day) {
+        return new ChangeEvent(Type.TRANSACTION, id, sellerId, day);
+    }
+
+    public static ChangeEvent flushAll() {
+        return FLUSH_ALL;
+    }
+
+    public String encode() {
+        return switch (type) {
+            case SELLER -> "S" + id;
+            case TRANSACTION -> "T" + id + ":" + sellerId + ":" + day.toEpochDay();
+            case ALL -> "*";
+        };
+    }
+
+    /**
+     * Parses a payload of comma-separated events. A part that can't be parsed becomes a full flush: dropping it
+     * could leave a stale entry forever.
+     */
+    public static List<ChangeEvent> decodeAll(String payload) {
+        List<ChangeEvent> events = new ArrayList<>();
+        for (String part : payload.split(SEPARATOR)) {
+            events.add(decode(part));
+        }
+        return events;
+    }
+
+    static ChangeEvent decode(String encoded) {
+        try {
+            if (encoded.startsWith("S")) {
+                return seller(Integer.parseInt(encoded.substring(1)));
+            }
+            if (encoded.startsWith("T")) {
+                String[] fields = encoded.substring(1).split(":");
+                return transaction(
+                        Integer.parseInt(fields[0]),
+                        Integer.parseInt(fields[1]),
+                        LocalDate.ofEpochDay(Long.parseLong(fields[2]))
+                );
+            }
+        } catch (RuntimeException ignored) {
+            // Falls through to a full flush
+        }
+        return FLUSH_ALL;
+    }
+}
@@ -0,0 +1,137 @@
+package ru.nsu.fit.mihanizzm.litecrm.controllers;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import ru.nsu.fit.mihanizzm.litecrm.bulkhead.BulkheadMonitor;
+import ru.nsu.fit.mihanizzm.litecrm.exception.ErrorCode;
+import ru.nsu.fit.mihanizzm.litecrm.exception.handler.ClientErrorLogSampler;
+import ru.nsu.fit.mihanizzm.litecrm.jobs.JobRunner;
+import ru.nsu.fit.mihanizzm.litecrm.limiter.ConcurrencyLimiters;
+import ru.nsu.fit.mihanizzm.litecrm.models.dtos.BulkheadResponseDto;
+import ru.nsu.fit.mihanizzm.litecrm.models.dtos.ConcurrencyLimitResponseDto;
+import ru.nsu.fit.mihanizzm.litecrm.models.dtos.JobStateResponseDto;
+import ru.nsu.fit.mihanizzm.litecrm.projections.Projector;
+
+import java.util.List;
+import java.util.Map;
+
+@RequiredArgsConstructor
+@RestController
+@RequestMapping("/api/v1/admin")
+@Tag(name = "Admin", description = "Requires the X-Admin-Token header set to litecrm.admin.token")
+public class AdminController {
+    private final ConcurrencyLimiters concurrencyLimiters;
+    private final BulkheadMonitor bulkheadMonitor;
+    private final ClientErrorLogSampler clientErrorLogSampler;
+    private final JobRunner jobRunner;
+    private final Projector projector;
+
+    @Operation(
+            summary = "Returns concurrency limits of endpoint groups",
+            description = "Returns the current adaptive concurrency limit, in-flight requests and " +
+                    "rejection count for the CRUD and analytics endpoint groups."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Successfully retrieved"
+            )
+    })
+    @GetMapping("/limits")
+    public ResponseEntity<List<ConcurrencyLimitResponseDto>> getConcurrencyLimits() {
+        return ResponseEntity.ok(concurrencyLimiters.snapshot());
+    }
+
+    @Operation(
+            summary = "Returns saturation of the OLTP and analytics bulkheads",
+            description = "Returns connection pool usage of both bulkheads and executor usage of the analytics bulkhead."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Successfully retrieved"
+            )
+    })
+    @GetMapping("/bulkheads")
+    public ResponseEntity<List<BulkheadResponseDto>> getBulkheads() {
+        return ResponseEntity.ok(bulkheadMonitor.snapshot());
+    }
+
+    @Operation(
+            summary = "Returns counts of handled client errors",
+            description = "Returns how many client errors of each code were handled since startup, " +
+                    "including the ones whose log lines were suppressed by sampling."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Successfully retrieved"
+            )
+    })
+    @GetMapping("/errors")
+    public ResponseEntity<Map<ErrorCode, Long>> getClientErrorCounts() {
+        return ResponseEntity.ok(clientErrorLogSampler.counts());
+    }
+
+    @Operation(
+            summary = "Returns progress of background jobs",
+            description = "Returns the watermark, chunk count and the last run of every background job. " +
+                    "The state is shared by all instances."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Successfully retrieved"
+            )
+    })
+    @GetMapping("/jobs")
+    public ResponseEntity<List<JobStateResponseDto>> getJobs() {
+        return ResponseEntity.ok(jobRunner.snapshot());
+    }
+
+    @Operation(
+            summary = "Resets a background job",
+            description = "Clears the watermark of the job, so its next run on any instance starts from scratch."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "204",
+                    description = "Successfully reset"
+            ),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "Job with given name not found"
+            )
+    })
+    @PostMapping("/jobs/{name}/reset")
+    public ResponseEntity<Void> resetJob(@PathVariable("name") String name) {
+        jobRunner.reset(name);
+        return ResponseEntity.noContent().build();
+    }
+
+    @Operation(
+            summary = "Rebuilds the read tables of seller stats",
+            description = "Recomputes seller and period totals from the transactions on every shard and drops " +
+                    "the events that were not applied yet. Writes of transactions wait while a shard is rebuilt."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "204",
+                    description = "Successfully rebuilt"
+            )
+    })
+    @PostMapping("/projections/rebuild")
+    public ResponseEntity<Void> rebuildProjections() {
+        projector.rebuild();
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -12,14 +12,16 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import ru.nsu.fit.mihanizzm.litecrm.bulkhead.AnalyticsBulkhead;
 import ru.nsu.fit.mihanizzm.litecrm.models.PeriodType;
 import ru.nsu.fit.mihanizzm.litecrm.models.dtos.BestDayResponseDto;
 import ru.nsu.fit.mihanizzm.litecrm.models.dtos.SellerResponseDto;
+import ru.nsu.fit.mihanizzm.litecrm.models.dtos.SellerTotalsResponseDto;
 import ru.nsu.fit.mihanizzm.litecrm.services.AnalyticsService;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @RequiredArgsConstructor
 @RestController
@@ -27,6 +29,7 @@ import java.util.List;
 @Tag(name = "Analytics")
 public class AnalyticsController {
     private final AnalyticsService analyticsService;
+    private final AnalyticsBulkhead analyticsBulkhead;
 
     @Operation(
             summary = "Returns top seller in the given period",
@@ -45,37 +48,56 @@ public class AnalyticsController {
             @ApiResponse(
                     responseCode = "404",
                     description = "No transactions found"
+            ),
+            @ApiResponse(
+                    responseCode = "503",
+                    description = "Analytics executor is saturated"
             )
     })
     @GetMapping("/top-seller")
-    public ResponseEntity<SellerResponseDto> getTopSeller(
+    public CompletableFuture<ResponseEntity<SellerResponseDto>> getTopSeller(
             @RequestParam("period") PeriodType period,
             @RequestParam("referenceDate")
             @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime referenceDate
     ) {
-        return ResponseEntity.ok(analyticsService.getTopSeller(period, referenceDate));
+        return analyticsBulkhead
+                .submit(() -> analyticsService.getTopSeller(period, referenceDate))
+                .thenApply(ResponseEntity::ok);
     }
 
     @Operation(
             summary = "Returns sellers whose max sum is less than the parameter",
             description =
-                    "Returns all sellers whose max sum of transactions is less than given parameter " +
-                    "in the given period of time by searching it in the database. " +
-                    "Uses ISO date-time format."
+                    "Returns a page of the sellers whose sum of transactions in the given period of time is less " +
+                    "than the given parameter, with their sums, in the order of their IDs. Sellers without " +
+                    "transactions in the period have a sum of 0. The next page starts after the ID returned as " +
+                    "nextAfterId. Uses ISO date-time format."
     )
     @ApiResponses(value = {
             @ApiResponse(
                     responseCode = "200",
                     description = "Successfully retrieved"
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "The period is empty or the limit is out of range"
+            ),
+            @ApiResponse(
+                    responseCode = "503",
+                    description = "Analytics executor is saturated"
             )
     })
     @GetMapping("/sellers-max-sum")
-    public ResponseEntity<List<SellerResponseDto>> getSellersWithTotalAmountLessThan(
+    public CompletableFuture<ResponseEntity<SellerTotalsResponseDto>> getSellersWithTotalAmountLessThan(
             @RequestParam("threshold") BigDecimal threshold,
             @RequestParam("start") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
-            @RequestParam("end") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end
+            @RequestParam("end") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end,
+            @RequestParam(name = "afterId", defaultValue = "0") int afterId,
+            @RequestParam(name = "limit", defaultValue = "100") int limit
     ) {
-        return ResponseEntity.ok(analyticsService.getSellersWithTotalAmountLessThan(threshold, start, end));
+        return analyticsBulkhead
+                .submit(() -> analyticsService.getSellersWithTotalAmountLessThan(threshold, start, end, afterId, limit))
+                .thenApply(ResponseEntity::ok);
     }
 
     @Operation(
@@ -92,10 +114,16 @@ public class AnalyticsController {
             @ApiResponse(
                     responseCode = "404",
                     description = "Seller has no transactions"
+            ),
+            @ApiResponse(
+                    responseCode = "503",
+                    description = "Analytics executor is saturated"
             )
     })
     @GetMapping("/best-day/{id}")
-    public ResponseEntity<BestDayResponseDto> getBestDay(@PathVariable("id") Integer id) {
-        return ResponseEntity.ok(analyticsService.getBestDayForSeller(id));
+    public CompletableFuture<ResponseEntity<BestDayResponseDto>> getBestDay(@PathVariable("id") Integer id) {
+        return analyticsBulkhead
+                .submit(() -> analyticsService.getBestDayForSeller(id))
+                .thenApply(ResponseEntity::ok);
     }
 }
@@ -0,0 +1,83 @@
+package ru.nsu.fit.mihanizzm.litecrm.controllers;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.nsu.fit.mihanizzm.litecrm.leaderboard.Leaderboard;
+import ru.nsu.fit.mihanizzm.litecrm.leaderboard.LeaderboardStream;
+import ru.nsu.fit.mihanizzm.litecrm.models.dtos.LeaderboardResponseDto;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Served outside of {@code /api/v1/analytics}, so that open streams don't hold permits of the analytics
+ * concurrency limit.
+ */
+@RequiredArgsConstructor
+@RestController
+@RequestMapping("/api/v1/leaderboard")
+@Tag(name = "Analytics")
+@ConditionalOnProperty(prefix = "litecrm.leaderboard", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class LeaderboardController {
+    private final Leaderboard leaderboard;
+    private final LeaderboardStream leaderboardStream;
+
+    @Operation(
+            summary = "Returns top sellers of the current day, month, quarter and year",
+            description = "Returns the boards kept in memory; they include the writes of other instances after " +
+                    "about litecrm.leaderboard.catch-up-interval, or at most litecrm.leaderboard.reconcile-interval " +
+                    "if their change events were lost."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Successfully retrieved"
+            )
+    })
+    @GetMapping
+    public ResponseEntity<List<LeaderboardResponseDto>> getLeaderboard() {
+        return ResponseEntity.ok(leaderboard.standings().boards());
+    }
+
+    @Operation(
+            summary = "Streams top sellers of the current day, month, quarter and year",
+            description = "Opens a server-sent event stream. The first event, 'snapshot', holds every board as " +
+                    "returned by GET /api/v1/leaderboard. Every following 'delta' event holds the boards changed " +
+                    "since the previous event, at most once per intervalMs milliseconds. The event ID is the " +
+                    "version of the boards."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Stream opened"
+            ),
+            @ApiResponse(
+                    responseCode = "503",
+                    description = "The instance has as many streams open as it accepts"
+            )
+    })
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamLeaderboard(
+            @RequestParam(name = "intervalMs", required = false) Long intervalMs
+    ) throws IOException {
+        return leaderboardStream.subscribe(intervalMs == null ? null : Duration.ofMillis(intervalMs))
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .header(HttpHeaders.RETRY_AFTER, "5")
+                        .build());
+    }
+}
@@ -0,0 +1,169 @@
+package ru.nsu.fit.mihanizzm.litecrm.controllers;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.format.annotation.DurationFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.nsu.fit.mihanizzm.litecrm.models.dtos.RecordingResponseDto;
+import ru.nsu.fit.mihanizzm.litecrm.profiling.JfrRecorder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+@RequiredArgsConstructor
+@RestController
+@RequestMapping("/api/v1/admin/profiling")
+@Tag(name = "Profiling", description = "Requires the X-Admin-Token header set to litecrm.admin.token")
+public class ProfilingController {
+    private static final MediaType JFR = MediaType.APPLICATION_OCTET_STREAM;
+
+    private final JfrRecorder jfrRecorder;
+
+    @Operation(
+            summary = "Starts a Java Flight Recorder session",
+            description = "Starts a recording with the given JFR settings ('default' or 'profile') that stops " +
+                    "by itself after the given duration, e.g. '30s' or '2m'. Every AnalyticsService and " +
+                    "TransactionService call and every repository query is recorded as a custom event. " +
+                    "Starting a recording discards the previous finished one."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "202",
+                    description = "Recording started"
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Unknown settings or duration out of range"
+            ),
+            @ApiResponse(
+                    responseCode = "409",
+                    description = "Another recording is in progress"
+            )
+    })
+    @PostMapping("/recordings")
+    public ResponseEntity<RecordingResponseDto> startRecording(
+            @RequestParam(name = "profile", defaultValue = "profile") String profile,
+            @RequestParam("duration") @DurationFormat(style = DurationFormat.Style.SIMPLE) Duration duration
+    ) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(jfrRecorder.start(profile, duration));
+    }
+
+    @Operation(
+            summary = "Returns the state of a recording"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Successfully retrieved"
+            ),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "Recording not found"
+            )
+    })
+    @GetMapping("/recordings/{id}")
+    public ResponseEntity<RecordingResponseDto> getRecording(@PathVariable("id") long id) {
+        return ResponseEntity.ok(jfrRecorder.get(id));
+    }
+
+    @Operation(
+            summary = "Downloads a finished recording",
+            description = "Returns the .jfr file of a recording once it has stopped. " +
+                    "Open it with JDK Mission Control or 'jfr print'."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Successfully retrieved"
+            ),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "Recording not found"
+            ),
+            @ApiResponse(
+                    responseCode = "409",
+                    description = "Recording is still in progress"
+            )
+    })
+    @GetMapping("/recordings/{id}/file")
+    public ResponseEntity<Resource> downloadRecording(@PathVariable("id") long id) {
+        return ResponseEntity.ok()
+                .contentType(JFR)
+                .header(HttpHeaders.CONTENT_DISPOSITION, attachment("recording-" + id + ".jfr"))
+                .body(new FileSystemResource(jfrRecorder.file(id)));
+    }
+
+    @Operation(
+            summary = "Deletes a recording",
+            description = "Stops the recording if it is still running and deletes its file."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "204",
+                    description = "Successfully deleted"
+            ),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "Recording not found"
+            )
+    })
+    @DeleteMapping("/recordings/{id}")
+    public ResponseEntity<Void> deleteRecording(@PathVariable("id") long id) {
+        jfrRecorder.delete(id);
+        return ResponseEntity.noContent().build();
+    }
+
+    @Operation(
+            summary = "Dumps the continuous recording",
+            description = "Returns what the always-on low-overhead recording holds, by default the last 15 minutes."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Successfully retrieved"
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Continuous recording is disabled"
+            )
+    })
+    @PostMapping("/continuous/dump")
+    public ResponseEntity<StreamingResponseBody> dumpContinuousRecording() throws IOException {
+        Path file = jfrRecorder.dumpContinuous();
+        StreamingResponseBody body = outputStream -> {
+            try {
+                Files.copy(file, outputStream);
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(JFR)
+                .contentLength(Files.size(file))
+                .header(HttpHeaders.CONTENT_DISPOSITION, attachment("continuous.jfr"))
+                .body(body);
+    }
+
+    private static String attachment(String filename) {
+        return ContentDisposition.attachment().filename(filename).build().toString();
+    }
+}
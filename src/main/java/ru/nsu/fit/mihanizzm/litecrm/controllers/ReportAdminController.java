@@ -0,0 +1,39 @@
+package ru.nsu.fit.mihanizzm.litecrm.controllers;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import ru.nsu.fit.mihanizzm.litecrm.reports.SellerReports;
+
+@RequiredArgsConstructor
+@RestController
+@RequestMapping("/api/v1/admin/reports")
+@Tag(name = "Admin", description = "Requires the X-Admin-Token header set to litecrm.admin.token")
+@ConditionalOnProperty(prefix = "litecrm.reports", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class ReportAdminController {
+    private final SellerReports sellerReports;
+
+    @Operation(
+            summary = "Deletes every seller report",
+            description = "Reports are written again on their next download. Needed after changes of closed " +
+                    "periods the instance couldn't see, e.g. made while it was down."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "204",
+                    description = "Successfully deleted"
+            )
+    })
+    @DeleteMapping("/sellers")
+    public ResponseEntity<Void> deleteSellerReports() {
+        sellerReports.deleteAll();
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -0,0 +1,69 @@
+package ru.nsu.fit.mihanizzm.litecrm.controllers;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import ru.nsu.fit.mihanizzm.litecrm.models.PeriodType;
+import ru.nsu.fit.mihanizzm.litecrm.reports.FileDownload;
+import ru.nsu.fit.mihanizzm.litecrm.reports.SellerReports;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+/**
+ * Served outside of {@code /api/v1/analytics}, so that long downloads don't hold permits of the analytics
+ * concurrency limit; writing a report is limited by its own generator threads.
+ */
+@RequiredArgsConstructor
+@RestController
+@RequestMapping("/api/v1/reports")
+@Tag(name = "Reports")
+@ConditionalOnProperty(prefix = "litecrm.reports", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class ReportController {
+    private static final MediaType CSV = new MediaType("text", "csv", StandardCharsets.UTF_8);
+
+    private final SellerReports sellerReports;
+
+    @Operation(
+            summary = "Downloads per-seller totals of a closed period as CSV",
+            description = "Returns transaction count and amount of every seller with transactions in the period " +
+                    "containing referenceDate, overall and per payment type. The report is written on its first " +
+                    "download and served from a file afterwards; it supports conditional and single range requests."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Successfully retrieved"
+            ),
+            @ApiResponse(
+                    responseCode = "206",
+                    description = "The requested range was retrieved"
+            ),
+            @ApiResponse(
+                    responseCode = "409",
+                    description = "The period hasn't closed yet"
+            )
+    })
+    @GetMapping("/sellers")
+    public void getSellerReport(
+            @RequestParam("period") PeriodType period,
+            @RequestParam("referenceDate")
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime referenceDate,
+            HttpServletRequest request,
+            HttpServletResponse response
+    ) throws IOException {
+        FileDownload.send(sellerReports.report(period, referenceDate), CSV, request, response);
+    }
+}
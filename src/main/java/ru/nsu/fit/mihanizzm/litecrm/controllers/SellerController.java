@@ -17,6 +17,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import ru.nsu.fit.mihanizzm.litecrm.models.dtos.SellerRequestDto;
 import ru.nsu.fit.mihanizzm.litecrm.models.dtos.SellerResponseDto;
+import ru.nsu.fit.mihanizzm.litecrm.models.dtos.SellerStatsResponseDto;
 import ru.nsu.fit.mihanizzm.litecrm.models.dtos.TransactionResponseDto;
 import ru.nsu.fit.mihanizzm.litecrm.services.SellerService;
 
@@ -82,6 +83,26 @@ public class SellerController {
         return ResponseEntity.ok(sellerService.getSellerTransactions(id));
     }
 
+    @Operation(
+            summary = "Returns totals of a seller with given id",
+            description = "Returns the number and the sum of transactions of a seller and the dates of its first " +
+                    "and last sale. The totals are kept up to date asynchronously and may miss the latest writes."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Successfully retrieved"
+            ),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "Seller with given id not found"
+            )
+    })
+    @GetMapping("/{id}/stats")
+    public ResponseEntity<SellerStatsResponseDto> getSellerStats(@PathVariable("id") Integer id) {
+        return ResponseEntity.ok(sellerService.getSellerStats(id));
+    }
+
     @Operation(
             summary = "Creates a new seller",
             description = "Creates a new seller and saves it to a database."
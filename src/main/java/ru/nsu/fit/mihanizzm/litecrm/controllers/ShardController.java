@@ -0,0 +1,101 @@
+package ru.nsu.fit.mihanizzm.litecrm.controllers;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import ru.nsu.fit.mihanizzm.litecrm.models.dtos.ShardRebalanceResponseDto;
+import ru.nsu.fit.mihanizzm.litecrm.models.dtos.ShardResponseDto;
+import ru.nsu.fit.mihanizzm.litecrm.sharding.ShardRebalancer;
+
+import java.util.List;
+
+@RequiredArgsConstructor
+@RestController
+@RequestMapping("/api/v1/admin/shards")
+@Tag(name = "Admin", description = "Requires the X-Admin-Token header set to litecrm.admin.token")
+@ConditionalOnProperty(prefix = "litecrm.sharding", name = "enabled", havingValue = "true")
+public class ShardController {
+    private final ShardRebalancer rebalancer;
+
+    @Operation(
+            summary = "Returns row counts of the shards",
+            description = "Returns how many sellers and transactions every shard stores."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Successfully retrieved"
+            )
+    })
+    @GetMapping
+    public ResponseEntity<List<ShardResponseDto>> getShards() {
+        return ResponseEntity.ok(rebalancer.snapshot());
+    }
+
+    @Operation(
+            summary = "Rebalances sellers across the shards",
+            description = "Moves sellers with the fewest transactions off the fullest shards until every shard " +
+                    "stores about the same number of sellers, or until maxMoves sellers were moved."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Successfully rebalanced"
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "maxMoves is not positive"
+            ),
+            @ApiResponse(
+                    responseCode = "409",
+                    description = "Another rebalance or move is in progress"
+            )
+    })
+    @PostMapping("/rebalance")
+    public ResponseEntity<ShardRebalanceResponseDto> rebalance(
+            @RequestParam(name = "maxMoves", defaultValue = "100") int maxMoves
+    ) {
+        return ResponseEntity.ok(rebalancer.rebalance(maxMoves));
+    }
+
+    @Operation(
+            summary = "Moves a seller to another shard",
+            description = "Moves the seller with all of its transactions to the given shard."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "204",
+                    description = "Successfully moved"
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "No such shard"
+            ),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "Seller with given ID not found"
+            ),
+            @ApiResponse(
+                    responseCode = "409",
+                    description = "A rebalance or another move is in progress"
+            )
+    })
+    @PostMapping("/{shard}/sellers/{sellerId}")
+    public ResponseEntity<Void> moveSeller(
+            @PathVariable("shard") int shard,
+            @PathVariable("sellerId") int sellerId
+    ) {
+        rebalancer.moveSeller(sellerId, shard);
+        return ResponseEntity.noContent().build();
+    }
+}
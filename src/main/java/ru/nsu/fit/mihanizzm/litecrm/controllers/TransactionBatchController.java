@@ -0,0 +1,72 @@
+package ru.nsu.fit.mihanizzm.litecrm.controllers;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import ru.nsu.fit.mihanizzm.litecrm.ingest.IngestProperties;
+import ru.nsu.fit.mihanizzm.litecrm.ingest.TransactionBatch;
+import ru.nsu.fit.mihanizzm.litecrm.ingest.TransactionBatchWriter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/v1/transactions")
+@Tag(name = "Transaction CRUD")
+public class TransactionBatchController {
+    private final TransactionBatchWriter transactionBatchWriter;
+    private final IngestProperties ingestProperties;
+
+    @Operation(
+            summary = "Creates transactions from a binary batch",
+            description = "Takes records of seller ID, amount in minor units and payment type in the binary format " +
+                    "described in the README, and returns the IDs of the created transactions in the same order. " +
+                    "The transactions are saved to a database right away, even when ingestion through the " +
+                    "write-ahead log is enabled."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "201",
+                    description = "Successfully created"
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Malformed batch or invalid record; nothing is created"
+            ),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "Seller of a record not found; nothing is created"
+            )
+    })
+    @PostMapping(
+            path = "/batch",
+            consumes = TransactionBatch.MEDIA_TYPE,
+            produces = TransactionBatch.MEDIA_TYPE
+    )
+    public ResponseEntity<byte[]> createTransactions(HttpServletRequest request) throws IOException {
+        long maxLength = TransactionBatch.byteSize(ingestProperties.maxBatchRecords());
+        long length = request.getContentLengthLong();
+        if (length > maxLength) {
+            throw new IllegalArgumentException("a batch takes at most " + maxLength + " bytes, got " + length);
+        }
+        byte[] body;
+        try (InputStream in = request.getInputStream()) {
+            // A body without a length is read up to one byte past the largest batch to tell it's too large
+            body = in.readNBytes((int) (length >= 0 ? length : maxLength + 1));
+        }
+        TransactionBatch batch = TransactionBatch.decode(ByteBuffer.wrap(body), ingestProperties.maxBatchRecords());
+        return ResponseEntity
+                .status(HttpStatus.CREATED)
+                .body(TransactionBatch.encodeIds(transactionBatchWriter.insert(batch)));
+    }
+}
@@ -0,0 +1,12 @@
+package ru.nsu.fit.mihanizzm.litecrm.exception;
+
+/**
+ * Base class of the expected client errors (missing entities, invalid input). These exceptions are mapped to
+ * 4xx responses and never need a stack trace, so it is not captured: creating one costs no more than
+ * a plain object allocation.
+ */
+public abstract class ClientException extends RuntimeException {
+    protected ClientException() {
+        super(null, null, false, false);
+    }
+}
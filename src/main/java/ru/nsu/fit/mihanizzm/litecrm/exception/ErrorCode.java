@@ -0,0 +1,19 @@
+package ru.nsu.fit.mihanizzm.litecrm.exception;
+
+public enum ErrorCode {
+    SELLER_NOT_FOUND,
+    TRANSACTION_NOT_FOUND,
+    NO_TRANSACTIONS_IN_PERIOD,
+    SELLER_HAS_NO_TRANSACTIONS,
+    INVALID_PAYMENT_TYPE,
+    NULL_SELLER_ID,
+    SELLER_VALIDATION_FAILED,
+    TRANSACTION_VALIDATION_FAILED,
+    RECORDING_NOT_FOUND,
+    RECORDING_IN_PROGRESS,
+    JOB_NOT_FOUND,
+    REBALANCE_IN_PROGRESS,
+    PERIOD_NOT_CLOSED,
+    BAD_REQUEST,
+    SERVICE_UNAVAILABLE
+}
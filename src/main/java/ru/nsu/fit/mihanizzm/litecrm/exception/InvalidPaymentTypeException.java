@@ -5,6 +5,6 @@ import lombok.RequiredArgsConstructor;
 
 @Getter
 @RequiredArgsConstructor
-public class InvalidPaymentTypeException extends RuntimeException {
+public class InvalidPaymentTypeException extends ClientException {
     private final String passedPaymentType;
 }
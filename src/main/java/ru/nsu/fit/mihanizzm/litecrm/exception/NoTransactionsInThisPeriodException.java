@@ -7,7 +7,7 @@ import java.time.LocalDateTime;
 
 @Getter
 @RequiredArgsConstructor
-public class NoTransactionsInThisPeriodException extends RuntimeException {
+public class NoTransactionsInThisPeriodException extends ClientException {
     private final LocalDateTime start;
     private final LocalDateTime end;
 }
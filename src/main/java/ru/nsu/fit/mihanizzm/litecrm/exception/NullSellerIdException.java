@@ -1,4 +1,4 @@
 package ru.nsu.fit.mihanizzm.litecrm.exception;
 
-public class NullSellerIdException extends RuntimeException {
+public class NullSellerIdException extends ClientException {
 }
@@ -0,0 +1,15 @@
+package ru.nsu.fit.mihanizzm.litecrm.exception;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import ru.nsu.fit.mihanizzm.litecrm.models.PeriodType;
+
+import java.time.LocalDateTime;
+
+@Getter
+@RequiredArgsConstructor
+public class PeriodNotClosedException extends ClientException {
+    private final PeriodType type;
+    private final LocalDateTime start;
+    private final LocalDateTime closesAt;
+}
@@ -0,0 +1,4 @@
+package ru.nsu.fit.mihanizzm.litecrm.exception;
+
+public class RebalanceInProgressException extends ClientException {
+}
@@ -0,0 +1,10 @@
+package ru.nsu.fit.mihanizzm.litecrm.exception;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@Getter
+@RequiredArgsConstructor
+public class RecordingInProgressException extends ClientException {
+    private final long id;
+}
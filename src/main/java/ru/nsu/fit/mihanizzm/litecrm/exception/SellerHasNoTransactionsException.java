@@ -5,6 +5,6 @@ import lombok.RequiredArgsConstructor;
 
 @Getter
 @RequiredArgsConstructor
-public class SellerHasNoTransactionsException extends RuntimeException {
+public class SellerHasNoTransactionsException extends ClientException {
     private final Integer sellerId;
 }
@@ -5,6 +5,6 @@ import lombok.RequiredArgsConstructor;
 
 @Getter
 @RequiredArgsConstructor
-public class SellerNotFoundException extends RuntimeException {
+public class SellerNotFoundException extends ClientException {
     private final Integer id;
 }
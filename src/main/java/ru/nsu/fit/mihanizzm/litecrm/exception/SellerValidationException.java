@@ -9,6 +9,6 @@ import java.util.Set;
 
 @Getter
 @RequiredArgsConstructor
-public class SellerValidationException extends RuntimeException {
+public class SellerValidationException extends ClientException {
     private final Set<ConstraintViolation<Seller>> violations;
 }
@@ -5,6 +5,6 @@ import lombok.RequiredArgsConstructor;
 
 @Getter
 @RequiredArgsConstructor
-public class TransactionNotFoundException extends RuntimeException {
+public class TransactionNotFoundException extends ClientException {
     private final Integer id;
 }
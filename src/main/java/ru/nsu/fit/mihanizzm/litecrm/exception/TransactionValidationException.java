@@ -9,6 +9,6 @@ import java.util.Set;
 
 @Getter
 @RequiredArgsConstructor
-public class TransactionValidationException extends RuntimeException {
+public class TransactionValidationException extends ClientException {
     private final Set<ConstraintViolation<Transaction>> violations;
 }
@@ -0,0 +1,93 @@
+package ru.nsu.fit.mihanizzm.litecrm.exception.handler;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import ru.nsu.fit.mihanizzm.litecrm.exception.ErrorCode;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts every handled client error and logs at most {@code maxLogsPerSecond} of them per error code,
+ * so a storm of 404s costs a counter increment per request instead of a log line.
+ */
+@Component
+@Slf4j
+public class ClientErrorLogSampler implements MeterBinder {
+    private static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final int maxLogsPerSecond;
+    private final Map<ErrorCode, Window> windows = new EnumMap<>(ErrorCode.class);
+
+    public ClientErrorLogSampler(ErrorLoggingProperties properties) {
+        this.maxLogsPerSecond = properties.maxLogsPerSecond();
+        for (ErrorCode code : ErrorCode.values()) {
+            windows.put(code, new Window());
+        }
+    }
+
+    public void record(ErrorCode code, String message) {
+        record(code, message, null);
+    }
+
+    /**
+     * @param cause passed for exceptions that still carry a useful stack trace; client exceptions pass null
+     */
+    public void record(ErrorCode code, String message, Throwable cause) {
+        Window window = windows.get(code);
+        window.total.increment();
+        if (!window.tryAcquire(maxLogsPerSecond)) {
+            window.suppressed.increment();
+            return;
+        }
+
+        long suppressed = window.suppressed.sumThenReset();
+        if (cause == null) {
+            log.warn("client error {}: {} ({} similar suppressed)", code, message, suppressed);
+        } else {
+            log.warn("client error {}: {} ({} similar suppressed)", code, message, suppressed, cause);
+        }
+    }
+
+    public long count(ErrorCode code) {
+        return windows.get(code).total.sum();
+    }
+
+    public Map<ErrorCode, Long> counts() {
+        Map<ErrorCode, Long> counts = new EnumMap<>(ErrorCode.class);
+        windows.forEach((code, window) -> counts.put(code, window.total.sum()));
+        return counts;
+    }
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        windows.forEach((code, window) -> FunctionCounter.builder("litecrm.client.errors", window.total, LongAdder::sum)
+                .tag("code", code.name())
+                .description("Handled client errors, including the ones not logged because of sampling")
+                .register(registry));
+    }
+
+    private static class Window {
+        private final LongAdder total = new LongAdder();
+        private final LongAdder suppressed = new LongAdder();
+        private final AtomicLong start = new AtomicLong(System.nanoTime());
+        private final AtomicInteger logged = new AtomicInteger();
+
+        boolean tryAcquire(int limit) {
+            long now = System.nanoTime();
+            long windowStart = start.get();
+            if (now - windowStart >= WINDOW_NANOS && start.compareAndSet(windowStart, now)) {
+                logged.set(0);
+            }
+            return logged.incrementAndGet() <= limit;
+        }
+    }
+}
@@ -1,125 +1,218 @@
 package ru.nsu.fit.mihanizzm.litecrm.exception.handler;
 
-import lombok.extern.slf4j.Slf4j;
+import jakarta.validation.ConstraintViolation;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import ru.nsu.fit.mihanizzm.litecrm.exception.ErrorCode;
 import ru.nsu.fit.mihanizzm.litecrm.exception.InvalidPaymentTypeException;
+import ru.nsu.fit.mihanizzm.litecrm.exception.JobNotFoundException;
 import ru.nsu.fit.mihanizzm.litecrm.exception.NoTransactionsInThisPeriodException;
 import ru.nsu.fit.mihanizzm.litecrm.exception.NullSellerIdException;
+import ru.nsu.fit.mihanizzm.litecrm.exception.PeriodNotClosedException;
+import ru.nsu.fit.mihanizzm.litecrm.exception.RebalanceInProgressException;
+import ru.nsu.fit.mihanizzm.litecrm.exception.RecordingInProgressException;
+import ru.nsu.fit.mihanizzm.litecrm.exception.RecordingNotFoundException;
 import ru.nsu.fit.mihanizzm.litecrm.exception.SellerHasNoTransactionsException;
 import ru.nsu.fit.mihanizzm.litecrm.exception.SellerNotFoundException;
 import ru.nsu.fit.mihanizzm.litecrm.exception.SellerValidationException;
 import ru.nsu.fit.mihanizzm.litecrm.exception.TransactionNotFoundException;
 import ru.nsu.fit.mihanizzm.litecrm.exception.TransactionValidationException;
+import ru.nsu.fit.mihanizzm.litecrm.models.dtos.ErrorResponseDto;
 
-import java.util.stream.Collectors;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
 
 @ControllerAdvice
-@Slf4j
+@RequiredArgsConstructor
 public class ClientExceptionHandler {
+    private final ClientErrorLogSampler errorLogSampler;
+
     @ExceptionHandler(SellerNotFoundException.class)
-    public ResponseEntity<?> handleSellerNotFoundException(SellerNotFoundException e) {
-        log.error("got SellerNotFoundException", e);
-        return new ResponseEntity<>(
-                String.format("SellerNotFoundException handled: couldn't find seller with id: %d", e.getId()),
-                HttpStatus.NOT_FOUND
+    public ResponseEntity<ErrorResponseDto> handleSellerNotFoundException(SellerNotFoundException e) {
+        return respond(
+                HttpStatus.NOT_FOUND,
+                ErrorCode.SELLER_NOT_FOUND,
+                String.format("Couldn't find seller with id: %d", e.getId())
         );
     }
 
     @ExceptionHandler(TransactionNotFoundException.class)
-    public ResponseEntity<?> handleSellerNotFoundException(TransactionNotFoundException e) {
-        log.error("got TransactionNotFoundException", e);
-        return new ResponseEntity<>(
-                String.format("TransactionNotFoundException handled: couldn't find transaction with id: %d", e.getId()),
-                HttpStatus.NOT_FOUND
+    public ResponseEntity<ErrorResponseDto> handleSellerNotFoundException(TransactionNotFoundException e) {
+        return respond(
+                HttpStatus.NOT_FOUND,
+                ErrorCode.TRANSACTION_NOT_FOUND,
+                String.format("Couldn't find transaction with id: %d", e.getId())
         );
     }
 
     @ExceptionHandler(IllegalArgumentException.class)
-    public ResponseEntity<?> handleIllegalArgumentException(IllegalArgumentException e) {
-        log.error("got IllegalArgumentException", e);
-        return new ResponseEntity<>(
-                String.format("IllegalArgumentException handled: '%s'. Bad request.", e.getMessage()),
-                HttpStatus.BAD_REQUEST
-        );
+    public ResponseEntity<ErrorResponseDto> handleIllegalArgumentException(IllegalArgumentException e) {
+        // Unlike the domain exceptions this one may come from a bug deep in the stack, so its trace is kept.
+        errorLogSampler.record(ErrorCode.BAD_REQUEST, e.getMessage(), e);
+        return ResponseEntity
+                .status(HttpStatus.BAD_REQUEST)
+                .body(new ErrorResponseDto(
+                        HttpStatus.BAD_REQUEST.value(),
+                        ErrorCode.BAD_REQUEST.name(),
+                        String.format("Bad request: '%s'", e.getMessage())
+                ));
     }
 
     @ExceptionHandler(NoTransactionsInThisPeriodException.class)
-    public ResponseEntity<?> handleNoTransactionsInThisPeriodException(NoTransactionsInThisPeriodException e) {
-        log.error(
-                "got NoTransactionsInThisPeriodException for period: {} to {} with message: {}",
-                e.getStart(),
-                e.getEnd(),
-                e.getMessage()
-        );
-        return new ResponseEntity<>(
+    public ResponseEntity<ErrorResponseDto> handleNoTransactionsInThisPeriodException(
+            NoTransactionsInThisPeriodException e
+    ) {
+        return respond(
+                HttpStatus.NOT_FOUND,
+                ErrorCode.NO_TRANSACTIONS_IN_PERIOD,
                 String.format(
                         "There were no transactions in the given period: %s to %s",
                         e.getStart().toLocalDate().toString(),
                         e.getEnd().toLocalDate().toString()
-                ),
-                HttpStatus.NOT_FOUND
+                )
         );
     }
 
     @ExceptionHandler(SellerHasNoTransactionsException.class)
-    public ResponseEntity<?> handleSellerHasNoTransactionsException(SellerHasNoTransactionsException e) {
-        log.error(
-                "got SellerHasNoTransactionsException for seller with id: {}", e.getSellerId());
-        return new ResponseEntity<>(
+    public ResponseEntity<ErrorResponseDto> handleSellerHasNoTransactionsException(
+            SellerHasNoTransactionsException e
+    ) {
+        return respond(
+                HttpStatus.NOT_FOUND,
+                ErrorCode.SELLER_HAS_NO_TRANSACTIONS,
                 String.format(
                         "Couldn't find the best day for seller with id: %d because it has zero transactions",
                         e.getSellerId()
-                ),
-                HttpStatus.NOT_FOUND
+                )
         );
     }
 
     @ExceptionHandler(TransactionValidationException.class)
-    public ResponseEntity<?> handleTransactionValidationException(TransactionValidationException e) {
-        log.error("got TransactionValidationException", e);
-        String errorMessage = e.getViolations().stream()
-                .map(v -> "Property: " + v.getPropertyPath() + ", message: " + v.getMessage())
-                .collect(Collectors.joining("\n"));
-
-        return new ResponseEntity<>(
-                String.format("Validation failed for transaction. Validation errors:\n%s", errorMessage),
-                HttpStatus.BAD_REQUEST
+    public ResponseEntity<ErrorResponseDto> handleTransactionValidationException(TransactionValidationException e) {
+        return respondWithViolations(
+                ErrorCode.TRANSACTION_VALIDATION_FAILED,
+                "Validation failed for transaction",
+                e.getViolations()
         );
     }
 
     @ExceptionHandler(SellerValidationException.class)
-    public ResponseEntity<?> handleSellerValidationException(SellerValidationException e) {
-        log.error("got SellerValidationException", e);
-        String errorMessage = e.getViolations().stream()
-                .map(v -> "Property: " + v.getPropertyPath() + ", message: " + v.getMessage())
-                .collect(Collectors.joining("\n"));
-
-        return new ResponseEntity<>(
-                String.format("Validation failed for seller. Validation errors:\n%s", errorMessage),
-                HttpStatus.BAD_REQUEST
+    public ResponseEntity<ErrorResponseDto> handleSellerValidationException(SellerValidationException e) {
+        return respondWithViolations(
+                ErrorCode.SELLER_VALIDATION_FAILED,
+                "Validation failed for seller",
+                e.getViolations()
         );
     }
 
     @ExceptionHandler(InvalidPaymentTypeException.class)
-    public ResponseEntity<?> handleInvalidPaymentTypeException(InvalidPaymentTypeException e) {
-        log.error("got InvalidPaymentTypeException", e);
-        return new ResponseEntity<>(
+    public ResponseEntity<ErrorResponseDto> handleInvalidPaymentTypeException(InvalidPaymentTypeException e) {
+        return respond(
+                HttpStatus.BAD_REQUEST,
+                ErrorCode.INVALID_PAYMENT_TYPE,
                 String.format(
                         "Got invalid payment type: %s. Available types are: 'CARD', 'CASH', 'TRANSFER'",
-                        e.getPassedPaymentType()),
-                HttpStatus.BAD_REQUEST
+                        e.getPassedPaymentType()
+                )
         );
     }
 
     @ExceptionHandler(NullSellerIdException.class)
-    public ResponseEntity<?> handleNullSellerIdException(NullSellerIdException e) {
-        log.error("got NullSellerIdException", e);
-        return new ResponseEntity<>(
-                "Seller ID must not be null when creating a new transaction",
-                HttpStatus.BAD_REQUEST
+    public ResponseEntity<ErrorResponseDto> handleNullSellerIdException(NullSellerIdException e) {
+        return respond(
+                HttpStatus.BAD_REQUEST,
+                ErrorCode.NULL_SELLER_ID,
+                "Seller ID must not be null when creating a new transaction"
+        );
+    }
+
+    @ExceptionHandler(RecordingNotFoundException.class)
+    public ResponseEntity<ErrorResponseDto> handleRecordingNotFoundException(RecordingNotFoundException e) {
+        return respond(
+                HttpStatus.NOT_FOUND,
+                ErrorCode.RECORDING_NOT_FOUND,
+                String.format("Couldn't find recording with id: %d", e.getId())
+        );
+    }
+
+    @ExceptionHandler(RecordingInProgressException.class)
+    public ResponseEntity<ErrorResponseDto> handleRecordingInProgressException(RecordingInProgressException e) {
+        return respond(
+                HttpStatus.CONFLICT,
+                ErrorCode.RECORDING_IN_PROGRESS,
+                String.format("Recording with id: %d is still in progress", e.getId())
         );
     }
+
+    @ExceptionHandler(JobNotFoundException.class)
+    public ResponseEntity<ErrorResponseDto> handleJobNotFoundException(JobNotFoundException e) {
+        return respond(
+                HttpStatus.NOT_FOUND,
+                ErrorCode.JOB_NOT_FOUND,
+                String.format("Couldn't find job with name: %s", e.getName())
+        );
+    }
+
+    @ExceptionHandler(RebalanceInProgressException.class)
+    public ResponseEntity<ErrorResponseDto> handleRebalanceInProgressException(RebalanceInProgressException e) {
+        return respond(
+                HttpStatus.CONFLICT,
+                ErrorCode.REBALANCE_IN_PROGRESS,
+                "Shards are being rebalanced by another request"
+        );
+    }
+
+    @ExceptionHandler(PeriodNotClosedException.class)
+    public ResponseEntity<ErrorResponseDto> handlePeriodNotClosedException(PeriodNotClosedException e) {
+        return respond(
+                HttpStatus.CONFLICT,
+                ErrorCode.PERIOD_NOT_CLOSED,
+                String.format(
+                        "The %s starting on %s can be reported from %s",
+                        e.getType().name().toLowerCase(),
+                        e.getStart().toLocalDate().toString(),
+                        e.getClosesAt().toString()
+                )
+        );
+    }
+
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<ErrorResponseDto> handleRejectedExecutionException(RejectedExecutionException e) {
+        errorLogSampler.record(ErrorCode.SERVICE_UNAVAILABLE, "analytics bulkhead is saturated");
+        return ResponseEntity
+                .status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(new ErrorResponseDto(
+                        HttpStatus.SERVICE_UNAVAILABLE.value(),
+                        ErrorCode.SERVICE_UNAVAILABLE.name(),
+                        "Analytics is busy, retry later"
+                ));
+    }
+
+    private ResponseEntity<ErrorResponseDto> respond(HttpStatus status, ErrorCode code, String message) {
+        errorLogSampler.record(code, message);
+        return ResponseEntity
+                .status(status)
+                .body(new ErrorResponseDto(status.value(), code.name(), message));
+    }
+
+    private <T> ResponseEntity<ErrorResponseDto> respondWithViolations(
+            ErrorCode code,
+            String message,
+            Set<ConstraintViolation<T>> violations
+    ) {
+        List<ErrorResponseDto.ViolationDto> violationDtos = violations.stream()
+                .map(v -> new ErrorResponseDto.ViolationDto(v.getPropertyPath().toString(), v.getMessage()))
+                .toList();
+        errorLogSampler.record(code, message + ": " + violationDtos);
+
+        return ResponseEntity
+                .status(HttpStatus.BAD_REQUEST)
+                .body(new ErrorResponseDto(HttpStatus.BAD_REQUEST.value(), code.name(), message, violationDtos));
+    }
 }
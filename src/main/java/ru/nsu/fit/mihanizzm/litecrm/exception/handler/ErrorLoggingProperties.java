@@ -0,0 +1,10 @@
+package ru.nsu.fit.mihanizzm.litecrm.exception.handler;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+@ConfigurationProperties(prefix = "litecrm.error-logging")
+public record ErrorLoggingProperties(
+        @DefaultValue("1")
+        int maxLogsPerSecond
+) {}
@@ -0,0 +1,36 @@
+package ru.nsu.fit.mihanizzm.litecrm.ingest;
+
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Envers revision of transactions inserted with plain SQL, which Hibernate doesn't audit by itself.
+ */
+final class CreatedTransactionAudit {
+    private static final String ENVERS_ENABLED = "spring.jpa.properties.hibernate.integration.envers.enabled";
+    private static final int REVTYPE_ADD = 0;
+    private static final String INSERT_AUDIT = "INSERT INTO app.transaction_aud " +
+            "(id, rev, revtype, seller_id, amount, payment_type) " +
+            "SELECT id, ?, ?, seller_id, amount, payment_type FROM app.transaction WHERE id = ANY (?)";
+
+    private CreatedTransactionAudit() {}
+
+    static boolean enabled(Environment environment) {
+        return environment.getProperty(ENVERS_ENABLED, Boolean.class, true);
+    }
+
+    /**
+     * Records the creation of the transactions in one revision, in the current database transaction.
+     */
+    static void record(JdbcTemplate jdbc, Integer[] ids) {
+        if (ids.length == 0) {
+            return;
+        }
+        Integer revision = jdbc.queryForObject(
+                "INSERT INTO revinfo (rev, revtstmp) VALUES (nextval('revinfo_seq'), ?) RETURNING rev",
+                Integer.class,
+                System.currentTimeMillis()
+        );
+        jdbc.update(INSERT_AUDIT, revision, REVTYPE_ADD, ids);
+    }
+}
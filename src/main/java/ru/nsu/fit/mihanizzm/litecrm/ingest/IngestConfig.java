@@ -0,0 +1,42 @@
+package ru.nsu.fit.mihanizzm.litecrm.ingest;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.sql.init.dependency.DependsOnDatabaseInitialization;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.nsu.fit.mihanizzm.litecrm.seed.SeedRunner;
+import ru.nsu.fit.mihanizzm.litecrm.sharding.ShardDataSources;
+import ru.nsu.fit.mihanizzm.litecrm.sharding.ShardingProperties;
+
+import java.io.IOException;
+
+@Configuration
+@Profile("!" + SeedRunner.PROFILE)
+@ConditionalOnProperty(prefix = "litecrm.ingest", name = "enabled", havingValue = "true")
+public class IngestConfig {
+    @Bean
+    @DependsOnDatabaseInitialization
+    WriteAheadLog writeAheadLog(
+            IngestProperties properties,
+            ShardingProperties sharding,
+            ShardDataSources dataSources,
+            MeterRegistry meterRegistry
+    ) throws IOException {
+        if (sharding.enabled()) {
+            // The log and the ID blocks belong to a single database
+            throw new IllegalStateException("litecrm.ingest can't be enabled together with litecrm.sharding");
+        }
+        JdbcTemplate jdbc = new JdbcTemplate(dataSources.oltp(0));
+        return new WriteAheadLog(
+                properties.directory(),
+                properties.segmentSize().toBytes(),
+                properties.fsyncInterval(),
+                properties.fsyncBatch(),
+                logId -> WalApplier.appliedLsn(jdbc, logId),
+                meterRegistry
+        );
+    }
+}
@@ -0,0 +1,52 @@
+package ru.nsu.fit.mihanizzm.litecrm.ingest;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Ingestion of new transactions through a local {@link WriteAheadLog} and in binary batches.
+ *
+ * @param enabled         whether a created transaction is acknowledged once it is in the log, before it is in the
+ *                        database; not supported together with sharding
+ * @param directory       directory of the log; every instance needs a directory of its own
+ * @param segmentSize     size of a log file; only applies to a new log
+ * @param fsyncInterval   longest time a record waits for more records to be forced to disk with it
+ * @param fsyncBatch      records waiting that force the log to disk without waiting for the interval
+ * @param idBlockSize     transaction IDs reserved from the database sequence at once
+ * @param applyInterval   delay between the end of a replay into the database and the start of the next one
+ * @param applyBatchSize  records inserted in one database transaction
+ * @param maxBatchRecords records accepted in one {@link TransactionBatch}
+ */
+@ConfigurationProperties(prefix = "litecrm.ingest")
+public record IngestProperties(
+        @DefaultValue("false")
+        boolean enabled,
+
+        @DefaultValue("wal")
+        Path directory,
+
+        @DefaultValue("64MB")
+        DataSize segmentSize,
+
+        @DefaultValue("2ms")
+        Duration fsyncInterval,
+
+        @DefaultValue("256")
+        int fsyncBatch,
+
+        @DefaultValue("1000")
+        int idBlockSize,
+
+        @DefaultValue("200ms")
+        Duration applyInterval,
+
+        @DefaultValue("5000")
+        int applyBatchSize,
+
+        @DefaultValue("10000")
+        int maxBatchRecords
+) {}
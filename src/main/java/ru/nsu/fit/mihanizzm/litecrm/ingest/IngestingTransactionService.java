@@ -0,0 +1,122 @@
+package ru.nsu.fit.mihanizzm.litecrm.ingest;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import ru.nsu.fit.mihanizzm.litecrm.exception.NullSellerIdException;
+import ru.nsu.fit.mihanizzm.litecrm.exception.TransactionValidationException;
+import ru.nsu.fit.mihanizzm.litecrm.models.Seller;
+import ru.nsu.fit.mihanizzm.litecrm.models.Transaction;
+import ru.nsu.fit.mihanizzm.litecrm.models.dtos.TransactionRequestDto;
+import ru.nsu.fit.mihanizzm.litecrm.models.dtos.TransactionResponseDto;
+import ru.nsu.fit.mihanizzm.litecrm.models.mappers.TransactionMapper;
+import ru.nsu.fit.mihanizzm.litecrm.seed.SeedRunner;
+import ru.nsu.fit.mihanizzm.litecrm.services.SellerService;
+import ru.nsu.fit.mihanizzm.litecrm.services.TransactionService;
+import ru.nsu.fit.mihanizzm.litecrm.services.impl.TransactionServiceImpl;
+
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Acknowledges a created transaction once it is forced to the {@link WriteAheadLog}; the {@link WalApplier}
+ * inserts it into the database afterwards, and until then it is missing from reads and analytics. The ID is taken
+ * from a block reserved from the database sequence, so it stays the same when the transaction is inserted. The
+ * other calls go to the database as usual.
+ */
+@Slf4j
+@Service
+@Primary
+@RequiredArgsConstructor
+@Profile("!" + SeedRunner.PROFILE)
+@ConditionalOnProperty(prefix = "litecrm.ingest", name = "enabled", havingValue = "true")
+public class IngestingTransactionService implements TransactionService {
+    private static final String RESERVE_IDS = "SELECT nextval('app.transaction_id_seq') FROM generate_series(1, ?)";
+
+    private final TransactionServiceImpl transactionService;
+    private final SellerService sellerService;
+    private final TransactionMapper transactionMapper;
+    private final Validator validator;
+    private final JdbcTemplate jdbcTemplate;
+    private final WriteAheadLog writeAheadLog;
+    private final IngestProperties properties;
+    private final Deque<Integer> reservedIds = new ArrayDeque<>();
+
+    @Override
+    public List<TransactionResponseDto> getAllTransactions() {
+        return transactionService.getAllTransactions();
+    }
+
+    @Override
+    public TransactionResponseDto getTransactionById(Integer id) {
+        return transactionService.getTransactionById(id);
+    }
+
+    @Override
+    public TransactionResponseDto createTransaction(TransactionRequestDto transactionRequestDto) {
+        log.debug("trying to log a new transaction");
+        if (transactionRequestDto.sellerId() == null) {
+            throw new NullSellerIdException();
+        }
+        // Cached; a seller deleted before the transaction is applied drops it
+        sellerService.getSellerById(transactionRequestDto.sellerId());
+        Seller seller = new Seller();
+        seller.setId(transactionRequestDto.sellerId());
+
+        Transaction transaction = transactionMapper.toEntity(transactionRequestDto);
+        transaction.setSeller(seller);
+        if (transaction.getAmount() != null) {
+            // Rounded the way the amount column rounds it, so that the response matches what is stored
+            transaction.setAmount(transaction.getAmount().setScale(2, RoundingMode.HALF_UP));
+        }
+        transaction.setTransactionDate(LocalDateTime.now().truncatedTo(ChronoUnit.MICROS));
+        validate(transaction);
+
+        transaction.setId(nextId());
+        writeAheadLog.append(new WalRecord(
+                transaction.getId(),
+                seller.getId(),
+                transaction.getAmount().unscaledValue().longValueExact(),
+                transaction.getPaymentType(),
+                transaction.getTransactionDate()
+        ));
+        log.debug("successfully logged a new transaction with id: {}", transaction.getId());
+
+        return transactionMapper.toResponse(transaction);
+    }
+
+    @Override
+    public TransactionResponseDto updateTransaction(Integer id, TransactionRequestDto transactionRequestDto) {
+        return transactionService.updateTransaction(id, transactionRequestDto);
+    }
+
+    @Override
+    public void deleteTransaction(Integer id) {
+        transactionService.deleteTransaction(id);
+    }
+
+    private synchronized int nextId() {
+        if (reservedIds.isEmpty()) {
+            reservedIds.addAll(jdbcTemplate.queryForList(RESERVE_IDS, Integer.class, properties.idBlockSize()));
+        }
+        return reservedIds.poll();
+    }
+
+    private void validate(Transaction transaction) {
+        Set<ConstraintViolation<Transaction>> errors = validator.validate(transaction);
+        if (!errors.isEmpty()) {
+            throw new TransactionValidationException(errors);
+        }
+    }
+}
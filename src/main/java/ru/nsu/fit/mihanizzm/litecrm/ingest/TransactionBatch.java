@@ -0,0 +1,119 @@
+package ru.nsu.fit.mihanizzm.litecrm.ingest;
+
+import ru.nsu.fit.mihanizzm.litecrm.models.PaymentType;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Transactions to create, in the binary format of {@code POST /api/v1/transactions/batch}. All numbers are
+ * big-endian:
+ * <pre>
+ * int32 count                 number of records that follow
+ * count times {@value #RECORD_SIZE} bytes:
+ *     int32 sellerId
+ *     int64 amount            in minor units, 2280 for 22.80
+ *     int8  paymentType       0 CASH, 1 CARD, 2 TRANSFER
+ * </pre>
+ * The response holds the IDs of the created transactions in the order of the records: an {@code int32} count
+ * followed by an {@code int32} per record.
+ * <p>
+ * The records are decoded into one array per field, so a batch costs three allocations however many records it has.
+ */
+public final class TransactionBatch {
+    public static final String MEDIA_TYPE = "application/vnd.litecrm.transactions";
+    public static final int RECORD_SIZE = Integer.BYTES + Long.BYTES + Byte.BYTES;
+    /** Upper bound of the {@code amount} column in minor units. */
+    static final long MAX_AMOUNT = 99_999_999_99L;
+
+    private static final PaymentType[] PAYMENT_TYPES = PaymentType.values();
+
+    private final int[] sellerIds;
+    private final long[] amounts;
+    private final byte[] paymentTypes;
+
+    private TransactionBatch(int[] sellerIds, long[] amounts, byte[] paymentTypes) {
+        this.sellerIds = sellerIds;
+        this.amounts = amounts;
+        this.paymentTypes = paymentTypes;
+    }
+
+    /**
+     * Decodes the batch between the position and the limit of the buffer, leaving them unchanged.
+     *
+     * @throws IllegalArgumentException if the batch is malformed, larger than {@code maxRecords} or holds an
+     *                                  invalid record; nothing of such a batch is created
+     */
+    public static TransactionBatch decode(ByteBuffer body, int maxRecords) {
+        int offset = body.position();
+        int length = body.remaining();
+        if (length < Integer.BYTES) {
+            throw new IllegalArgumentException("a batch starts with the number of records");
+        }
+        int count = body.getInt(offset);
+        if (count < 0 || count > maxRecords) {
+            throw new IllegalArgumentException(
+                    "a batch holds from 0 to " + maxRecords + " records, got " + count);
+        }
+        if (length != byteSize(count)) {
+            throw new IllegalArgumentException(
+                    "a batch of " + count + " records takes " + byteSize(count) + " bytes, got " + length);
+        }
+
+        int[] sellerIds = new int[count];
+        long[] amounts = new long[count];
+        byte[] paymentTypes = new byte[count];
+        int position = offset + Integer.BYTES;
+        for (int i = 0; i < count; i++, position += RECORD_SIZE) {
+            int sellerId = body.getInt(position);
+            long amount = body.getLong(position + Integer.BYTES);
+            byte paymentType = body.get(position + Integer.BYTES + Long.BYTES);
+            if (sellerId <= 0) {
+                throw new IllegalArgumentException("record " + i + ": seller ID must be positive");
+            }
+            if (amount < 0 || amount > MAX_AMOUNT) {
+                throw new IllegalArgumentException("record " + i + ": amount must be from 0 to " + MAX_AMOUNT);
+            }
+            if (paymentType < 0 || paymentType >= PAYMENT_TYPES.length) {
+                throw new IllegalArgumentException("record " + i + ": unknown payment type " + paymentType);
+            }
+            sellerIds[i] = sellerId;
+            amounts[i] = amount;
+            paymentTypes[i] = paymentType;
+        }
+        return new TransactionBatch(sellerIds, amounts, paymentTypes);
+    }
+
+    /**
+     * Encodes the IDs of the created transactions as the response to a batch.
+     */
+    public static byte[] encodeIds(int[] ids) {
+        ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES * (ids.length + 1)).putInt(ids.length);
+        for (int id : ids) {
+            buffer.putInt(id);
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Size in bytes of a batch of the given number of records.
+     */
+    public static long byteSize(int records) {
+        return Integer.BYTES + (long) records * RECORD_SIZE;
+    }
+
+    public int size() {
+        return sellerIds.length;
+    }
+
+    public int sellerId(int index) {
+        return sellerIds[index];
+    }
+
+    public long amount(int index) {
+        return amounts[index];
+    }
+
+    public PaymentType paymentType(int index) {
+        return PAYMENT_TYPES[paymentTypes[index]];
+    }
+}
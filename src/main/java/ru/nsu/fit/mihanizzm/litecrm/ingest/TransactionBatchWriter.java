@@ -0,0 +1,206 @@
+package ru.nsu.fit.mihanizzm.litecrm.ingest;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.nsu.fit.mihanizzm.litecrm.cache.CacheInvalidationBus;
+import ru.nsu.fit.mihanizzm.litecrm.cache.ChangeEvent;
+import ru.nsu.fit.mihanizzm.litecrm.exception.SellerNotFoundException;
+import ru.nsu.fit.mihanizzm.litecrm.sharding.ShardDataSources;
+import ru.nsu.fit.mihanizzm.litecrm.sharding.ShardDirectory;
+import ru.nsu.fit.mihanizzm.litecrm.totals.TransactionDelta;
+import ru.nsu.fit.mihanizzm.litecrm.totals.TransactionDeltas;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Inserts a {@link TransactionBatch} with one statement per shard, together with the {@code CREATED} outbox events
+ * and the Envers revision, the way the {@link WalApplier} does. The IDs are taken from the sequence of the shard
+ * in the same statement.
+ * <p>
+ * A batch is rejected before anything is inserted if one of its sellers doesn't exist. Records of sellers on
+ * different shards are inserted in one database transaction per shard, so such a batch isn't atomic if a shard
+ * fails halfway.
+ */
+@Component
+public class TransactionBatchWriter {
+    private static final String MISSING_SELLER = "SELECT r.id FROM unnest(?::int[]) AS r(id) " +
+            "WHERE NOT EXISTS (SELECT 1 FROM app.seller s WHERE s.id = r.id) LIMIT 1";
+    private static final String INSERT_TRANSACTIONS = "WITH input AS (" +
+            "SELECT nextval('app.transaction_id_seq')::int AS id, r.record, r.seller_id, " +
+            "r.cents * 0.01 AS amount, r.payment_type " +
+            "FROM unnest(?::int[], ?::int[], ?::bigint[], ?::varchar[]) " +
+            "AS r(record, seller_id, cents, payment_type)" +
+            "), inserted AS (" +
+            "INSERT INTO app.transaction (id, seller_id, amount, payment_type, transaction_date) " +
+            "SELECT id, seller_id, amount, payment_type, ? FROM input" +
+            "), events AS (" +
+            "INSERT INTO app.transaction_event (type, transaction_id, seller_id, amount, transaction_date) " +
+            "SELECT 'CREATED', id, seller_id, amount, ? FROM input" +
+            ") SELECT record, id FROM input";
+
+    private final ShardDataSources dataSources;
+    private final ShardDirectory directory;
+    private final CacheInvalidationBus cacheInvalidationBus;
+    private final TransactionDeltas transactionDeltas;
+    private final boolean audited;
+    private final Counter created;
+
+    public TransactionBatchWriter(
+            ShardDataSources dataSources,
+            ObjectProvider<ShardDirectory> directory,
+            CacheInvalidationBus cacheInvalidationBus,
+            TransactionDeltas transactionDeltas,
+            Environment environment,
+            MeterRegistry meterRegistry
+    ) {
+        this.dataSources = dataSources;
+        this.directory = directory.getIfAvailable();
+        this.cacheInvalidationBus = cacheInvalidationBus;
+        this.transactionDeltas = transactionDeltas;
+        this.audited = CreatedTransactionAudit.enabled(environment);
+        this.created = Counter.builder("litecrm.ingest.batch.records")
+                .description("Transactions created from binary batches")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return IDs of the created transactions in the order of the records
+     * @throws SellerNotFoundException if a seller of the batch doesn't exist
+     */
+    public int[] insert(TransactionBatch batch) {
+        int[] ids = new int[batch.size()];
+        if (batch.size() == 0) {
+            return ids;
+        }
+        Map<Integer, int[]> recordsByShard = groupByShard(batch);
+        for (Map.Entry<Integer, int[]> shard : recordsByShard.entrySet()) {
+            int missing = missingSeller(shard.getKey(), batch, shard.getValue());
+            if (missing == 0) {
+                continue;
+            }
+            // A seller moved by another instance since the directory was read is looked up on its new shard
+            if (directory != null && directory.refresh(missing)) {
+                return insert(batch);
+            }
+            throw new SellerNotFoundException(missing);
+        }
+
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        recordsByShard.forEach((shard, records) -> insert(shard, batch, records, now, ids));
+        created.increment(batch.size());
+        return ids;
+    }
+
+    private Map<Integer, int[]> groupByShard(TransactionBatch batch) {
+        if (directory == null) {
+            int[] records = new int[batch.size()];
+            Arrays.setAll(records, i -> i);
+            return Map.of(0, records);
+        }
+        int[] shards = new int[batch.size()];
+        int[] counts = new int[directory.shardCount()];
+        for (int i = 0; i < batch.size(); i++) {
+            shards[i] = directory.shardOfSeller(batch.sellerId(i));
+            counts[shards[i]]++;
+        }
+        Map<Integer, int[]> recordsByShard = new HashMap<>();
+        for (int i = 0; i < batch.size(); i++) {
+            int[] records = recordsByShard.computeIfAbsent(shards[i], shard -> new int[counts[shard]]);
+            records[records.length - counts[shards[i]]--] = i;
+        }
+        return recordsByShard;
+    }
+
+    private int missingSeller(int shard, TransactionBatch batch, int[] records) {
+        Integer[] sellerIds = Arrays.stream(records)
+                .map(batch::sellerId)
+                .distinct()
+                .boxed()
+                .toArray(Integer[]::new);
+        List<Integer> missing = new JdbcTemplate(dataSources.oltp(shard))
+                .queryForList(MISSING_SELLER, Integer.class, (Object) sellerIds);
+        return missing.isEmpty() ? 0 : missing.getFirst();
+    }
+
+    private void insert(int shard, TransactionBatch batch, int[] records, LocalDateTime now, int[] ids) {
+        Integer[] recordIndexes = new Integer[records.length];
+        Integer[] sellerIds = new Integer[records.length];
+        Long[] amounts = new Long[records.length];
+        String[] paymentTypes = new String[records.length];
+        for (int i = 0; i < records.length; i++) {
+            recordIndexes[i] = records[i];
+            sellerIds[i] = batch.sellerId(records[i]);
+            amounts[i] = batch.amount(records[i]);
+            paymentTypes[i] = batch.paymentType(records[i]).name();
+        }
+
+        JdbcTemplate jdbc = new JdbcTemplate(dataSources.oltp(shard));
+        new TransactionTemplate(new DataSourceTransactionManager(dataSources.oltp(shard))).executeWithoutResult(
+                status -> {
+                    jdbc.query(
+                            INSERT_TRANSACTIONS,
+                            (RowCallbackHandler) rs -> ids[rs.getInt(1)] = rs.getInt(2),
+                            recordIndexes,
+                            sellerIds,
+                            amounts,
+                            paymentTypes,
+                            now,
+                            now
+                    );
+                    Integer[] createdIds = Arrays.stream(records).mapToObj(record -> ids[record])
+                            .toArray(Integer[]::new);
+                    if (audited) {
+                        CreatedTransactionAudit.record(jdbc, createdIds);
+                    }
+                    publish(batch, records, ids, now);
+                }
+        );
+    }
+
+    /**
+     * Reports the batch once per seller after the commit: new transactions aren't cached by ID, so one event per
+     * seller evicts everything they affect.
+     */
+    private void publish(TransactionBatch batch, int[] records, int[] ids, LocalDateTime now) {
+        Map<Integer, Totals> bySeller = new HashMap<>();
+        for (int record : records) {
+            Totals totals = bySeller.computeIfAbsent(batch.sellerId(record), sellerId -> new Totals(ids[record]));
+            totals.count++;
+            totals.cents += batch.amount(record);
+        }
+        cacheInvalidationBus.publish(bySeller.entrySet().stream()
+                .map(entry -> ChangeEvent.transaction(entry.getValue().id, entry.getKey(), now.toLocalDate()))
+                .toArray(ChangeEvent[]::new));
+        transactionDeltas.publish(bySeller.entrySet().stream()
+                .map(entry -> TransactionDelta.created(
+                        entry.getKey(),
+                        entry.getValue().count,
+                        BigDecimal.valueOf(entry.getValue().cents, 2),
+                        now
+                ))
+                .toList());
+    }
+
+    private static final class Totals {
+        private final int id;
+        private int count;
+        private long cents;
+
+        Totals(int id) {
+            this.id = id;
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package ru.nsu.fit.mihanizzm.litecrm.ingest;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.nsu.fit.mihanizzm.litecrm.cache.CacheInvalidationBus;
+import ru.nsu.fit.mihanizzm.litecrm.cache.ChangeEvent;
+import ru.nsu.fit.mihanizzm.litecrm.seed.SeedRunner;
+import ru.nsu.fit.mihanizzm.litecrm.sharding.ShardDataSources;
+import ru.nsu.fit.mihanizzm.litecrm.totals.TransactionDelta;
+import ru.nsu.fit.mihanizzm.litecrm.totals.TransactionDeltas;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Replays the {@link WriteAheadLog} into {@code app.transaction} in batches. A batch inserts the transactions
+ * together with their {@code CREATED} outbox events and Envers revision, and advances the checkpoint of the log
+ * in {@code app.ingest_checkpoint} in the same database transaction. After a crash the log is replayed from that
+ * checkpoint, so every record is inserted exactly once.
+ * <p>
+ * Transactions of sellers deleted after the transaction was acknowledged are dropped.
+ */
+@Slf4j
+@Component
+@Profile("!" + SeedRunner.PROFILE)
+@ConditionalOnProperty(prefix = "litecrm.ingest", name = "enabled", havingValue = "true")
+public class WalApplier implements AutoCloseable {
+    private static final int CLOSE_TIMEOUT_SECONDS = 30;
+
+    private static final String INSERT_TRANSACTIONS = "WITH inserted AS (" +
+            "INSERT INTO app.transaction (id, seller_id, amount, payment_type, transaction_date) " +
+            "SELECT r.id, r.seller_id, r.cents * 0.01, r.payment_type, " +
+            "TIMESTAMP '1970-01-01 00:00:00' + r.micros * INTERVAL '1 microsecond' " +
+            "FROM unnest(?::int[], ?::int[], ?::bigint[], ?::varchar[], ?::bigint[]) " +
+            "AS r(id, seller_id, cents, payment_type, micros) " +
+            "WHERE EXISTS (SELECT 1 FROM app.seller s WHERE s.id = r.seller_id) " +
+            "ON CONFLICT (id) DO NOTHING " +
+            "RETURNING id, seller_id, amount, transaction_date" +
+            "), events AS (" +
+            "INSERT INTO app.transaction_event (type, transaction_id, seller_id, amount, transaction_date) " +
+            "SELECT 'CREATED', id, seller_id, amount, transaction_date FROM inserted" +
+            ") SELECT id, seller_id, amount, transaction_date FROM inserted";
+    private static final String SAVE_CHECKPOINT = "INSERT INTO app.ingest_checkpoint (log_id, applied_lsn) " +
+            "VALUES (?, ?) ON CONFLICT (log_id) DO UPDATE " +
+            "SET applied_lsn = EXCLUDED.applied_lsn, updated_at = localtimestamp";
+
+    private final WriteAheadLog writeAheadLog;
+    private final IngestProperties properties;
+    private final CacheInvalidationBus cacheInvalidationBus;
+    private final TransactionDeltas transactionDeltas;
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean audited;
+    private final Counter applied;
+    private final Counter dropped;
+    private final ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+    private volatile long appliedLsn;
+    private volatile boolean stopping;
+
+    public WalApplier(
+            WriteAheadLog writeAheadLog,
+            IngestProperties properties,
+            ShardDataSources dataSources,
+            CacheInvalidationBus cacheInvalidationBus,
+            TransactionDeltas transactionDeltas,
+            Environment environment,
+            MeterRegistry meterRegistry
+    ) {
+        this.writeAheadLog = writeAheadLog;
+        this.properties = properties;
+        this.cacheInvalidationBus = cacheInvalidationBus;
+        this.transactionDeltas = transactionDeltas;
+        this.jdbc = new JdbcTemplate(dataSources.oltp(0));
+        this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSources.oltp(0)));
+        this.audited = CreatedTransactionAudit.enabled(environment);
+        this.appliedLsn = writeAheadLog.releasedLsn();
+        this.applied = Counter.builder("litecrm.ingest.applied")
+                .description("Transactions inserted from the write-ahead log")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("litecrm.ingest.dropped")
+                .description("Transactions of the write-ahead log dropped since their seller was deleted")
+                .register(meterRegistry);
+        Gauge.builder("litecrm.ingest.backlog", this, WalApplier::backlog)
+                .description("Acknowledged transactions not inserted into the database yet")
+                .register(meterRegistry);
+        scheduler.setThreadNamePrefix("wal-applier-");
+        scheduler.setWaitForTasksToCompleteOnShutdown(true);
+        scheduler.setAwaitTerminationSeconds(CLOSE_TIMEOUT_SECONDS);
+        scheduler.initialize();
+    }
+
+    private double backlog() {
+        return writeAheadLog.durableLsn() - appliedLsn;
+    }
+
+    /**
+     * LSN up to which the log with the given ID was applied, or 0 for a new log.
+     */
+    static long appliedLsn(JdbcTemplate jdbc, UUID logId) {
+        List<Long> lsn = jdbc.queryForList(
+                "SELECT applied_lsn FROM app.ingest_checkpoint WHERE log_id = ?",
+                Long.class,
+                logId
+        );
+        return lsn.isEmpty() ? 0 : lsn.getFirst();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::poll, properties.applyInterval());
+        log.info("replaying the write-ahead log every {}", properties.applyInterval());
+    }
+
+    /**
+     * Applies the durable records until the log is caught up.
+     *
+     * @return number of applied records
+     */
+    public int apply() {
+        int total = 0;
+        int batch;
+        do {
+            batch = applyBatch();
+            total += batch;
+        } while (batch >= properties.applyBatchSize() && !stopping);
+        return total;
+    }
+
+    private void poll() {
+        try {
+            apply();
+        } catch (RuntimeException e) {
+            log.warn("replaying the write-ahead log failed, retrying on the next poll", e);
+        }
+    }
+
+    private int applyBatch() {
+        long fromLsn = appliedLsn;
+        List<WalRecord> records = writeAheadLog.read(fromLsn, properties.applyBatchSize());
+        if (records.isEmpty()) {
+            return 0;
+        }
+        long toLsn = fromLsn + records.size();
+        List<Inserted> inserted = transactionTemplate.execute(status -> insert(records, toLsn));
+
+        appliedLsn = toLsn;
+        writeAheadLog.release(toLsn);
+        transactionDeltas.publish(inserted.stream()
+                .map(row -> TransactionDelta.created(row.sellerId(), 1, row.amount(), row.transactionDate()))
+                .toList());
+        applied.increment(inserted.size());
+        if (inserted.size() < records.size()) {
+            Set<Integer> insertedIds = inserted.stream().map(Inserted::id).collect(Collectors.toSet());
+            List<Integer> droppedIds = records.stream()
+                    .map(WalRecord::id)
+                    .filter(id -> !insertedIds.contains(id))
+                    .toList();
+            dropped.increment(droppedIds.size());
+            log.warn("dropped transactions {} of the write-ahead log, their sellers were deleted", droppedIds);
+        }
+        log.debug("applied LSN {}..{} of the write-ahead log", fromLsn, toLsn);
+        return records.size();
+    }
+
+    private List<Inserted> insert(List<WalRecord> records, long toLsn) {
+        List<Inserted> inserted = jdbc.query(
+                INSERT_TRANSACTIONS,
+                (rs, rowNum) -> new Inserted(
+                        rs.getInt(1),
+                        rs.getInt(2),
+                        rs.getBigDecimal(3),
+                        rs.getObject(4, LocalDateTime.class)
+                ),
+                records.stream().map(WalRecord::id).toArray(Integer[]::new),
+                records.stream().map(WalRecord::sellerId).toArray(Integer[]::new),
+                records.stream().map(WalRecord::amountCents).toArray(Long[]::new),
+                records.stream().map(record -> record.paymentType().name()).toArray(String[]::new),
+                records.stream().map(WalRecord::epochMicros).toArray(Long[]::new)
+        );
+        if (audited) {
+            CreatedTransactionAudit.record(jdbc, inserted.stream().map(Inserted::id).toArray(Integer[]::new));
+        }
+        jdbc.update(SAVE_CHECKPOINT, writeAheadLog.id(), toLsn);
+        cacheInvalidationBus.publish(inserted.stream()
+                .map(row -> ChangeEvent.transaction(row.id(), row.sellerId(), row.transactionDate().toLocalDate()))
+                .toArray(ChangeEvent[]::new));
+        return inserted;
+    }
+
+    @Override
+    public void close() {
+        stopping = true;
+        scheduler.shutdown();
+    }
+
+    private record Inserted(int id, int sellerId, BigDecimal amount, LocalDateTime transactionDate) {}
+}
@@ -0,0 +1,65 @@
+package ru.nsu.fit.mihanizzm.litecrm.ingest;
+
+import ru.nsu.fit.mihanizzm.litecrm.models.PaymentType;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.zip.CRC32C;
+
+/**
+ * A created transaction as it is stored in the {@link WriteAheadLog}: {@value #SIZE} bytes of format version, ID,
+ * seller ID, amount in cents, payment type, date in microseconds and a CRC32C of the preceding bytes. A zero
+ * version marks the free space after the last record.
+ */
+record WalRecord(int id, int sellerId, long amountCents, PaymentType paymentType, LocalDateTime transactionDate) {
+    static final int SIZE = 30;
+
+    private static final byte VERSION = 1;
+    private static final int CHECKSUMMED = SIZE - Integer.BYTES;
+    private static final PaymentType[] PAYMENT_TYPES = PaymentType.values();
+    private static final LocalDateTime EPOCH = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    void write(ByteBuffer buffer, int offset) {
+        buffer.put(offset, VERSION)
+                .putInt(offset + 1, id)
+                .putInt(offset + 5, sellerId)
+                .putLong(offset + 9, amountCents)
+                .put(offset + 17, (byte) paymentType.ordinal())
+                .putLong(offset + 18, epochMicros())
+                .putInt(offset + CHECKSUMMED, checksum(buffer, offset));
+    }
+
+    /**
+     * @return the record at the offset, or null if there is none or it was not written completely
+     */
+    static WalRecord read(ByteBuffer buffer, int offset) {
+        if (buffer.get(offset) != VERSION || buffer.getInt(offset + CHECKSUMMED) != checksum(buffer, offset)) {
+            return null;
+        }
+        int paymentType = buffer.get(offset + 17);
+        if (paymentType < 0 || paymentType >= PAYMENT_TYPES.length) {
+            return null;
+        }
+        return new WalRecord(
+                buffer.getInt(offset + 1),
+                buffer.getInt(offset + 5),
+                buffer.getLong(offset + 9),
+                PAYMENT_TYPES[paymentType],
+                EPOCH.plus(buffer.getLong(offset + 18), ChronoUnit.MICROS)
+        );
+    }
+
+    /**
+     * Microseconds of the date since 1970-01-01T00:00, the precision of a Postgres timestamp.
+     */
+    long epochMicros() {
+        return ChronoUnit.MICROS.between(EPOCH, transactionDate);
+    }
+
+    private static int checksum(ByteBuffer buffer, int offset) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(offset, CHECKSUMMED));
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,443 @@
+package ru.nsu.fit.mihanizzm.litecrm.ingest;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ToLongFunction;
+import java.util.stream.Stream;
+
+/**
+ * Append-only log of {@link WalRecord}s in memory-mapped files of a fixed size. A record is addressed by its
+ * log sequence number (LSN), its index since the log was created, which also gives the file and the offset in it.
+ * <p>
+ * {@link #append} returns once the record is forced to disk. A flusher thread forces the records appended within
+ * the fsync interval, or as soon as the fsync batch is reached, with a single {@code msync}, so that concurrent
+ * appends share it. Files are deleted once all of their records are {@link #release released}.
+ * <p>
+ * On open the log is scanned from the applied LSN kept by the caller up to the first missing or damaged record,
+ * and everything after that record is cut off: such records were never acknowledged.
+ */
+@Slf4j
+class WriteAheadLog implements AutoCloseable {
+    private static final String ID_FILE = "log.id";
+    private static final String LOCK_FILE = "log.lock";
+    private static final String SEGMENT_SUFFIX = ".wal";
+    private static final int SCAN_CHUNK_RECORDS = 32 * 1024;
+
+    private final Path directory;
+    private final UUID id;
+    private final int recordsPerSegment;
+    private final long fsyncIntervalNanos;
+    private final int fsyncBatch;
+    private final FileChannel lockChannel;
+    private final NavigableMap<Long, MappedByteBuffer> segments = new ConcurrentSkipListMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition appended = lock.newCondition();
+    private final Condition forced = lock.newCondition();
+    private final Set<Long> unforced = new HashSet<>();
+    private final Counter appendedRecords;
+    private final Timer forceTime;
+    private final DistributionSummary forceBatch;
+    private final Thread flusher;
+
+    private long nextLsn;
+    private volatile long durableLsn;
+    private volatile long releasedLsn;
+    private RuntimeException failure;
+    private boolean closed;
+
+    /**
+     * @param appliedLsn LSN up to which the records of the log with the given ID were applied; they are skipped
+     */
+    WriteAheadLog(
+            Path directory,
+            long segmentSize,
+            Duration fsyncInterval,
+            int fsyncBatch,
+            ToLongFunction<UUID> appliedLsn,
+            MeterRegistry meterRegistry
+    ) throws IOException {
+        this.directory = directory;
+        this.fsyncIntervalNanos = fsyncInterval.toNanos();
+        this.fsyncBatch = Math.max(fsyncBatch, 1);
+        Files.createDirectories(directory);
+        this.lockChannel = lock(directory);
+        try {
+            this.id = readOrCreateId(directory);
+            TreeMap<Long, Path> files = listSegments(directory);
+            long fileSize = files.isEmpty() ? segmentSize : Files.size(files.firstEntry().getValue());
+            this.recordsPerSegment = (int) Math.min(fileSize / WalRecord.SIZE, Integer.MAX_VALUE / WalRecord.SIZE);
+            if (recordsPerSegment < 1) {
+                throw new IllegalArgumentException("A segment must fit at least one record");
+            }
+            long applied = appliedLsn.applyAsLong(id);
+            this.nextLsn = recover(files, applied);
+            this.durableLsn = nextLsn;
+            this.releasedLsn = applied;
+        } catch (IOException | RuntimeException e) {
+            lockChannel.close();
+            throw e;
+        }
+
+        this.appendedRecords = Counter.builder("litecrm.ingest.appended")
+                .description("Transactions appended to the write-ahead log")
+                .register(meterRegistry);
+        this.forceTime = Timer.builder("litecrm.ingest.fsync")
+                .description("Time to force a group of appended records to disk")
+                .register(meterRegistry);
+        this.forceBatch = DistributionSummary.builder("litecrm.ingest.fsync.records")
+                .description("Records forced to disk together")
+                .register(meterRegistry);
+        this.flusher = Thread.ofPlatform().name("wal-flusher").daemon().start(this::flushLoop);
+        log.info(
+                "opened the write-ahead log {} in {} at LSN {}, replaying from {}",
+                id,
+                directory,
+                nextLsn,
+                releasedLsn
+        );
+    }
+
+    public UUID id() {
+        return id;
+    }
+
+    /**
+     * LSN after the last record forced to disk.
+     */
+    public long durableLsn() {
+        return durableLsn;
+    }
+
+    /**
+     * LSN of the first record not released yet.
+     */
+    public long releasedLsn() {
+        return releasedLsn;
+    }
+
+    /**
+     * Appends the record and waits until it is forced to disk.
+     *
+     * @throws IllegalStateException if the log is closed or failed to force earlier records
+     */
+    public void append(WalRecord record) {
+        lock.lock();
+        try {
+            checkOpen();
+            long lsn = nextLsn;
+            long segment = lsn / recordsPerSegment;
+            record.write(segment(segment), (int) (lsn % recordsPerSegment) * WalRecord.SIZE);
+            unforced.add(segment);
+            nextLsn = lsn + 1;
+            long waiting = nextLsn - durableLsn;
+            if (waiting == 1 || waiting >= fsyncBatch) {
+                appended.signal();
+            }
+            while (durableLsn <= lsn) {
+                if (failure != null) {
+                    throw new IllegalStateException("The write-ahead log failed to force records to disk", failure);
+                }
+                forced.await();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the write-ahead log", e);
+        } finally {
+            lock.unlock();
+        }
+        appendedRecords.increment();
+    }
+
+    /**
+     * Reads durable records starting at the given LSN.
+     *
+     * @return up to {@code max} records; fewer if the durable end of the log is reached
+     */
+    public List<WalRecord> read(long fromLsn, int max) {
+        long toLsn = Math.min(durableLsn, fromLsn + max);
+        List<WalRecord> records = new ArrayList<>((int) Math.max(toLsn - fromLsn, 0));
+        for (long lsn = fromLsn; lsn < toLsn; lsn++) {
+            MappedByteBuffer segment = segments.get(lsn / recordsPerSegment);
+            WalRecord record = segment == null
+                    ? null
+                    : WalRecord.read(segment, (int) (lsn % recordsPerSegment) * WalRecord.SIZE);
+            if (record == null) {
+                throw new IllegalStateException("Record " + lsn + " of the write-ahead log is missing or damaged");
+            }
+            records.add(record);
+        }
+        return records;
+    }
+
+    /**
+     * Marks the records before the given LSN as applied and deletes the files that hold only such records.
+     */
+    public void release(long lsn) {
+        releasedLsn = Math.max(releasedLsn, lsn);
+        Map<Long, MappedByteBuffer> released = segments.headMap(lsn / recordsPerSegment, false);
+        for (Long segment : List.copyOf(released.keySet())) {
+            segments.remove(segment);
+            try {
+                // The mapping stays valid until the buffer is collected
+                Files.deleteIfExists(segmentPath(segment));
+            } catch (IOException e) {
+                log.warn("couldn't delete segment {} of the write-ahead log", segment, e);
+            }
+        }
+    }
+
+    /**
+     * Forces the records appended so far and stops the flusher. Appends fail afterwards.
+     */
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            appended.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        lockChannel.close();
+        log.info("closed the write-ahead log {} at LSN {}", id, durableLsn);
+    }
+
+    private void flushLoop() {
+        while (true) {
+            long target;
+            List<MappedByteBuffer> dirty;
+            lock.lock();
+            try {
+                while (!closed && nextLsn == durableLsn) {
+                    appended.await();
+                }
+                long deadline = System.nanoTime() + fsyncIntervalNanos;
+                long remaining;
+                while (!closed && nextLsn - durableLsn < fsyncBatch
+                        && (remaining = deadline - System.nanoTime()) > 0) {
+                    appended.awaitNanos(remaining);
+                }
+                if (nextLsn == durableLsn) {
+                    return;
+                }
+                target = nextLsn;
+                dirty = unforced.stream().map(segments::get).toList();
+                unforced.clear();
+            } catch (InterruptedException e) {
+                return;
+            } finally {
+                lock.unlock();
+            }
+
+            long startNanos = System.nanoTime();
+            RuntimeException error = null;
+            try {
+                dirty.forEach(MappedByteBuffer::force);
+            } catch (RuntimeException e) {
+                log.error("couldn't force the write-ahead log to disk, rejecting further appends", e);
+                error = e;
+            }
+            forceTime.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+
+            lock.lock();
+            try {
+                forceBatch.record(target - durableLsn);
+                if (error != null) {
+                    failure = error;
+                } else {
+                    durableLsn = target;
+                }
+                forced.signalAll();
+            } finally {
+                lock.unlock();
+            }
+            if (error != null) {
+                return;
+            }
+        }
+    }
+
+    private void checkOpen() {
+        if (failure != null) {
+            throw new IllegalStateException("The write-ahead log failed to force records to disk", failure);
+        }
+        if (closed) {
+            throw new IllegalStateException("The write-ahead log is closed");
+        }
+    }
+
+    private MappedByteBuffer segment(long segment) {
+        MappedByteBuffer buffer = segments.get(segment);
+        if (buffer == null) {
+            try {
+                buffer = map(segmentPath(segment), -1);
+                syncDirectory(directory);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Couldn't create segment " + segment + " of the write-ahead log", e);
+            }
+            segments.put(segment, buffer);
+        }
+        return buffer;
+    }
+
+    /**
+     * Maps the segments that hold records from the applied LSN on, and deletes the others.
+     *
+     * @return LSN after the last intact record
+     */
+    private long recover(TreeMap<Long, Path> files, long applied) throws IOException {
+        long end = applied;
+        boolean cut = false;
+        for (Map.Entry<Long, Path> file : files.entrySet()) {
+            long first = file.getKey() * recordsPerSegment;
+            if (cut || first + recordsPerSegment <= applied || first > end) {
+                // Applied, or after a gap or a damaged record
+                Files.delete(file.getValue());
+                continue;
+            }
+            int fromSlot = (int) (end - first);
+            int intact;
+            try (FileChannel channel = FileChannel.open(file.getValue(), StandardOpenOption.READ)) {
+                intact = countRecords(channel, fromSlot, recordsPerSegment);
+            }
+            end += intact;
+            cut = fromSlot + intact < recordsPerSegment;
+            segments.put(file.getKey(), map(file.getValue(), cut ? (long) (fromSlot + intact) * WalRecord.SIZE : -1));
+        }
+        syncDirectory(directory);
+        return end;
+    }
+
+    /**
+     * @param cutAt offset from which the file is zeroed, or -1 to keep its content
+     */
+    private MappedByteBuffer map(Path path, long cutAt) throws IOException {
+        long size = (long) recordsPerSegment * WalRecord.SIZE;
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+            if (cutAt >= 0) {
+                file.setLength(cutAt);
+            }
+            file.setLength(size);
+            file.getFD().sync();
+            return file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+
+    private static int countRecords(FileChannel channel, int fromSlot, int slots) throws IOException {
+        ByteBuffer chunk = ByteBuffer.allocate(SCAN_CHUNK_RECORDS * WalRecord.SIZE);
+        int slot = fromSlot;
+        while (slot < slots) {
+            chunk.clear().limit(Math.min(SCAN_CHUNK_RECORDS, slots - slot) * WalRecord.SIZE);
+            long position = (long) slot * WalRecord.SIZE;
+            while (chunk.hasRemaining() && channel.read(chunk, position + chunk.position()) > 0) {
+                // Reads until the chunk is full or the file ends
+            }
+            int read = chunk.position() / WalRecord.SIZE;
+            for (int i = 0; i < read; i++) {
+                if (WalRecord.read(chunk, i * WalRecord.SIZE) == null) {
+                    return slot + i - fromSlot;
+                }
+            }
+            slot += read;
+            if (chunk.hasRemaining()) {
+                break;
+            }
+        }
+        return slot - fromSlot;
+    }
+
+    private Path segmentPath(long segment) {
+        return directory.resolve(String.format("%020d%s", segment, SEGMENT_SUFFIX));
+    }
+
+    private static TreeMap<Long, Path> listSegments(Path directory) throws IOException {
+        TreeMap<Long, Path> files = new TreeMap<>();
+        try (Stream<Path> paths = Files.list(directory)) {
+            paths.forEach(path -> {
+                String name = path.getFileName().toString();
+                if (name.endsWith(SEGMENT_SUFFIX)) {
+                    files.put(Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length())), path);
+                }
+            });
+        }
+        return files;
+    }
+
+    private static FileChannel lock(Path directory) throws IOException {
+        FileChannel channel = FileChannel.open(
+                directory.resolve(LOCK_FILE),
+                StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE
+        );
+        FileLock fileLock;
+        try {
+            fileLock = channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            fileLock = null;
+        }
+        if (fileLock == null) {
+            channel.close();
+            throw new IllegalStateException("The write-ahead log in " + directory + " is used by another process");
+        }
+        return channel;
+    }
+
+    private static UUID readOrCreateId(Path directory) throws IOException {
+        Path file = directory.resolve(ID_FILE);
+        if (Files.exists(file)) {
+            return UUID.fromString(Files.readString(file).strip());
+        }
+        UUID id = UUID.randomUUID();
+        Path temporary = directory.resolve(ID_FILE + ".tmp");
+        Files.writeString(temporary, id.toString());
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE);
+        syncDirectory(directory);
+        return id;
+    }
+
+    private static void syncDirectory(Path directory) throws IOException {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package ru.nsu.fit.mihanizzm.litecrm.jobs;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Background work split into chunks. {@link JobRunner} runs each chunk in its own transaction while holding the
+ * job's advisory lock, and commits the returned watermark together with the chunk, so only one instance works
+ * on a job at a time and a run interrupted by a crash resumes from the last committed chunk.
+ */
+public interface ChunkedJob {
+    /**
+     * Unique name, also the key of the persisted state and of the advisory lock.
+     */
+    String name();
+
+    /**
+     * Pause between the end of one run and the start of the next.
+     */
+    Duration interval();
+
+    /**
+     * Processes the chunk that follows the watermark in the caller's transaction.
+     *
+     * @param watermark watermark returned by the last committed chunk, null if the job starts from scratch
+     * @return watermark after this chunk, or empty if there is nothing to process yet
+     */
+    Optional<String> processNextChunk(String watermark);
+}
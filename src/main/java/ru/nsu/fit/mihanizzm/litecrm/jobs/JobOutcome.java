@@ -0,0 +1,12 @@
+package ru.nsu.fit.mihanizzm.litecrm.jobs;
+
+public enum JobOutcome {
+    /** All available work is done. */
+    CAUGHT_UP,
+    /** The run budget ran out, or another instance took the lock between chunks; the next run continues. */
+    PAUSED,
+    /** Another instance holds the lock of the job. */
+    SKIPPED,
+    /** A chunk failed and was rolled back. */
+    FAILED
+}
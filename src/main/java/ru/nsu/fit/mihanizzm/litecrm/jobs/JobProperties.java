@@ -0,0 +1,41 @@
+package ru.nsu.fit.mihanizzm.litecrm.jobs;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Background jobs run by {@link JobScheduler}.
+ *
+ * @param poolSize  jobs running at the same time on one instance
+ * @param runBudget a run takes no new chunks after this long and leaves the rest to the next run
+ */
+@ConfigurationProperties(prefix = "litecrm.jobs")
+public record JobProperties(
+        @DefaultValue("true")
+        boolean enabled,
+
+        @DefaultValue("2")
+        int poolSize,
+
+        @DefaultValue("5m")
+        Duration runBudget,
+
+        @DefaultValue
+        PeriodStatsCheck periodStatsCheck
+) {
+    /**
+     * @param chunkDays days checked in one transaction
+     */
+    public record PeriodStatsCheck(
+            @DefaultValue("true")
+            boolean enabled,
+
+            @DefaultValue("10m")
+            Duration interval,
+
+            @DefaultValue("7")
+            int chunkDays
+    ) {}
+}
@@ -0,0 +1,257 @@
+package ru.nsu.fit.mihanizzm.litecrm.jobs;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.nsu.fit.mihanizzm.litecrm.exception.JobNotFoundException;
+import ru.nsu.fit.mihanizzm.litecrm.models.JobState;
+import ru.nsu.fit.mihanizzm.litecrm.models.dtos.JobStateResponseDto;
+import ru.nsu.fit.mihanizzm.litecrm.repositories.JobStateRepository;
+import ru.nsu.fit.mihanizzm.litecrm.sharding.ShardContext;
+import ru.nsu.fit.mihanizzm.litecrm.sharding.ShardDataSources;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs {@link ChunkedJob}s chunk by chunk. Every chunk is a transaction that first takes the job's
+ * {@code pg_try_advisory_xact_lock}: the instance that gets it is the leader of the job for that chunk, the others
+ * skip their run. The lock is released on commit or rollback, so when the leader dies another instance takes over
+ * on its next run from the last committed watermark.
+ * <p>
+ * A job runs on every shard separately: its lock and state are kept in the shard's database, and its chunks work
+ * with the data of that shard only.
+ */
+@Slf4j
+@Component
+public class JobRunner {
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final Map<String, ChunkedJob> jobs = new LinkedHashMap<>();
+    private final JobStateRepository jobStateRepository;
+    private final JobProperties properties;
+    private final int shardCount;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final String owner = ManagementFactory.getRuntimeMXBean().getName();
+    private volatile boolean stopping;
+
+    public JobRunner(
+            List<ChunkedJob> jobs,
+            JobStateRepository jobStateRepository,
+            JobProperties properties,
+            ShardDataSources dataSources,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry
+    ) {
+        for (ChunkedJob job : jobs) {
+            if (this.jobs.putIfAbsent(job.name(), job) != null) {
+                throw new IllegalStateException("Duplicate job name " + job.name());
+            }
+        }
+        this.jobStateRepository = jobStateRepository;
+        this.properties = properties;
+        this.shardCount = dataSources.count();
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+    }
+
+    public List<ChunkedJob> jobs() {
+        return List.copyOf(jobs.values());
+    }
+
+    public int shardCount() {
+        return shardCount;
+    }
+
+    /**
+     * Processes chunks of the shard until the job is caught up, the run budget runs out or another instance holds
+     * the lock.
+     */
+    public JobOutcome run(ChunkedJob job, int shard) {
+        int previous = ShardContext.current();
+        ShardContext.set(shard);
+        try {
+            return run(job);
+        } finally {
+            ShardContext.set(previous);
+        }
+    }
+
+    /**
+     * Makes the job start from scratch on every shard on its next run. Waits for a chunk in progress on any
+     * instance to commit.
+     */
+    public void reset(String name) {
+        if (!jobs.containsKey(name)) {
+            throw new JobNotFoundException(name);
+        }
+        int previous = ShardContext.current();
+        try {
+            for (int shard = 0; shard < shardCount; shard++) {
+                ShardContext.set(shard);
+                transactionTemplate.executeWithoutResult(status -> jobStateRepository.findForUpdate(name)
+                        .ifPresent(state -> {
+                            state.setWatermark(null);
+                            state.setChunksProcessed(0);
+                            jobStateRepository.save(state);
+                        }));
+            }
+        } finally {
+            ShardContext.set(previous);
+        }
+        log.info("job {} was reset", name);
+    }
+
+    /**
+     * State of every job on every shard, ordered by job and shard.
+     */
+    public List<JobStateResponseDto> snapshot() {
+        List<JobStateResponseDto> snapshot = new ArrayList<>();
+        int previous = ShardContext.current();
+        try {
+            for (int shard = 0; shard < shardCount; shard++) {
+                ShardContext.set(shard);
+                Map<String, JobState> states = new LinkedHashMap<>();
+                jobStateRepository.findAllById(jobs.keySet()).forEach(state -> states.put(state.getName(), state));
+                for (String name : jobs.keySet()) {
+                    JobState state = states.getOrDefault(name, new JobState(name));
+                    snapshot.add(new JobStateResponseDto(
+                            state.getName(),
+                            shard,
+                            state.getWatermark(),
+                            state.getChunksProcessed(),
+                            state.getLastChunkMillis(),
+                            state.getLastRunStartedAt(),
+                            state.getLastRunMillis(),
+                            state.getLastRunOwner(),
+                            state.getLastError()
+                    ));
+                }
+            }
+        } finally {
+            ShardContext.set(previous);
+        }
+        snapshot.sort(Comparator.comparing(JobStateResponseDto::name));
+        return snapshot;
+    }
+
+    private JobOutcome run(ChunkedJob job) {
+        LocalDateTime startedAt = LocalDateTime.now();
+        long startNanos = System.nanoTime();
+        long deadlineNanos = startNanos + properties.runBudget().toNanos();
+        int chunks = 0;
+        JobOutcome outcome;
+        String error = null;
+        try {
+            Step step;
+            while ((step = transactionTemplate.execute(status -> processChunk(job))) == Step.PROCESSED) {
+                chunks++;
+                if (stopping || System.nanoTime() - deadlineNanos >= 0) {
+                    break;
+                }
+            }
+            outcome = switch (step) {
+                case CAUGHT_UP -> JobOutcome.CAUGHT_UP;
+                case LOCKED -> chunks == 0 ? JobOutcome.SKIPPED : JobOutcome.PAUSED;
+                case PROCESSED -> JobOutcome.PAUSED;
+            };
+        } catch (RuntimeException e) {
+            outcome = JobOutcome.FAILED;
+            error = e.toString();
+            log.warn(
+                    "job {} failed on shard {} after {} chunks, it resumes from the last committed one",
+                    job.name(),
+                    ShardContext.current(),
+                    chunks,
+                    e
+            );
+        }
+
+        long elapsedNanos = System.nanoTime() - startNanos;
+        Timer.builder("litecrm.jobs.runs")
+                .description("Runs of background jobs")
+                .tag("job", job.name())
+                .tag("shard", Integer.toString(ShardContext.current()))
+                .tag("outcome", outcome.name())
+                .register(meterRegistry)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+        if (outcome != JobOutcome.SKIPPED) {
+            recordRun(job, startedAt, TimeUnit.NANOSECONDS.toMillis(elapsedNanos), error);
+        }
+        if (chunks > 0) {
+            log.info(
+                    "job {} processed {} chunks of shard {} in {} ms: {}",
+                    job.name(),
+                    chunks,
+                    ShardContext.current(),
+                    TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+                    outcome
+            );
+        }
+        return outcome;
+    }
+
+    /**
+     * Lets runs in progress stop after their current chunk.
+     */
+    void stop() {
+        stopping = true;
+    }
+
+    private Step processChunk(ChunkedJob job) {
+        if (!jobStateRepository.tryLock(job.name())) {
+            return Step.LOCKED;
+        }
+        // The row lock orders the chunk against a concurrent reset
+        JobState state = jobStateRepository.findForUpdate(job.name()).orElseGet(() -> new JobState(job.name()));
+        long startNanos = System.nanoTime();
+        Optional<String> watermark = job.processNextChunk(state.getWatermark());
+        if (watermark.isEmpty()) {
+            return Step.CAUGHT_UP;
+        }
+        long elapsedNanos = System.nanoTime() - startNanos;
+        state.setWatermark(watermark.get());
+        state.setChunksProcessed(state.getChunksProcessed() + 1);
+        state.setLastChunkMillis(TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+        jobStateRepository.save(state);
+        Timer.builder("litecrm.jobs.chunks")
+                .description("Chunks processed by background jobs")
+                .tag("job", job.name())
+                .tag("shard", Integer.toString(ShardContext.current()))
+                .register(meterRegistry)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+        return Step.PROCESSED;
+    }
+
+    private void recordRun(ChunkedJob job, LocalDateTime startedAt, long elapsedMillis, String error) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                JobState state = jobStateRepository.findForUpdate(job.name()).orElseGet(() -> new JobState(job.name()));
+                state.setLastRunStartedAt(startedAt);
+                state.setLastRunMillis(elapsedMillis);
+                state.setLastRunOwner(owner);
+                state.setLastError(error == null ? null : error.substring(0, Math.min(error.length(), MAX_ERROR_LENGTH)));
+                jobStateRepository.save(state);
+            });
+        } catch (RuntimeException e) {
+            log.warn("couldn't record the run of job {}", job.name(), e);
+        }
+    }
+
+    private enum Step {
+        PROCESSED,
+        CAUGHT_UP,
+        LOCKED
+    }
+}
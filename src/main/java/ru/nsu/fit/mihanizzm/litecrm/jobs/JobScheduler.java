@@ -0,0 +1,52 @@
+package ru.nsu.fit.mihanizzm.litecrm.jobs;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Component;
+import ru.nsu.fit.mihanizzm.litecrm.seed.SeedRunner;
+
+/**
+ * Runs every {@link ChunkedJob} on every shard with a fixed delay on a pool of {@link JobProperties#poolSize()} threads. Each
+ * instance schedules all jobs; the advisory locks taken by {@link JobRunner} make sure only one of them works on
+ * a job at a time. Jobs start once the application is ready, so they don't compete with the warm-up.
+ */
+@Slf4j
+@Component
+@Profile("!" + SeedRunner.PROFILE)
+@ConditionalOnProperty(prefix = "litecrm.jobs", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class JobScheduler implements AutoCloseable {
+    private static final int CLOSE_TIMEOUT_SECONDS = 30;
+
+    private final JobRunner jobRunner;
+    private final ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+
+    public JobScheduler(JobRunner jobRunner, JobProperties properties) {
+        this.jobRunner = jobRunner;
+        scheduler.setPoolSize(properties.poolSize());
+        scheduler.setThreadNamePrefix("job-");
+        scheduler.setWaitForTasksToCompleteOnShutdown(true);
+        scheduler.setAwaitTerminationSeconds(CLOSE_TIMEOUT_SECONDS);
+        scheduler.initialize();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        for (ChunkedJob job : jobRunner.jobs()) {
+            for (int shard = 0; shard < jobRunner.shardCount(); shard++) {
+                int target = shard;
+                scheduler.scheduleWithFixedDelay(() -> jobRunner.run(job, target), job.interval());
+            }
+            log.info("scheduled job {} every {} on {} shards", job.name(), job.interval(), jobRunner.shardCount());
+        }
+    }
+
+    @Override
+    public void close() {
+        jobRunner.stop();
+        scheduler.shutdown();
+    }
+}
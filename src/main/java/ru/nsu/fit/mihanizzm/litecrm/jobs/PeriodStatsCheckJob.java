@@ -0,0 +1,115 @@
+package ru.nsu.fit.mihanizzm.litecrm.jobs;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.nsu.fit.mihanizzm.litecrm.sharding.ShardContext;
+
+import javax.sql.DataSource;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Optional;
+
+/**
+ * Checks the {@code DAY} rows of {@code app.seller_period_stats} of closed days against {@code app.transaction} and
+ * queues a {@code SELLER_CHANGED} event for every seller whose totals differ, so that the projector recounts its
+ * read rows from the transactions. The read tables, and the leaderboard and daily totals loaded from them, are
+ * thereby repaired after writes that bypassed the outbox, such as manual fixes in the database.
+ * <p>
+ * The watermark is the last checked day. A chunk checks the days from the watermark up to
+ * {@link JobProperties.PeriodStatsCheck#chunkDays()} days past the next day with transactions or stats, so long gaps
+ * without sales cost one chunk. Today is never checked, since it is still changing. A seller with events not yet
+ * applied may differ for a moment too; its recount is merely redundant.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "litecrm.jobs.period-stats-check", name = "enabled", havingValue = "true",
+        matchIfMissing = true)
+public class PeriodStatsCheckJob implements ChunkedJob {
+    public static final String NAME = "period-stats-check";
+
+    private static final String FIRST_DAY = "SELECT CAST(LEAST(" +
+            "(SELECT MIN(transaction_date) FROM app.transaction WHERE transaction_date >= ?), " +
+            "(SELECT MIN(period_start) FROM app.seller_period_stats " +
+            "WHERE period_type = 'DAY' AND period_start >= ?)" +
+            ") AS DATE)";
+    private static final String RECOUNT_DIFFERING = "INSERT INTO app.transaction_event (type, seller_id) " +
+            "SELECT DISTINCT 'SELLER_CHANGED', COALESCE(t.seller_id, s.seller_id) " +
+            "FROM (" +
+            "SELECT seller_id, date_trunc('day', transaction_date) AS day, COUNT(*) AS count, SUM(amount) AS amount " +
+            "FROM app.transaction WHERE transaction_date >= ? AND transaction_date < ? GROUP BY 1, 2" +
+            ") t " +
+            "FULL JOIN (" +
+            "SELECT seller_id, period_start AS day, transaction_count AS count, total_amount AS amount " +
+            "FROM app.seller_period_stats WHERE period_type = 'DAY' AND period_start >= ? AND period_start < ?" +
+            ") s ON s.seller_id = t.seller_id AND s.day = t.day " +
+            "WHERE t.count IS DISTINCT FROM s.count OR t.amount IS DISTINCT FROM s.amount";
+    /** Before any date the application writes, for a check that starts from scratch. */
+    private static final LocalDate BEGINNING = LocalDate.of(1970, 1, 1);
+
+    private final JobProperties.PeriodStatsCheck properties;
+    private final JdbcTemplate jdbcTemplate;
+    private final Clock clock;
+
+    @Autowired
+    public PeriodStatsCheckJob(JobProperties properties, DataSource dataSource) {
+        this(properties, dataSource, Clock.systemDefaultZone());
+    }
+
+    PeriodStatsCheckJob(JobProperties properties, DataSource dataSource, Clock clock) {
+        this.properties = properties.periodStatsCheck();
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.clock = clock;
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public Duration interval() {
+        return properties.interval();
+    }
+
+    @Override
+    public Optional<String> processNextChunk(String watermark) {
+        LocalDate from = watermark == null ? BEGINNING : LocalDate.parse(watermark).plusDays(1);
+        LocalDate today = LocalDate.now(clock);
+        LocalDate firstDay = jdbcTemplate.queryForObject(
+                FIRST_DAY,
+                LocalDate.class,
+                from.atStartOfDay(),
+                from.atStartOfDay()
+        );
+        if (firstDay == null || !firstDay.isBefore(today)) {
+            return Optional.empty();
+        }
+        LocalDate to = firstDay.plusDays(properties.chunkDays());
+        if (to.isAfter(today)) {
+            to = today;
+        }
+
+        int recounted = jdbcTemplate.update(
+                RECOUNT_DIFFERING,
+                firstDay.atStartOfDay(),
+                to.atStartOfDay(),
+                firstDay.atStartOfDay(),
+                to.atStartOfDay()
+        );
+        if (recounted > 0) {
+            log.warn(
+                    "queued a recount of {} sellers of shard {} whose stats differed from their transactions " +
+                            "between {} and {}",
+                    recounted,
+                    ShardContext.current(),
+                    firstDay,
+                    to
+            );
+        }
+        return Optional.of(to.minusDays(1).toString());
+    }
+}
@@ -0,0 +1,299 @@
+package ru.nsu.fit.mihanizzm.litecrm.leaderboard;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.nsu.fit.mihanizzm.litecrm.models.Period;
+import ru.nsu.fit.mihanizzm.litecrm.models.PeriodType;
+import ru.nsu.fit.mihanizzm.litecrm.models.dtos.LeaderboardEntryDto;
+import ru.nsu.fit.mihanizzm.litecrm.models.dtos.LeaderboardResponseDto;
+import ru.nsu.fit.mihanizzm.litecrm.sharding.ShardDataSources;
+import ru.nsu.fit.mihanizzm.litecrm.totals.CommittedTotals;
+import ru.nsu.fit.mihanizzm.litecrm.totals.DayRange;
+import ru.nsu.fit.mihanizzm.litecrm.totals.InMemoryTotals;
+import ru.nsu.fit.mihanizzm.litecrm.totals.TransactionDelta;
+import ru.nsu.fit.mihanizzm.litecrm.totals.TransactionDeltas;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Totals of every seller in the current day, month, quarter and year, ordered so that the top of each period is
+ * read without touching the database. Every committed change of a transaction reported to {@link TransactionDeltas}
+ * is applied as a delta. The sellers changed by other instances are re-read by {@link #catchUp()} from the read
+ * tables and the outbox events the projector hasn't applied yet; {@link #reconcile()} reloads everyone.
+ */
+@Component
+public class Leaderboard extends InMemoryTotals {
+    private final LeaderboardProperties properties;
+    private final ShardDataSources dataSources;
+    private final Clock clock;
+    private final Map<PeriodType, Ranking> rankings = new EnumMap<>(PeriodType.class);
+    private Standings standings = new Standings(0, List.of());
+    private boolean dirty = true;
+
+    @Autowired
+    public Leaderboard(LeaderboardProperties properties, ShardDataSources dataSources) {
+        this(properties, dataSources, Clock.systemDefaultZone());
+    }
+
+    Leaderboard(LeaderboardProperties properties, ShardDataSources dataSources, Clock clock) {
+        super(properties.enabled());
+        this.properties = properties;
+        this.dataSources = dataSources;
+        this.clock = clock;
+        LocalDateTime now = LocalDateTime.now(clock);
+        for (PeriodType type : PeriodType.values()) {
+            rankings.put(type, new Ranking(type, Period.of(type, now)));
+        }
+    }
+
+    /**
+     * Current boards. The same instance is returned until one of the boards changes.
+     */
+    public synchronized Standings standings() {
+        LocalDateTime now = LocalDateTime.now(clock);
+        for (PeriodType type : PeriodType.values()) {
+            if (!now.isBefore(rankings.get(type).period.end())) {
+                rollOver(type, Period.of(type, now));
+            }
+        }
+        if (dirty) {
+            List<LeaderboardResponseDto> boards = rankings.values().stream()
+                    .map(ranking -> ranking.board(properties.size()))
+                    .toList();
+            if (!boards.equals(standings.boards())) {
+                standings = new Standings(standings.version() + 1, boards);
+            }
+            dirty = false;
+        }
+        return standings;
+    }
+
+    /**
+     * Reads the totals of the current periods from every shard.
+     */
+    @Override
+    protected Runnable load() {
+        LocalDateTime now = LocalDateTime.now(clock);
+        Map<PeriodType, Ranking> loaded = new EnumMap<>(PeriodType.class);
+        for (PeriodType type : PeriodType.values()) {
+            Period period = Period.of(type, now);
+            Ranking ranking = new Ranking(type, period);
+            for (int shard = 0; shard < dataSources.count(); shard++) {
+                CommittedTotals.query(
+                        new JdbcTemplate(dataSources.oltp(shard)),
+                        type,
+                        period,
+                        null,
+                        (sellerId, periodStart, count, amount) -> ranking.add(sellerId, count, amount)
+                );
+            }
+            loaded.put(type, ranking);
+        }
+        return () -> {
+            rankings.putAll(loaded);
+            dirty = true;
+        };
+    }
+
+    /**
+     * Re-reads the totals of the sellers in the current periods from every shard.
+     */
+    @Override
+    protected void refresh(Map<Integer, DayRange> changed) {
+        LocalDateTime now = LocalDateTime.now(clock);
+        Period year = Period.of(PeriodType.YEAR, now);
+        // Changes of past years don't move the boards
+        Map<Integer, DayRange> sellers = new HashMap<>(changed);
+        sellers.values().removeIf(days -> days.last().isBefore(year.start().toLocalDate())
+                || !days.first().isBefore(year.end().toLocalDate()));
+        if (sellers.isEmpty()) {
+            return;
+        }
+        reload(
+                () -> {
+                    List<Ranking> loaded = new ArrayList<>();
+                    for (PeriodType type : PeriodType.values()) {
+                        Ranking ranking = new Ranking(type, Period.of(type, now));
+                        for (int shard = 0; shard < dataSources.count(); shard++) {
+                            CommittedTotals.query(
+                                    new JdbcTemplate(dataSources.oltp(shard)),
+                                    type,
+                                    ranking.period,
+                                    sellers.keySet(),
+                                    (sellerId, periodStart, count, amount) -> ranking.add(sellerId, count, amount)
+                            );
+                        }
+                        loaded.add(ranking);
+                    }
+                    return () -> {
+                        for (Ranking ranking : loaded) {
+                            Ranking current = rankings.get(ranking.type);
+                            if (!current.period.equals(ranking.period)) {
+                                // Rolled over during the read
+                                continue;
+                            }
+                            sellers.keySet().forEach(current::remove);
+                            ranking.bySeller.values().forEach(standing ->
+                                    current.add(standing.sellerId(), standing.count(), standing.total()));
+                            dirty = true;
+                        }
+                    };
+                },
+                // The totals of the whole periods are replaced
+                delta -> sellers.containsKey(delta.sellerId())
+        );
+    }
+
+    @Override
+    protected void applyDelta(TransactionDelta delta) {
+        for (PeriodType type : PeriodType.values()) {
+            Ranking ranking = rankings.get(type);
+            if (delta.removesSeller()) {
+                ranking.remove(delta.sellerId());
+                dirty = true;
+                continue;
+            }
+            if (!delta.transactionDate().isBefore(ranking.period.end())) {
+                // The first change of a new period, before the boards were read in it
+                ranking = rollOver(type, Period.of(type, delta.transactionDate()));
+            }
+            if (ranking.period.contains(delta.transactionDate())) {
+                ranking.add(delta.sellerId(), delta.count(), delta.amount());
+                dirty = true;
+            }
+        }
+    }
+
+    /**
+     * Writes the start of every current period and the totals of its sellers.
+     */
+    @Override
+    protected void write(DataOutput out) throws IOException {
+        for (PeriodType type : PeriodType.values()) {
+            Ranking ranking = rankings.get(type);
+            out.writeLong(ranking.period.start().toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(ranking.bySeller.size());
+            for (Standing standing : ranking.bySeller.values()) {
+                out.writeInt(standing.sellerId());
+                out.writeLong(standing.count());
+                out.writeLong(standing.total().setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact());
+            }
+        }
+    }
+
+    /**
+     * Reads the rankings back, or nothing if a period has rolled over since: its new totals are unknown.
+     */
+    @Override
+    protected Runnable read(ByteBuffer in) {
+        LocalDateTime now = LocalDateTime.now(clock);
+        Map<PeriodType, Ranking> read = new EnumMap<>(PeriodType.class);
+        for (PeriodType type : PeriodType.values()) {
+            LocalDateTime start = LocalDateTime.ofEpochSecond(in.getLong(), 0, ZoneOffset.UTC);
+            Period period = Period.of(type, now);
+            if (!period.start().equals(start)) {
+                return null;
+            }
+            Ranking ranking = new Ranking(type, period);
+            int sellers = in.getInt();
+            for (int i = 0; i < sellers; i++) {
+                ranking.add(in.getInt(), in.getLong(), BigDecimal.valueOf(in.getLong(), 2));
+            }
+            read.put(type, ranking);
+        }
+        return () -> {
+            rankings.putAll(read);
+            dirty = true;
+        };
+    }
+
+    @Override
+    protected Collection<Integer> sellerIds() {
+        Set<Integer> sellerIds = new HashSet<>();
+        rankings.values().forEach(ranking -> sellerIds.addAll(ranking.bySeller.keySet()));
+        return sellerIds;
+    }
+
+    private Ranking rollOver(PeriodType type, Period period) {
+        Ranking ranking = new Ranking(type, period);
+        rankings.put(type, ranking);
+        dirty = true;
+        return ranking;
+    }
+
+    private record Standing(int sellerId, long count, BigDecimal total) {}
+
+    /**
+     * Totals of the sellers in one period, ordered by the total and then by the seller ID like the top seller query.
+     */
+    private static final class Ranking {
+        private static final Comparator<Standing> ORDER = Comparator.comparing(Standing::total)
+                .reversed()
+                .thenComparing(Standing::sellerId);
+
+        private final PeriodType type;
+        private final Period period;
+        private final Map<Integer, Standing> bySeller = new HashMap<>();
+        private final TreeSet<Standing> ordered = new TreeSet<>(ORDER);
+
+        Ranking(PeriodType type, Period period) {
+            this.type = type;
+            this.period = period;
+        }
+
+        void add(int sellerId, long count, BigDecimal amount) {
+            Standing previous = bySeller.remove(sellerId);
+            Standing next = previous == null
+                    ? new Standing(sellerId, count, amount)
+                    : new Standing(sellerId, previous.count() + count, previous.total().add(amount));
+            if (previous != null) {
+                ordered.remove(previous);
+            }
+            if (next.count() > 0) {
+                bySeller.put(sellerId, next);
+                ordered.add(next);
+            }
+        }
+
+        void remove(int sellerId) {
+            Standing previous = bySeller.remove(sellerId);
+            if (previous != null) {
+                ordered.remove(previous);
+            }
+        }
+
+        LeaderboardResponseDto board(int size) {
+            List<LeaderboardEntryDto> entries = new ArrayList<>(Math.min(size, ordered.size()));
+            Iterator<Standing> top = ordered.iterator();
+            while (top.hasNext() && entries.size() < size) {
+                Standing standing = top.next();
+                entries.add(new LeaderboardEntryDto(
+                        entries.size() + 1,
+                        standing.sellerId(),
+                        standing.count(),
+                        standing.total()
+                ));
+            }
+            return new LeaderboardResponseDto(type, period.start(), List.copyOf(entries));
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package ru.nsu.fit.mihanizzm.litecrm.leaderboard;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Top sellers of the current periods, kept in memory by the {@link Leaderboard} and pushed to the subscribers of
+ * the {@link LeaderboardStream}.
+ *
+ * @param enabled           whether the leaderboard is kept and streamed
+ * @param size              sellers on the board of every period
+ * @param catchUpInterval   delay between two re-reads of the sellers changed by other instances, as told by the
+ *                          cache invalidation events
+ * @param reconcileInterval delay between two full reloads of the totals from the read tables, which picks up the
+ *                          changes whose events were lost
+ * @param throttle          minimal delay between two pushes to a subscriber; changes in between are merged
+ * @param heartbeat         an idle subscriber gets a comment after this delay, so that proxies keep the stream open
+ * @param timeout           a stream is closed after this time and the client reconnects
+ * @param maxSubscribers    streams open at once on this instance; more are rejected with 503
+ * @param senderThreads     threads writing the pushes
+ */
+@ConfigurationProperties(prefix = "litecrm.leaderboard")
+public record LeaderboardProperties(
+        @DefaultValue("true")
+        boolean enabled,
+
+        @DefaultValue("10")
+        int size,
+
+        @DefaultValue("1s")
+        Duration catchUpInterval,
+
+        @DefaultValue("10m")
+        Duration reconcileInterval,
+
+        @DefaultValue("1s")
+        Duration throttle,
+
+        @DefaultValue("15s")
+        Duration heartbeat,
+
+        @DefaultValue("30m")
+        Duration timeout,
+
+        @DefaultValue("10000")
+        int maxSubscribers,
+
+        @DefaultValue("4")
+        int senderThreads
+) {}
@@ -0,0 +1,229 @@
+package ru.nsu.fit.mihanizzm.litecrm.leaderboard;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.nsu.fit.mihanizzm.litecrm.seed.SeedRunner;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Pushes the {@link Leaderboard} to server-sent event subscribers. A subscriber gets a {@code snapshot} event with
+ * every board, then a {@code delta} event with the changed entries at most once per its throttle interval; changes
+ * within the interval are merged into one push. The boards and the encoded deltas are computed once per tick and
+ * shared by all subscribers, so the database load doesn't depend on the number of subscribers.
+ * <p>
+ * Every subscriber has at most one push in flight; a slow one is skipped until its push completes and then gets the
+ * changes it missed in one delta.
+ */
+@Slf4j
+@Component
+@Profile("!" + SeedRunner.PROFILE)
+@ConditionalOnProperty(prefix = "litecrm.leaderboard", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class LeaderboardStream implements AutoCloseable {
+    private static final Duration TICK = Duration.ofMillis(50);
+
+    private final Leaderboard leaderboard;
+    private final LeaderboardProperties properties;
+    private final ObjectMapper objectMapper;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+    private final ExecutorService senders;
+    private final MeterRegistry meterRegistry;
+
+    public LeaderboardStream(
+            Leaderboard leaderboard,
+            LeaderboardProperties properties,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry
+    ) {
+        this.leaderboard = leaderboard;
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.senders = Executors.newFixedThreadPool(
+                properties.senderThreads(),
+                Thread.ofPlatform().name("leaderboard-sender-", 0).daemon().factory()
+        );
+        Gauge.builder("litecrm.leaderboard.subscribers", subscribers, Set::size)
+                .description("Open leaderboard streams")
+                .register(meterRegistry);
+        scheduler.setPoolSize(3);
+        scheduler.setThreadNamePrefix("leaderboard-");
+        scheduler.initialize();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        // Restored from a snapshot, the totals are caught up already
+        scheduler.scheduleWithFixedDelay(
+                this::reconcile,
+                leaderboard.loaded() ? Instant.now().plus(properties.reconcileInterval()) : Instant.now(),
+                properties.reconcileInterval()
+        );
+        scheduler.scheduleWithFixedDelay(this::catchUp, properties.catchUpInterval());
+        scheduler.scheduleWithFixedDelay(this::tick, TICK);
+        log.info(
+                "streaming the leaderboard, catching it up every {} and reconciling it every {}",
+                properties.catchUpInterval(),
+                properties.reconcileInterval()
+        );
+    }
+
+    /**
+     * Opens a stream and queues the snapshot on it.
+     *
+     * @param interval minimal delay between two pushes; raised to {@link LeaderboardProperties#throttle()}
+     * @return an empty optional if the instance has as many subscribers as it accepts
+     */
+    public Optional<SseEmitter> subscribe(Duration interval) throws IOException {
+        if (subscribers.size() >= properties.maxSubscribers()) {
+            return Optional.empty();
+        }
+        Duration throttle = interval == null || interval.compareTo(properties.throttle()) < 0
+                ? properties.throttle()
+                : interval;
+        SseEmitter emitter = new SseEmitter(properties.timeout().toMillis());
+        Standings standings = leaderboard.standings();
+        Subscriber subscriber = new Subscriber(emitter, throttle.toNanos(), standings);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+        // Queued by the emitter until the response is ready
+        emitter.send(SseEmitter.event()
+                .name("snapshot")
+                .id(String.valueOf(standings.version()))
+                .data(objectMapper.writeValueAsString(standings.boards()), MediaType.APPLICATION_JSON));
+        count("snapshot");
+        subscribers.add(subscriber);
+        return Optional.of(emitter);
+    }
+
+    private void reconcile() {
+        try {
+            leaderboard.reconcile();
+        } catch (RuntimeException e) {
+            log.warn("reconciling the leaderboard failed, retrying on the next run", e);
+        }
+    }
+
+    private void catchUp() {
+        try {
+            leaderboard.catchUp();
+        } catch (RuntimeException e) {
+            log.warn("catching up the leaderboard failed, retrying on the next run", e);
+        }
+    }
+
+    private void tick() {
+        try {
+            Standings current = leaderboard.standings();
+            long now = System.nanoTime();
+            // Subscribers that got the same standings get the same delta
+            Map<Long, String> deltas = new HashMap<>();
+            for (Subscriber subscriber : subscribers) {
+                if (subscriber.sending.get() || now - subscriber.nextPushNanos < 0) {
+                    continue;
+                }
+                if (subscriber.sent.version() != current.version()) {
+                    String delta = deltas.computeIfAbsent(subscriber.sent.version(),
+                            version -> encode(current.changesSince(subscriber.sent)));
+                    push(subscriber, current, "delta", SseEmitter.event()
+                            .name("delta")
+                            .id(String.valueOf(current.version()))
+                            .data(delta, MediaType.APPLICATION_JSON));
+                } else if (now - subscriber.lastPushNanos >= properties.heartbeat().toNanos()) {
+                    push(subscriber, current, "heartbeat", SseEmitter.event().comment("heartbeat"));
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("pushing the leaderboard failed", e);
+        }
+    }
+
+    private void push(Subscriber subscriber, Standings standings, String type, SseEmitter.SseEventBuilder event) {
+        subscriber.sending.set(true);
+        try {
+            senders.execute(() -> {
+                try {
+                    subscriber.emitter.send(event);
+                    subscriber.sent = standings;
+                    subscriber.lastPushNanos = System.nanoTime();
+                    subscriber.nextPushNanos = subscriber.lastPushNanos + subscriber.throttleNanos;
+                    count(type);
+                } catch (IOException | IllegalStateException e) {
+                    // The client went away
+                    subscribers.remove(subscriber);
+                    subscriber.emitter.completeWithError(e);
+                } finally {
+                    subscriber.sending.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            subscriber.sending.set(false);
+        }
+    }
+
+    private String encode(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void count(String type) {
+        Counter.builder("litecrm.leaderboard.pushes")
+                .description("Events pushed to leaderboard subscribers")
+                .tag("type", type)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdown();
+        senders.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        subscribers.clear();
+    }
+
+    private static final class Subscriber {
+        private final SseEmitter emitter;
+        private final long throttleNanos;
+        private final AtomicBoolean sending = new AtomicBoolean();
+        private volatile Standings sent;
+        private volatile long lastPushNanos;
+        private volatile long nextPushNanos;
+
+        Subscriber(SseEmitter emitter, long throttleNanos, Standings sent) {
+            this.emitter = emitter;
+            this.throttleNanos = throttleNanos;
+            this.sent = sent;
+            this.lastPushNanos = System.nanoTime();
+            this.nextPushNanos = lastPushNanos + throttleNanos;
+        }
+    }
+}
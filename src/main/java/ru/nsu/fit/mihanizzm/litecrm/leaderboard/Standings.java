@@ -0,0 +1,42 @@
+package ru.nsu.fit.mihanizzm.litecrm.leaderboard;
+
+import ru.nsu.fit.mihanizzm.litecrm.models.dtos.LeaderboardDeltaDto;
+import ru.nsu.fit.mihanizzm.litecrm.models.dtos.LeaderboardEntryDto;
+import ru.nsu.fit.mihanizzm.litecrm.models.dtos.LeaderboardResponseDto;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Boards of every period type at one point in time. The version grows whenever a board changes.
+ */
+public record Standings(long version, List<LeaderboardResponseDto> boards) {
+    /**
+     * Changes that turn the boards of the previous standings into these ones; boards that didn't change are left
+     * out.
+     */
+    public List<LeaderboardDeltaDto> changesSince(Standings previous) {
+        List<LeaderboardDeltaDto> deltas = new ArrayList<>();
+        for (LeaderboardResponseDto board : boards) {
+            LeaderboardResponseDto before = previous.boards().stream()
+                    .filter(candidate -> candidate.period() == board.period())
+                    .findFirst()
+                    .orElse(null);
+            List<LeaderboardEntryDto> changed;
+            if (before == null || !Objects.equals(before.periodStart(), board.periodStart())) {
+                changed = board.entries();
+            } else {
+                changed = board.entries().stream()
+                        .filter(entry -> entry.rank() > before.entries().size()
+                                || !entry.equals(before.entries().get(entry.rank() - 1)))
+                        .toList();
+                if (changed.isEmpty() && before.entries().size() == board.entries().size()) {
+                    continue;
+                }
+            }
+            deltas.add(new LeaderboardDeltaDto(board.period(), board.periodStart(), board.entries().size(), changed));
+        }
+        return deltas;
+    }
+}
@@ -0,0 +1,97 @@
+package ru.nsu.fit.mihanizzm.litecrm.limiter;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Gradient concurrency limiter. The limit is estimated from the ratio between the long-term average
+ * latency and the latest sample: while latency stays flat the limit grows by a queue allowance of
+ * sqrt(limit), and when requests start queueing somewhere downstream (e.g. waiting for a pooled
+ * connection) the sampled latency rises and the limit shrinks proportionally.
+ */
+public class AdaptiveConcurrencyLimiter {
+    private static final double MIN_GRADIENT = 0.5;
+    private static final double DROP_BACKOFF_RATIO = 0.9;
+    private static final double DRIFT_RECOVERY_RATIO = 0.95;
+
+    private final ConcurrencyLimitProperties.GroupSettings settings;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder rejected = new LongAdder();
+
+    private volatile double limit;
+    private double longRttNanos;
+    private volatile long lastRttNanos;
+
+    public AdaptiveConcurrencyLimiter(ConcurrencyLimitProperties.GroupSettings settings) {
+        this.settings = settings;
+        this.limit = settings.initialLimit();
+    }
+
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= getLimit()) {
+                rejected.increment();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    public void release(long rttNanos, boolean dropped) {
+        int inFlightAtRelease = inFlight.getAndDecrement();
+        onSample(rttNanos, inFlightAtRelease, dropped);
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    public long getLastRttNanos() {
+        return lastRttNanos;
+    }
+
+    private synchronized void onSample(long rttNanos, int inFlightAtRelease, boolean dropped) {
+        if (dropped) {
+            limit = Math.max(settings.minLimit(), limit * DROP_BACKOFF_RATIO);
+            return;
+        }
+        if (rttNanos <= 0) {
+            return;
+        }
+        lastRttNanos = rttNanos;
+
+        if (longRttNanos == 0) {
+            longRttNanos = rttNanos;
+        } else {
+            longRttNanos += (rttNanos - longRttNanos) / settings.longWindow();
+        }
+        // The long-term RTT is far above the current one, e.g. after a burst of slow requests has passed.
+        // Let it decay faster so the limit is not held high by stale history.
+        if (longRttNanos / rttNanos > 2) {
+            longRttNanos *= DRIFT_RECOVERY_RATIO;
+        }
+
+        // Do not grow the limit while it is not the bottleneck.
+        if (inFlightAtRelease < limit / 2) {
+            return;
+        }
+
+        double gradient = Math.max(MIN_GRADIENT, Math.min(1.0, settings.rttTolerance() * longRttNanos / rttNanos));
+        double queueSize = Math.sqrt(limit);
+        double newLimit = limit * gradient + queueSize;
+        newLimit = limit * (1 - settings.smoothing()) + newLimit * settings.smoothing();
+
+        limit = Math.max(settings.minLimit(), Math.min(settings.maxLimit(), newLimit));
+    }
+}
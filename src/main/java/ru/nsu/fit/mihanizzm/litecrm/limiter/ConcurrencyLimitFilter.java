@@ -0,0 +1,108 @@
+package ru.nsu.fit.mihanizzm.litecrm.limiter;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Sheds load per endpoint group before the request reaches a controller, so rejected requests never
+ * borrow a connection from the pool.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 20)
+@RequiredArgsConstructor
+@Slf4j
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+    private final ConcurrencyLimiters limiters;
+    private final ConcurrencyLimitProperties properties;
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+        EndpointGroup group = EndpointGroup.fromPath(request.getRequestURI());
+        if (!properties.enabled() || group == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        AdaptiveConcurrencyLimiter limiter = limiters.get(group);
+        if (!limiter.tryAcquire()) {
+            log.debug("rejected request to {} group, limit: {}", group, limiter.getLimit());
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(properties.retryAfterSeconds()));
+            response.setContentType("text/plain");
+            response.getWriter().write(String.format("Too many concurrent %s requests, retry later", group));
+            return;
+        }
+
+        long start = System.nanoTime();
+        Release release = new Release(limiter, start);
+        try {
+            filterChain.doFilter(request, response);
+        } catch (IOException | ServletException | RuntimeException e) {
+            release.release(true);
+            throw e;
+        }
+
+        if (request.isAsyncStarted()) {
+            request.getAsyncContext().addListener(release);
+        } else {
+            release.release(response.getStatus() >= HttpStatus.INTERNAL_SERVER_ERROR.value());
+        }
+    }
+
+    private static class Release implements AsyncListener {
+        private final AdaptiveConcurrencyLimiter limiter;
+        private final long start;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        Release(AdaptiveConcurrencyLimiter limiter, long start) {
+            this.limiter = limiter;
+            this.start = start;
+        }
+
+        void release(boolean dropped) {
+            if (released.compareAndSet(false, true)) {
+                limiter.release(System.nanoTime() - start, dropped);
+            }
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release(false);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release(true);
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release(true);
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
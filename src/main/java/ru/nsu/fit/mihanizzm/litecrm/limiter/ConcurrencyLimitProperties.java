@@ -0,0 +1,50 @@
+package ru.nsu.fit.mihanizzm.litecrm.limiter;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+@ConfigurationProperties(prefix = "litecrm.concurrency-limit")
+public record ConcurrencyLimitProperties(
+        @DefaultValue("true")
+        boolean enabled,
+
+        @DefaultValue("1")
+        int retryAfterSeconds,
+
+        @DefaultValue
+        GroupSettings crud,
+
+        @DefaultValue
+        GroupSettings analytics
+) {
+    public GroupSettings forGroup(EndpointGroup group) {
+        return switch (group) {
+            case CRUD -> crud;
+            case ANALYTICS -> analytics;
+        };
+    }
+
+    /**
+     * Settings of a gradient limiter: the limit moves between {@code minLimit} and {@code maxLimit}
+     * following the ratio of the long-term RTT to the latest RTT sample.
+     */
+    public record GroupSettings(
+            @DefaultValue("20")
+            int initialLimit,
+
+            @DefaultValue("2")
+            int minLimit,
+
+            @DefaultValue("200")
+            int maxLimit,
+
+            @DefaultValue("0.2")
+            double smoothing,
+
+            @DefaultValue("1.5")
+            double rttTolerance,
+
+            @DefaultValue("600")
+            int longWindow
+    ) {}
+}
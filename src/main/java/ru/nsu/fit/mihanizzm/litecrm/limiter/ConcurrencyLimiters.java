@@ -0,0 +1,63 @@
+package ru.nsu.fit.mihanizzm.litecrm.limiter;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import ru.nsu.fit.mihanizzm.litecrm.models.dtos.ConcurrencyLimitResponseDto;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@Component
+public class ConcurrencyLimiters implements MeterBinder {
+    private final Map<EndpointGroup, AdaptiveConcurrencyLimiter> limiters = new EnumMap<>(EndpointGroup.class);
+
+    public ConcurrencyLimiters(ConcurrencyLimitProperties properties) {
+        for (EndpointGroup group : EndpointGroup.values()) {
+            limiters.put(group, new AdaptiveConcurrencyLimiter(properties.forGroup(group)));
+        }
+    }
+
+    public AdaptiveConcurrencyLimiter get(EndpointGroup group) {
+        return limiters.get(group);
+    }
+
+    public List<ConcurrencyLimitResponseDto> snapshot() {
+        return Arrays.stream(EndpointGroup.values())
+                .map(group -> {
+                    AdaptiveConcurrencyLimiter limiter = limiters.get(group);
+                    return new ConcurrencyLimitResponseDto(
+                            group.name(),
+                            limiter.getLimit(),
+                            limiter.getInFlight(),
+                            limiter.getRejectedCount(),
+                            TimeUnit.NANOSECONDS.toMillis(limiter.getLastRttNanos())
+                    );
+                })
+                .toList();
+    }
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        limiters.forEach((group, limiter) -> {
+            Gauge.builder("litecrm.concurrency.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                    .tag("group", group.name())
+                    .description("Current adaptive concurrency limit of the endpoint group")
+                    .register(registry);
+            Gauge.builder("litecrm.concurrency.in.flight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+                    .tag("group", group.name())
+                    .description("Requests of the endpoint group being processed")
+                    .register(registry);
+            FunctionCounter.builder("litecrm.concurrency.rejected", limiter, AdaptiveConcurrencyLimiter::getRejectedCount)
+                    .tag("group", group.name())
+                    .description("Requests of the endpoint group rejected with 503")
+                    .register(registry);
+        });
+    }
+}
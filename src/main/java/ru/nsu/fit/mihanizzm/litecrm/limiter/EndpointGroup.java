@@ -0,0 +1,16 @@
+package ru.nsu.fit.mihanizzm.litecrm.limiter;
+
+public enum EndpointGroup {
+    CRUD,
+    ANALYTICS;
+
+    public static EndpointGroup fromPath(String path) {
+        if (path.startsWith("/api/v1/analytics")) {
+            return ANALYTICS;
+        }
+        if (path.startsWith("/api/v1/sellers") || path.startsWith("/api/v1/transactions")) {
+            return CRUD;
+        }
+        return null;
+    }
+}
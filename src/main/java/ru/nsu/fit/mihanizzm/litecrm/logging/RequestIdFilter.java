@@ -0,0 +1,65 @@
+package ru.nsu.fit.mihanizzm.litecrm.logging;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.MDC;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Puts the request ID into the MDC so that every log line of a request can be correlated. The ID is taken from
+ * the {@code X-Request-Id} header when a client or proxy sends a sane one and is generated otherwise.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class RequestIdFilter extends OncePerRequestFilter {
+    public static final String REQUEST_ID_HEADER = "X-Request-Id";
+    public static final String REQUEST_ID_MDC_KEY = "requestId";
+
+    private static final String REQUEST_ID_ATTRIBUTE = RequestIdFilter.class.getName() + ".requestId";
+    private static final Pattern VALID_REQUEST_ID = Pattern.compile("[A-Za-z0-9._-]{1,64}");
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+        String requestId = (String) request.getAttribute(REQUEST_ID_ATTRIBUTE);
+        if (requestId == null) {
+            requestId = resolveRequestId(request);
+            request.setAttribute(REQUEST_ID_ATTRIBUTE, requestId);
+            response.setHeader(REQUEST_ID_HEADER, requestId);
+        }
+
+        MDC.put(REQUEST_ID_MDC_KEY, requestId);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            MDC.remove(REQUEST_ID_MDC_KEY);
+        }
+    }
+
+    // Analytics responses are written in an async dispatch that runs on another container thread.
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    private String resolveRequestId(HttpServletRequest request) {
+        String header = request.getHeader(REQUEST_ID_HEADER);
+        if (header != null && VALID_REQUEST_ID.matcher(header).matches()) {
+            return header;
+        }
+        return UUID.randomUUID().toString();
+    }
+}
@@ -0,0 +1,64 @@
+package ru.nsu.fit.mihanizzm.litecrm.metrics;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+import ru.nsu.fit.mihanizzm.litecrm.exception.ClientException;
+import ru.nsu.fit.mihanizzm.litecrm.models.PeriodType;
+import ru.nsu.fit.mihanizzm.litecrm.tracing.ObservationKeyValues;
+
+/**
+ * Observes every public service method as {@code litecrm.service}, which yields both the timer and, with
+ * tracing enabled, a span. Metric tags are kept low-cardinality: service, method, outcome and, for analytics
+ * by period, the period type. Arguments such as period bounds and the result size go to the span only.
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class ServiceMetricsAspect {
+    public static final String METRIC_NAME = "litecrm.service";
+
+    private final ObservationRegistry observationRegistry;
+
+    @Around("within(ru.nsu.fit.mihanizzm.litecrm.services.impl..*) && execution(public * *(..))")
+    public Object timeServiceCall(ProceedingJoinPoint joinPoint) throws Throwable {
+        String service = joinPoint.getSignature().getDeclaringType().getSimpleName();
+        String method = joinPoint.getSignature().getName();
+        Observation observation = Observation.createNotStarted(METRIC_NAME, observationRegistry)
+                .contextualName(service + "." + method)
+                .lowCardinalityKeyValue("service", service)
+                .lowCardinalityKeyValue("method", method)
+                .lowCardinalityKeyValue("period", periodTag(joinPoint.getArgs()))
+                .highCardinalityKeyValues(ObservationKeyValues.arguments(joinPoint))
+                .start();
+        String outcome = "success";
+        try (Observation.Scope ignored = observation.openScope()) {
+            Object result = joinPoint.proceed();
+            observation.highCardinalityKeyValue(ObservationKeyValues.resultSize(result));
+            return result;
+        } catch (ClientException e) {
+            outcome = "client_error";
+            throw e;
+        } catch (Throwable e) {
+            outcome = "server_error";
+            observation.error(e);
+            throw e;
+        } finally {
+            observation.lowCardinalityKeyValue("outcome", outcome);
+            observation.stop();
+        }
+    }
+
+    private String periodTag(Object[] args) {
+        for (Object arg : args) {
+            if (arg instanceof PeriodType periodType) {
+                return periodType.name();
+            }
+        }
+        return "none";
+    }
+}
@@ -0,0 +1,50 @@
+package ru.nsu.fit.mihanizzm.litecrm.models;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Persisted progress of a background job, shared by all instances.
+ */
+@NoArgsConstructor
+@Getter
+@Setter
+@Entity
+@Table(schema = "app", name = "job_state")
+public class JobState {
+    @Id
+    @Column(name = "name", nullable = false, unique = true)
+    private String name;
+
+    @Column(name = "watermark")
+    private String watermark;
+
+    @Column(name = "chunks_processed", nullable = false)
+    private long chunksProcessed;
+
+    @Column(name = "last_chunk_millis")
+    private Long lastChunkMillis;
+
+    @Column(name = "last_run_started_at")
+    private LocalDateTime lastRunStartedAt;
+
+    @Column(name = "last_run_millis")
+    private Long lastRunMillis;
+
+    @Column(name = "last_run_owner")
+    private String lastRunOwner;
+
+    @Column(name = "last_error")
+    private String lastError;
+
+    public JobState(String name) {
+        this.name = name;
+    }
+}
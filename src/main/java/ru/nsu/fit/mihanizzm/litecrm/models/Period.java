@@ -0,0 +1,57 @@
+package ru.nsu.fit.mihanizzm.litecrm.models;
+
+import java.time.LocalDateTime;
+
+/**
+ * Half-open interval {@code [start, end)} of a calendar period.
+ */
+public record Period(LocalDateTime start, LocalDateTime end) {
+    public static Period of(PeriodType type, LocalDateTime referenceDate) {
+        LocalDateTime start;
+        LocalDateTime end;
+
+        switch (type) {
+            case DAY -> {
+                start = referenceDate.toLocalDate().atStartOfDay();
+                end = start.plusDays(1);
+            }
+            case MONTH -> {
+                start = referenceDate.withDayOfMonth(1).toLocalDate().atStartOfDay();
+                end = start.plusMonths(1);
+            }
+            case QUARTER -> {
+                int startMonth = (referenceDate.getMonthValue() - 1) / 3 * 3 + 1;
+                start = LocalDateTime.of(
+                        referenceDate.getYear(),
+                        startMonth,
+                        1,
+                        0,
+                        0
+                );
+                end = start.plusMonths(3);
+            }
+            case YEAR -> {
+                start = LocalDateTime.of(
+                        referenceDate.getYear(),
+                        1,
+                        1,
+                        0,
+                        0
+                );
+                end = start.plusYears(1);
+            }
+            default -> throw new IllegalStateException(
+                    String.format(
+                            "Unexpected value: '%s'. PeriodType has values: 'DAY', 'MONTH', 'QUARTER', YEAR",
+                            type
+                    )
+            );
+        }
+
+        return new Period(start, end);
+    }
+
+    public boolean contains(LocalDateTime dateTime) {
+        return !dateTime.isBefore(start) && dateTime.isBefore(end);
+    }
+}
@@ -0,0 +1,55 @@
+package ru.nsu.fit.mihanizzm.litecrm.models;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Totals of a seller over a calendar period, maintained by the projector. There is a row for every day, month,
+ * quarter and year in which the seller has transactions.
+ */
+@NoArgsConstructor
+@Getter
+@Entity
+@Immutable
+@Table(schema = "app", name = "seller_period_stats")
+public class SellerPeriodStats {
+    @EmbeddedId
+    private Key key;
+
+    @Column(name = "transaction_count", nullable = false)
+    private long transactionCount;
+
+    @Column(name = "total_amount", nullable = false, precision = 16, scale = 2)
+    private BigDecimal totalAmount;
+
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Getter
+    @EqualsAndHashCode
+    @Embeddable
+    public static class Key implements Serializable {
+        @Column(name = "period_type", nullable = false, length = 10)
+        @Enumerated(EnumType.STRING)
+        private PeriodType periodType;
+
+        @Column(name = "period_start", nullable = false)
+        private LocalDateTime periodStart;
+
+        @Column(name = "seller_id", nullable = false)
+        private Integer sellerId;
+    }
+}
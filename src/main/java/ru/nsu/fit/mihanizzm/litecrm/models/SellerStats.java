@@ -0,0 +1,38 @@
+package ru.nsu.fit.mihanizzm.litecrm.models;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Totals of a seller over all of its transactions, maintained by the projector.
+ */
+@NoArgsConstructor
+@Getter
+@Entity
+@Immutable
+@Table(schema = "app", name = "seller_stats")
+public class SellerStats {
+    @Id
+    @Column(name = "seller_id", nullable = false, unique = true)
+    private Integer sellerId;
+
+    @Column(name = "transaction_count", nullable = false)
+    private long transactionCount;
+
+    @Column(name = "total_amount", nullable = false, precision = 16, scale = 2)
+    private BigDecimal totalAmount;
+
+    @Column(name = "first_sale_at")
+    private LocalDateTime firstSaleAt;
+
+    @Column(name = "last_sale_at")
+    private LocalDateTime lastSaleAt;
+}
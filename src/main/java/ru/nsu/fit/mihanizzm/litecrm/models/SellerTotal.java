@@ -0,0 +1,9 @@
+package ru.nsu.fit.mihanizzm.litecrm.models;
+
+import java.math.BigDecimal;
+
+/**
+ * Sum of the transaction amounts of a seller over some period.
+ */
+public record SellerTotal(Integer sellerId, BigDecimal total) {
+}
@@ -0,0 +1,92 @@
+package ru.nsu.fit.mihanizzm.litecrm.models;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Change of a transaction in the outbox consumed by the projector. It is written in the same database
+ * transaction as the change, so the read tables see every committed change exactly once.
+ */
+@NoArgsConstructor
+@Getter
+@Entity
+@Table(schema = "app", name = "transaction_event")
+public class TransactionEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id", nullable = false, unique = true)
+    private Long id;
+
+    @Column(name = "type", nullable = false)
+    @Enumerated(EnumType.STRING)
+    private TransactionEventType type;
+
+    @Column(name = "transaction_id")
+    private Integer transactionId;
+
+    @Column(name = "seller_id", nullable = false)
+    private Integer sellerId;
+
+    @Column(name = "previous_seller_id")
+    private Integer previousSellerId;
+
+    @Column(name = "amount")
+    private BigDecimal amount;
+
+    @Column(name = "previous_amount")
+    private BigDecimal previousAmount;
+
+    @Column(name = "transaction_date")
+    private LocalDateTime transactionDate;
+
+    /** Set by the database, so that the lag of the projector doesn't depend on the clocks of the instances. */
+    @ColumnDefault("localtimestamp")
+    @Column(name = "created_at", nullable = false, insertable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    private TransactionEvent(TransactionEventType type, Transaction transaction, Integer previousSellerId,
+                             BigDecimal previousAmount) {
+        this.type = type;
+        this.transactionId = transaction.getId();
+        this.sellerId = transaction.getSeller().getId();
+        this.previousSellerId = previousSellerId;
+        this.amount = transaction.getAmount();
+        this.previousAmount = previousAmount;
+        this.transactionDate = transaction.getTransactionDate();
+    }
+
+    public static TransactionEvent created(Transaction transaction) {
+        return new TransactionEvent(TransactionEventType.CREATED, transaction, null, null);
+    }
+
+    public static TransactionEvent amountChanged(Transaction transaction, BigDecimal previousAmount) {
+        return new TransactionEvent(TransactionEventType.AMOUNT_CHANGED, transaction, null, previousAmount);
+    }
+
+    public static TransactionEvent moved(Transaction transaction, Integer previousSellerId, BigDecimal previousAmount) {
+        return new TransactionEvent(TransactionEventType.MOVED, transaction, previousSellerId, previousAmount);
+    }
+
+    public static TransactionEvent deleted(Transaction transaction) {
+        return new TransactionEvent(TransactionEventType.DELETED, transaction, null, null);
+    }
+
+    public static TransactionEvent sellerChanged(Integer sellerId) {
+        TransactionEvent event = new TransactionEvent();
+        event.type = TransactionEventType.SELLER_CHANGED;
+        event.sellerId = sellerId;
+        return event;
+    }
+}
@@ -0,0 +1,11 @@
+package ru.nsu.fit.mihanizzm.litecrm.models;
+
+public enum TransactionEventType {
+    CREATED,
+    AMOUNT_CHANGED,
+    /** Given to another seller, possibly with a new amount. */
+    MOVED,
+    DELETED,
+    /** Any number of transactions of the seller changed at once: the seller was deleted or moved to another shard. */
+    SELLER_CHANGED
+}
@@ -0,0 +1,32 @@
+package ru.nsu.fit.mihanizzm.litecrm.models.dtos;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Saturation of a bulkhead")
+public record BulkheadResponseDto(
+        @Schema(description = "Bulkhead name", allowableValues = {"OLTP", "ANALYTICS"}, example = "ANALYTICS")
+        String bulkhead,
+
+        @Schema(description = "Maximum size of the bulkhead connection pool", example = "4")
+        int maxConnections,
+
+        @Schema(description = "Connections currently borrowed from the pool", example = "2")
+        int activeConnections,
+
+        @Schema(description = "Idle connections in the pool", example = "2")
+        int idleConnections,
+
+        @Schema(description = "Threads waiting for a connection", example = "0")
+        int threadsAwaitingConnection,
+
+        @Schema(description = "Busy executor threads. Null if the bulkhead runs on request threads.", example = "1")
+        Integer activeThreads,
+
+        @Schema(description = "Tasks waiting in the executor queue. Null if the bulkhead runs on request threads.",
+                example = "0")
+        Integer queuedTasks,
+
+        @Schema(description = "Capacity of the executor queue. Null if the bulkhead runs on request threads.",
+                example = "50")
+        Integer queueCapacity
+) {}
@@ -0,0 +1,21 @@
+package ru.nsu.fit.mihanizzm.litecrm.models.dtos;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Current state of an endpoint group concurrency limiter")
+public record ConcurrencyLimitResponseDto(
+        @Schema(description = "Endpoint group", allowableValues = {"CRUD", "ANALYTICS"}, example = "CRUD")
+        String group,
+
+        @Schema(description = "Current limit of concurrent requests", example = "24")
+        int limit,
+
+        @Schema(description = "Requests being processed right now", example = "3")
+        int inFlight,
+
+        @Schema(description = "Requests rejected with 503 since startup", example = "0")
+        long rejected,
+
+        @Schema(description = "Latency of the last sampled request in milliseconds", example = "12")
+        long lastRttMillis
+) {}
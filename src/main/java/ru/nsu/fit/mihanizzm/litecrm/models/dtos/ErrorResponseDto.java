@@ -0,0 +1,35 @@
+package ru.nsu.fit.mihanizzm.litecrm.models.dtos;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+@Schema(description = "Error response")
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ErrorResponseDto(
+        @Schema(description = "HTTP status code", example = "404")
+        int status,
+
+        @Schema(description = "Machine-readable error code", example = "SELLER_NOT_FOUND")
+        String code,
+
+        @Schema(description = "Human-readable error description", example = "Couldn't find seller with id: 42")
+        String message,
+
+        @Schema(description = "Violated constraints. Present only for validation errors.")
+        List<ViolationDto> violations
+) {
+    public ErrorResponseDto(int status, String code, String message) {
+        this(status, code, message, null);
+    }
+
+    @Schema(description = "Violated constraint of a request property")
+    public record ViolationDto(
+            @Schema(description = "Property path", example = "amount")
+            String property,
+
+            @Schema(description = "Constraint message", example = "Amount must be greater or equal 0.0")
+            String message
+    ) {}
+}
@@ -0,0 +1,36 @@
+package ru.nsu.fit.mihanizzm.litecrm.models.dtos;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.LocalDateTime;
+
+@Schema(description = "Progress of a background job")
+public record JobStateResponseDto(
+        @Schema(description = "Job name", example = "period-stats-check")
+        String name,
+
+        @Schema(description = "Shard the state belongs to; a job runs on every shard separately", example = "0")
+        int shard,
+
+        @Schema(description = "Watermark of the last committed chunk. Null if the job hasn't committed any.",
+                example = "2025-06-07")
+        String watermark,
+
+        @Schema(description = "Chunks committed since the job was created or reset", example = "104")
+        long chunksProcessed,
+
+        @Schema(description = "Duration of the last committed chunk in milliseconds", example = "87")
+        Long lastChunkMillis,
+
+        @Schema(description = "Start of the last run that held the job's lock", example = "2025-06-08T03:10:00")
+        LocalDateTime lastRunStartedAt,
+
+        @Schema(description = "Duration of that run in milliseconds", example = "9120")
+        Long lastRunMillis,
+
+        @Schema(description = "Instance that ran it, as pid@host", example = "1@litecrm-7d9f")
+        String lastRunOwner,
+
+        @Schema(description = "Error of that run. Null if it succeeded.")
+        String lastError
+) {}
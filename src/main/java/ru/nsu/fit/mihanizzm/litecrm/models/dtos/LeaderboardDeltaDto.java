@@ -0,0 +1,23 @@
+package ru.nsu.fit.mihanizzm.litecrm.models.dtos;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import ru.nsu.fit.mihanizzm.litecrm.models.PeriodType;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Schema(description = "Change of a leaderboard since the previous push. The board is cut to the new size, " +
+        "then every changed entry replaces the entry of the same rank. A new period start replaces the whole board.")
+public record LeaderboardDeltaDto(
+        @Schema(description = "Type of the period", example = "DAY")
+        PeriodType period,
+
+        @Schema(description = "Start of the current period", example = "2025-03-14T00:00:00")
+        LocalDateTime periodStart,
+
+        @Schema(description = "Number of entries on the board", example = "10")
+        int size,
+
+        @Schema(description = "Entries whose seller or totals changed")
+        List<LeaderboardEntryDto> changed
+) {}
@@ -0,0 +1,20 @@
+package ru.nsu.fit.mihanizzm.litecrm.models.dtos;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.math.BigDecimal;
+
+@Schema(description = "Seller on a leaderboard")
+public record LeaderboardEntryDto(
+        @Schema(description = "Position on the board, starting from 1", example = "1")
+        int rank,
+
+        @Schema(description = "Seller's ID", example = "1337")
+        Integer sellerId,
+
+        @Schema(description = "Number of transactions of the seller in the period", example = "42")
+        long transactionCount,
+
+        @Schema(description = "Sum of the transaction amounts in the period", example = "12345.67")
+        BigDecimal totalAmount
+) {}
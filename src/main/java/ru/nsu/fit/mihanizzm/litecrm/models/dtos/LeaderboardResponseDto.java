@@ -0,0 +1,19 @@
+package ru.nsu.fit.mihanizzm.litecrm.models.dtos;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import ru.nsu.fit.mihanizzm.litecrm.models.PeriodType;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Schema(description = "Top sellers of the current period, by the sum of their transactions")
+public record LeaderboardResponseDto(
+        @Schema(description = "Type of the period", example = "DAY")
+        PeriodType period,
+
+        @Schema(description = "Start of the current period", example = "2025-03-14T00:00:00")
+        LocalDateTime periodStart,
+
+        @Schema(description = "Sellers ordered by rank")
+        List<LeaderboardEntryDto> entries
+) {}
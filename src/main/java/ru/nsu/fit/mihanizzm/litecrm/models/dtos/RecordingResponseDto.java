@@ -0,0 +1,27 @@
+package ru.nsu.fit.mihanizzm.litecrm.models.dtos;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.Instant;
+
+@Schema(description = "On-demand Java Flight Recorder session")
+public record RecordingResponseDto(
+        @Schema(description = "Recording ID", example = "3")
+        long id,
+
+        @Schema(description = "JFR settings the recording uses", example = "profile")
+        String profile,
+
+        @Schema(description = "Recording state", allowableValues = {"NEW", "DELAYED", "RUNNING", "STOPPED", "CLOSED"},
+                example = "RUNNING")
+        String state,
+
+        @Schema(description = "When the recording started", example = "2025-06-07T10:15:30Z")
+        Instant startTime,
+
+        @Schema(description = "Requested duration in seconds", example = "60")
+        long durationSeconds,
+
+        @Schema(description = "Size of the .jfr file. Null until the recording has stopped.", example = "1843200")
+        Long sizeBytes
+) {}
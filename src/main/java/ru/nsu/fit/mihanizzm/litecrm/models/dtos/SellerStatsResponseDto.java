@@ -0,0 +1,24 @@
+package ru.nsu.fit.mihanizzm.litecrm.models.dtos;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Schema(description = "Totals of a seller over all of its transactions. Trails the latest writes by the projection lag.")
+public record SellerStatsResponseDto(
+        @Schema(description = "Seller's ID", example = "1337")
+        Integer sellerId,
+
+        @Schema(description = "Number of transactions of the seller", example = "42")
+        long transactionCount,
+
+        @Schema(description = "Sum of the transaction amounts", example = "12345.67")
+        BigDecimal totalAmount,
+
+        @Schema(description = "Date of the first transaction, absent if there are none", example = "2025-01-01T10:15:00")
+        LocalDateTime firstSaleAt,
+
+        @Schema(description = "Date of the last transaction, absent if there are none", example = "2025-03-01T18:40:00")
+        LocalDateTime lastSaleAt
+) {}
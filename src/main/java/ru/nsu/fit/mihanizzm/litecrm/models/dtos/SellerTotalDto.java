@@ -0,0 +1,14 @@
+package ru.nsu.fit.mihanizzm.litecrm.models.dtos;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.math.BigDecimal;
+
+@Schema(description = "Seller with the sum of its transaction amounts over a range")
+public record SellerTotalDto(
+        @Schema(description = "Seller's ID", example = "1337")
+        Integer sellerId,
+
+        @Schema(description = "Sum of the transaction amounts in the range, 0 without transactions", example = "123.45")
+        BigDecimal totalAmount
+) {}
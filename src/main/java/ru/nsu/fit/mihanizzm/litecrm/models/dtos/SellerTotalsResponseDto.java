@@ -0,0 +1,18 @@
+package ru.nsu.fit.mihanizzm.litecrm.models.dtos;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+@Schema(description = "Page of sellers with their totals, in the order of their IDs")
+public record SellerTotalsResponseDto(
+        @Schema(description = "Sellers of the page")
+        List<SellerTotalDto> sellers,
+
+        @Schema(
+                description = "Value of afterId for the next page; absent on the last page",
+                example = "1337",
+                nullable = true
+        )
+        Integer nextAfterId
+) {}
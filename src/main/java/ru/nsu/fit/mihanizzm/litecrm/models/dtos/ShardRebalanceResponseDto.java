@@ -0,0 +1,17 @@
+package ru.nsu.fit.mihanizzm.litecrm.models.dtos;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+@Schema(description = "Result of a shard rebalance")
+public record ShardRebalanceResponseDto(
+        @Schema(description = "Sellers moved to another shard", example = "12")
+        int movedSellers,
+
+        @Schema(description = "Transactions moved along with them", example = "3408")
+        long movedTransactions,
+
+        @Schema(description = "Shards after the rebalance")
+        List<ShardResponseDto> shards
+) {}
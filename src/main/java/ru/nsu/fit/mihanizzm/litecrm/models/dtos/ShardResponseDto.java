@@ -0,0 +1,15 @@
+package ru.nsu.fit.mihanizzm.litecrm.models.dtos;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Rows stored on a shard")
+public record ShardResponseDto(
+        @Schema(description = "Shard index, 0 being spring.datasource", example = "1")
+        int shard,
+
+        @Schema(description = "Sellers stored on the shard", example = "500")
+        long sellers,
+
+        @Schema(description = "Transactions stored on the shard", example = "182311")
+        long transactions
+) {}
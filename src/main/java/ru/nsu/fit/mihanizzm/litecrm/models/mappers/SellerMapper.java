@@ -6,8 +6,10 @@ import org.mapstruct.Mapping;
 import org.mapstruct.MappingTarget;
 import org.mapstruct.NullValuePropertyMappingStrategy;
 import ru.nsu.fit.mihanizzm.litecrm.models.Seller;
+import ru.nsu.fit.mihanizzm.litecrm.models.SellerStats;
 import ru.nsu.fit.mihanizzm.litecrm.models.dtos.SellerRequestDto;
 import ru.nsu.fit.mihanizzm.litecrm.models.dtos.SellerResponseDto;
+import ru.nsu.fit.mihanizzm.litecrm.models.dtos.SellerStatsResponseDto;
 
 @Mapper(componentModel = "spring")
 public interface SellerMapper {
@@ -23,4 +25,6 @@ public interface SellerMapper {
     void updateRequestToEntity(SellerRequestDto sellerRequestDto, @MappingTarget Seller seller);
 
     SellerResponseDto toResponse(Seller seller);
+
+    SellerStatsResponseDto toStatsResponse(SellerStats sellerStats);
 }
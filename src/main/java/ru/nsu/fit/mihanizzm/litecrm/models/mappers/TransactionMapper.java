@@ -37,7 +37,7 @@ public interface TransactionMapper {
             Seller seller
     ) {
         updateRequestToEntity(transactionRequestDto, transaction);
-        transaction.getSeller().removeTransaction(transaction);
+        // Not removed from the collection of the previous seller: orphan removal would delete it on flush
         seller.addTransaction(transaction);
     }
 
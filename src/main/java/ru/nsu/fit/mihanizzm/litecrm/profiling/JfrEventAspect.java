@@ -0,0 +1,82 @@
+package ru.nsu.fit.mihanizzm.litecrm.profiling;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.stereotype.Component;
+import ru.nsu.fit.mihanizzm.litecrm.exception.ClientException;
+import ru.nsu.fit.mihanizzm.litecrm.sql.SqlStats;
+import ru.nsu.fit.mihanizzm.litecrm.sql.SqlStatsContext;
+import ru.nsu.fit.mihanizzm.litecrm.tracing.ObservationKeyValues;
+
+import java.util.stream.Collectors;
+
+/**
+ * Emits {@link ServiceCallEvent} and {@link RepositoryQueryEvent}. While no recording enables them the advice
+ * only allocates the event and checks a flag.
+ */
+@Aspect
+@Component
+public class JfrEventAspect {
+    @Around("execution(public * ru.nsu.fit.mihanizzm.litecrm.services.AnalyticsService+.*(..)) "
+            + "|| execution(public * ru.nsu.fit.mihanizzm.litecrm.services.TransactionService+.*(..))")
+    public Object recordServiceCall(ProceedingJoinPoint joinPoint) throws Throwable {
+        ServiceCallEvent event = new ServiceCallEvent();
+        if (!event.isEnabled()) {
+            return joinPoint.proceed();
+        }
+        String outcome = "success";
+        event.begin();
+        try {
+            return joinPoint.proceed();
+        } catch (ClientException e) {
+            outcome = "client_error";
+            throw e;
+        } catch (Throwable e) {
+            outcome = "server_error";
+            throw e;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.service = joinPoint.getSignature().getDeclaringType().getSimpleName();
+                event.method = joinPoint.getSignature().getName();
+                event.arguments = arguments(joinPoint);
+                event.outcome = outcome;
+                event.commit();
+            }
+        }
+    }
+
+    @Around("execution(public * org.springframework.data.repository.Repository+.*(..))")
+    public Object recordRepositoryQuery(ProceedingJoinPoint joinPoint) throws Throwable {
+        RepositoryQueryEvent event = new RepositoryQueryEvent();
+        if (!event.isEnabled()) {
+            return joinPoint.proceed();
+        }
+        SqlStats sqlStats = SqlStatsContext.current();
+        long rowsBefore = sqlStats == null ? 0 : sqlStats.getRowsFetched();
+        Object result = null;
+        event.begin();
+        try {
+            result = joinPoint.proceed();
+            return result;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.repository = AopProxyUtils.proxiedUserInterfaces(joinPoint.getThis())[0].getSimpleName();
+                event.method = joinPoint.getSignature().getName();
+                event.arguments = arguments(joinPoint);
+                event.resultSize = ObservationKeyValues.sizeOf(result);
+                event.rowsFetched = sqlStats == null ? -1 : sqlStats.getRowsFetched() - rowsBefore;
+                event.commit();
+            }
+        }
+    }
+
+    private static String arguments(ProceedingJoinPoint joinPoint) {
+        return ObservationKeyValues.arguments(joinPoint).stream()
+                .map(keyValue -> keyValue.getKey() + "=" + keyValue.getValue())
+                .collect(Collectors.joining(", "));
+    }
+}
@@ -0,0 +1,191 @@
+package ru.nsu.fit.mihanizzm.litecrm.profiling;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.util.FileSystemUtils;
+import ru.nsu.fit.mihanizzm.litecrm.exception.RecordingInProgressException;
+import ru.nsu.fit.mihanizzm.litecrm.exception.RecordingNotFoundException;
+import ru.nsu.fit.mihanizzm.litecrm.models.dtos.RecordingResponseDto;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+
+/**
+ * Owns the JFR recordings of the application: a continuous ring-buffer recording started with the context
+ * and at most one on-demand recording. Starting a new on-demand recording discards the previous one, so the
+ * disk usage stays bounded without a cleanup job.
+ */
+@Slf4j
+@Component
+public class JfrRecorder implements AutoCloseable {
+    private static final String CONTINUOUS_NAME = "litecrm-continuous";
+
+    private final ProfilingProperties properties;
+    private final Path directory;
+    private final Recording continuous;
+    private OnDemand onDemand;
+
+    public JfrRecorder(ProfilingProperties properties) throws IOException, ParseException {
+        this.properties = properties;
+        this.directory = Files.createTempDirectory("litecrm-jfr-");
+        this.continuous = properties.continuous().enabled() ? startContinuous(properties.continuous()) : null;
+    }
+
+    public synchronized RecordingResponseDto start(String profile, Duration duration) {
+        if (duration.isNegative() || duration.isZero() || duration.compareTo(properties.maxDuration()) > 0) {
+            throw new IllegalArgumentException(String.format(
+                    "recording duration must be positive and at most %s, got %s", properties.maxDuration(), duration));
+        }
+        if (onDemand != null) {
+            if (isActive(onDemand.recording())) {
+                throw new RecordingInProgressException(onDemand.recording().getId());
+            }
+            discard(onDemand);
+        }
+
+        Recording recording = new Recording(configuration(profile));
+        recording.setName("litecrm-" + profile);
+        recording.setDuration(duration);
+        recording.enable(ServiceCallEvent.class).withThreshold(Duration.ZERO);
+        recording.enable(RepositoryQueryEvent.class).withThreshold(Duration.ZERO);
+        recording.setToDisk(true);
+        Path file = directory.resolve("recording-" + recording.getId() + ".jfr");
+        recording.start();
+        onDemand = new OnDemand(recording, profile, file);
+        log.info("started JFR recording {} with {} settings for {}", recording.getId(), profile, duration);
+        return describe(onDemand);
+    }
+
+    public synchronized RecordingResponseDto get(long id) {
+        return describe(find(id));
+    }
+
+    /** The .jfr file of a finished on-demand recording. */
+    public synchronized Path file(long id) {
+        OnDemand recording = find(id);
+        if (isActive(recording.recording())) {
+            throw new RecordingInProgressException(id);
+        }
+        writeFile(recording);
+        return recording.file();
+    }
+
+    public synchronized void delete(long id) {
+        discard(find(id));
+        onDemand = null;
+    }
+
+    /**
+     * Writes what the continuous recording holds, up to its max age, into a new file. The caller owns the file
+     * and deletes it once sent.
+     */
+    public Path dumpContinuous() throws IOException {
+        if (continuous == null) {
+            throw new IllegalArgumentException("continuous recording is disabled");
+        }
+        Path file = Files.createTempFile(directory, "continuous-", ".jfr");
+        continuous.dump(file);
+        return file;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (onDemand != null) {
+            onDemand.recording().close();
+        }
+        if (continuous != null) {
+            continuous.close();
+        }
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    private Recording startContinuous(ProfilingProperties.Continuous settings) throws IOException, ParseException {
+        Recording recording = new Recording(Configuration.getConfiguration(settings.settings()));
+        recording.setName(CONTINUOUS_NAME);
+        recording.setToDisk(true);
+        recording.setMaxAge(settings.maxAge());
+        recording.setMaxSize(settings.maxSize().toBytes());
+        recording.enable(ServiceCallEvent.class).withThreshold(settings.eventThreshold());
+        recording.enable(RepositoryQueryEvent.class).withThreshold(settings.eventThreshold());
+        recording.start();
+        return recording;
+    }
+
+    private OnDemand find(long id) {
+        if (onDemand == null || onDemand.recording().getId() != id) {
+            throw new RecordingNotFoundException(id);
+        }
+        return onDemand;
+    }
+
+    private void discard(OnDemand recording) {
+        recording.recording().close();
+        try {
+            Files.deleteIfExists(recording.file());
+        } catch (IOException e) {
+            log.warn("couldn't delete JFR recording file {}", recording.file(), e);
+        }
+    }
+
+    private static boolean isActive(Recording recording) {
+        RecordingState state = recording.getState();
+        return state == RecordingState.NEW || state == RecordingState.DELAYED || state == RecordingState.RUNNING;
+    }
+
+    private static Configuration configuration(String profile) {
+        try {
+            return Configuration.getConfiguration(profile);
+        } catch (IOException | ParseException e) {
+            throw new IllegalArgumentException(String.format(
+                    "unknown JFR settings '%s', available: %s",
+                    profile,
+                    Configuration.getConfigurations().stream().map(Configuration::getName).toList()
+            ));
+        }
+    }
+
+    /**
+     * JFR reports a duration-bound recording as stopped before it has finished writing its destination file, so
+     * the file is written here, under the recorder's lock, the first time a stopped recording is accessed.
+     */
+    private static void writeFile(OnDemand onDemand) {
+        if (Files.exists(onDemand.file())) {
+            return;
+        }
+        try {
+            onDemand.recording().dump(onDemand.file());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static RecordingResponseDto describe(OnDemand onDemand) {
+        Recording recording = onDemand.recording();
+        Long size = null;
+        if (!isActive(recording)) {
+            writeFile(onDemand);
+            try {
+                size = Files.size(onDemand.file());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return new RecordingResponseDto(
+                recording.getId(),
+                onDemand.profile(),
+                recording.getState().name(),
+                recording.getStartTime(),
+                recording.getDuration().toSeconds(),
+                size
+        );
+    }
+
+    private record OnDemand(Recording recording, String profile, Path file) {}
+}
@@ -0,0 +1,44 @@
+package ru.nsu.fit.mihanizzm.litecrm.profiling;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * On-demand and continuous Java Flight Recorder sessions.
+ *
+ * @param maxDuration upper bound of an on-demand recording
+ * @param continuous  ring-buffer recording running from startup, dumped on demand
+ */
+@ConfigurationProperties(prefix = "litecrm.profiling")
+public record ProfilingProperties(
+        @DefaultValue("5m")
+        Duration maxDuration,
+
+        @DefaultValue
+        Continuous continuous
+) {
+    /**
+     * @param settings       JFR settings the recording uses, {@code default} has about 1% overhead
+     * @param eventThreshold service calls and repository queries shorter than this are not recorded;
+     *                       on-demand recordings record all of them
+     */
+    public record Continuous(
+            @DefaultValue("true")
+            boolean enabled,
+
+            @DefaultValue("default")
+            String settings,
+
+            @DefaultValue("15m")
+            Duration maxAge,
+
+            @DefaultValue("100MB")
+            DataSize maxSize,
+
+            @DefaultValue("20ms")
+            Duration eventThreshold
+    ) {}
+}
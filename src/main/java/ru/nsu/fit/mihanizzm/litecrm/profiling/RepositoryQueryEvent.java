@@ -0,0 +1,32 @@
+package ru.nsu.fit.mihanizzm.litecrm.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name(RepositoryQueryEvent.NAME)
+@Label("Repository Query")
+@Description("Call of a Spring Data repository method")
+@Category("LiteCRM")
+@StackTrace(false)
+public class RepositoryQueryEvent extends jdk.jfr.Event {
+    public static final String NAME = "ru.nsu.fit.mihanizzm.litecrm.RepositoryQuery";
+
+    @Label("Repository")
+    String repository;
+
+    @Label("Method")
+    String method;
+
+    @Label("Arguments")
+    String arguments;
+
+    @Label("Result Size")
+    long resultSize;
+
+    @Label("Rows Fetched")
+    @Description("Rows read from JDBC result sets, -1 outside of an HTTP request")
+    long rowsFetched;
+}
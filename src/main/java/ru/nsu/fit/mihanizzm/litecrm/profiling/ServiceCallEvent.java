@@ -0,0 +1,28 @@
+package ru.nsu.fit.mihanizzm.litecrm.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name(ServiceCallEvent.NAME)
+@Label("Service Call")
+@Description("Call of an AnalyticsService or TransactionService method")
+@Category("LiteCRM")
+@StackTrace(false)
+public class ServiceCallEvent extends jdk.jfr.Event {
+    public static final String NAME = "ru.nsu.fit.mihanizzm.litecrm.ServiceCall";
+
+    @Label("Service")
+    String service;
+
+    @Label("Method")
+    String method;
+
+    @Label("Arguments")
+    String arguments;
+
+    @Label("Outcome")
+    String outcome;
+}
@@ -0,0 +1,25 @@
+package ru.nsu.fit.mihanizzm.litecrm.projections;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Read tables kept up to date by the {@link Projector}.
+ *
+ * @param enabled      whether this instance polls the outbox; the read tables fall behind if no instance does
+ * @param pollInterval delay between the end of a poll and the start of the next one
+ * @param batchSize    events applied in one transaction
+ */
+@ConfigurationProperties(prefix = "litecrm.projections")
+public record ProjectionProperties(
+        @DefaultValue("true")
+        boolean enabled,
+
+        @DefaultValue("500ms")
+        Duration pollInterval,
+
+        @DefaultValue("1000")
+        int batchSize
+) {}
@@ -0,0 +1,55 @@
+package ru.nsu.fit.mihanizzm.litecrm.projections;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Component;
+import ru.nsu.fit.mihanizzm.litecrm.seed.SeedRunner;
+
+/**
+ * Polls the outbox of every shard with a fixed delay. Every instance polls; the advisory lock taken by the
+ * {@link Projector} lets one of them apply the events of a shard at a time.
+ */
+@Slf4j
+@Component
+@Profile("!" + SeedRunner.PROFILE)
+@ConditionalOnProperty(prefix = "litecrm.projections", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class ProjectionScheduler implements AutoCloseable {
+    private static final int CLOSE_TIMEOUT_SECONDS = 30;
+
+    private final Projector projector;
+    private final ProjectionProperties properties;
+    private final ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+
+    public ProjectionScheduler(Projector projector, ProjectionProperties properties) {
+        this.projector = projector;
+        this.properties = properties;
+        scheduler.setThreadNamePrefix("projector-");
+        scheduler.setWaitForTasksToCompleteOnShutdown(true);
+        scheduler.setAwaitTerminationSeconds(CLOSE_TIMEOUT_SECONDS);
+        scheduler.initialize();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::poll, properties.pollInterval());
+        log.info("polling the projection outbox every {}", properties.pollInterval());
+    }
+
+    private void poll() {
+        try {
+            projector.project();
+        } catch (RuntimeException e) {
+            log.warn("projecting transaction events failed, retrying on the next poll", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        projector.stop();
+        scheduler.shutdown();
+    }
+}
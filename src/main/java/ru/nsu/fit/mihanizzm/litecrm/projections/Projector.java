@@ -0,0 +1,422 @@
+package ru.nsu.fit.mihanizzm.litecrm.projections;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.nsu.fit.mihanizzm.litecrm.cache.CacheInvalidationBus;
+import ru.nsu.fit.mihanizzm.litecrm.cache.ChangeEvent;
+import ru.nsu.fit.mihanizzm.litecrm.models.Period;
+import ru.nsu.fit.mihanizzm.litecrm.models.PeriodType;
+import ru.nsu.fit.mihanizzm.litecrm.models.TransactionEventType;
+import ru.nsu.fit.mihanizzm.litecrm.repositories.JobStateRepository;
+import ru.nsu.fit.mihanizzm.litecrm.sharding.ShardDataSources;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Applies the events of the {@code app.transaction_event} outbox to the read tables {@code app.seller_stats} and
+ * {@code app.seller_period_stats} of the same shard, and deletes them. Every batch is one repeatable read
+ * transaction, so events that are not visible yet are left for the next batch, while the changes recounted from
+ * {@code app.transaction} match exactly the events that are visible.
+ * <p>
+ * Events of single transactions are applied as deltas. A {@link TransactionEventType#SELLER_CHANGED} event
+ * recounts the seller from {@code app.transaction} instead; the other visible events of the seller are consumed
+ * with it, since the recount already includes them. Every seller an event touched gets the latest event ID of the
+ * batch in {@code app.seller_stats.last_event_id}, even if its changes cancel out.
+ */
+@Slf4j
+@Component
+public class Projector {
+    private static final String LOCK_NAME = "projector";
+    private static final String TRY_LOCK = "SELECT pg_try_advisory_xact_lock(" + JobStateRepository.LOCK_NAMESPACE +
+            ", hashtext('" + LOCK_NAME + "'))";
+    private static final String LOCK = "SELECT pg_advisory_xact_lock(" + JobStateRepository.LOCK_NAMESPACE +
+            ", hashtext('" + LOCK_NAME + "'))";
+
+    private static final String SELECT_EVENTS = "SELECT id, type, transaction_id, seller_id, previous_seller_id, " +
+            "amount, previous_amount, transaction_date, " +
+            "CAST(EXTRACT(EPOCH FROM localtimestamp - created_at) * 1000 AS BIGINT) " +
+            "FROM app.transaction_event ";
+    private static final RowMapper<Event> EVENT_MAPPER = (rs, rowNum) -> new Event(
+            rs.getLong(1),
+            TransactionEventType.valueOf(rs.getString(2)),
+            rs.getObject(3, Integer.class),
+            rs.getInt(4),
+            rs.getObject(5, Integer.class),
+            rs.getBigDecimal(6),
+            rs.getBigDecimal(7),
+            rs.getObject(8, LocalDateTime.class),
+            rs.getLong(9)
+    );
+
+    private static final String UPSERT_SELLER_STATS = "INSERT INTO app.seller_stats AS s " +
+            "(seller_id, transaction_count, total_amount, first_sale_at, last_sale_at) VALUES (?, ?, ?, ?, ?) " +
+            "ON CONFLICT (seller_id) DO UPDATE SET " +
+            "transaction_count = s.transaction_count + EXCLUDED.transaction_count, " +
+            "total_amount = s.total_amount + EXCLUDED.total_amount, " +
+            "first_sale_at = LEAST(s.first_sale_at, EXCLUDED.first_sale_at), " +
+            "last_sale_at = GREATEST(s.last_sale_at, EXCLUDED.last_sale_at)";
+    private static final String UPSERT_PERIOD_STATS = "INSERT INTO app.seller_period_stats AS s " +
+            "(period_type, period_start, seller_id, transaction_count, total_amount) VALUES (?, ?, ?, ?, ?) " +
+            "ON CONFLICT (period_type, period_start, seller_id) DO UPDATE SET " +
+            "transaction_count = s.transaction_count + EXCLUDED.transaction_count, " +
+            "total_amount = s.total_amount + EXCLUDED.total_amount";
+    private static final String RECOUNT_SALE_DATES = "UPDATE app.seller_stats s " +
+            "SET first_sale_at = t.first_sale_at, last_sale_at = t.last_sale_at " +
+            "FROM (SELECT seller_id, MIN(transaction_date) AS first_sale_at, MAX(transaction_date) AS last_sale_at " +
+            "FROM app.transaction WHERE seller_id = ANY (?) GROUP BY seller_id) t " +
+            "WHERE s.seller_id = t.seller_id";
+
+    private static final String MARK_SELLERS = "UPDATE app.seller_stats SET last_event_id = ? " +
+            "WHERE seller_id = ANY (?) AND last_event_id < ?";
+
+    private static final String INSERT_SELLER_STATS = "INSERT INTO app.seller_stats " +
+            "(seller_id, transaction_count, total_amount, first_sale_at, last_sale_at, last_event_id) " +
+            "SELECT seller_id, COUNT(*), SUM(amount), MIN(transaction_date), MAX(transaction_date), ? " +
+            "FROM app.transaction t ";
+    private static final String INSERT_PERIOD_STATS = "INSERT INTO app.seller_period_stats " +
+            "(period_type, period_start, seller_id, transaction_count, total_amount) " +
+            "SELECT p.period_type, p.period_start, t.seller_id, COUNT(*), SUM(t.amount) " +
+            "FROM app.transaction t CROSS JOIN LATERAL (VALUES " +
+            "('DAY', date_trunc('day', t.transaction_date)), " +
+            "('MONTH', date_trunc('month', t.transaction_date)), " +
+            "('QUARTER', date_trunc('quarter', t.transaction_date)), " +
+            "('YEAR', date_trunc('year', t.transaction_date))" +
+            ") AS p(period_type, period_start) ";
+    private static final String OF_SELLERS = "WHERE t.seller_id = ANY (?) ";
+
+    private final ShardDataSources dataSources;
+    private final ProjectionProperties properties;
+    private final CacheInvalidationBus cacheInvalidationBus;
+    private final MeterRegistry meterRegistry;
+    private final Timer delay;
+    private final AtomicLongArray pending;
+    private final AtomicLongArray lagMillis;
+    private volatile boolean stopping;
+
+    public Projector(
+            ShardDataSources dataSources,
+            ProjectionProperties properties,
+            CacheInvalidationBus cacheInvalidationBus,
+            MeterRegistry meterRegistry
+    ) {
+        this.dataSources = dataSources;
+        this.properties = properties;
+        this.cacheInvalidationBus = cacheInvalidationBus;
+        this.meterRegistry = meterRegistry;
+        this.delay = Timer.builder("litecrm.projections.delay")
+                .description("Time from writing a transaction event to applying it to the read tables")
+                .register(meterRegistry);
+        this.pending = new AtomicLongArray(dataSources.count());
+        this.lagMillis = new AtomicLongArray(dataSources.count());
+        for (int shard = 0; shard < dataSources.count(); shard++) {
+            int index = shard;
+            Gauge.builder("litecrm.projections.pending", pending, events -> events.get(index))
+                    .description("Transaction events not applied to the read tables yet")
+                    .tag("shard", String.valueOf(shard))
+                    .register(meterRegistry);
+            Gauge.builder("litecrm.projections.lag", lagMillis, millis -> millis.get(index) / 1000.0)
+                    .description("Age of the oldest transaction event not applied to the read tables yet")
+                    .tag("shard", String.valueOf(shard))
+                    .baseUnit("seconds")
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Applies the pending events of every shard until each is caught up or locked by another instance.
+     *
+     * @return number of applied events
+     */
+    public int project() {
+        int applied = 0;
+        for (int shard = 0; shard < dataSources.count() && !stopping; shard++) {
+            int batch;
+            do {
+                batch = projectBatch(shard);
+                applied += Math.max(batch, 0);
+            } while (batch >= properties.batchSize() && !stopping);
+            refreshLag(shard);
+        }
+        return applied;
+    }
+
+    public void stop() {
+        stopping = true;
+    }
+
+    /**
+     * Recomputes the read tables of every shard from {@code app.transaction} and drops the pending events. Waits
+     * for a batch in progress, and blocks writes of transactions while a shard is recomputed.
+     */
+    public void rebuild() {
+        for (int shard = 0; shard < dataSources.count(); shard++) {
+            long startNanos = System.nanoTime();
+            JdbcTemplate jdbc = new JdbcTemplate(dataSources.oltp(shard));
+            transactionTemplate(dataSources.oltp(shard), TransactionDefinition.ISOLATION_DEFAULT)
+                    .executeWithoutResult(status -> {
+                        jdbc.execute("SET LOCAL statement_timeout = 0");
+                        jdbc.execute(LOCK);
+                        // Waits for the writes in progress, so their events are dropped together with the rest
+                        jdbc.execute("LOCK TABLE app.transaction IN SHARE MODE");
+                        jdbc.update("DELETE FROM app.transaction_event");
+                        jdbc.update("DELETE FROM app.seller_stats");
+                        jdbc.update("DELETE FROM app.seller_period_stats");
+                        // Above every event so far, so that snapshots of the totals re-read every seller
+                        Long lastEventId = jdbc.queryForObject(
+                                "SELECT nextval('app.transaction_event_id_seq')",
+                                Long.class
+                        );
+                        jdbc.update(INSERT_SELLER_STATS + "GROUP BY seller_id", lastEventId);
+                        jdbc.update(INSERT_PERIOD_STATS + "GROUP BY 1, 2, 3");
+                        cacheInvalidationBus.publish(ChangeEvent.flushAll());
+                    });
+            refreshLag(shard);
+            log.info(
+                    "rebuilt the read tables of shard {} in {} ms",
+                    shard,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos)
+            );
+        }
+    }
+
+    /**
+     * @return number of applied events, or -1 if another instance is applying the events of the shard
+     */
+    private int projectBatch(int shard) {
+        JdbcTemplate jdbc = new JdbcTemplate(dataSources.oltp(shard));
+        List<Event> applied;
+        try {
+            applied = transactionTemplate(dataSources.oltp(shard), TransactionDefinition.ISOLATION_REPEATABLE_READ)
+                    .execute(status -> {
+                        if (!Boolean.TRUE.equals(jdbc.queryForObject(TRY_LOCK, Boolean.class))) {
+                            return null;
+                        }
+                        List<Event> batch = jdbc.query(
+                                SELECT_EVENTS + "ORDER BY id LIMIT ?",
+                                EVENT_MAPPER,
+                                properties.batchSize()
+                        );
+                        if (batch.isEmpty()) {
+                            return batch;
+                        }
+                        List<Event> events = new ArrayList<>(batch);
+                        Set<Integer> recounted = batch.stream()
+                                .filter(event -> event.type() == TransactionEventType.SELLER_CHANGED)
+                                .map(Event::sellerId)
+                                .collect(Collectors.toSet());
+                        if (!recounted.isEmpty()) {
+                            Integer[] sellerIds = recounted.toArray(Integer[]::new);
+                            events.addAll(jdbc.query(
+                                    SELECT_EVENTS + "WHERE id > ? AND (seller_id = ANY (?) OR " +
+                                            "previous_seller_id = ANY (?)) ORDER BY id",
+                                    EVENT_MAPPER,
+                                    batch.getLast().id(),
+                                    sellerIds,
+                                    sellerIds
+                            ));
+                        }
+                        apply(jdbc, events, recounted);
+                        return events;
+                    });
+        } catch (ConcurrencyFailureException e) {
+            // The snapshot was taken before the lock, while another instance was committing a batch
+            log.debug("skipped a batch of shard {} that overlapped with another instance", shard);
+            return -1;
+        }
+        if (applied == null) {
+            return -1;
+        }
+
+        for (Event event : applied) {
+            delay.record(event.ageMillis(), TimeUnit.MILLISECONDS);
+            Counter.builder("litecrm.projections.events")
+                    .description("Transaction events applied to the read tables")
+                    .tag("type", event.type().name())
+                    .register(meterRegistry)
+                    .increment();
+        }
+        return applied.size();
+    }
+
+    private void apply(JdbcTemplate jdbc, List<Event> events, Set<Integer> recounted) {
+        Deltas deltas = Deltas.of(events, recounted);
+
+        jdbc.batchUpdate(UPSERT_SELLER_STATS, deltas.sellers().entrySet(), deltas.sellers().size(), (ps, entry) -> {
+            SellerDelta delta = entry.getValue();
+            ps.setInt(1, entry.getKey());
+            ps.setLong(2, delta.count);
+            ps.setBigDecimal(3, delta.amount);
+            ps.setObject(4, delta.firstSaleAt);
+            ps.setObject(5, delta.lastSaleAt);
+        });
+        jdbc.batchUpdate(UPSERT_PERIOD_STATS, deltas.periods().entrySet(), deltas.periods().size(), (ps, entry) -> {
+            PeriodKey key = entry.getKey();
+            ps.setString(1, key.type().name());
+            ps.setObject(2, key.start());
+            ps.setInt(3, key.sellerId());
+            ps.setLong(4, entry.getValue().count);
+            ps.setBigDecimal(5, entry.getValue().amount);
+        });
+        if (!deltas.shrunk().isEmpty()) {
+            Integer[] sellerIds = deltas.shrunk().toArray(Integer[]::new);
+            jdbc.update(RECOUNT_SALE_DATES, (Object) sellerIds);
+            jdbc.update("DELETE FROM app.seller_stats WHERE seller_id = ANY (?) AND transaction_count <= 0",
+                    (Object) sellerIds);
+            jdbc.update("DELETE FROM app.seller_period_stats WHERE seller_id = ANY (?) AND transaction_count <= 0",
+                    (Object) sellerIds);
+        }
+        long lastEventId = events.stream().mapToLong(Event::id).max().orElseThrow();
+        if (!recounted.isEmpty()) {
+            Integer[] sellerIds = recounted.toArray(Integer[]::new);
+            jdbc.update("DELETE FROM app.seller_stats WHERE seller_id = ANY (?)", (Object) sellerIds);
+            jdbc.update("DELETE FROM app.seller_period_stats WHERE seller_id = ANY (?)", (Object) sellerIds);
+            jdbc.update(INSERT_SELLER_STATS + OF_SELLERS + "GROUP BY seller_id", lastEventId, sellerIds);
+            jdbc.update(INSERT_PERIOD_STATS + OF_SELLERS + "GROUP BY 1, 2, 3", (Object) sellerIds);
+        }
+        Integer[] touched = events.stream()
+                .flatMap(event -> Stream.of(event.sellerId(), event.previousSellerId()))
+                .filter(Objects::nonNull)
+                .distinct()
+                .toArray(Integer[]::new);
+        jdbc.update(MARK_SELLERS, lastEventId, touched, lastEventId);
+        jdbc.update(
+                "DELETE FROM app.transaction_event WHERE id = ANY (?)",
+                (Object) events.stream().map(Event::id).toArray(Long[]::new)
+        );
+
+        Set<ChangeEvent> changes = new LinkedHashSet<>(deltas.changes());
+        recounted.forEach(sellerId -> changes.add(ChangeEvent.seller(sellerId)));
+        cacheInvalidationBus.publish(changes.toArray(ChangeEvent[]::new));
+    }
+
+    private void refreshLag(int shard) {
+        new JdbcTemplate(dataSources.oltp(shard)).query(
+                "SELECT COUNT(*), " +
+                        "COALESCE(CAST(EXTRACT(EPOCH FROM localtimestamp - MIN(created_at)) * 1000 AS BIGINT), 0) " +
+                        "FROM app.transaction_event",
+                rs -> {
+                    pending.set(shard, rs.getLong(1));
+                    lagMillis.set(shard, rs.getLong(2));
+                }
+        );
+    }
+
+    private static TransactionTemplate transactionTemplate(DataSource dataSource, int isolationLevel) {
+        TransactionTemplate template = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        template.setIsolationLevel(isolationLevel);
+        return template;
+    }
+
+    record Event(
+            long id,
+            TransactionEventType type,
+            Integer transactionId,
+            int sellerId,
+            Integer previousSellerId,
+            BigDecimal amount,
+            BigDecimal previousAmount,
+            LocalDateTime transactionDate,
+            long ageMillis
+    ) {}
+
+    record PeriodKey(PeriodType type, LocalDateTime start, int sellerId) {}
+
+    static final class SellerDelta {
+        long count;
+        BigDecimal amount = BigDecimal.ZERO;
+        LocalDateTime firstSaleAt;
+        LocalDateTime lastSaleAt;
+    }
+
+    static final class PeriodDelta {
+        long count;
+        BigDecimal amount = BigDecimal.ZERO;
+    }
+
+    /**
+     * Changes of the read tables made by a list of events, summed up per row. Rows whose changes cancel out are
+     * left alone, so that no empty rows are inserted.
+     *
+     * @param shrunk sellers that lost transactions: their sale dates are recounted and rows left empty deleted
+     */
+    record Deltas(
+            Map<Integer, SellerDelta> sellers,
+            Map<PeriodKey, PeriodDelta> periods,
+            Set<Integer> shrunk,
+            Set<ChangeEvent> changes
+    ) {
+        static Deltas of(List<Event> events, Set<Integer> recounted) {
+            Deltas deltas = new Deltas(new HashMap<>(), new HashMap<>(), new HashSet<>(), new LinkedHashSet<>());
+            for (Event event : events) {
+                switch (event.type()) {
+                    case CREATED -> deltas.add(event, event.sellerId(), 1, event.amount(), recounted);
+                    case AMOUNT_CHANGED -> deltas.add(event, event.sellerId(), 0,
+                            event.amount().subtract(event.previousAmount()), recounted);
+                    case MOVED -> {
+                        deltas.add(event, event.previousSellerId(), -1, event.previousAmount().negate(), recounted);
+                        deltas.add(event, event.sellerId(), 1, event.amount(), recounted);
+                    }
+                    case DELETED -> deltas.add(event, event.sellerId(), -1, event.amount().negate(), recounted);
+                    case SELLER_CHANGED -> {
+                        // Recounted from the transactions
+                    }
+                }
+            }
+            deltas.sellers().values().removeIf(delta -> delta.count == 0 && delta.amount.signum() == 0);
+            deltas.periods().values().removeIf(delta -> delta.count == 0 && delta.amount.signum() == 0);
+            return deltas;
+        }
+
+        private void add(Event event, int sellerId, int count, BigDecimal amount, Set<Integer> recounted) {
+            if (recounted.contains(sellerId)) {
+                return;
+            }
+            LocalDateTime date = event.transactionDate();
+            SellerDelta seller = sellers.computeIfAbsent(sellerId, id -> new SellerDelta());
+            seller.count += count;
+            seller.amount = seller.amount.add(amount);
+            if (count > 0) {
+                seller.firstSaleAt = seller.firstSaleAt == null || date.isBefore(seller.firstSaleAt)
+                        ? date
+                        : seller.firstSaleAt;
+                seller.lastSaleAt = seller.lastSaleAt == null || date.isAfter(seller.lastSaleAt)
+                        ? date
+                        : seller.lastSaleAt;
+            } else if (count < 0) {
+                shrunk.add(sellerId);
+            }
+
+            for (PeriodType type : PeriodType.values()) {
+                PeriodKey key = new PeriodKey(type, Period.of(type, date).start(), sellerId);
+                PeriodDelta period = periods.computeIfAbsent(key, k -> new PeriodDelta());
+                period.count += count;
+                period.amount = period.amount.add(amount);
+            }
+            changes.add(ChangeEvent.transaction(event.transactionId(), sellerId, date.toLocalDate()));
+        }
+    }
+}
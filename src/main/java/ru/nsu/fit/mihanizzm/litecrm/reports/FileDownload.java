@@ -0,0 +1,118 @@
+package ru.nsu.fit.mihanizzm.litecrm.reports;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+
+/**
+ * Sends an immutable file with conditional and single range requests. On Tomcat the body is handed over to the
+ * connector, which sends it with {@code sendfile} after the request returns, so the file never passes through the
+ * heap; elsewhere, and for small files, it is copied with {@link FileChannel#transferTo}.
+ * <p>
+ * A request for several ranges gets the whole file, which HTTP allows in place of a multipart response.
+ */
+public final class FileDownload {
+    static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+    /** Smaller files are cheaper to copy than to hand over, as in Tomcat's default servlet. */
+    static final long SENDFILE_MIN_SIZE = 48 * 1024;
+
+    private FileDownload() {}
+
+    public static void send(Path file, MediaType contentType, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        long length = attributes.size();
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        String etag = "\"" + Long.toHexString(length) + "-" + Long.toHexString(lastModified) + "\"";
+
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (new ServletWebRequest(request, response).checkNotModified(etag, lastModified)) {
+            return;
+        }
+        response.setContentType(contentType.toString());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename(file.getFileName().toString())
+                .build()
+                .toString());
+
+        long start = 0;
+        long end = length;
+        HttpRange range = range(request, etag, lastModified);
+        if (range != null) {
+            start = range.getRangeStart(length);
+            end = range.getRangeEnd(length) + 1;
+            if (start >= length || end <= start) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                return;
+            }
+            response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + (end - 1) + "/" + length);
+        }
+        response.setContentLengthLong(end - start);
+        if ("HEAD".equals(request.getMethod())) {
+            return;
+        }
+
+        if (end - start >= SENDFILE_MIN_SIZE && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+            request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file)) {
+            WritableByteChannel body = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            while (position < end) {
+                position += channel.transferTo(position, end - position, body);
+            }
+        }
+    }
+
+    /**
+     * The only range requested, or null for the whole file: without a range, with several ranges, with an invalid
+     * header and when {@code If-Range} names another version of the file.
+     */
+    private static HttpRange range(HttpServletRequest request, String etag, long lastModified) {
+        String header = request.getHeader(HttpHeaders.RANGE);
+        if (header == null) {
+            return null;
+        }
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange != null && !ifRange.equals(etag)) {
+            if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+                return null;
+            }
+            try {
+                if (request.getDateHeader(HttpHeaders.IF_RANGE) != lastModified / 1000 * 1000) {
+                    return null;
+                }
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+        try {
+            List<HttpRange> ranges = HttpRange.parseRanges(header);
+            return ranges.size() == 1 ? ranges.get(0) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
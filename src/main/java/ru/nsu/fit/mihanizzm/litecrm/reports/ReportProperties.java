@@ -0,0 +1,38 @@
+package ru.nsu.fit.mihanizzm.litecrm.reports;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Seller reports written by {@link SellerReports}.
+ *
+ * @param enabled          whether reports can be downloaded
+ * @param directory        directory of the report files; every instance needs a directory of its own
+ * @param closeDelay       a period is reported this long after its end, so that late writes land in the report
+ * @param fetchSize        rows fetched from the database per round trip while a report is written
+ * @param statementTimeout timeout of the report query, which reads a whole period and outlives the analytics one
+ * @param generatorThreads reports written at the same time; other requests wait for a free generator
+ */
+@ConfigurationProperties(prefix = "litecrm.reports")
+public record ReportProperties(
+        @DefaultValue("true")
+        boolean enabled,
+
+        @DefaultValue("reports")
+        Path directory,
+
+        @DefaultValue("1h")
+        Duration closeDelay,
+
+        @DefaultValue("1000")
+        int fetchSize,
+
+        @DefaultValue("5m")
+        Duration statementTimeout,
+
+        @DefaultValue("1")
+        int generatorThreads
+) {}
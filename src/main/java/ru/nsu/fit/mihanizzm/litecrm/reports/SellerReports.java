@@ -0,0 +1,295 @@
+package ru.nsu.fit.mihanizzm.litecrm.reports;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.nsu.fit.mihanizzm.litecrm.cache.CacheInvalidator;
+import ru.nsu.fit.mihanizzm.litecrm.cache.ChangeEvent;
+import ru.nsu.fit.mihanizzm.litecrm.exception.PeriodNotClosedException;
+import ru.nsu.fit.mihanizzm.litecrm.models.PaymentType;
+import ru.nsu.fit.mihanizzm.litecrm.models.Period;
+import ru.nsu.fit.mihanizzm.litecrm.models.PeriodType;
+import ru.nsu.fit.mihanizzm.litecrm.sharding.ShardDataSources;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Per-seller totals of closed periods as CSV files: transaction count and amount, overall and per payment type.
+ * A report is written once, by streaming the aggregated rows of every shard into a temporary file that is then
+ * moved into place, and is served from the file afterwards.
+ * <p>
+ * A committed change of a transaction deletes the reports of the periods containing its day, and a full flush
+ * deletes every report; the next download writes them again. Changes made while the instance was down are only
+ * seen if they are replayed from a cache snapshot, otherwise the reports have to be dropped by hand.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "litecrm.reports", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class SellerReports implements AutoCloseable {
+    private static final String EXTENSION = ".csv";
+    private static final String PREFIX = "sellers-";
+
+    private final ReportProperties properties;
+    private final ShardDataSources dataSources;
+    private final Clock clock;
+    private final String query;
+    private final String header;
+    private final ExecutorService generators;
+    /** Reports being written, so that concurrent downloads of one report share its generation. */
+    private final Map<Path, Generation> generations = new ConcurrentHashMap<>();
+
+    @Autowired
+    public SellerReports(ReportProperties properties, ShardDataSources dataSources, CacheInvalidator invalidator)
+            throws IOException {
+        this(properties, dataSources, invalidator, Clock.systemDefaultZone());
+    }
+
+    SellerReports(
+            ReportProperties properties,
+            ShardDataSources dataSources,
+            CacheInvalidator invalidator,
+            Clock clock
+    ) throws IOException {
+        this.properties = properties;
+        this.dataSources = dataSources;
+        this.clock = clock;
+        this.query = query();
+        this.header = header();
+        this.generators = Executors.newFixedThreadPool(
+                properties.generatorThreads(),
+                Thread.ofPlatform().name("report-generator-", 0).daemon().factory()
+        );
+        Files.createDirectories(properties.directory());
+        invalidator.addListener(this::evict);
+    }
+
+    /**
+     * Returns the report of the period containing the reference date, writing it first if there is none.
+     *
+     * @throws PeriodNotClosedException if the period hasn't ended at least {@link ReportProperties#closeDelay()} ago
+     */
+    public Path report(PeriodType type, LocalDateTime referenceDate) {
+        Period period = Period.of(type, referenceDate);
+        LocalDateTime closesAt = period.end().plus(properties.closeDelay());
+        if (LocalDateTime.now(clock).isBefore(closesAt)) {
+            throw new PeriodNotClosedException(type, period.start(), closesAt);
+        }
+        Path file = file(type, period.start().toLocalDate());
+        if (Files.exists(file)) {
+            return file;
+        }
+        Generation started = new Generation();
+        Generation generation = generations.putIfAbsent(file, started);
+        if (generation == null) {
+            generation = started;
+            generators.execute(() -> {
+                try {
+                    started.result.complete(generate(type, period, file, started));
+                } catch (RuntimeException e) {
+                    started.result.completeExceptionally(e);
+                } finally {
+                    generations.remove(file, started);
+                }
+            });
+        }
+        try {
+            return generation.result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Deletes every report; they are written again on their next download.
+     *
+     * @return the number of deleted reports
+     */
+    public int deleteAll() {
+        int deleted = 0;
+        try (DirectoryStream<Path> reports = Files.newDirectoryStream(properties.directory(),
+                PREFIX + "*" + EXTENSION)) {
+            for (Path report : reports) {
+                if (Files.deleteIfExists(report)) {
+                    deleted++;
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        generations.values().forEach(generation -> generation.stale = true);
+        return deleted;
+    }
+
+    @Override
+    public void close() {
+        generators.shutdownNow();
+    }
+
+    void evict(Collection<ChangeEvent> events) {
+        Set<LocalDate> days = new HashSet<>();
+        for (ChangeEvent event : events) {
+            switch (event.type()) {
+                case ALL -> {
+                    try {
+                        log.info("deleted {} reports on a full flush", deleteAll());
+                    } catch (UncheckedIOException e) {
+                        log.warn("couldn't delete the reports on a full flush", e);
+                    }
+                    return;
+                }
+                case TRANSACTION -> days.add(event.day());
+                // Reports hold no seller data; a report written before a seller was deleted keeps its transactions
+                case SELLER -> {
+                }
+            }
+        }
+        Set<Path> stale = new HashSet<>();
+        for (LocalDate day : days) {
+            for (PeriodType type : PeriodType.values()) {
+                stale.add(file(type, Period.of(type, day.atStartOfDay()).start().toLocalDate()));
+            }
+        }
+        for (Path file : stale) {
+            Generation generation = generations.get(file);
+            if (generation != null) {
+                generation.stale = true;
+            }
+            try {
+                if (Files.deleteIfExists(file)) {
+                    log.info("deleted the report {} changed by a transaction", file.getFileName());
+                }
+            } catch (IOException e) {
+                log.warn("couldn't delete the stale report {}", file, e);
+            }
+        }
+    }
+
+    Path file(PeriodType type, LocalDate start) {
+        return properties.directory()
+                .resolve(PREFIX + type.name().toLowerCase(Locale.ROOT) + "-" + start + EXTENSION);
+    }
+
+    private Path generate(PeriodType type, Period period, Path file, Generation generation) {
+        if (Files.exists(file)) {
+            // Written by a generation that finished after the caller looked for the file
+            return file;
+        }
+        long startNanos = System.nanoTime();
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        long rows;
+        do {
+            // A change of the period committed while the report is written may be missed by its query
+            generation.stale = false;
+            rows = write(period, temporary);
+        } while (generation.stale);
+        try {
+            Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        log.info(
+                "wrote the {} report of {} with {} sellers in {} ms",
+                type,
+                period.start().toLocalDate(),
+                rows,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos)
+        );
+        return file;
+    }
+
+    private long write(Period period, Path temporary) {
+        long[] rows = new long[1];
+        try (Writer writer = new BufferedWriter(Files.newBufferedWriter(temporary, StandardCharsets.UTF_8), 1 << 16)) {
+            writer.write(header);
+            for (int shard = 0; shard < dataSources.count(); shard++) {
+                DataSource dataSource = dataSources.analytics(shard);
+                JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+                jdbcTemplate.setFetchSize(properties.fetchSize());
+                TransactionTemplate transaction = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+                transaction.setReadOnly(true);
+                // The rows are only streamed with a fetch size inside a transaction
+                transaction.executeWithoutResult(status -> {
+                    jdbcTemplate.execute("SET LOCAL statement_timeout = " + properties.statementTimeout().toMillis());
+                    jdbcTemplate.query(query, (RowCallbackHandler) rs -> {
+                        try {
+                            writer.write(Integer.toString(rs.getInt(1)));
+                            for (int column = 2; column <= 3 + 2 * PaymentType.values().length; column += 2) {
+                                writer.write(',');
+                                writer.write(Long.toString(rs.getLong(column)));
+                                writer.write(',');
+                                writer.write(rs.getBigDecimal(column + 1).toPlainString());
+                            }
+                            writer.write('\n');
+                            rows[0]++;
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }, period.start(), period.end());
+                });
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return rows[0];
+    }
+
+    private static String query() {
+        String splits = Arrays.stream(PaymentType.values())
+                .map(paymentType -> String.format(
+                        "COUNT(*) FILTER (WHERE payment_type = '%1$s'), " +
+                                "COALESCE(SUM(amount) FILTER (WHERE payment_type = '%1$s'), 0)",
+                        paymentType.name()
+                ))
+                .collect(Collectors.joining(", "));
+        return "SELECT seller_id, COUNT(*), SUM(amount), " + splits + " FROM app.transaction " +
+                "WHERE transaction_date >= ? AND transaction_date < ? " +
+                "GROUP BY seller_id ORDER BY seller_id";
+    }
+
+    private static String header() {
+        String splits = Arrays.stream(PaymentType.values())
+                .map(paymentType -> paymentType.name().toLowerCase(Locale.ROOT))
+                .map(name -> name + "_count," + name + "_amount")
+                .collect(Collectors.joining(","));
+        return "seller_id,transaction_count,total_amount," + splits + "\n";
+    }
+
+    private static final class Generation {
+        private final CompletableFuture<Path> result = new CompletableFuture<>();
+        /** Set by a change of the period, which makes the report being written stale. */
+        private volatile boolean stale;
+    }
+}
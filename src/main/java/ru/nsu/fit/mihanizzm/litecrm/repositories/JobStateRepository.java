@@ -0,0 +1,27 @@
+package ru.nsu.fit.mihanizzm.litecrm.repositories;
+
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import ru.nsu.fit.mihanizzm.litecrm.models.JobState;
+
+import java.util.Optional;
+
+@Repository
+public interface JobStateRepository extends JpaRepository<JobState, String> {
+    /** First key of the two-key advisory locks taken for jobs, keeps them apart from any other advisory locks. */
+    int LOCK_NAMESPACE = 0x4C43_4A42;
+
+    /**
+     * Takes the advisory lock of the job until the end of the current transaction, unless another session holds it.
+     */
+    @Query(value = "SELECT pg_try_advisory_xact_lock(" + LOCK_NAMESPACE + ", hashtext(:name))", nativeQuery = true)
+    boolean tryLock(@Param("name") String name);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM JobState s WHERE s.name = :name")
+    Optional<JobState> findForUpdate(@Param("name") String name);
+}
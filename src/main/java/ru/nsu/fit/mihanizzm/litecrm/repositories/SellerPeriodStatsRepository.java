@@ -0,0 +1,43 @@
+package ru.nsu.fit.mihanizzm.litecrm.repositories;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import ru.nsu.fit.mihanizzm.litecrm.models.PeriodType;
+import ru.nsu.fit.mihanizzm.litecrm.models.Seller;
+import ru.nsu.fit.mihanizzm.litecrm.models.SellerPeriodStats;
+import ru.nsu.fit.mihanizzm.litecrm.models.SellerTotal;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface SellerPeriodStatsRepository extends JpaRepository<SellerPeriodStats, SellerPeriodStats.Key> {
+    @Query("SELECT s " +
+            "FROM SellerPeriodStats p JOIN Seller s ON s.id = p.key.sellerId " +
+            "WHERE p.key.periodType = :type AND p.key.periodStart = :start " +
+            "ORDER BY p.totalAmount DESC, s.id")
+    List<Seller> findTopSellers(@Param("type") PeriodType type,
+                                @Param("start") LocalDateTime start,
+                                Limit limit);
+
+    @Query("SELECT new ru.nsu.fit.mihanizzm.litecrm.models.SellerTotal(p.key.sellerId, p.totalAmount) " +
+            "FROM SellerPeriodStats p " +
+            "WHERE p.key.periodType = :type AND p.key.periodStart = :start " +
+            "ORDER BY p.totalAmount DESC, p.key.sellerId")
+    List<SellerTotal> findTopSellerTotals(@Param("type") PeriodType type,
+                                          @Param("start") LocalDateTime start,
+                                          Limit limit);
+
+    /**
+     * Starts of the days with the most transactions of the seller, the earliest first.
+     */
+    @Query("SELECT p.key.periodStart " +
+            "FROM SellerPeriodStats p " +
+            "WHERE p.key.sellerId = :sellerId " +
+            "AND p.key.periodType = ru.nsu.fit.mihanizzm.litecrm.models.PeriodType.DAY " +
+            "ORDER BY p.transactionCount DESC, p.key.periodStart")
+    List<LocalDateTime> findBusiestDays(@Param("sellerId") Integer sellerId, Limit limit);
+}
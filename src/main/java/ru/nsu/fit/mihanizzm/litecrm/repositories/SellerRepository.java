@@ -1,10 +1,33 @@
 package ru.nsu.fit.mihanizzm.litecrm.repositories;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import ru.nsu.fit.mihanizzm.litecrm.models.Seller;
 
+import java.time.LocalDateTime;
+import java.util.List;
+
 @Repository
 public interface SellerRepository extends JpaRepository<Seller, Integer> {
-
+    /**
+     * IDs above {@code afterId} of the sellers without transactions in {@code [start, end)}, in ascending order.
+     * Planned as an anti-join that walks the sellers by primary key and probes the seller and date index of
+     * {@code transaction} once per seller, so it stops as soon as the limit is reached instead of aggregating the
+     * range.
+     */
+    @Query("SELECT s.id " +
+            "FROM Seller s " +
+            "WHERE s.id > :afterId " +
+            "AND NOT EXISTS (" +
+            "SELECT 1 FROM Transaction t " +
+            "WHERE t.seller = s AND t.transactionDate >= :start AND t.transactionDate < :end" +
+            ") " +
+            "ORDER BY s.id")
+    List<Integer> findIdsWithoutTransactions(@Param("start") LocalDateTime start,
+                                             @Param("end") LocalDateTime end,
+                                             @Param("afterId") int afterId,
+                                             Limit limit);
 }
@@ -0,0 +1,9 @@
+package ru.nsu.fit.mihanizzm.litecrm.repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import ru.nsu.fit.mihanizzm.litecrm.models.SellerStats;
+
+@Repository
+public interface SellerStatsRepository extends JpaRepository<SellerStats, Integer> {
+}
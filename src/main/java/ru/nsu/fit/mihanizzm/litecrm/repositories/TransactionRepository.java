@@ -1,41 +1,44 @@
 package ru.nsu.fit.mihanizzm.litecrm.repositories;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
-import ru.nsu.fit.mihanizzm.litecrm.models.Seller;
+import ru.nsu.fit.mihanizzm.litecrm.models.SellerTotal;
 import ru.nsu.fit.mihanizzm.litecrm.models.Transaction;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.Optional;
 
 @Repository
 public interface TransactionRepository extends JpaRepository<Transaction, Integer> {
-    @Query("SELECT t.seller, SUM(t.amount) as totalAmount " +
+    /**
+     * Totals below the threshold of the sellers with transactions in {@code [start, end)} and an ID above
+     * {@code afterId}, in the order of the IDs. Sellers without transactions in the range are found by
+     * {@link SellerRepository#findIdsWithoutTransactions}.
+     */
+    @Query("SELECT new ru.nsu.fit.mihanizzm.litecrm.models.SellerTotal(t.seller.id, SUM(t.amount)) " +
             "FROM Transaction t " +
-            "WHERE t.transactionDate >= :start AND t.transactionDate < :end " +
-            "GROUP BY t.seller " +
-            "ORDER BY totalAmount DESC")
-    Optional<Object[]> findTopSellerByPeriod(@Param("start") LocalDateTime start,
-                                             @Param("end") LocalDateTime end);
+            "WHERE t.transactionDate >= :start AND t.transactionDate < :end AND t.seller.id > :afterId " +
+            "GROUP BY t.seller.id " +
+            "HAVING SUM(t.amount) < :threshold " +
+            "ORDER BY t.seller.id")
+    List<SellerTotal> findSellerTotalsLessThan(@Param("threshold") BigDecimal threshold,
+                                               @Param("start") LocalDateTime start,
+                                               @Param("end") LocalDateTime end,
+                                               @Param("afterId") int afterId,
+                                               Limit limit);
 
-    @Query("SELECT t.seller " +
+    /**
+     * Totals of the sellers with transactions in {@code [start, end)}; used for the days a range only partly
+     * covers, while the whole days are summed up in memory.
+     */
+    @Query("SELECT new ru.nsu.fit.mihanizzm.litecrm.models.SellerTotal(t.seller.id, SUM(t.amount)) " +
             "FROM Transaction t " +
             "WHERE t.transactionDate >= :start AND t.transactionDate < :end " +
-            "GROUP BY t.seller " +
-            "HAVING SUM(t.amount) < :threshold")
-    List<Seller> findSellersWithTotalAmountLessThan(@Param("threshold") BigDecimal threshold,
-                                                    @Param("start") LocalDateTime start,
-                                                    @Param("end") LocalDateTime end);
+            "GROUP BY t.seller.id")
+    List<SellerTotal> findSellerTotals(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
 
-    @Query(value = "SELECT CAST(transaction_date AS DATE) as day, COUNT(*) as cnt " +
-            "FROM app.transaction " +
-            "WHERE seller_id = :sellerId " +
-            "GROUP BY day " +
-            "ORDER BY cnt DESC " +
-            "LIMIT 1", nativeQuery = true)
-    Object findBestDayForSellerNative(@Param("sellerId") Integer sellerId);
 }
@@ -0,0 +1,339 @@
+package ru.nsu.fit.mihanizzm.litecrm.seed;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import ru.nsu.fit.mihanizzm.litecrm.cache.CacheProperties;
+import ru.nsu.fit.mihanizzm.litecrm.cache.ChangeEvent;
+import ru.nsu.fit.mihanizzm.litecrm.models.PaymentType;
+import ru.nsu.fit.mihanizzm.litecrm.projections.Projector;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bulk loads synthetic sellers and transactions with {@code COPY}, bypassing JPA. IDs are reserved
+ * from the sequences up front so that batches can be written by parallel streams, each in its own
+ * database transaction. When Envers is enabled, every batch also gets one revision and the matching
+ * {@code ADD} rows in the audit tables, as if the entities had been created through the API.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DataSeeder {
+    private static final String ENVERS_ENABLED = "spring.jpa.properties.hibernate.integration.envers.enabled";
+    private static final String CACHE_CHANNEL = "litecrm.cache.channel";
+    private static final int FLUSH_BYTES = 1 << 20;
+    private static final int REVTYPE_ADD = 0;
+    private static final double AMOUNT_SIGMA = 1.0;
+    private static final long MAX_AMOUNT_CENTS = 9_999_999_999L;
+
+    private static final Table SELLER = new Table(
+            "app.seller",
+            "app.seller_id_seq",
+            "id, name, contact_info, registration_date",
+            "app.seller_aud",
+            "name, contact_info"
+    );
+    private static final Table TRANSACTION = new Table(
+            "app.transaction",
+            "app.transaction_id_seq",
+            "id, seller_id, amount, payment_type, transaction_date",
+            "app.transaction_aud",
+            "seller_id, amount, payment_type"
+    );
+
+    private final DataSource dataSource;
+    private final SeedProperties properties;
+    private final Environment environment;
+    private final ObjectProvider<Projector> projector;
+
+    public SeedResult seed() {
+        long startedAt = System.nanoTime();
+        boolean audited = environment.getProperty(ENVERS_ENABLED, Boolean.class, true);
+        SplittableRandom random = new SplittableRandom(properties.randomSeed());
+
+        // Transactions fall into the days before the end date, sellers register during the year before that.
+        LocalDate endDate = properties.endDate() == null ? LocalDate.now() : properties.endDate();
+        LocalDate firstDay = endDate.minusDays(properties.days());
+        String[] sellerDays = days(firstDay.minusDays(365), 365);
+        String[] transactionDays = days(firstDay, properties.days());
+        DiscreteDistribution hours = DiscreteDistribution.weighted(
+                properties.hourlyWeights().stream().mapToDouble(Integer::doubleValue).toArray()
+        );
+
+        int firstSellerId = reserveIds(SELLER, properties.sellers());
+        write(SELLER, firstSellerId, properties.sellers(), random, audited, (rows, id, rnd) -> {
+            rows.append(id).append('\t')
+                    .append("Seller ").append(id).append('\t')
+                    .append("seller").append(id).append("@example.com").append('\t');
+            appendTimestamp(rows, sellerDays[rnd.nextInt(sellerDays.length)], hours.sample(rnd), rnd);
+        });
+
+        int[] sellerIds = shuffledRange(firstSellerId, properties.sellers(), random);
+        DiscreteDistribution popularity = DiscreteDistribution.zipf(sellerIds.length, properties.zipfExponent());
+        SeedProperties.PaymentMix mix = properties.paymentMix();
+        String[] paymentTypes = {PaymentType.CARD.name(), PaymentType.TRANSFER.name(), PaymentType.CASH.name()};
+        DiscreteDistribution paymentTypeMix = DiscreteDistribution.weighted(mix.card(), mix.transfer(), mix.cash());
+        double logMedian = Math.log(properties.amountMedian());
+
+        int firstTransactionId = reserveIds(TRANSACTION, properties.transactions());
+        write(TRANSACTION, firstTransactionId, properties.transactions(), random, audited, (rows, id, rnd) -> {
+            rows.append(id).append('\t')
+                    .append(sellerIds[popularity.sample(rnd)]).append('\t');
+            appendAmount(rows, logMedian, rnd);
+            rows.append('\t')
+                    .append(paymentTypes[paymentTypeMix.sample(rnd)]).append('\t');
+            appendTimestamp(rows, transactionDays[rnd.nextInt(transactionDays.length)], hours.sample(rnd), rnd);
+        });
+
+        analyze();
+        // COPY bypasses the outbox, so the read tables are recomputed from scratch
+        projector.ifAvailable(Projector::rebuild);
+        flushCaches();
+        log.info(
+                "seeded {} sellers and {} transactions in {} s (audit rows: {})",
+                properties.sellers(),
+                properties.transactions(),
+                TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - startedAt),
+                audited
+        );
+        return new SeedResult(
+                sellerIds,
+                firstTransactionId,
+                firstTransactionId + properties.transactions() - 1,
+                audited
+        );
+    }
+
+    private void write(Table table, int firstId, int count, SplittableRandom random, boolean audited, RowWriter writer) {
+        List<Callable<Void>> batches = new ArrayList<>();
+        for (int offset = 0; offset < count; offset += properties.batchSize()) {
+            int fromId = firstId + offset;
+            int toId = fromId + Math.min(properties.batchSize(), count - offset) - 1;
+            // Split sequentially, so every batch gets the same stream of numbers regardless of scheduling.
+            SplittableRandom batchRandom = random.split();
+            batches.add(() -> {
+                writeBatch(table, fromId, toId, batchRandom, audited, writer);
+                return null;
+            });
+        }
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(properties.parallelism())) {
+            for (Future<Void> batch : executor.invokeAll(batches)) {
+                batch.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Seeding of " + table.name() + " was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Seeding of " + table.name() + " failed", e.getCause());
+        }
+        log.info("seeded {} rows into {}", count, table.name());
+    }
+
+    private void writeBatch(
+            Table table,
+            int fromId,
+            int toId,
+            SplittableRandom random,
+            boolean audited,
+            RowWriter writer
+    ) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                try (Statement statement = connection.createStatement()) {
+                    // The pools set a statement timeout meant for API calls, not for bulk loads.
+                    statement.execute("SET LOCAL statement_timeout = 0");
+                }
+                copy(connection, table, fromId, toId, random, writer);
+                if (audited) {
+                    audit(connection, table, fromId, toId);
+                }
+                connection.commit();
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            }
+        }
+        log.debug("seeded {} ids {}..{}", table.name(), fromId, toId);
+    }
+
+    private static void copy(
+            Connection connection,
+            Table table,
+            int fromId,
+            int toId,
+            SplittableRandom random,
+            RowWriter writer
+    ) throws SQLException {
+        CopyIn copyIn = connection.unwrap(PGConnection.class).getCopyAPI()
+                .copyIn(String.format("COPY %s (%s) FROM STDIN", table.name(), table.columns()));
+        try {
+            StringBuilder rows = new StringBuilder(FLUSH_BYTES + 256);
+            for (int id = fromId; id <= toId; id++) {
+                writer.write(rows, id, random);
+                rows.append('\n');
+                if (rows.length() >= FLUSH_BYTES) {
+                    flush(copyIn, rows);
+                }
+            }
+            flush(copyIn, rows);
+            copyIn.endCopy();
+        } finally {
+            if (copyIn.isActive()) {
+                copyIn.cancelCopy();
+            }
+        }
+    }
+
+    private static void audit(Connection connection, Table table, int fromId, int toId) throws SQLException {
+        int revision;
+        try (PreparedStatement statement = connection.prepareStatement(
+                "INSERT INTO revinfo (rev, revtstmp) VALUES (nextval('revinfo_seq'), ?) RETURNING rev"
+        )) {
+            statement.setLong(1, System.currentTimeMillis());
+            try (ResultSet rs = statement.executeQuery()) {
+                rs.next();
+                revision = rs.getInt(1);
+            }
+        }
+
+        try (PreparedStatement statement = connection.prepareStatement(String.format(
+                "INSERT INTO %s (id, rev, revtype, %s) SELECT id, ?, ?, %s FROM %s WHERE id BETWEEN ? AND ?",
+                table.auditName(),
+                table.auditedColumns(),
+                table.auditedColumns(),
+                table.name()
+        ))) {
+            statement.setInt(1, revision);
+            statement.setInt(2, REVTYPE_ADD);
+            statement.setInt(3, fromId);
+            statement.setInt(4, toId);
+            statement.executeUpdate();
+        }
+    }
+
+    // Seeding is meant to run alone; concurrent inserts would only take IDs outside the reserved block.
+    private int reserveIds(Table table, int count) {
+        if (count == 0) {
+            return 0;
+        }
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     "SELECT setval(?::regclass, nextval(?::regclass) + ? - 1)"
+             )) {
+            statement.setString(1, table.sequence());
+            statement.setString(2, table.sequence());
+            statement.setInt(3, count);
+            try (ResultSet rs = statement.executeQuery()) {
+                rs.next();
+                return (int) (rs.getLong(1) - count + 1);
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Couldn't reserve IDs from " + table.sequence(), e);
+        }
+    }
+
+    private void analyze() {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("ANALYZE " + SELLER.name());
+            statement.execute("ANALYZE " + TRANSACTION.name());
+        } catch (SQLException e) {
+            throw new IllegalStateException("Couldn't analyze seeded tables", e);
+        }
+    }
+
+    /** COPY bypasses the services, so running instances are told to drop everything they have cached. */
+    private void flushCaches() {
+        String channel = environment.getProperty(CACHE_CHANNEL, CacheProperties.DEFAULT_CHANNEL);
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement("SELECT pg_notify(?, ?)")) {
+            statement.setString(1, channel);
+            statement.setString(2, ChangeEvent.flushAll().encode());
+            statement.execute();
+        } catch (SQLException e) {
+            throw new IllegalStateException("Couldn't notify running instances to flush their caches", e);
+        }
+    }
+
+    private static void flush(CopyIn copyIn, StringBuilder rows) throws SQLException {
+        byte[] bytes = rows.toString().getBytes(StandardCharsets.UTF_8);
+        copyIn.writeToCopy(bytes, 0, bytes.length);
+        rows.setLength(0);
+    }
+
+    private static String[] days(LocalDate first, int count) {
+        String[] days = new String[count];
+        for (int i = 0; i < count; i++) {
+            days[i] = first.plusDays(i).toString();
+        }
+        return days;
+    }
+
+    private static int[] shuffledRange(int first, int count, SplittableRandom random) {
+        int[] ids = new int[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = first + i;
+        }
+        for (int i = count - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = ids[i];
+            ids[i] = ids[j];
+            ids[j] = tmp;
+        }
+        return ids;
+    }
+
+    private static void appendTimestamp(StringBuilder rows, String day, int hour, SplittableRandom random) {
+        rows.append(day).append(' ');
+        appendTwoDigits(rows, hour);
+        rows.append(':');
+        appendTwoDigits(rows, random.nextInt(60));
+        rows.append(':');
+        appendTwoDigits(rows, random.nextInt(60));
+    }
+
+    private static void appendAmount(StringBuilder rows, double logMedian, SplittableRandom random) {
+        double gaussian = Math.sqrt(-2 * Math.log(1 - random.nextDouble()))
+                * Math.cos(2 * Math.PI * random.nextDouble());
+        long cents = Math.clamp(Math.round(Math.exp(logMedian + AMOUNT_SIGMA * gaussian) * 100), 1L, MAX_AMOUNT_CENTS);
+        rows.append(cents / 100).append('.');
+        appendTwoDigits(rows, (int) (cents % 100));
+    }
+
+    private static void appendTwoDigits(StringBuilder rows, int value) {
+        if (value < 10) {
+            rows.append('0');
+        }
+        rows.append(value);
+    }
+
+    private record Table(String name, String sequence, String columns, String auditName, String auditedColumns) {}
+
+    @FunctionalInterface
+    private interface RowWriter {
+        void write(StringBuilder rows, int id, SplittableRandom random);
+    }
+}
@@ -0,0 +1,57 @@
+package ru.nsu.fit.mihanizzm.litecrm.seed;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Samples indexes {@code [0, n)} with fixed relative weights through a binary search over the
+ * precomputed CDF.
+ */
+public final class DiscreteDistribution {
+    private final double[] cdf;
+
+    private DiscreteDistribution(double[] weights) {
+        if (weights.length == 0) {
+            throw new IllegalArgumentException("Distribution needs at least one outcome");
+        }
+        cdf = new double[weights.length];
+        double sum = 0;
+        for (int i = 0; i < weights.length; i++) {
+            sum += weights[i];
+            cdf[i] = sum;
+        }
+        if (sum <= 0) {
+            throw new IllegalArgumentException("Distribution needs a positive total weight");
+        }
+        for (int i = 0; i < cdf.length; i++) {
+            cdf[i] /= sum;
+        }
+    }
+
+    public static DiscreteDistribution weighted(double... weights) {
+        return new DiscreteDistribution(weights);
+    }
+
+    /**
+     * Rank {@code k} (zero based) is drawn with probability proportional to {@code 1 / (k + 1)^exponent}.
+     */
+    public static DiscreteDistribution zipf(int n, double exponent) {
+        double[] weights = new double[n];
+        for (int k = 0; k < n; k++) {
+            weights[k] = 1.0 / Math.pow(k + 1, exponent);
+        }
+        return new DiscreteDistribution(weights);
+    }
+
+    public int sample(SplittableRandom random) {
+        int index = Arrays.binarySearch(cdf, random.nextDouble());
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return Math.min(index, cdf.length - 1);
+    }
+
+    public int size() {
+        return cdf.length;
+    }
+}
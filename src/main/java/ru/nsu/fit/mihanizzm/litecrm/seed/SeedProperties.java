@@ -0,0 +1,75 @@
+package ru.nsu.fit.mihanizzm.litecrm.seed;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Shape of the synthetic data set generated by {@link DataSeeder}.
+ *
+ * @param zipfExponent  skew of seller popularity: the seller of rank {@code k} gets a share of
+ *                      transactions proportional to {@code 1 / k^zipfExponent}
+ * @param days          transactions are spread over this many days up to the day before the end date
+ * @param endDate       the day after the last transaction; today if not set
+ * @param hourlyWeights relative transaction volume for each hour of the day, 24 values
+ * @param amountMedian  median of the log-normal transaction amount
+ * @param parallelism   number of concurrent {@code COPY} streams
+ * @param batchSize     rows per {@code COPY} and per database transaction
+ * @param randomSeed    the same seed and settings produce the same rows
+ */
+@ConfigurationProperties(prefix = "litecrm.seed")
+public record SeedProperties(
+        @DefaultValue("10000")
+        int sellers,
+
+        @DefaultValue("1000000")
+        int transactions,
+
+        @DefaultValue("1.1")
+        double zipfExponent,
+
+        @DefaultValue("365")
+        int days,
+
+        LocalDate endDate,
+
+        @DefaultValue({"1", "1", "1", "1", "1", "2", "4", "7", "9", "10", "10", "11",
+                "12", "11", "10", "10", "10", "10", "11", "12", "10", "7", "4", "2"})
+        List<Integer> hourlyWeights,
+
+        @DefaultValue
+        PaymentMix paymentMix,
+
+        @DefaultValue("50")
+        double amountMedian,
+
+        @DefaultValue("4")
+        int parallelism,
+
+        @DefaultValue("100000")
+        int batchSize,
+
+        @DefaultValue("42")
+        long randomSeed
+) {
+    public SeedProperties {
+        if (hourlyWeights.size() != 24) {
+            throw new IllegalArgumentException(
+                    String.format("litecrm.seed.hourly-weights must have 24 values, got %d", hourlyWeights.size())
+            );
+        }
+    }
+
+    public record PaymentMix(
+            @DefaultValue("60")
+            int card,
+
+            @DefaultValue("25")
+            int transfer,
+
+            @DefaultValue("15")
+            int cash
+    ) {}
+}
@@ -0,0 +1,12 @@
+package ru.nsu.fit.mihanizzm.litecrm.seed;
+
+/**
+ * Keys created by one {@link DataSeeder#seed()} run. Seller IDs are ordered by popularity,
+ * most popular first.
+ */
+public record SeedResult(
+        int[] sellerIdsByPopularity,
+        int firstTransactionId,
+        int lastTransactionId,
+        boolean audited
+) {}
@@ -0,0 +1,25 @@
+package ru.nsu.fit.mihanizzm.litecrm.seed;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs {@link DataSeeder} when the application is started with the {@value #PROFILE} profile;
+ * the application exits afterwards, see {@code LiteCrmApplication#main}.
+ */
+@Component
+@Profile(SeedRunner.PROFILE)
+@RequiredArgsConstructor
+public class SeedRunner implements ApplicationRunner {
+    public static final String PROFILE = "seed";
+
+    private final DataSeeder dataSeeder;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        dataSeeder.seed();
+    }
+}
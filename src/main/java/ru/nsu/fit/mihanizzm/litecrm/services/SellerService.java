@@ -2,6 +2,7 @@ package ru.nsu.fit.mihanizzm.litecrm.services;
 
 import ru.nsu.fit.mihanizzm.litecrm.models.dtos.SellerRequestDto;
 import ru.nsu.fit.mihanizzm.litecrm.models.dtos.SellerResponseDto;
+import ru.nsu.fit.mihanizzm.litecrm.models.dtos.SellerStatsResponseDto;
 import ru.nsu.fit.mihanizzm.litecrm.models.dtos.TransactionResponseDto;
 
 import java.util.List;
@@ -13,4 +14,5 @@ public interface SellerService {
     SellerResponseDto updateSeller(Integer id, SellerRequestDto sellerRequestDto);
     void deleteSeller(Integer id);
     List<TransactionResponseDto> getSellerTransactions(Integer id);
+    SellerStatsResponseDto getSellerStats(Integer id);
 }
@@ -2,91 +2,70 @@ package ru.nsu.fit.mihanizzm.litecrm.services.impl;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.nsu.fit.mihanizzm.litecrm.cache.CacheNames;
 import ru.nsu.fit.mihanizzm.litecrm.exception.NoTransactionsInThisPeriodException;
 import ru.nsu.fit.mihanizzm.litecrm.exception.SellerHasNoTransactionsException;
+import ru.nsu.fit.mihanizzm.litecrm.models.Period;
 import ru.nsu.fit.mihanizzm.litecrm.models.PeriodType;
 import ru.nsu.fit.mihanizzm.litecrm.models.Seller;
+import ru.nsu.fit.mihanizzm.litecrm.models.SellerTotal;
 import ru.nsu.fit.mihanizzm.litecrm.models.dtos.BestDayResponseDto;
 import ru.nsu.fit.mihanizzm.litecrm.models.dtos.SellerResponseDto;
+import ru.nsu.fit.mihanizzm.litecrm.models.dtos.SellerTotalDto;
+import ru.nsu.fit.mihanizzm.litecrm.models.dtos.SellerTotalsResponseDto;
 import ru.nsu.fit.mihanizzm.litecrm.models.mappers.SellerMapper;
+import ru.nsu.fit.mihanizzm.litecrm.repositories.SellerPeriodStatsRepository;
+import ru.nsu.fit.mihanizzm.litecrm.repositories.SellerRepository;
 import ru.nsu.fit.mihanizzm.litecrm.repositories.TransactionRepository;
 import ru.nsu.fit.mihanizzm.litecrm.services.AnalyticsService;
+import ru.nsu.fit.mihanizzm.litecrm.totals.DailyTotals;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.TreeMap;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class AnalyticsServiceImpl implements AnalyticsService {
+    /** Largest page of the sellers with max sum. */
+    public static final int MAX_PAGE_SIZE = 1000;
+
     private final TransactionRepository transactionRepository;
     private final SellerMapper sellerMapper;
+    private final SellerPeriodStatsRepository sellerPeriodStatsRepository;
+    private final SellerRepository sellerRepository;
+    private final DailyTotals dailyTotals;
 
     @Transactional(readOnly = true)
+    @Cacheable(
+            cacheNames = CacheNames.TOP_SELLER,
+            key = "T(ru.nsu.fit.mihanizzm.litecrm.models.Period).of(#type, #startDate)"
+    )
     @Override
     public SellerResponseDto getTopSeller(PeriodType type, LocalDateTime startDate) {
-        log.info(
+        log.debug(
                 "calculating top seller for period: {} and start date: {}",
                 type,
                 startDate
         );
 
-        LocalDateTime start;
-        LocalDateTime end;
-
-        switch (type) {
-            case DAY -> {
-                start = startDate.toLocalDate().atStartOfDay();
-                end = start.plusDays(1);
-            }
-            case MONTH -> {
-                start = startDate.withDayOfMonth(1).toLocalDate().atStartOfDay();
-                end = start.plusMonths(1);
-            }
-            case QUARTER -> {
-                int currentMonth = startDate.getMonthValue();
-                int startMonth = currentMonth - (currentMonth % 3) + 1;
-                start = LocalDateTime.of(
-                        startDate.getYear(),
-                        startMonth,
-                        1,
-                        0,
-                        0
-                );
-                end = start.plusMonths(3);
-            }
-            case YEAR -> {
-                start = LocalDateTime.of(
-                        startDate.getYear(),
-                        1,
-                        1,
-                        0,
-                        0
-                );
-                end = start.plusYears(1);
-            }
-            default -> throw new IllegalStateException(
-                    String.format(
-                            "Unexpected value: '%s'. PeriodType has values: 'DAY', 'MONTH', 'QUARTER', YEAR",
-                            type
-                    )
-            );
-        }
-
-        Optional<Object[]> resultOpt = transactionRepository.findTopSellerByPeriod(start, end);
-        if (resultOpt.isEmpty() || resultOpt.get().length == 0) {
-            throw new NoTransactionsInThisPeriodException(start, end);
-        }
-        Object[] result = resultOpt.get();
-        Object[] topSellerObj = (Object[]) result[0];
-
-        Seller seller = (Seller) topSellerObj[0];
-        log.info("successfully found top seller for period: {} and start date: {}",
+        Period period = Period.of(type, startDate);
+        Seller seller = sellerPeriodStatsRepository.findTopSellers(type, period.start(), Limit.of(1))
+                .stream()
+                .findFirst()
+                .orElseThrow(() -> new NoTransactionsInThisPeriodException(period.start(), period.end()));
+        log.debug("successfully found top seller for period: {} and start date: {}",
                 type,
                 startDate
         );
@@ -94,52 +73,105 @@ public class AnalyticsServiceImpl implements AnalyticsService {
         return sellerMapper.toResponse(seller);
     }
 
+    /**
+     * Seller with the largest total over the period, ties going to the lower ID. Unlike
+     * {@link #getTopSeller(PeriodType, LocalDateTime)} it returns the total as well, so that the tops of
+     * several shards can be merged.
+     */
+    @Transactional(readOnly = true)
+    public Optional<SellerTotal> getTopSellerTotal(PeriodType type, LocalDateTime startDate) {
+        Period period = Period.of(type, startDate);
+        log.debug("calculating top seller total for period {} to {}", period.start(), period.end());
+        return sellerPeriodStatsRepository.findTopSellerTotals(type, period.start(), Limit.of(1))
+                .stream()
+                .findFirst();
+    }
+
+    /**
+     * Sellers whose total over the range is below the threshold, including the sellers without transactions in it
+     * when the threshold is positive. A page takes at most two queries: the totals of the sellers with transactions,
+     * summed up in memory when the daily totals are loaded, and an anti-join for the sellers without them.
+     */
     @Transactional(readOnly = true)
     @Override
-    public List<SellerResponseDto> getSellersWithTotalAmountLessThan(
+    public SellerTotalsResponseDto getSellersWithTotalAmountLessThan(
             BigDecimal maxSum,
             LocalDateTime startDate,
-            LocalDateTime endDate
+            LocalDateTime endDate,
+            int afterId,
+            int limit
     ) {
-        log.info(
-                "finding sellers with max sum of {} in the period {} to {}",
+        if (!startDate.isBefore(endDate)) {
+            throw new IllegalArgumentException("start must be before end");
+        }
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        log.debug(
+                "finding sellers with max sum of {} in the period {} to {} after {}",
                 maxSum,
                 startDate,
-                endDate
+                endDate,
+                afterId
         );
 
-        List<Seller> sellers = transactionRepository.findSellersWithTotalAmountLessThan(
-                maxSum,
-                startDate,
-                endDate
-        );
-        log.info(
+        List<SellerTotal> active = dailyTotals.sellersWithTotalLessThan(
+                        maxSum,
+                        startDate,
+                        endDate,
+                        afterId,
+                        transactionRepository::findSellerTotals
+                )
+                .map(totals -> totals.subList(0, Math.min(limit, totals.size())))
+                .orElseGet(() -> transactionRepository.findSellerTotalsLessThan(
+                        maxSum,
+                        startDate,
+                        endDate,
+                        afterId,
+                        Limit.of(limit)
+                ));
+        // Sellers without transactions have a total of 0, below any positive threshold
+        List<Integer> inactive = maxSum.signum() > 0
+                ? sellerRepository.findIdsWithoutTransactions(startDate, endDate, afterId, Limit.of(limit))
+                : List.of();
+
+        Map<Integer, SellerTotalDto> page = new TreeMap<>();
+        active.forEach(total -> page.put(total.sellerId(), new SellerTotalDto(total.sellerId(), total.total())));
+        inactive.forEach(sellerId -> page.putIfAbsent(sellerId, new SellerTotalDto(sellerId, BigDecimal.ZERO)));
+        SellerTotalsResponseDto response = page(page.values().stream(), limit);
+        log.debug(
                 "found {} sellers with max sum of {} in the period {} to {}",
-                sellers.size(),
+                response.sellers().size(),
                 maxSum,
                 startDate,
                 endDate
         );
+        return response;
+    }
 
-        return sellers.stream()
-                .map(sellerMapper::toResponse)
+    /**
+     * First {@code limit} of the sellers in the order of their IDs; the last one starts the next page if the page
+     * is full.
+     */
+    public static SellerTotalsResponseDto page(Stream<SellerTotalDto> sellers, int limit) {
+        List<SellerTotalDto> page = sellers.sorted(Comparator.comparing(SellerTotalDto::sellerId))
+                .limit(limit)
                 .toList();
+        Integer nextAfterId = page.size() == limit ? page.getLast().sellerId() : null;
+        return new SellerTotalsResponseDto(page, nextAfterId);
     }
 
     @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheNames.BEST_DAY, key = "#sellerId")
     @Override
     public BestDayResponseDto getBestDayForSeller(Integer sellerId) {
-        log.info("calculating best day for seller: {}", sellerId);
-        Object result = transactionRepository.findBestDayForSellerNative(sellerId);
-        if (result == null) {
-            throw new SellerHasNoTransactionsException(sellerId);
-        }
-        Object[] arr = (Object[]) result;
-        if (arr.length == 0) {
-            throw new SellerHasNoTransactionsException(sellerId);
-        }
-        LocalDate bestDay = ((java.sql.Date) arr[0]).toLocalDate();
-        log.info("successfully calculated best day for seller: {}", sellerId);
+        log.debug("calculating best day for seller: {}", sellerId);
+        LocalDate bestDay = sellerPeriodStatsRepository.findBusiestDays(sellerId, Limit.of(1))
+                .stream()
+                .findFirst()
+                .orElseThrow(() -> new SellerHasNoTransactionsException(sellerId))
+                .toLocalDate();
+        log.debug("successfully calculated best day for seller: {}", sellerId);
 
         return new BestDayResponseDto(bestDay);
     }
@@ -4,20 +4,31 @@ import jakarta.validation.ConstraintViolation;
 import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.nsu.fit.mihanizzm.litecrm.cache.CacheInvalidationBus;
+import ru.nsu.fit.mihanizzm.litecrm.cache.CacheNames;
+import ru.nsu.fit.mihanizzm.litecrm.cache.ChangeEvent;
 import ru.nsu.fit.mihanizzm.litecrm.exception.SellerNotFoundException;
 import ru.nsu.fit.mihanizzm.litecrm.exception.SellerValidationException;
 import ru.nsu.fit.mihanizzm.litecrm.models.Seller;
+import ru.nsu.fit.mihanizzm.litecrm.models.SellerStats;
 import ru.nsu.fit.mihanizzm.litecrm.models.Transaction;
+import ru.nsu.fit.mihanizzm.litecrm.models.TransactionEvent;
 import ru.nsu.fit.mihanizzm.litecrm.models.dtos.SellerRequestDto;
 import ru.nsu.fit.mihanizzm.litecrm.models.dtos.SellerResponseDto;
+import ru.nsu.fit.mihanizzm.litecrm.models.dtos.SellerStatsResponseDto;
 import ru.nsu.fit.mihanizzm.litecrm.models.dtos.TransactionResponseDto;
 import ru.nsu.fit.mihanizzm.litecrm.models.mappers.SellerMapper;
 import ru.nsu.fit.mihanizzm.litecrm.models.mappers.TransactionMapper;
 import ru.nsu.fit.mihanizzm.litecrm.repositories.SellerRepository;
+import ru.nsu.fit.mihanizzm.litecrm.repositories.SellerStatsRepository;
+import ru.nsu.fit.mihanizzm.litecrm.repositories.TransactionEventRepository;
 import ru.nsu.fit.mihanizzm.litecrm.services.SellerService;
+import ru.nsu.fit.mihanizzm.litecrm.totals.TransactionDeltas;
 
+import java.math.BigDecimal;
 import java.util.List;
 import java.util.Set;
 
@@ -29,13 +40,17 @@ public class SellerServiceImpl implements SellerService {
     private final SellerMapper sellerMapper;
     private final TransactionMapper transactionMapper;
     private final Validator validator;
+    private final CacheInvalidationBus cacheInvalidationBus;
+    private final TransactionEventRepository transactionEventRepository;
+    private final SellerStatsRepository sellerStatsRepository;
+    private final TransactionDeltas transactionDeltas;
 
     @Transactional(readOnly = true)
     @Override
     public List<SellerResponseDto> getAllSellers() {
-        log.info("finding all sellers");
+        log.debug("finding all sellers");
         List<Seller> sellers = sellerRepository.findAll();
-        log.info("successfully found {} sellers", sellers.size());
+        log.debug("successfully found {} sellers", sellers.size());
 
         return sellers.stream()
                 .map(sellerMapper::toResponse)
@@ -43,13 +58,14 @@ public class SellerServiceImpl implements SellerService {
     }
 
     @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheNames.SELLERS, key = "#id")
     @Override
     public SellerResponseDto getSellerById(Integer id) {
-        log.info("getting a seller by id: {}", id);
+        log.debug("getting a seller by id: {}", id);
         Seller seller = sellerRepository
                 .findById(id)
                 .orElseThrow(() -> new SellerNotFoundException(id));
-        log.info("successfully found seller with id: {}", id);
+        log.debug("successfully found seller with id: {}", id);
 
         return sellerMapper.toResponse(seller);
     }
@@ -57,11 +73,11 @@ public class SellerServiceImpl implements SellerService {
     @Transactional
     @Override
     public SellerResponseDto createSeller(SellerRequestDto sellerRequestDto) {
-        log.info("creating a new seller");
+        log.debug("creating a new seller");
         Seller seller = sellerMapper.toEntity(sellerRequestDto);
         validate(seller);
         sellerRepository.save(seller);
-        log.info("successfully created a new seller");
+        log.debug("successfully created a new seller");
 
         return sellerMapper.toResponse(seller);
     }
@@ -69,15 +85,16 @@ public class SellerServiceImpl implements SellerService {
     @Transactional
     @Override
     public SellerResponseDto updateSeller(Integer id, SellerRequestDto sellerRequestDto) {
-        log.info("finding a seller with id: {} to update", id);
+        log.debug("finding a seller with id: {} to update", id);
         Seller seller = sellerRepository
                 .findById(id)
                 .orElseThrow(() -> new SellerNotFoundException(id));
-        log.info("updating a seller with id: {}", id);
+        log.debug("updating a seller with id: {}", id);
         sellerMapper.updateRequestToEntity(sellerRequestDto, seller);
         validate(seller);
         sellerRepository.save(seller);
-        log.info("successfully updated a seller with id: {}", id);
+        cacheInvalidationBus.publish(ChangeEvent.seller(id));
+        log.debug("successfully updated a seller with id: {}", id);
 
         return sellerMapper.toResponse(seller);
     }
@@ -85,30 +102,52 @@ public class SellerServiceImpl implements SellerService {
     @Transactional
     @Override
     public void deleteSeller(Integer id) {
-        log.info("deleting a seller with id: {}", id);
+        log.debug("deleting a seller with id: {}", id);
         Seller seller = sellerRepository.findById(id)
                 .orElseThrow(() -> new SellerNotFoundException(id));
 
         sellerRepository.delete(seller);
-        log.info("successfully deleted a seller with id: {}", id);
+        TransactionEvent event = TransactionEvent.sellerChanged(id);
+        transactionEventRepository.save(event);
+        transactionDeltas.record(event);
+        cacheInvalidationBus.publish(ChangeEvent.seller(id));
+        log.debug("successfully deleted a seller with id: {}", id);
     }
 
     @Transactional(readOnly = true)
     @Override
     public List<TransactionResponseDto> getSellerTransactions(Integer id) {
-        log.info("finding a seller by id: {} to get transactions", id);
+        log.debug("finding a seller by id: {} to get transactions", id);
         Seller seller = sellerRepository
                 .findById(id)
                 .orElseThrow(() -> new SellerNotFoundException(id));
-        log.info("getting a seller transactions with id: {}", id);
+        log.debug("getting a seller transactions with id: {}", id);
         List<Transaction> transactions = seller.getTransactions();
-        log.info("successfully found seller transactions by id: {}", id);
+        log.debug("successfully found seller transactions by id: {}", id);
 
         return transactions.stream()
                 .map(transactionMapper::toResponse)
                 .toList();
     }
 
+    /**
+     * Reads the totals kept by the projector, so they trail the latest writes by the projection lag.
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public SellerStatsResponseDto getSellerStats(Integer id) {
+        log.debug("getting stats of a seller with id: {}", id);
+        if (!sellerRepository.existsById(id)) {
+            throw new SellerNotFoundException(id);
+        }
+        SellerStatsResponseDto stats = sellerStatsRepository.findById(id)
+                .map(sellerMapper::toStatsResponse)
+                .orElseGet(() -> new SellerStatsResponseDto(id, 0, BigDecimal.ZERO, null, null));
+        log.debug("successfully found stats of a seller with id: {}", id);
+
+        return stats;
+    }
+
     private void validate(Seller seller) {
         Set<ConstraintViolation<Seller>> errors = validator.validate(seller);
         if (!errors.isEmpty()) {
@@ -4,21 +4,29 @@ import jakarta.validation.ConstraintViolation;
 import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.nsu.fit.mihanizzm.litecrm.cache.CacheInvalidationBus;
+import ru.nsu.fit.mihanizzm.litecrm.cache.CacheNames;
+import ru.nsu.fit.mihanizzm.litecrm.cache.ChangeEvent;
 import ru.nsu.fit.mihanizzm.litecrm.exception.NullSellerIdException;
 import ru.nsu.fit.mihanizzm.litecrm.exception.SellerNotFoundException;
 import ru.nsu.fit.mihanizzm.litecrm.exception.TransactionNotFoundException;
 import ru.nsu.fit.mihanizzm.litecrm.exception.TransactionValidationException;
 import ru.nsu.fit.mihanizzm.litecrm.models.Seller;
 import ru.nsu.fit.mihanizzm.litecrm.models.Transaction;
+import ru.nsu.fit.mihanizzm.litecrm.models.TransactionEvent;
 import ru.nsu.fit.mihanizzm.litecrm.models.dtos.TransactionRequestDto;
 import ru.nsu.fit.mihanizzm.litecrm.models.dtos.TransactionResponseDto;
 import ru.nsu.fit.mihanizzm.litecrm.models.mappers.TransactionMapper;
 import ru.nsu.fit.mihanizzm.litecrm.repositories.SellerRepository;
+import ru.nsu.fit.mihanizzm.litecrm.repositories.TransactionEventRepository;
 import ru.nsu.fit.mihanizzm.litecrm.repositories.TransactionRepository;
 import ru.nsu.fit.mihanizzm.litecrm.services.TransactionService;
+import ru.nsu.fit.mihanizzm.litecrm.totals.TransactionDeltas;
 
+import java.math.BigDecimal;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
@@ -31,13 +39,16 @@ public class TransactionServiceImpl implements TransactionService {
     private final TransactionMapper transactionMapper;
     private final SellerRepository sellerRepository;
     private final Validator validator;
+    private final CacheInvalidationBus cacheInvalidationBus;
+    private final TransactionEventRepository transactionEventRepository;
+    private final TransactionDeltas transactionDeltas;
 
     @Transactional(readOnly = true)
     @Override
     public List<TransactionResponseDto> getAllTransactions() {
-        log.info("finding all transactions");
+        log.debug("finding all transactions");
         List<Transaction> transactions = transactionRepository.findAll();
-        log.info("successfully found {} transactions", transactions.size());
+        log.debug("successfully found {} transactions", transactions.size());
 
         return transactions.stream()
                 .map(transactionMapper::toResponse)
@@ -45,13 +56,14 @@ public class TransactionServiceImpl implements TransactionService {
     }
 
     @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheNames.TRANSACTIONS, key = "#id")
     @Override
     public TransactionResponseDto getTransactionById(Integer id) {
-        log.info("finding a transaction by id {}", id);
+        log.debug("finding a transaction by id {}", id);
         Transaction transaction = transactionRepository
                 .findById(id)
                 .orElseThrow(() -> new TransactionNotFoundException(id));
-        log.info("successfully found a transaction with id {}", id);
+        log.debug("successfully found a transaction with id {}", id);
 
         return transactionMapper.toResponse(transaction);
     }
@@ -59,19 +71,21 @@ public class TransactionServiceImpl implements TransactionService {
     @Transactional
     @Override
     public TransactionResponseDto createTransaction(TransactionRequestDto transactionRequestDto) {
-        log.info("trying to create a new transaction");
+        log.debug("trying to create a new transaction");
         if (transactionRequestDto.sellerId() == null) {
             throw new NullSellerIdException();
         }
-        log.info("finding a seller_id {}", transactionRequestDto.sellerId());
+        log.debug("finding a seller_id {}", transactionRequestDto.sellerId());
         Seller seller = sellerRepository
                 .findById(transactionRequestDto.sellerId())
                 .orElseThrow(() -> new SellerNotFoundException(transactionRequestDto.sellerId()));
-        log.info("successfully found a seller with id: {}", transactionRequestDto.sellerId());
+        log.debug("successfully found a seller with id: {}", transactionRequestDto.sellerId());
         Transaction transaction = transactionMapper.toEntity(transactionRequestDto, seller);
         validate(transaction);
-        log.info("successfully created a new transaction with id: {}", transaction.getId());
+        log.debug("successfully created a new transaction with id: {}", transaction.getId());
         transactionRepository.save(transaction);
+        record(TransactionEvent.created(transaction));
+        cacheInvalidationBus.publish(changeOf(transaction, seller.getId()));
 
         return transactionMapper.toResponse(transaction);
     }
@@ -79,22 +93,24 @@ public class TransactionServiceImpl implements TransactionService {
     @Transactional
     @Override
     public TransactionResponseDto updateTransaction(Integer id, TransactionRequestDto transactionRequestDto) {
-        log.info("finding a transaction with id: {} to update", id);
+        log.debug("finding a transaction with id: {} to update", id);
         Transaction transaction = transactionRepository
                 .findById(id)
                 .orElseThrow(() -> new TransactionNotFoundException(id));
-        log.info("successfully found a transaction with id: {} to update", id);
-        log.info("updating a transaction with id {}", id);
+        log.debug("successfully found a transaction with id: {} to update", id);
+        log.debug("updating a transaction with id {}", id);
+        Integer previousSellerId = transaction.getSeller().getId();
+        BigDecimal previousAmount = transaction.getAmount();
 
         if (transactionRequestDto.sellerId() == null) {
             transactionMapper.updateRequestToEntity(transactionRequestDto, transaction);
         }
         else {
-            log.info("finding a seller of transaction with id: {} to update", id);
+            log.debug("finding a seller of transaction with id: {} to update", id);
             Seller seller = sellerRepository
                     .findById(transactionRequestDto.sellerId())
                     .orElseThrow(() -> new SellerNotFoundException(transactionRequestDto.sellerId()));
-            log.info("successfully found a seller of transaction with id: {} to update", id);
+            log.debug("successfully found a seller of transaction with id: {} to update", id);
             if (Objects.equals(seller.getId(), transaction.getSeller().getId())) {
                 transactionMapper.updateRequestToEntity(transactionRequestDto, transaction);
             }
@@ -105,7 +121,17 @@ public class TransactionServiceImpl implements TransactionService {
 
         validate(transaction);
         transactionRepository.save(transaction);
-        log.info("successfully updated a transaction with id: {}", id);
+        if (!Objects.equals(previousSellerId, transaction.getSeller().getId())) {
+            record(TransactionEvent.moved(transaction, previousSellerId, previousAmount));
+        }
+        else if (transaction.getAmount().compareTo(previousAmount) != 0) {
+            record(TransactionEvent.amountChanged(transaction, previousAmount));
+        }
+        cacheInvalidationBus.publish(
+                changeOf(transaction, previousSellerId),
+                changeOf(transaction, transaction.getSeller().getId())
+        );
+        log.debug("successfully updated a transaction with id: {}", id);
 
         return transactionMapper.toResponse(transaction);
     }
@@ -113,17 +139,28 @@ public class TransactionServiceImpl implements TransactionService {
     @Transactional
     @Override
     public void deleteTransaction(Integer id) {
-        log.info("finding a transaction with id: {} to delete", id);
+        log.debug("finding a transaction with id: {} to delete", id);
         Transaction transaction = transactionRepository
                 .findById(id)
                 .orElseThrow(() -> new TransactionNotFoundException(id));
         if (transaction.getSeller() != null) {
-            log.info("unlinking a seller from a transaction with id: {} to remove", id);
+            record(TransactionEvent.deleted(transaction));
+            cacheInvalidationBus.publish(changeOf(transaction, transaction.getSeller().getId()));
+            log.debug("unlinking a seller from a transaction with id: {} to remove", id);
             transaction.getSeller().removeTransaction(transaction);
-            log.info("successfully unlinked a seller from a transaction with id: {} to remove", id);
+            log.debug("successfully unlinked a seller from a transaction with id: {} to remove", id);
         }
         transactionRepository.delete(transaction);
-        log.info("successfully deleted a transaction with id: {}", id);
+        log.debug("successfully deleted a transaction with id: {}", id);
+    }
+
+    private void record(TransactionEvent event) {
+        transactionEventRepository.save(event);
+        transactionDeltas.record(event);
+    }
+
+    private static ChangeEvent changeOf(Transaction transaction, Integer sellerId) {
+        return ChangeEvent.transaction(transaction.getId(), sellerId, transaction.getTransactionDate().toLocalDate());
     }
 
     private void validate(Transaction transaction) {
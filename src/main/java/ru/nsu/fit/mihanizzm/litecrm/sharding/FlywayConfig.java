@@ -0,0 +1,23 @@
+package ru.nsu.fit.mihanizzm.litecrm.sharding;
+
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+/**
+ * Migrations of shard 0. With Spring AOT the Flyway auto-configuration is chosen at build time, so
+ * {@code spring.flyway.enabled=false} is checked again when the migrations run; the CDS training run of the
+ * {@code aot} image relies on it to start without a database.
+ */
+@Configuration
+public class FlywayConfig {
+    @Bean
+    public FlywayMigrationStrategy flywayMigrationStrategy(Environment environment) {
+        return flyway -> {
+            if (environment.getProperty("spring.flyway.enabled", Boolean.class, true)) {
+                flyway.migrate();
+            }
+        };
+    }
+}
@@ -0,0 +1,25 @@
+package ru.nsu.fit.mihanizzm.litecrm.sharding;
+
+/**
+ * Shard the current thread works with. Must be set before a transaction starts, since the connection is taken
+ * from the shard's pools when it does. Threads that were not assigned to a shard work with shard 0.
+ */
+public final class ShardContext {
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    private ShardContext() {
+    }
+
+    public static int current() {
+        Integer shard = CURRENT.get();
+        return shard == null ? 0 : shard;
+    }
+
+    public static void set(int shard) {
+        CURRENT.set(shard);
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+    }
+}
@@ -0,0 +1,97 @@
+package ru.nsu.fit.mihanizzm.litecrm.sharding;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.Flyway;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.stereotype.Component;
+import ru.nsu.fit.mihanizzm.litecrm.bulkhead.BulkheadConfig;
+import ru.nsu.fit.mihanizzm.litecrm.bulkhead.BulkheadProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Connection pools of every shard, an OLTP and an analytics one each, sized like the pools of shard 0.
+ * The schema of the additional shards is migrated by Flyway when their pools are created; shard 0 is migrated
+ * by Spring Boot as before.
+ */
+@Slf4j
+@Component
+public class ShardDataSources implements AutoCloseable {
+    private final List<HikariDataSource> oltp = new ArrayList<>();
+    private final List<HikariDataSource> analytics = new ArrayList<>();
+
+    public ShardDataSources(
+            @Qualifier("oltpDataSource") HikariDataSource oltpDataSource,
+            @Qualifier("analyticsDataSource") HikariDataSource analyticsDataSource,
+            ShardingProperties sharding,
+            BulkheadProperties bulkheads,
+            DataSourceProperties dataSourceProperties
+    ) {
+        oltp.add(oltpDataSource);
+        analytics.add(analyticsDataSource);
+        if (!sharding.enabled()) {
+            return;
+        }
+
+        try {
+            for (ShardingProperties.Shard shard : sharding.additionalShards()) {
+                int index = oltp.size();
+                oltp.add(BulkheadConfig.createPool(builder(dataSourceProperties, shard), bulkheads.oltp(),
+                        "oltp-" + index));
+                HikariDataSource analyticsPool = BulkheadConfig.createPool(
+                        builder(dataSourceProperties, shard),
+                        bulkheads.analytics(),
+                        "analytics-" + index
+                );
+                analyticsPool.setReadOnly(true);
+                analytics.add(analyticsPool);
+
+                Flyway.configure().dataSource(oltp.get(index)).load().migrate();
+                log.info("shard {} is ready at {}", index, shard.url());
+            }
+        } catch (RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    public int count() {
+        return oltp.size();
+    }
+
+    public HikariDataSource oltp(int shard) {
+        return oltp.get(shard);
+    }
+
+    public HikariDataSource analytics(int shard) {
+        return analytics.get(shard);
+    }
+
+    /**
+     * Closes the pools of the additional shards; the pools of shard 0 are beans of their own.
+     */
+    @Override
+    public void close() {
+        for (int shard = 1; shard < oltp.size(); shard++) {
+            oltp.get(shard).close();
+        }
+        for (int shard = 1; shard < analytics.size(); shard++) {
+            analytics.get(shard).close();
+        }
+    }
+
+    private static DataSourceBuilder<?> builder(DataSourceProperties dataSourceProperties, ShardingProperties.Shard shard) {
+        DataSourceBuilder<?> builder = dataSourceProperties.initializeDataSourceBuilder().url(shard.url());
+        if (shard.username() != null) {
+            builder.username(shard.username());
+        }
+        if (shard.password() != null) {
+            builder.password(shard.password());
+        }
+        return builder;
+    }
+}
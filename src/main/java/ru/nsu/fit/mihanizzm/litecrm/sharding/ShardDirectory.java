@@ -0,0 +1,108 @@
+package ru.nsu.fit.mihanizzm.litecrm.sharding;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tells which shard a seller lives on. A seller lives on the shard its ID was allocated on, unless it was moved:
+ * moves are recorded in {@code app.seller_shard} on shard 0 and cached here. Another instance may move a seller
+ * after it was cached, so callers that don't find a seller on its cached shard {@link #refresh(int) refresh} it.
+ */
+@Component
+@ConditionalOnProperty(prefix = "litecrm.sharding", name = "enabled", havingValue = "true")
+public class ShardDirectory implements SmartInitializingSingleton {
+    private final int shardCount;
+    private final int idRangeSize;
+    private final JdbcTemplate catalog;
+    private final Map<Integer, Integer> relocated = new ConcurrentHashMap<>();
+    private final AtomicInteger nextShard = new AtomicInteger();
+
+    public ShardDirectory(ShardDataSources dataSources, ShardingProperties properties) {
+        this.shardCount = dataSources.count();
+        this.idRangeSize = properties.idRangeSize();
+        this.catalog = new JdbcTemplate(dataSources.oltp(0));
+    }
+
+    /**
+     * Loads the moves once shard 0 has been migrated.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        catalog.query("SELECT seller_id, shard FROM app.seller_shard", rs -> {
+            relocated.put(rs.getInt(1), rs.getInt(2));
+        });
+    }
+
+    public Map<Integer, Integer> relocations() {
+        return Map.copyOf(relocated);
+    }
+
+    public int shardCount() {
+        return shardCount;
+    }
+
+    /**
+     * Shard the row with this ID was created on. IDs allocated before sharding was enabled belong to shard 0.
+     */
+    public int homeShard(int id) {
+        int shard = (id - 1) / idRangeSize;
+        return shard < shardCount ? shard : 0;
+    }
+
+    public int shardOfSeller(int sellerId) {
+        return relocated.getOrDefault(sellerId, homeShard(sellerId));
+    }
+
+    /**
+     * Reloads the shard of the seller from shard 0.
+     *
+     * @return whether the shard differs from the cached one
+     */
+    public boolean refresh(int sellerId) {
+        int cached = shardOfSeller(sellerId);
+        List<Integer> shard = catalog.queryForList(
+                "SELECT shard FROM app.seller_shard WHERE seller_id = ?",
+                Integer.class,
+                sellerId
+        );
+        if (shard.isEmpty()) {
+            relocated.remove(sellerId);
+        } else {
+            relocated.put(sellerId, shard.getFirst());
+        }
+        return shardOfSeller(sellerId) != cached;
+    }
+
+    /**
+     * Records the move of a seller. The record is kept even when the seller returns to its home shard, so that
+     * leftovers of an interrupted move can still be told apart from the seller.
+     */
+    public void relocate(int sellerId, int shard) {
+        catalog.update(
+                "INSERT INTO app.seller_shard (seller_id, shard) VALUES (?, ?) " +
+                        "ON CONFLICT (seller_id) DO UPDATE SET shard = EXCLUDED.shard",
+                sellerId,
+                shard
+        );
+        relocated.put(sellerId, shard);
+    }
+
+    public void forget(int sellerId) {
+        catalog.update("DELETE FROM app.seller_shard WHERE seller_id = ?", sellerId);
+        relocated.remove(sellerId);
+    }
+
+    /**
+     * Shard for a new seller; sellers are spread round-robin and evened out later by moves.
+     */
+    public int shardForNewSeller() {
+        return Math.floorMod(nextShard.getAndIncrement(), shardCount);
+    }
+}
@@ -0,0 +1,297 @@
+package ru.nsu.fit.mihanizzm.litecrm.sharding;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.nsu.fit.mihanizzm.litecrm.cache.CacheInvalidationBus;
+import ru.nsu.fit.mihanizzm.litecrm.cache.ChangeEvent;
+import ru.nsu.fit.mihanizzm.litecrm.exception.SellerNotFoundException;
+import ru.nsu.fit.mihanizzm.litecrm.exception.TransactionNotFoundException;
+import ru.nsu.fit.mihanizzm.litecrm.models.TransactionEventType;
+
+import java.math.BigDecimal;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Map;
+
+/**
+ * Moves sellers with their transactions, and single transactions, between shards. The rows are copied to the
+ * target shard and committed there while the source rows stay locked; the move is then recorded and the source
+ * rows are deleted. Writes to the moved rows wait for the move and then fail, since the rows are gone from
+ * the shard they were routed to. Audit history stays on the source shard.
+ * <p>
+ * If a move is interrupted after the copy was committed, the copy or the source rows are left behind. Copies
+ * that were not recorded are deleted by the next move of the seller; source rows of recorded moves are deleted
+ * on startup.
+ * <p>
+ * The read tables of both shards are corrected by the projector: every deletion of sellers writes a
+ * {@code SELLER_CHANGED} event, and a moved transaction is created on the target and deleted on the source.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "litecrm.sharding", name = "enabled", havingValue = "true")
+public class ShardMover implements SmartInitializingSingleton {
+    private static final int BATCH_SIZE = 1000;
+
+    private final ShardDataSources dataSources;
+    private final ShardDirectory directory;
+    private final CacheInvalidationBus cacheInvalidationBus;
+
+    public ShardMover(ShardDataSources dataSources, ShardDirectory directory, CacheInvalidationBus cacheInvalidationBus) {
+        this.dataSources = dataSources;
+        this.directory = directory;
+        this.cacheInvalidationBus = cacheInvalidationBus;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        Map<Integer, Integer> relocations = directory.relocations();
+        for (int shard = 0; shard < dataSources.count(); shard++) {
+            int current = shard;
+            Integer[] movedAway = relocations.entrySet().stream()
+                    .filter(entry -> entry.getValue() != current)
+                    .map(Map.Entry::getKey)
+                    .toArray(Integer[]::new);
+            if (movedAway.length == 0) {
+                continue;
+            }
+            try (Connection connection = dataSources.oltp(shard).getConnection()) {
+                connection.setAutoCommit(false);
+                int deleted = deleteSellers(connection, movedAway);
+                connection.commit();
+                if (deleted > 0) {
+                    log.warn("deleted {} sellers left on shard {} by interrupted moves", deleted, shard);
+                }
+            } catch (SQLException e) {
+                throw new IllegalStateException("Couldn't clean up interrupted moves on shard " + shard, e);
+            }
+        }
+    }
+
+    /**
+     * Moves the seller with all of its transactions to the target shard.
+     *
+     * @return number of moved transactions
+     */
+    public int moveSeller(int sellerId, int target) {
+        int source = directory.shardOfSeller(sellerId);
+        if (source == target) {
+            return 0;
+        }
+        try (Connection from = dataSources.oltp(source).getConnection();
+             Connection to = dataSources.oltp(target).getConnection()) {
+            from.setAutoCommit(false);
+            to.setAutoCommit(false);
+            try {
+                noStatementTimeout(from);
+                noStatementTimeout(to);
+                SellerRow seller = lockSeller(from, sellerId);
+                deleteSellers(to, new Integer[] {sellerId});
+                insertSeller(to, seller);
+                int moved = copyTransactions(from, to, sellerId);
+                to.commit();
+
+                directory.relocate(sellerId, target);
+                deleteSellers(from, new Integer[] {sellerId});
+                from.commit();
+                cacheInvalidationBus.publish(ChangeEvent.seller(sellerId));
+                log.info("moved seller {} with {} transactions from shard {} to shard {}", sellerId, moved, source,
+                        target);
+                return moved;
+            } catch (SQLException | RuntimeException e) {
+                to.rollback();
+                from.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Couldn't move seller " + sellerId + " to shard " + target, e);
+        }
+    }
+
+    /**
+     * Moves the transaction to another seller on another shard, keeping its ID.
+     */
+    public void moveTransaction(int transactionId, int source, int sellerId) {
+        int target = directory.shardOfSeller(sellerId);
+        try (Connection from = dataSources.oltp(source).getConnection();
+             Connection to = dataSources.oltp(target).getConnection()) {
+            from.setAutoCommit(false);
+            to.setAutoCommit(false);
+            try {
+                int previousSellerId;
+                BigDecimal amount;
+                Timestamp transactionDate;
+                try (PreparedStatement lock = from.prepareStatement(
+                        "SELECT seller_id, amount, payment_type, transaction_date FROM app.transaction " +
+                                "WHERE id = ? FOR UPDATE"
+                )) {
+                    lock.setInt(1, transactionId);
+                    try (ResultSet rs = lock.executeQuery()) {
+                        if (!rs.next()) {
+                            throw new TransactionNotFoundException(transactionId);
+                        }
+                        previousSellerId = rs.getInt(1);
+                        amount = rs.getBigDecimal(2);
+                        transactionDate = rs.getTimestamp(4);
+                        lockSellerForShare(to, sellerId);
+                        try (PreparedStatement insert = to.prepareStatement(
+                                "INSERT INTO app.transaction (id, seller_id, amount, payment_type, transaction_date) " +
+                                        "VALUES (?, ?, ?, ?, ?)"
+                        )) {
+                            insert.setInt(1, transactionId);
+                            insert.setInt(2, sellerId);
+                            insert.setBigDecimal(3, amount);
+                            insert.setString(4, rs.getString(3));
+                            insert.setTimestamp(5, transactionDate);
+                            insert.executeUpdate();
+                        }
+                    }
+                }
+                insertEvent(to, TransactionEventType.CREATED, transactionId, sellerId, amount, transactionDate);
+                to.commit();
+
+                try (PreparedStatement delete = from.prepareStatement("DELETE FROM app.transaction WHERE id = ?")) {
+                    delete.setInt(1, transactionId);
+                    delete.executeUpdate();
+                }
+                insertEvent(from, TransactionEventType.DELETED, transactionId, previousSellerId, amount, transactionDate);
+                from.commit();
+                cacheInvalidationBus.publish(
+                        ChangeEvent.transaction(transactionId, previousSellerId, transactionDate.toLocalDateTime()
+                                .toLocalDate()),
+                        ChangeEvent.transaction(transactionId, sellerId, transactionDate.toLocalDateTime()
+                                .toLocalDate())
+                );
+            } catch (SQLException | RuntimeException e) {
+                to.rollback();
+                from.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Couldn't move transaction " + transactionId + " to shard " + target, e);
+        }
+    }
+
+    private static SellerRow lockSeller(Connection connection, int sellerId) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT name, contact_info, registration_date FROM app.seller WHERE id = ? FOR UPDATE"
+        )) {
+            statement.setInt(1, sellerId);
+            try (ResultSet rs = statement.executeQuery()) {
+                if (!rs.next()) {
+                    throw new SellerNotFoundException(sellerId);
+                }
+                return new SellerRow(sellerId, rs.getString(1), rs.getString(2), rs.getTimestamp(3));
+            }
+        }
+    }
+
+    private static void lockSellerForShare(Connection connection, int sellerId) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT 1 FROM app.seller WHERE id = ? FOR SHARE"
+        )) {
+            statement.setInt(1, sellerId);
+            try (ResultSet rs = statement.executeQuery()) {
+                if (!rs.next()) {
+                    throw new SellerNotFoundException(sellerId);
+                }
+            }
+        }
+    }
+
+    private static void insertSeller(Connection connection, SellerRow seller) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "INSERT INTO app.seller (id, name, contact_info, registration_date) VALUES (?, ?, ?, ?)"
+        )) {
+            statement.setInt(1, seller.id());
+            statement.setString(2, seller.name());
+            statement.setString(3, seller.contactInfo());
+            statement.setTimestamp(4, seller.registrationDate());
+            statement.executeUpdate();
+        }
+    }
+
+    private static int copyTransactions(Connection from, Connection to, int sellerId) throws SQLException {
+        int moved = 0;
+        try (PreparedStatement select = from.prepareStatement(
+                "SELECT id, amount, payment_type, transaction_date FROM app.transaction WHERE seller_id = ? FOR UPDATE"
+        );
+             PreparedStatement insert = to.prepareStatement(
+                     "INSERT INTO app.transaction (id, seller_id, amount, payment_type, transaction_date) " +
+                             "VALUES (?, ?, ?, ?, ?)"
+             )) {
+            select.setInt(1, sellerId);
+            select.setFetchSize(BATCH_SIZE);
+            try (ResultSet rs = select.executeQuery()) {
+                while (rs.next()) {
+                    insert.setInt(1, rs.getInt(1));
+                    insert.setInt(2, sellerId);
+                    insert.setBigDecimal(3, rs.getBigDecimal(2));
+                    insert.setString(4, rs.getString(3));
+                    insert.setTimestamp(5, rs.getTimestamp(4));
+                    insert.addBatch();
+                    if (++moved % BATCH_SIZE == 0) {
+                        insert.executeBatch();
+                    }
+                }
+            }
+            insert.executeBatch();
+        }
+        return moved;
+    }
+
+    private static int deleteSellers(Connection connection, Integer[] sellerIds) throws SQLException {
+        Array ids = connection.createArrayOf("integer", sellerIds);
+        try (PreparedStatement transactions = connection.prepareStatement(
+                "DELETE FROM app.transaction WHERE seller_id = ANY (?)"
+        );
+             PreparedStatement sellers = connection.prepareStatement("DELETE FROM app.seller WHERE id = ANY (?)");
+             PreparedStatement events = connection.prepareStatement(
+                     "INSERT INTO app.transaction_event (type, seller_id) SELECT 'SELLER_CHANGED', unnest(?)"
+             )) {
+            transactions.setArray(1, ids);
+            transactions.executeUpdate();
+            events.setArray(1, ids);
+            events.executeUpdate();
+            sellers.setArray(1, ids);
+            return sellers.executeUpdate();
+        }
+    }
+
+    private static void insertEvent(
+            Connection connection,
+            TransactionEventType type,
+            int transactionId,
+            int sellerId,
+            BigDecimal amount,
+            Timestamp transactionDate
+    ) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "INSERT INTO app.transaction_event (type, transaction_id, seller_id, amount, transaction_date) " +
+                        "VALUES (?, ?, ?, ?, ?)"
+        )) {
+            statement.setString(1, type.name());
+            statement.setInt(2, transactionId);
+            statement.setInt(3, sellerId);
+            statement.setBigDecimal(4, amount);
+            statement.setTimestamp(5, transactionDate);
+            statement.executeUpdate();
+        }
+    }
+
+    /**
+     * The pools set a statement timeout meant for API calls; copying a large seller can take longer.
+     */
+    private static void noStatementTimeout(Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SET LOCAL statement_timeout = 0")) {
+            statement.execute();
+        }
+    }
+
+    private record SellerRow(int id, String name, String contactInfo, Timestamp registrationDate) {}
+}
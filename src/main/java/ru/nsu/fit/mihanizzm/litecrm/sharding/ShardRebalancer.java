@@ -0,0 +1,175 @@
+package ru.nsu.fit.mihanizzm.litecrm.sharding;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.nsu.fit.mihanizzm.litecrm.exception.RebalanceInProgressException;
+import ru.nsu.fit.mihanizzm.litecrm.exception.SellerNotFoundException;
+import ru.nsu.fit.mihanizzm.litecrm.models.dtos.ShardRebalanceResponseDto;
+import ru.nsu.fit.mihanizzm.litecrm.models.dtos.ShardResponseDto;
+import ru.nsu.fit.mihanizzm.litecrm.repositories.SellerRepository;
+import ru.nsu.fit.mihanizzm.litecrm.repositories.TransactionRepository;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+/**
+ * Evens out the number of sellers per shard by moving the sellers with the fewest transactions off the fullest
+ * shards. One rebalance runs at a time across all instances, serialized by an advisory lock on shard 0.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "litecrm.sharding", name = "enabled", havingValue = "true")
+public class ShardRebalancer {
+    private static final long LOCK_KEY = 0x4C43_5242L;
+
+    private final ShardDataSources dataSources;
+    private final ShardRouter router;
+    private final ShardMover mover;
+    private final SellerRepository sellerRepository;
+    private final TransactionRepository transactionRepository;
+
+    public ShardRebalancer(
+            ShardDataSources dataSources,
+            ShardRouter router,
+            ShardMover mover,
+            SellerRepository sellerRepository,
+            TransactionRepository transactionRepository
+    ) {
+        this.dataSources = dataSources;
+        this.router = router;
+        this.mover = mover;
+        this.sellerRepository = sellerRepository;
+        this.transactionRepository = transactionRepository;
+    }
+
+    public List<ShardResponseDto> snapshot() {
+        return router.onEveryShard(shard -> new ShardResponseDto(
+                shard,
+                sellerRepository.count(),
+                transactionRepository.count()
+        ));
+    }
+
+    /**
+     * Moves a single seller; a no-op if it already lives on the target shard.
+     */
+    public int moveSeller(int sellerId, int target) {
+        if (target < 0 || target >= dataSources.count()) {
+            throw new IllegalArgumentException("shard must be between 0 and " + (dataSources.count() - 1));
+        }
+        return exclusively(() -> mover.moveSeller(sellerId, target));
+    }
+
+    /**
+     * @param maxMoves limit on the sellers moved by this call, so that a large imbalance is evened out in steps
+     */
+    public ShardRebalanceResponseDto rebalance(int maxMoves) {
+        if (maxMoves < 1) {
+            throw new IllegalArgumentException("maxMoves must be positive");
+        }
+        return exclusively(() -> {
+            long[] sellers = snapshot().stream().mapToLong(ShardResponseDto::sellers).toArray();
+            int movedSellers = 0;
+            long movedTransactions = 0;
+            for (Transfer transfer : plan(sellers, maxMoves)) {
+                for (int sellerId : cheapestSellers(transfer.from(), transfer.sellers())) {
+                    try {
+                        movedTransactions += mover.moveSeller(sellerId, transfer.to());
+                        movedSellers++;
+                    } catch (SellerNotFoundException e) {
+                        // Deleted since it was picked
+                    }
+                }
+            }
+            log.info("rebalance moved {} sellers with {} transactions", movedSellers, movedTransactions);
+            return new ShardRebalanceResponseDto(movedSellers, movedTransactions, snapshot());
+        });
+    }
+
+    /**
+     * Transfers that leave every shard with {@code total / shards} sellers, or one more. The extra sellers stay
+     * on the fullest shards, so that nothing is moved that doesn't have to be.
+     */
+    static List<Transfer> plan(long[] sellers, int maxMoves) {
+        int shards = sellers.length;
+        long total = 0;
+        for (long count : sellers) {
+            total += count;
+        }
+        List<Integer> fullestFirst = IntStream.range(0, shards)
+                .boxed()
+                .sorted(Comparator.comparingLong((Integer shard) -> sellers[shard]).reversed())
+                .toList();
+        long[] surplus = new long[shards];
+        for (int rank = 0; rank < shards; rank++) {
+            int shard = fullestFirst.get(rank);
+            long target = total / shards + (rank < total % shards ? 1 : 0);
+            surplus[shard] = sellers[shard] - target;
+        }
+
+        List<Transfer> transfers = new ArrayList<>();
+        long budget = maxMoves;
+        int to = 0;
+        for (int from = 0; from < shards && budget > 0; from++) {
+            while (surplus[from] > 0 && budget > 0) {
+                while (surplus[to] >= 0) {
+                    to++;
+                }
+                int count = (int) Math.min(Math.min(surplus[from], -surplus[to]), budget);
+                transfers.add(new Transfer(from, to, count));
+                surplus[from] -= count;
+                surplus[to] += count;
+                budget -= count;
+            }
+        }
+        return transfers;
+    }
+
+    private List<Integer> cheapestSellers(int shard, int limit) {
+        return new JdbcTemplate(dataSources.oltp(shard)).queryForList(
+                "SELECT s.id FROM app.seller s LEFT JOIN app.transaction t ON t.seller_id = s.id " +
+                        "GROUP BY s.id ORDER BY COUNT(t.id), s.id LIMIT ?",
+                Integer.class,
+                limit
+        );
+    }
+
+    /**
+     * Holds a session-level advisory lock on shard 0 for the duration of the call. The moves use connections of
+     * their own; the lock is released if this instance dies, since its connection is closed.
+     */
+    private <T> T exclusively(Supplier<T> call) {
+        try (Connection connection = dataSources.oltp(0).getConnection()) {
+            try (PreparedStatement lock = connection.prepareStatement("SELECT pg_try_advisory_lock(?)")) {
+                lock.setLong(1, LOCK_KEY);
+                try (ResultSet rs = lock.executeQuery()) {
+                    rs.next();
+                    if (!rs.getBoolean(1)) {
+                        throw new RebalanceInProgressException();
+                    }
+                }
+            }
+            try {
+                return call.get();
+            } finally {
+                try (PreparedStatement unlock = connection.prepareStatement("SELECT pg_advisory_unlock(?)")) {
+                    unlock.setLong(1, LOCK_KEY);
+                    unlock.execute();
+                }
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Couldn't take the rebalance lock", e);
+        }
+    }
+
+    record Transfer(int from, int to, int sellers) {}
+}
@@ -0,0 +1,90 @@
+package ru.nsu.fit.mihanizzm.litecrm.sharding;
+
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.nsu.fit.mihanizzm.litecrm.bulkhead.BulkheadContext;
+import ru.nsu.fit.mihanizzm.litecrm.bulkhead.BulkheadTaskDecorator;
+import ru.nsu.fit.mihanizzm.litecrm.exception.ClientException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+/**
+ * Runs service calls against a given shard, or against all shards at once. The calls open their transactions
+ * themselves, after the shard is set.
+ */
+@Component
+@ConditionalOnProperty(prefix = "litecrm.sharding", name = "enabled", havingValue = "true")
+public class ShardRouter implements AutoCloseable {
+    private final ShardDirectory directory;
+    private final ObservationRegistry observationRegistry;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public ShardRouter(ShardDirectory directory, ObservationRegistry observationRegistry) {
+        this.directory = directory;
+        this.observationRegistry = observationRegistry;
+    }
+
+    public <T> T onShard(int shard, Supplier<T> call) {
+        int previous = ShardContext.current();
+        ShardContext.set(shard);
+        try {
+            return call.get();
+        } finally {
+            ShardContext.set(previous);
+        }
+    }
+
+    /**
+     * Runs the call on the shard of the seller. If the call fails with a client error, such as a missing seller,
+     * and the seller turns out to have been moved by another instance, the call is repeated on its new shard.
+     */
+    public <T> T onSellerShard(int sellerId, Supplier<T> call) {
+        try {
+            return onShard(directory.shardOfSeller(sellerId), call);
+        } catch (ClientException e) {
+            if (!directory.refresh(sellerId)) {
+                throw e;
+            }
+            return onShard(directory.shardOfSeller(sellerId), call);
+        }
+    }
+
+    /**
+     * Runs the call on every shard concurrently, each on its own thread in the caller's bulkhead.
+     *
+     * @return results in shard order
+     */
+    public <T> List<T> onEveryShard(IntFunction<T> call) {
+        // Captures the bulkhead, MDC and observation of the calling thread
+        BulkheadTaskDecorator decorator = new BulkheadTaskDecorator(BulkheadContext.current(), observationRegistry);
+        Executor fanOut = task -> executor.execute(decorator.decorate(task));
+
+        List<CompletableFuture<T>> futures = new ArrayList<>(directory.shardCount());
+        for (int shard = 0; shard < directory.shardCount(); shard++) {
+            int target = shard;
+            futures.add(CompletableFuture.supplyAsync(() -> onShard(target, () -> call.apply(target)), fanOut));
+        }
+        try {
+            return futures.stream().map(CompletableFuture::join).toList();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,91 @@
+package ru.nsu.fit.mihanizzm.litecrm.sharding;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Confines the ID sequences of every shard to the shard's range of {@link ShardingProperties#idRangeSize()} IDs.
+ * Runs once all beans are created, so shard 0 has been migrated by then. Shard 0 keeps IDs allocated before
+ * sharding was enabled, as long as they fit its range.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "litecrm.sharding", name = "enabled", havingValue = "true")
+public class ShardSequences implements SmartInitializingSingleton {
+    private static final List<String> TABLES = List.of("seller", "transaction");
+    /** Serializes the check of the sequences between instances starting at the same time. */
+    private static final long LOCK_KEY = 0x4C43_5351L;
+
+    private final ShardDataSources dataSources;
+    private final long idRangeSize;
+
+    public ShardSequences(ShardDataSources dataSources, ShardingProperties properties) {
+        this.dataSources = dataSources;
+        this.idRangeSize = properties.idRangeSize();
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        for (int shard = 0; shard < dataSources.count(); shard++) {
+            long min = shard * idRangeSize + 1;
+            long max = (shard + 1) * idRangeSize;
+            if (max > Integer.MAX_VALUE) {
+                throw new IllegalStateException("ID range of shard " + shard + " exceeds integer IDs, "
+                        + "lower litecrm.sharding.id-range-size");
+            }
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSources.oltp(shard));
+            TransactionTemplate transactionTemplate = new TransactionTemplate(
+                    new DataSourceTransactionManager(dataSources.oltp(shard))
+            );
+            for (String table : TABLES) {
+                int shardIndex = shard;
+                transactionTemplate.executeWithoutResult(status -> align(jdbcTemplate, shardIndex, table, min, max));
+            }
+        }
+    }
+
+    private static void align(JdbcTemplate jdbcTemplate, int shard, String table, long min, long max) {
+        jdbcTemplate.execute("SELECT pg_advisory_xact_lock(" + LOCK_KEY + ")");
+        String sequence = "app." + table + "_id_seq";
+        Map<String, Object> current = jdbcTemplate.queryForMap(
+                "SELECT min_value, max_value FROM pg_sequences WHERE schemaname = 'app' AND sequencename = ?",
+                table + "_id_seq"
+        );
+        if (((Number) current.get("min_value")).longValue() == min
+                && ((Number) current.get("max_value")).longValue() == max) {
+            return;
+        }
+
+        Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM app." + table, Long.class);
+        if (maxId != null && maxId >= max) {
+            throw new IllegalStateException("app." + table + " on shard " + shard + " has IDs up to " + maxId
+                    + ", its range ends at " + max);
+        }
+        long next = maxId == null || maxId < min ? min : maxId + 1;
+        // Sequence names and bounds can't be bind parameters; all of them are computed here
+        long restart = Math.max(next, currentNext(jdbcTemplate, sequence, min));
+        jdbcTemplate.execute("ALTER SEQUENCE " + sequence + " MINVALUE " + min + " MAXVALUE " + max
+                + " START WITH " + restart + " RESTART WITH " + restart);
+        log.info("confined {} on shard {} to IDs {}..{}", sequence, shard, min, max);
+    }
+
+    /**
+     * Next value of the sequence, so that restarting it never hands out an ID twice.
+     */
+    private static long currentNext(JdbcTemplate jdbcTemplate, String sequence, long min) {
+        Long lastValue = jdbcTemplate.queryForObject(
+                "SELECT last_value FROM pg_sequences WHERE schemaname || '.' || sequencename = ?",
+                Long.class,
+                sequence
+        );
+        return lastValue == null ? min : lastValue + 1;
+    }
+}
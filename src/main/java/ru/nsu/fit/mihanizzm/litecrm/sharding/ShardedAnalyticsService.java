@@ -0,0 +1,83 @@
+package ru.nsu.fit.mihanizzm.litecrm.sharding;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+import ru.nsu.fit.mihanizzm.litecrm.cache.CacheNames;
+import ru.nsu.fit.mihanizzm.litecrm.exception.NoTransactionsInThisPeriodException;
+import ru.nsu.fit.mihanizzm.litecrm.models.Period;
+import ru.nsu.fit.mihanizzm.litecrm.models.PeriodType;
+import ru.nsu.fit.mihanizzm.litecrm.models.SellerTotal;
+import ru.nsu.fit.mihanizzm.litecrm.models.dtos.BestDayResponseDto;
+import ru.nsu.fit.mihanizzm.litecrm.models.dtos.SellerResponseDto;
+import ru.nsu.fit.mihanizzm.litecrm.models.dtos.SellerTotalsResponseDto;
+import ru.nsu.fit.mihanizzm.litecrm.services.AnalyticsService;
+import ru.nsu.fit.mihanizzm.litecrm.services.impl.AnalyticsServiceImpl;
+import ru.nsu.fit.mihanizzm.litecrm.services.impl.SellerServiceImpl;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Computes analytics on every shard and merges the results. All transactions of a seller live on one shard, so
+ * per-seller totals of a shard are final and only have to be combined.
+ */
+@Service
+@Primary
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "litecrm.sharding", name = "enabled", havingValue = "true")
+public class ShardedAnalyticsService implements AnalyticsService {
+    /** Same order as within a shard: the largest total first, ties going to the lower ID. */
+    static final Comparator<SellerTotal> TOP_FIRST = Comparator.comparing(SellerTotal::total)
+            .reversed()
+            .thenComparing(SellerTotal::sellerId);
+
+    private final AnalyticsServiceImpl analyticsService;
+    private final SellerServiceImpl sellerService;
+    private final ShardRouter router;
+
+    @Cacheable(
+            cacheNames = CacheNames.TOP_SELLER,
+            key = "T(ru.nsu.fit.mihanizzm.litecrm.models.Period).of(#type, #startDate)"
+    )
+    @Override
+    public SellerResponseDto getTopSeller(PeriodType type, LocalDateTime startDate) {
+        Period period = Period.of(type, startDate);
+        SellerTotal top = merge(router.onEveryShard(shard -> analyticsService.getTopSellerTotal(type, startDate)))
+                .orElseThrow(() -> new NoTransactionsInThisPeriodException(period.start(), period.end()));
+        return router.onSellerShard(top.sellerId(), () -> sellerService.getSellerById(top.sellerId()));
+    }
+
+    /**
+     * Every shard returns the first page of its sellers after {@code afterId}, so the first {@code limit} sellers of
+     * all of them make the page over all shards.
+     */
+    @Override
+    public SellerTotalsResponseDto getSellersWithTotalAmountLessThan(
+            BigDecimal maxSum,
+            LocalDateTime startDate,
+            LocalDateTime endDate,
+            int afterId,
+            int limit
+    ) {
+        List<SellerTotalsResponseDto> pages = router.onEveryShard(shard -> analyticsService
+                .getSellersWithTotalAmountLessThan(maxSum, startDate, endDate, afterId, limit));
+        return AnalyticsServiceImpl.page(pages.stream().flatMap(page -> page.sellers().stream()), limit);
+    }
+
+    @Override
+    public BestDayResponseDto getBestDayForSeller(Integer sellerId) {
+        return router.onSellerShard(sellerId, () -> analyticsService.getBestDayForSeller(sellerId));
+    }
+
+    static Optional<SellerTotal> merge(List<Optional<SellerTotal>> shardTops) {
+        return shardTops.stream()
+                .flatMap(Optional::stream)
+                .min(TOP_FIRST);
+    }
+}
@@ -0,0 +1,72 @@
+package ru.nsu.fit.mihanizzm.litecrm.sharding;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+import ru.nsu.fit.mihanizzm.litecrm.models.dtos.SellerRequestDto;
+import ru.nsu.fit.mihanizzm.litecrm.models.dtos.SellerResponseDto;
+import ru.nsu.fit.mihanizzm.litecrm.models.dtos.SellerStatsResponseDto;
+import ru.nsu.fit.mihanizzm.litecrm.models.dtos.TransactionResponseDto;
+import ru.nsu.fit.mihanizzm.litecrm.services.SellerService;
+import ru.nsu.fit.mihanizzm.litecrm.services.impl.SellerServiceImpl;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Runs seller calls on the shard of the seller. A seller's transactions always live on its shard.
+ */
+@Service
+@Primary
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "litecrm.sharding", name = "enabled", havingValue = "true")
+public class ShardedSellerService implements SellerService {
+    private final SellerServiceImpl sellerService;
+    private final ShardRouter router;
+    private final ShardDirectory directory;
+
+    @Override
+    public List<SellerResponseDto> getAllSellers() {
+        return router.onEveryShard(shard -> sellerService.getAllSellers())
+                .stream()
+                .flatMap(Collection::stream)
+                .sorted(Comparator.comparing(SellerResponseDto::id))
+                .toList();
+    }
+
+    @Override
+    public SellerResponseDto getSellerById(Integer id) {
+        return router.onSellerShard(id, () -> sellerService.getSellerById(id));
+    }
+
+    @Override
+    public SellerResponseDto createSeller(SellerRequestDto sellerRequestDto) {
+        return router.onShard(directory.shardForNewSeller(), () -> sellerService.createSeller(sellerRequestDto));
+    }
+
+    @Override
+    public SellerResponseDto updateSeller(Integer id, SellerRequestDto sellerRequestDto) {
+        return router.onSellerShard(id, () -> sellerService.updateSeller(id, sellerRequestDto));
+    }
+
+    @Override
+    public void deleteSeller(Integer id) {
+        router.onSellerShard(id, () -> {
+            sellerService.deleteSeller(id);
+            return null;
+        });
+        directory.forget(id);
+    }
+
+    @Override
+    public List<TransactionResponseDto> getSellerTransactions(Integer id) {
+        return router.onSellerShard(id, () -> sellerService.getSellerTransactions(id));
+    }
+
+    @Override
+    public SellerStatsResponseDto getSellerStats(Integer id) {
+        return router.onSellerShard(id, () -> sellerService.getSellerStats(id));
+    }
+}
@@ -0,0 +1,118 @@
+package ru.nsu.fit.mihanizzm.litecrm.sharding;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+import ru.nsu.fit.mihanizzm.litecrm.exception.NullSellerIdException;
+import ru.nsu.fit.mihanizzm.litecrm.exception.TransactionNotFoundException;
+import ru.nsu.fit.mihanizzm.litecrm.models.dtos.TransactionRequestDto;
+import ru.nsu.fit.mihanizzm.litecrm.models.dtos.TransactionResponseDto;
+import ru.nsu.fit.mihanizzm.litecrm.repositories.TransactionRepository;
+import ru.nsu.fit.mihanizzm.litecrm.services.TransactionService;
+import ru.nsu.fit.mihanizzm.litecrm.services.impl.SellerServiceImpl;
+import ru.nsu.fit.mihanizzm.litecrm.services.impl.TransactionServiceImpl;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * Runs transaction calls on the shard of the transaction. A transaction is created on the shard of its seller and
+ * follows the seller when it is moved, so it is looked up on the shard it was created on first and on all shards
+ * if it isn't there.
+ */
+@Service
+@Primary
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "litecrm.sharding", name = "enabled", havingValue = "true")
+public class ShardedTransactionService implements TransactionService {
+    private final TransactionServiceImpl transactionService;
+    private final SellerServiceImpl sellerService;
+    private final TransactionRepository transactionRepository;
+    private final ShardRouter router;
+    private final ShardDirectory directory;
+    private final ShardMover mover;
+
+    @Override
+    public List<TransactionResponseDto> getAllTransactions() {
+        return router.onEveryShard(shard -> transactionService.getAllTransactions())
+                .stream()
+                .flatMap(Collection::stream)
+                .sorted(Comparator.comparing(TransactionResponseDto::id))
+                .toList();
+    }
+
+    @Override
+    public TransactionResponseDto getTransactionById(Integer id) {
+        return onTransactionShard(id, shard -> transactionService.getTransactionById(id));
+    }
+
+    @Override
+    public TransactionResponseDto createTransaction(TransactionRequestDto transactionRequestDto) {
+        if (transactionRequestDto.sellerId() == null) {
+            throw new NullSellerIdException();
+        }
+        return router.onSellerShard(
+                transactionRequestDto.sellerId(),
+                () -> transactionService.createTransaction(transactionRequestDto)
+        );
+    }
+
+    /**
+     * A transaction given a seller on another shard is updated in place first and then moved to the shard of
+     * the seller. The two steps aren't atomic: if the move fails, the transaction keeps the new amount and
+     * payment type but stays with its previous seller.
+     */
+    @Override
+    public TransactionResponseDto updateTransaction(Integer id, TransactionRequestDto transactionRequestDto) {
+        return onTransactionShard(id, shard -> {
+            Integer sellerId = transactionRequestDto.sellerId();
+            if (sellerId == null || directory.shardOfSeller(sellerId) == shard) {
+                return transactionService.updateTransaction(id, transactionRequestDto);
+            }
+
+            // Fails before anything is changed if the seller doesn't exist
+            router.onSellerShard(sellerId, () -> sellerService.getSellerById(sellerId));
+            TransactionResponseDto updated = transactionService.updateTransaction(
+                    id,
+                    new TransactionRequestDto(null, transactionRequestDto.amount(), transactionRequestDto.paymentType())
+            );
+            mover.moveTransaction(id, shard, sellerId);
+            return new TransactionResponseDto(
+                    updated.id(),
+                    sellerId,
+                    updated.amount(),
+                    updated.paymentType(),
+                    updated.transactionDate()
+            );
+        });
+    }
+
+    @Override
+    public void deleteTransaction(Integer id) {
+        onTransactionShard(id, shard -> {
+            transactionService.deleteTransaction(id);
+            return null;
+        });
+    }
+
+    /**
+     * Runs the call on the shard the transaction was created on and, if it isn't found there, on the shard it
+     * was moved to. The call is given the shard it runs on.
+     */
+    private <T> T onTransactionShard(Integer id, IntFunction<T> call) {
+        int home = directory.homeShard(id);
+        try {
+            return router.onShard(home, () -> call.apply(home));
+        } catch (TransactionNotFoundException e) {
+            List<Boolean> found = router.onEveryShard(shard -> shard != home && transactionRepository.existsById(id));
+            int shard = found.indexOf(true);
+            if (shard < 0) {
+                throw e;
+            }
+            return router.onShard(shard, () -> call.apply(shard));
+        }
+    }
+}
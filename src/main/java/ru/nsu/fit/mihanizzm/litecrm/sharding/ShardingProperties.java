@@ -0,0 +1,38 @@
+package ru.nsu.fit.mihanizzm.litecrm.sharding;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.util.List;
+
+/**
+ * Spreads sellers, with their transactions, over several PostgreSQL databases. Shard 0 is
+ * {@code spring.datasource}; it also keeps the relocation directory, job state and the cache invalidation channel.
+ *
+ * @param additionalShards shards 1..N-1; a missing username or password is taken from {@code spring.datasource}
+ * @param idRangeSize      every shard allocates seller and transaction IDs from its own range
+ *                         {@code [shard * idRangeSize + 1, (shard + 1) * idRangeSize]}, so IDs stay unique
+ *                         across shards and the shard a row was created on follows from its ID. It must not change
+ *                         once rows were created on shards other than 0.
+ */
+@ConfigurationProperties(prefix = "litecrm.sharding")
+public record ShardingProperties(
+        @DefaultValue("false")
+        boolean enabled,
+
+        @DefaultValue
+        List<Shard> additionalShards,
+
+        @DefaultValue("134217728")
+        int idRangeSize
+) {
+    public record Shard(
+            String url,
+            String username,
+            String password
+    ) {}
+
+    public int shardCount() {
+        return enabled ? 1 + additionalShards.size() : 1;
+    }
+}
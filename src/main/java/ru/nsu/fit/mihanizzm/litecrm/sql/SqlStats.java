@@ -0,0 +1,44 @@
+package ru.nsu.fit.mihanizzm.litecrm.sql;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * JDBC work done on behalf of one unit of work, usually an HTTP request. Analytics requests run their
+ * queries on an executor thread while the request thread may still be recording, so counters are thread-safe.
+ */
+public final class SqlStats {
+    private final LongAdder statements = new LongAdder();
+    private final LongAdder rowsFetched = new LongAdder();
+    private final LongAdder jdbcTimeNanos = new LongAdder();
+
+    void recordStatement(long elapsedNanos) {
+        statements.increment();
+        jdbcTimeNanos.add(elapsedNanos);
+    }
+
+    void recordRow() {
+        rowsFetched.increment();
+    }
+
+    public long getStatements() {
+        return statements.sum();
+    }
+
+    public long getRowsFetched() {
+        return rowsFetched.sum();
+    }
+
+    public long getJdbcTimeNanos() {
+        return jdbcTimeNanos.sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "SqlStats[statements=%d, rowsFetched=%d, jdbcTimeNanos=%d]",
+                getStatements(),
+                getRowsFetched(),
+                getJdbcTimeNanos()
+        );
+    }
+}
@@ -0,0 +1,42 @@
+package ru.nsu.fit.mihanizzm.litecrm.sql;
+
+/**
+ * {@link SqlStats} the current thread records into. Threads without one (schedulers, startup) are not measured.
+ */
+public final class SqlStatsContext {
+    private static final ThreadLocal<SqlStats> CURRENT = new ThreadLocal<>();
+
+    private SqlStatsContext() {
+    }
+
+    public static SqlStats current() {
+        return CURRENT.get();
+    }
+
+    public static void set(SqlStats stats) {
+        CURRENT.set(stats);
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Runs {@code work} on the current thread and returns the JDBC work it did.
+     */
+    public static SqlStats measure(Runnable work) {
+        SqlStats previous = CURRENT.get();
+        SqlStats stats = new SqlStats();
+        CURRENT.set(stats);
+        try {
+            work.run();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+        return stats;
+    }
+}
@@ -0,0 +1,33 @@
+package ru.nsu.fit.mihanizzm.litecrm.sql;
+
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+/**
+ * Wraps the primary {@code dataSource} bean into a proxy that feeds {@link SqlStatsListener}.
+ * The pools behind it stay unwrapped, so their metrics and the bulkhead routing are unaffected.
+ */
+@Component
+@ConditionalOnProperty(prefix = "litecrm.sql-stats", name = "enabled", matchIfMissing = true)
+public class SqlStatsDataSourcePostProcessor implements BeanPostProcessor {
+    private static final String DATA_SOURCE_BEAN = "dataSource";
+
+    @Override
+    public Object postProcessAfterInitialization(@NonNull Object bean, @NonNull String beanName) {
+        if (!(bean instanceof DataSource dataSource) || !DATA_SOURCE_BEAN.equals(beanName)) {
+            return bean;
+        }
+        SqlStatsListener listener = new SqlStatsListener();
+        return ProxyDataSourceBuilder.create(dataSource)
+                .name(beanName)
+                .listener(listener)
+                .methodListener(listener)
+                .proxyResultSet()
+                .build();
+    }
+}
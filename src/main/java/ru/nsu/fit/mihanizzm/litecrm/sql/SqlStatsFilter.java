@@ -0,0 +1,90 @@
+package ru.nsu.fit.mihanizzm.litecrm.sql;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects {@link SqlStats} for every request and publishes them per endpoint as
+ * {@code litecrm.http.sql.statements}, {@code litecrm.http.sql.rows} and {@code litecrm.http.sql.time}.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+@ConditionalOnProperty(prefix = "litecrm.sql-stats", name = "enabled", matchIfMissing = true)
+@RequiredArgsConstructor
+public class SqlStatsFilter extends OncePerRequestFilter {
+    public static final String STATS_ATTRIBUTE = SqlStatsFilter.class.getName() + ".stats";
+
+    private static final String UNKNOWN_URI = "UNKNOWN";
+
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+        SqlStats stats = (SqlStats) request.getAttribute(STATS_ATTRIBUTE);
+        if (stats == null) {
+            stats = new SqlStats();
+            request.setAttribute(STATS_ATTRIBUTE, stats);
+        }
+
+        SqlStatsContext.set(stats);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            SqlStatsContext.clear();
+            if (!request.isAsyncStarted()) {
+                record(request, stats);
+            }
+        }
+    }
+
+    // Analytics requests finish in an async dispatch, which is when their statistics are complete.
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    private void record(HttpServletRequest request, SqlStats stats) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        Tags tags = Tags.of(
+                "method", request.getMethod(),
+                "uri", pattern == null ? UNKNOWN_URI : pattern.toString()
+        );
+
+        DistributionSummary.builder("litecrm.http.sql.statements")
+                .description("SQL statements executed per HTTP request")
+                .tags(tags)
+                .register(meterRegistry)
+                .record(stats.getStatements());
+        DistributionSummary.builder("litecrm.http.sql.rows")
+                .description("Rows read from result sets per HTTP request")
+                .tags(tags)
+                .register(meterRegistry)
+                .record(stats.getRowsFetched());
+        Timer.builder("litecrm.http.sql.time")
+                .description("Time spent executing SQL statements per HTTP request")
+                .tags(tags)
+                .register(meterRegistry)
+                .record(stats.getJdbcTimeNanos(), TimeUnit.NANOSECONDS);
+    }
+}
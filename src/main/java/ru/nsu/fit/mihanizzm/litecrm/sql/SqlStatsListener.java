@@ -0,0 +1,50 @@
+package ru.nsu.fit.mihanizzm.litecrm.sql;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.MethodExecutionContext;
+import net.ttddyy.dsproxy.listener.MethodExecutionListener;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+
+import java.sql.ResultSet;
+import java.util.List;
+
+/**
+ * Records executed statements, their time and the rows read from result sets into
+ * {@link SqlStatsContext#current()}.
+ */
+public class SqlStatsListener implements QueryExecutionListener, MethodExecutionListener {
+    private static final String STARTED_AT = SqlStatsListener.class.getName() + ".startedAt";
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        if (SqlStatsContext.current() != null) {
+            execInfo.addCustomValue(STARTED_AT, System.nanoTime());
+        }
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        SqlStats stats = SqlStatsContext.current();
+        Long startedAt = execInfo.getCustomValue(STARTED_AT, Long.class);
+        if (stats != null && startedAt != null) {
+            stats.recordStatement(System.nanoTime() - startedAt);
+        }
+    }
+
+    @Override
+    public void beforeMethod(MethodExecutionContext executionContext) {
+    }
+
+    @Override
+    public void afterMethod(MethodExecutionContext executionContext) {
+        if (executionContext.getTarget() instanceof ResultSet
+                && Boolean.TRUE.equals(executionContext.getResult())
+                && "next".equals(executionContext.getMethod().getName())) {
+            SqlStats stats = SqlStatsContext.current();
+            if (stats != null) {
+                stats.recordRow();
+            }
+        }
+    }
+}
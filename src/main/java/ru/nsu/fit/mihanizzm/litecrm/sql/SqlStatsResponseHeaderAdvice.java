@@ -0,0 +1,53 @@
+package ru.nsu.fit.mihanizzm.litecrm.sql;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.lang.NonNull;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import java.util.Locale;
+
+/**
+ * Exposes the {@link SqlStats} of a request as response headers, so N+1 patterns are visible from curl
+ * or the Swagger UI. Meant for development; enabled by {@code litecrm.sql-stats.response-headers}.
+ */
+@ControllerAdvice
+@ConditionalOnProperty(prefix = "litecrm.sql-stats", name = "response-headers", havingValue = "true")
+public class SqlStatsResponseHeaderAdvice implements ResponseBodyAdvice<Object> {
+    public static final String STATEMENTS_HEADER = "X-Sql-Statements";
+    public static final String ROWS_HEADER = "X-Sql-Rows";
+    public static final String TIME_HEADER = "X-Sql-Time-Ms";
+
+    @Override
+    public boolean supports(
+            @NonNull MethodParameter returnType,
+            @NonNull Class<? extends HttpMessageConverter<?>> converterType
+    ) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(
+            Object body,
+            @NonNull MethodParameter returnType,
+            @NonNull MediaType selectedContentType,
+            @NonNull Class<? extends HttpMessageConverter<?>> selectedConverterType,
+            @NonNull ServerHttpRequest request,
+            @NonNull ServerHttpResponse response
+    ) {
+        if (request instanceof ServletServerHttpRequest servletRequest
+                && servletRequest.getServletRequest().getAttribute(SqlStatsFilter.STATS_ATTRIBUTE)
+                instanceof SqlStats stats) {
+            response.getHeaders().set(STATEMENTS_HEADER, Long.toString(stats.getStatements()));
+            response.getHeaders().set(ROWS_HEADER, Long.toString(stats.getRowsFetched()));
+            response.getHeaders().set(TIME_HEADER, String.format(Locale.ROOT, "%.3f", stats.getJdbcTimeNanos() / 1e6));
+        }
+        return body;
+    }
+}
@@ -0,0 +1,91 @@
+package ru.nsu.fit.mihanizzm.litecrm.totals;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import ru.nsu.fit.mihanizzm.litecrm.models.Period;
+import ru.nsu.fit.mihanizzm.litecrm.models.PeriodType;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Totals of sellers per period as of the last commit: the read tables plus the outbox events the projector hasn't
+ * applied yet. Only existing sellers with transactions in a period are returned.
+ */
+public final class CommittedTotals {
+    private static final String PENDING_DELTAS = "CASE type WHEN 'AMOUNT_CHANGED' THEN 0 WHEN 'DELETED' THEN -1 " +
+            "ELSE 1 END, " +
+            "CASE type WHEN 'AMOUNT_CHANGED' THEN amount - previous_amount WHEN 'DELETED' THEN -amount " +
+            "ELSE amount END ";
+
+    private CommittedTotals() {}
+
+    @FunctionalInterface
+    public interface Callback {
+        void accept(int sellerId, LocalDateTime periodStart, long count, BigDecimal amount);
+    }
+
+    /**
+     * Reads the totals of every period of the type from one shard.
+     *
+     * @param range     only the periods in this range, which starts and ends on their boundaries, or every period
+     *                  if {@code null}
+     * @param sellerIds only these sellers, or every seller if {@code null}
+     */
+    public static void query(
+            JdbcTemplate jdbcTemplate,
+            PeriodType type,
+            Period range,
+            Collection<Integer> sellerIds,
+            Callback callback
+    ) {
+        // The period type is an enum constant, not user input
+        String periodStart = "date_trunc('" + type.name().toLowerCase(Locale.ROOT) + "', transaction_date)";
+        Integer[] ids = sellerIds == null ? null : sellerIds.toArray(Integer[]::new);
+        List<Object> parameters = new ArrayList<>();
+        parameters.add(type.name());
+        String sql = "SELECT seller_id, period_start, SUM(transaction_count), SUM(total_amount) FROM (" +
+                "SELECT seller_id, period_start, transaction_count, total_amount FROM app.seller_period_stats " +
+                "WHERE period_type = ?" + filter("period_start", "seller_id", range, ids, parameters) +
+                " UNION ALL " +
+                "SELECT seller_id, " + periodStart + ", " + PENDING_DELTAS +
+                "FROM app.transaction_event WHERE type IN ('CREATED', 'AMOUNT_CHANGED', 'MOVED', 'DELETED')" +
+                filter("transaction_date", "seller_id", range, ids, parameters) +
+                " UNION ALL " +
+                "SELECT previous_seller_id, " + periodStart + ", -1, -previous_amount " +
+                "FROM app.transaction_event WHERE type = 'MOVED'" +
+                filter("transaction_date", "previous_seller_id", range, ids, parameters) +
+                ") d (seller_id, period_start, transaction_count, total_amount) " +
+                "WHERE EXISTS (SELECT 1 FROM app.seller s WHERE s.id = d.seller_id) " +
+                "GROUP BY seller_id, period_start HAVING SUM(transaction_count) > 0";
+        jdbcTemplate.query(
+                sql,
+                (RowCallbackHandler) rs -> callback.accept(
+                        rs.getInt(1),
+                        rs.getObject(2, LocalDateTime.class),
+                        rs.getLong(3),
+                        rs.getBigDecimal(4)
+                ),
+                parameters.toArray()
+        );
+    }
+
+    private static String filter(String dateColumn, String sellerColumn, Period range, Integer[] sellerIds,
+                                 List<Object> parameters) {
+        StringBuilder filter = new StringBuilder();
+        if (range != null) {
+            filter.append(" AND ").append(dateColumn).append(" >= ? AND ").append(dateColumn).append(" < ?");
+            parameters.add(range.start());
+            parameters.add(range.end());
+        }
+        if (sellerIds != null) {
+            filter.append(" AND ").append(sellerColumn).append(" = ANY (?)");
+            parameters.add(sellerIds);
+        }
+        return filter.toString();
+    }
+}
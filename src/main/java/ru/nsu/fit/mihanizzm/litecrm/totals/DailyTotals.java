@@ -0,0 +1,401 @@
+package ru.nsu.fit.mihanizzm.litecrm.totals;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.nsu.fit.mihanizzm.litecrm.leaderboard.Leaderboard;
+import ru.nsu.fit.mihanizzm.litecrm.models.PeriodType;
+import ru.nsu.fit.mihanizzm.litecrm.models.SellerTotal;
+import ru.nsu.fit.mihanizzm.litecrm.repositories.TransactionRepository;
+import ru.nsu.fit.mihanizzm.litecrm.sharding.ShardContext;
+import ru.nsu.fit.mihanizzm.litecrm.sharding.ShardDataSources;
+import ru.nsu.fit.mihanizzm.litecrm.sharding.ShardDirectory;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.BiFunction;
+
+/**
+ * Transaction count and amount of every seller per day, in a {@link FenwickTree} per seller, so that the totals
+ * of all sellers over any range of whole days are summed up in O(sellers × log days) without touching the
+ * database. Days only partly covered by a range are summed up in the database.
+ * <p>
+ * Changes are kept up to date like in the {@link Leaderboard}: every committed change of a transaction reported to
+ * {@link TransactionDeltas} is applied, the days of the sellers changed by other instances are re-read by
+ * {@link #catchUp()}, and {@link #reconcile()} rarely reloads everything from the read tables and the outbox events
+ * the projector hasn't applied yet. The trees cover the days from the earliest sale to a month ahead of the latest
+ * one and grow when a change falls outside of them.
+ */
+@Slf4j
+@Component
+public class DailyTotals extends InMemoryTotals {
+    /** Days the trees cover after the latest sale, so that they don't have to grow every day. */
+    private static final int DAYS_AHEAD = 31;
+
+    private final ShardDataSources dataSources;
+    private final ShardDirectory directory;
+    private final Clock clock;
+    private Map<Integer, SellerDays> bySeller = new HashMap<>();
+    /** Day of the first position of the trees, {@code null} until the first reconciliation. */
+    private LocalDate origin;
+    private int days;
+
+    @Autowired
+    public DailyTotals(
+            DailyTotalsProperties properties,
+            ShardDataSources dataSources,
+            ObjectProvider<ShardDirectory> directory
+    ) {
+        this(properties, dataSources, directory.getIfAvailable(), Clock.systemDefaultZone());
+    }
+
+    DailyTotals(DailyTotalsProperties properties, ShardDataSources dataSources, ShardDirectory directory,
+                Clock clock) {
+        super(properties.enabled());
+        this.dataSources = dataSources;
+        this.directory = directory;
+        this.clock = clock;
+    }
+
+    /**
+     * Totals below the threshold of the sellers of the current shard with transactions in {@code [start, end)}
+     * and an ID above {@code afterId}, like {@link TransactionRepository#findSellerTotalsLessThan} without a limit.
+     *
+     * @param partialDays totals of the sellers of the current shard over a range shorter than two days, called
+     *                    for the days the range only partly covers
+     * @return totals in the order of the seller IDs, or an empty optional if the totals aren't kept or haven't been
+     * loaded yet
+     */
+    public Optional<List<SellerTotal>> sellersWithTotalLessThan(
+            BigDecimal threshold,
+            LocalDateTime start,
+            LocalDateTime end,
+            int afterId,
+            BiFunction<LocalDateTime, LocalDateTime, List<SellerTotal>> partialDays
+    ) {
+        if (!enabled() || !loaded()) {
+            return Optional.empty();
+        }
+        if (!start.isBefore(end)) {
+            return Optional.of(List.of());
+        }
+
+        LocalDate firstDay = start.toLocalTime().equals(LocalTime.MIDNIGHT)
+                ? start.toLocalDate()
+                : start.toLocalDate().plusDays(1);
+        LocalDate endDay = end.toLocalDate();
+        List<SellerTotal> partial = new ArrayList<>();
+        if (firstDay.isBefore(endDay)) {
+            if (start.isBefore(firstDay.atStartOfDay())) {
+                partial.addAll(partialDays.apply(start, firstDay.atStartOfDay()));
+            }
+            if (endDay.atStartOfDay().isBefore(end)) {
+                partial.addAll(partialDays.apply(endDay.atStartOfDay(), end));
+            }
+        } else {
+            // No whole day in the range
+            partial.addAll(partialDays.apply(start, end));
+            firstDay = endDay;
+        }
+        Map<Integer, Long> partialCents = new HashMap<>();
+        for (SellerTotal total : partial) {
+            if (total.sellerId() > afterId) {
+                partialCents.merge(total.sellerId(), cents(total.total()), Long::sum);
+            }
+        }
+
+        List<SellerTotal> totals = new ArrayList<>();
+        synchronized (this) {
+            int from = position(firstDay);
+            int to = position(endDay);
+            if (from < to) {
+                for (Map.Entry<Integer, SellerDays> seller : bySeller.entrySet()) {
+                    int sellerId = seller.getKey();
+                    if (sellerId <= afterId || !onCurrentShard(sellerId)) {
+                        continue;
+                    }
+                    Long partialAmount = partialCents.remove(sellerId);
+                    long count = seller.getValue().counts.sum(from, to);
+                    if (count <= 0 && partialAmount == null) {
+                        continue;
+                    }
+                    long cents = seller.getValue().cents.sum(from, to) + (partialAmount == null ? 0 : partialAmount);
+                    addIfBelow(totals, sellerId, cents, threshold);
+                }
+            }
+        }
+        partialCents.forEach((sellerId, cents) -> addIfBelow(totals, sellerId, cents, threshold));
+        totals.sort(Comparator.comparing(SellerTotal::sellerId));
+        return Optional.of(totals);
+    }
+
+    /**
+     * Reads the daily totals from every shard.
+     */
+    @Override
+    protected Runnable load() {
+        List<DayTotal> rows = new ArrayList<>();
+        for (int shard = 0; shard < dataSources.count(); shard++) {
+            CommittedTotals.query(
+                    new JdbcTemplate(dataSources.oltp(shard)),
+                    PeriodType.DAY,
+                    null,
+                    null,
+                    (sellerId, day, count, amount) -> rows.add(new DayTotal(sellerId, day.toLocalDate(), count,
+                            cents(amount)))
+            );
+        }
+
+        LocalDate today = LocalDate.now(clock);
+        LocalDate first = rows.stream().map(DayTotal::day).reduce(today, (a, b) -> a.isBefore(b) ? a : b);
+        LocalDate latest = rows.stream().map(DayTotal::day).reduce(today, (a, b) -> a.isAfter(b) ? a : b);
+        int size = (int) (latest.toEpochDay() - first.toEpochDay()) + 1 + DAYS_AHEAD;
+
+        Map<Integer, long[][]> values = new HashMap<>();
+        for (DayTotal row : rows) {
+            long[][] seller = values.computeIfAbsent(
+                    row.sellerId(),
+                    id -> new long[][]{new long[size], new long[size]}
+            );
+            int position = (int) (row.day().toEpochDay() - first.toEpochDay());
+            seller[0][position] += row.count();
+            seller[1][position] += row.cents();
+        }
+        Map<Integer, SellerDays> bySeller = new HashMap<>();
+        values.forEach((sellerId, seller) -> bySeller.put(
+                sellerId,
+                new SellerDays(FenwickTree.of(seller[0]), FenwickTree.of(seller[1]))
+        ));
+        return () -> {
+            this.bySeller = bySeller;
+            origin = first;
+            days = size;
+            log.debug("loaded the daily totals of {} sellers over {} days", bySeller.size(), size);
+        };
+    }
+
+    /**
+     * Re-reads the daily totals of the sellers over their changed days from every shard.
+     */
+    @Override
+    protected void refresh(Map<Integer, DayRange> sellers) {
+        if (!loaded()) {
+            return;
+        }
+        Map<Integer, DayRange> someDays = new HashMap<>(sellers);
+        someDays.values().removeIf(DayRange::isAll);
+        Map<Integer, DayRange> allDays = new HashMap<>(sellers);
+        allDays.keySet().removeAll(someDays.keySet());
+        reload(
+                () -> {
+                    List<DayTotal> rows = new ArrayList<>();
+                    read(rows, someDays.values().stream().reduce(DayRange::union).orElse(null), someDays);
+                    read(rows, DayRange.ALL, allDays);
+                    return () -> {
+                        sellers.forEach(this::clear);
+                        for (DayTotal row : rows) {
+                            if (sellers.get(row.sellerId()).contains(row.day())) {
+                                add(row.sellerId(), row.day(), row.count(), row.cents());
+                            }
+                        }
+                    };
+                },
+                delta -> sellers.containsKey(delta.sellerId())
+                        && (delta.removesSeller()
+                        || sellers.get(delta.sellerId()).contains(delta.transactionDate().toLocalDate()))
+        );
+    }
+
+    private void read(List<DayTotal> rows, DayRange days, Map<Integer, DayRange> sellers) {
+        if (sellers.isEmpty()) {
+            return;
+        }
+        for (int shard = 0; shard < dataSources.count(); shard++) {
+            CommittedTotals.query(
+                    new JdbcTemplate(dataSources.oltp(shard)),
+                    PeriodType.DAY,
+                    days.period(),
+                    sellers.keySet(),
+                    (sellerId, day, count, amount) -> rows.add(new DayTotal(sellerId, day.toLocalDate(), count,
+                            cents(amount)))
+            );
+        }
+    }
+
+    /**
+     * Writes the first day and the length of the trees, then the days with sales of every seller.
+     */
+    @Override
+    protected void write(DataOutput out) throws IOException {
+        out.writeLong(origin.toEpochDay());
+        out.writeInt(days);
+        out.writeInt(bySeller.size());
+        for (Map.Entry<Integer, SellerDays> seller : bySeller.entrySet()) {
+            long[] counts = seller.getValue().counts.values();
+            long[] cents = seller.getValue().cents.values();
+            int sold = 0;
+            for (int position = 0; position < counts.length; position++) {
+                if (counts[position] != 0 || cents[position] != 0) {
+                    sold++;
+                }
+            }
+            out.writeInt(seller.getKey());
+            out.writeInt(sold);
+            for (int position = 0; position < counts.length; position++) {
+                if (counts[position] != 0 || cents[position] != 0) {
+                    out.writeInt(position);
+                    out.writeLong(counts[position]);
+                    out.writeLong(cents[position]);
+                }
+            }
+        }
+    }
+
+    @Override
+    protected Runnable read(ByteBuffer in) {
+        LocalDate first = LocalDate.ofEpochDay(in.getLong());
+        int size = in.getInt();
+        int sellers = in.getInt();
+        Map<Integer, SellerDays> bySeller = new HashMap<>();
+        for (int i = 0; i < sellers; i++) {
+            int sellerId = in.getInt();
+            int sold = in.getInt();
+            long[] counts = new long[size];
+            long[] cents = new long[size];
+            for (int j = 0; j < sold; j++) {
+                int position = in.getInt();
+                counts[position] = in.getLong();
+                cents[position] = in.getLong();
+            }
+            bySeller.put(sellerId, new SellerDays(FenwickTree.of(counts), FenwickTree.of(cents)));
+        }
+        return () -> {
+            this.bySeller = bySeller;
+            origin = first;
+            days = size;
+        };
+    }
+
+    @Override
+    protected Collection<Integer> sellerIds() {
+        return bySeller.keySet();
+    }
+
+    @Override
+    protected void applyDelta(TransactionDelta delta) {
+        if (delta.removesSeller()) {
+            bySeller.remove(delta.sellerId());
+            return;
+        }
+        if (origin == null) {
+            // Applied again once the first reconciliation has read the totals
+            return;
+        }
+        add(delta.sellerId(), delta.transactionDate().toLocalDate(), delta.count(), cents(delta.amount()));
+    }
+
+    private void add(int sellerId, LocalDate day, long count, long cents) {
+        long offset = day.toEpochDay() - origin.toEpochDay();
+        if (offset < 0 || offset >= days) {
+            cover(day);
+            offset = day.toEpochDay() - origin.toEpochDay();
+        }
+        int position = (int) offset;
+        SellerDays seller = bySeller.computeIfAbsent(
+                sellerId,
+                id -> new SellerDays(new FenwickTree(days), new FenwickTree(days))
+        );
+        seller.counts.add(position, count);
+        seller.cents.add(position, cents);
+    }
+
+    /**
+     * Zeroes the totals of the seller over the days.
+     */
+    private void clear(int sellerId, DayRange range) {
+        if (range.isAll()) {
+            bySeller.remove(sellerId);
+            return;
+        }
+        SellerDays seller = bySeller.get(sellerId);
+        if (seller == null) {
+            return;
+        }
+        int from = position(range.first());
+        int to = position(range.last().plusDays(1));
+        for (int position = from; position < to; position++) {
+            seller.counts.add(position, -seller.counts.sum(position, position + 1));
+            seller.cents.add(position, -seller.cents.sum(position, position + 1));
+        }
+    }
+
+    /**
+     * Grows the trees of every seller so that they cover the day, at least doubling them.
+     */
+    private void cover(LocalDate day) {
+        LocalDate first = day.isBefore(origin) ? day : origin;
+        LocalDate end = origin.plusDays(days);
+        if (!day.isBefore(end)) {
+            end = day.plusDays(1 + DAYS_AHEAD);
+        }
+        int grown = Math.max(2 * days, (int) (end.toEpochDay() - first.toEpochDay()));
+        int shift = (int) (origin.toEpochDay() - first.toEpochDay());
+        for (Map.Entry<Integer, SellerDays> seller : bySeller.entrySet()) {
+            seller.setValue(new SellerDays(
+                    grow(seller.getValue().counts, shift, grown),
+                    grow(seller.getValue().cents, shift, grown)
+            ));
+        }
+        origin = first;
+        days = grown;
+    }
+
+    private static FenwickTree grow(FenwickTree tree, int shift, int size) {
+        long[] values = new long[size];
+        System.arraycopy(tree.values(), 0, values, shift, tree.size());
+        return FenwickTree.of(values);
+    }
+
+    private int position(LocalDate day) {
+        long offset = day.toEpochDay() - origin.toEpochDay();
+        return Math.clamp(offset, 0, days);
+    }
+
+    private boolean onCurrentShard(int sellerId) {
+        return directory == null || directory.shardOfSeller(sellerId) == ShardContext.current();
+    }
+
+    private static void addIfBelow(List<SellerTotal> totals, int sellerId, long cents, BigDecimal threshold) {
+        BigDecimal total = BigDecimal.valueOf(cents, 2);
+        if (total.compareTo(threshold) < 0) {
+            totals.add(new SellerTotal(sellerId, total));
+        }
+    }
+
+    /**
+     * Amount in minor units, rounded like the {@code amount} column rounds it.
+     */
+    private static long cents(BigDecimal amount) {
+        return amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    private record DayTotal(int sellerId, LocalDate day, long count, long cents) {}
+
+    private record SellerDays(FenwickTree counts, FenwickTree cents) {}
+}
@@ -0,0 +1,27 @@
+package ru.nsu.fit.mihanizzm.litecrm.totals;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Daily totals of every seller kept in memory by {@link DailyTotals} for the sellers with max sum query.
+ *
+ * @param enabled           whether the totals are kept; without them every range is summed up in the database
+ * @param catchUpInterval   delay between two re-reads of the sellers and days changed by other instances, as told by
+ *                          the cache invalidation events
+ * @param reconcileInterval delay between two full reloads of the totals from the read tables, which picks up the
+ *                          changes whose events were lost
+ */
+@ConfigurationProperties(prefix = "litecrm.daily-totals")
+public record DailyTotalsProperties(
+        @DefaultValue("true")
+        boolean enabled,
+
+        @DefaultValue("1s")
+        Duration catchUpInterval,
+
+        @DefaultValue("1h")
+        Duration reconcileInterval
+) {}
@@ -0,0 +1,70 @@
+package ru.nsu.fit.mihanizzm.litecrm.totals;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Component;
+import ru.nsu.fit.mihanizzm.litecrm.seed.SeedRunner;
+
+import java.time.Instant;
+
+/**
+ * Loads the {@link DailyTotals} once the application is ready, then catches them up and reconciles them with fixed
+ * delays.
+ */
+@Slf4j
+@Component
+@Profile("!" + SeedRunner.PROFILE)
+@ConditionalOnProperty(prefix = "litecrm.daily-totals", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class DailyTotalsScheduler implements AutoCloseable {
+    private final DailyTotals dailyTotals;
+    private final DailyTotalsProperties properties;
+    private final ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+
+    public DailyTotalsScheduler(DailyTotals dailyTotals, DailyTotalsProperties properties) {
+        this.dailyTotals = dailyTotals;
+        this.properties = properties;
+        scheduler.setThreadNamePrefix("daily-totals-");
+        scheduler.initialize();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        // Restored from a snapshot, the totals are caught up already
+        scheduler.scheduleWithFixedDelay(
+                this::reconcile,
+                dailyTotals.loaded() ? Instant.now().plus(properties.reconcileInterval()) : Instant.now(),
+                properties.reconcileInterval()
+        );
+        scheduler.scheduleWithFixedDelay(this::catchUp, properties.catchUpInterval());
+        log.info(
+                "keeping daily totals in memory, catching them up every {} and reconciling them every {}",
+                properties.catchUpInterval(),
+                properties.reconcileInterval()
+        );
+    }
+
+    private void catchUp() {
+        try {
+            dailyTotals.catchUp();
+        } catch (RuntimeException e) {
+            log.warn("catching up the daily totals failed, retrying on the next run", e);
+        }
+    }
+
+    private void reconcile() {
+        try {
+            dailyTotals.reconcile();
+        } catch (RuntimeException e) {
+            log.warn("reconciling the daily totals failed, retrying on the next run", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdown();
+    }
+}
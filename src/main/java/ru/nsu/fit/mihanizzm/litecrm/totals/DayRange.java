@@ -0,0 +1,38 @@
+package ru.nsu.fit.mihanizzm.litecrm.totals;
+
+import ru.nsu.fit.mihanizzm.litecrm.models.Period;
+
+import java.time.LocalDate;
+
+/**
+ * Days {@code [first, last]} of a seller's changed totals; {@link #ALL} stands for every day.
+ */
+public record DayRange(LocalDate first, LocalDate last) {
+    public static final DayRange ALL = new DayRange(LocalDate.MIN, LocalDate.MAX);
+
+    public static DayRange of(LocalDate day) {
+        return new DayRange(day, day);
+    }
+
+    public boolean isAll() {
+        return equals(ALL);
+    }
+
+    public boolean contains(LocalDate day) {
+        return !day.isBefore(first) && !day.isAfter(last);
+    }
+
+    public DayRange union(DayRange other) {
+        return new DayRange(
+                first.isBefore(other.first) ? first : other.first,
+                last.isAfter(other.last) ? last : other.last
+        );
+    }
+
+    /**
+     * The range as a period, or {@code null} for every day.
+     */
+    public Period period() {
+        return isAll() ? null : new Period(first.atStartOfDay(), last.plusDays(1).atStartOfDay());
+    }
+}
@@ -0,0 +1,71 @@
+package ru.nsu.fit.mihanizzm.litecrm.totals;
+
+/**
+ * Binary indexed tree over {@code long} values: adds to a position and sums a range of positions in O(log n).
+ * Positions are zero-based.
+ */
+final class FenwickTree {
+    /** One-based; {@code tree[i]} holds the sum of the positions {@code (i - lowbit(i), i]}. */
+    private final long[] tree;
+
+    FenwickTree(int size) {
+        this.tree = new long[size + 1];
+    }
+
+    /**
+     * Builds the tree over the values in O(n).
+     */
+    static FenwickTree of(long[] values) {
+        FenwickTree fenwick = new FenwickTree(values.length);
+        long[] tree = fenwick.tree;
+        System.arraycopy(values, 0, tree, 1, values.length);
+        for (int i = 1; i < tree.length; i++) {
+            int parent = i + (i & -i);
+            if (parent < tree.length) {
+                tree[parent] += tree[i];
+            }
+        }
+        return fenwick;
+    }
+
+    int size() {
+        return tree.length - 1;
+    }
+
+    void add(int position, long delta) {
+        for (int i = position + 1; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    /**
+     * Sum of the positions {@code [from, to)}.
+     */
+    long sum(int from, int to) {
+        return prefixSum(to) - prefixSum(from);
+    }
+
+    /**
+     * Value of every position, in O(n); the reverse of {@link #of(long[])}.
+     */
+    long[] values() {
+        long[] values = tree.clone();
+        for (int i = values.length - 1; i > 0; i--) {
+            int parent = i + (i & -i);
+            if (parent < values.length) {
+                values[parent] -= tree[i];
+            }
+        }
+        long[] result = new long[size()];
+        System.arraycopy(values, 1, result, 0, result.length);
+        return result;
+    }
+
+    private long prefixSum(int end) {
+        long sum = 0;
+        for (int i = end; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+}
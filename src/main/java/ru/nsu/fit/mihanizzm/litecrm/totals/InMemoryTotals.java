@@ -0,0 +1,253 @@
+package ru.nsu.fit.mihanizzm.litecrm.totals;
+
+import lombok.extern.slf4j.Slf4j;
+import ru.nsu.fit.mihanizzm.litecrm.cache.ChangeEvent;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Totals of sellers kept in memory, changed by the deltas of this instance's writes. The sellers and days changed by
+ * any instance are collected from the change events and re-read by {@link #catchUp()}; {@link #reconcile()} reloads
+ * everything, on start and then rarely, for the changes whose events were lost. A reload reads while deltas keep
+ * coming: the deltas applied during the read are applied again on top of what was read. One committed right before
+ * the read started may be counted twice until that seller is re-read.
+ * <p>
+ * Instead of the first reload, the totals can be restored from a snapshot written by {@link #snapshot()}, and then
+ * caught up on the sellers changed since.
+ * <p>
+ * The totals are guarded by the monitor of the instance; subclasses read them under it too.
+ */
+@Slf4j
+public abstract class InMemoryTotals implements TransactionDeltaListener {
+    private final boolean enabled;
+    /** Deltas applied during every reload in progress. */
+    private final List<List<TransactionDelta>> reloads = new ArrayList<>();
+    /** Serializes the reloads, so that an older read isn't installed over a newer one. */
+    private final Object reloadLock = new Object();
+    private Map<Integer, DayRange> changed = new HashMap<>();
+    private boolean changedAll;
+    private boolean loaded;
+
+    protected InMemoryTotals(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Override
+    public final synchronized void apply(List<TransactionDelta> deltas) {
+        if (!enabled) {
+            return;
+        }
+        deltas.forEach(this::applyDelta);
+        for (List<TransactionDelta> reload : reloads) {
+            reload.addAll(deltas);
+        }
+    }
+
+    @Override
+    public final synchronized void changed(Collection<ChangeEvent> events) {
+        if (!enabled) {
+            return;
+        }
+        for (ChangeEvent event : events) {
+            switch (event.type()) {
+                case ALL -> changedAll = true;
+                case SELLER -> changed.put(event.id(), DayRange.ALL);
+                case TRANSACTION -> changed.merge(event.sellerId(), DayRange.of(event.day()), DayRange::union);
+            }
+        }
+    }
+
+    /**
+     * Reloads every total from every shard.
+     */
+    public void reconcile() {
+        if (!enabled) {
+            return;
+        }
+        synchronized (reloadLock) {
+            synchronized (this) {
+                // The reload reads them anyway
+                changed = new HashMap<>();
+                changedAll = false;
+            }
+            long startNanos = System.nanoTime();
+            reload(
+                    () -> {
+                        Runnable install = load();
+                        return () -> {
+                            install.run();
+                            loaded = true;
+                        };
+                    },
+                    delta -> true
+            );
+            log.debug(
+                    "reloaded the {} in {} ms",
+                    getClass().getSimpleName(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos)
+            );
+        }
+    }
+
+    /**
+     * Re-reads the totals of the sellers and days changed since the last call, or reloads everything after a full
+     * flush event.
+     */
+    public void catchUp() {
+        if (!enabled) {
+            return;
+        }
+        Map<Integer, DayRange> sellers;
+        synchronized (reloadLock) {
+            synchronized (this) {
+                if (changedAll) {
+                    sellers = null;
+                } else {
+                    sellers = changed;
+                    changed = new HashMap<>();
+                }
+            }
+            if (sellers != null && !sellers.isEmpty()) {
+                refresh(sellers);
+            }
+        }
+        if (sellers == null) {
+            reconcile();
+        }
+    }
+
+    /**
+     * Whether the totals have been reloaded or restored at least once.
+     */
+    public final synchronized boolean loaded() {
+        return loaded;
+    }
+
+    /**
+     * Encodes the totals for a snapshot, holding the monitor.
+     *
+     * @return the encoded totals, or {@code null} if they aren't kept or haven't been loaded yet
+     */
+    public final synchronized byte[] snapshot() {
+        if (!enabled || !loaded) {
+            return null;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try {
+            write(new DataOutputStream(bytes));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Installs totals decoded from a snapshot, unless they have been loaded already. The deltas applied before are
+     * dropped: the caller catches up on every seller changed since the snapshot.
+     *
+     * @return whether the totals were installed; {@code false} as well if the snapshot no longer fits them
+     * @throws RuntimeException if the snapshot can't be decoded
+     */
+    public final boolean restore(ByteBuffer in) {
+        if (!enabled) {
+            return false;
+        }
+        synchronized (reloadLock) {
+            if (loaded()) {
+                return false;
+            }
+            Runnable install = read(in);
+            if (install == null) {
+                return false;
+            }
+            synchronized (this) {
+                install.run();
+                loaded = true;
+            }
+            return true;
+        }
+    }
+
+    /**
+     * IDs of the sellers with totals.
+     */
+    public final synchronized Set<Integer> sellers() {
+        return new HashSet<>(sellerIds());
+    }
+
+    protected boolean enabled() {
+        return enabled;
+    }
+
+    /**
+     * Reads totals and installs them, then applies the deltas the read may have missed again.
+     *
+     * @param read     reads the totals without holding the monitor, returns the action installing them
+     * @param affected deltas applied during the read that the installed totals replace
+     */
+    protected final void reload(Supplier<Runnable> read, Predicate<TransactionDelta> affected) {
+        List<TransactionDelta> applied = new ArrayList<>();
+        synchronized (this) {
+            reloads.add(applied);
+        }
+        Runnable install = null;
+        try {
+            install = read.get();
+        } finally {
+            synchronized (this) {
+                reloads.removeIf(reload -> reload == applied);
+                if (install != null) {
+                    install.run();
+                    applied.stream().filter(affected).forEach(this::applyDelta);
+                }
+            }
+        }
+    }
+
+    /**
+     * Applies one delta, holding the monitor.
+     */
+    protected abstract void applyDelta(TransactionDelta delta);
+
+    /**
+     * Reads every total, see {@link #reload}.
+     */
+    protected abstract Runnable load();
+
+    /**
+     * Replaces the totals of the sellers over their changed days with the committed ones through {@link #reload}.
+     */
+    protected abstract void refresh(Map<Integer, DayRange> sellers);
+
+    /**
+     * Encodes the totals, holding the monitor.
+     */
+    protected abstract void write(DataOutput out) throws IOException;
+
+    /**
+     * Decodes totals written by {@link #write} without holding the monitor.
+     *
+     * @return the action installing them, or {@code null} if they are out of date in a way a catch-up can't fix
+     */
+    protected abstract Runnable read(ByteBuffer in);
+
+    /**
+     * IDs of the sellers with totals, holding the monitor.
+     */
+    protected abstract Collection<Integer> sellerIds();
+}
@@ -0,0 +1,113 @@
+package ru.nsu.fit.mihanizzm.litecrm.totals;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+/**
+ * In-memory totals at one point in time, stored as a binary file: a header with the format version, the time of the
+ * snapshot and the outbox event ID of every shard up to which the totals are known to be complete, then the encoded
+ * totals of every {@link InMemoryTotals}, then a CRC32C of all of the above.
+ *
+ * @param watermarks changes recorded by outbox events after these, one per shard, may not be reflected in the totals
+ * @param sections   the output of {@link InMemoryTotals#snapshot()} by the name of the totals
+ */
+record TotalsSnapshot(long takenAtMillis, long[] watermarks, Map<String, ByteBuffer> sections) {
+    private static final int MAGIC = 0x4C43_5453;
+    private static final short VERSION = 1;
+
+    /**
+     * Writes the snapshot through a file channel and forces it to disk.
+     */
+    void write(Path file) throws IOException {
+        int length = Integer.BYTES + Short.BYTES + Long.BYTES + Integer.BYTES + watermarks.length * Long.BYTES
+                + Integer.BYTES;
+        for (Map.Entry<String, ByteBuffer> section : sections.entrySet()) {
+            length += Integer.BYTES + section.getKey().getBytes(StandardCharsets.UTF_8).length
+                    + Integer.BYTES + section.getValue().remaining();
+        }
+        ByteBuffer content = ByteBuffer.allocate(length)
+                .putInt(MAGIC)
+                .putShort(VERSION)
+                .putLong(takenAtMillis)
+                .putInt(watermarks.length);
+        for (long watermark : watermarks) {
+            content.putLong(watermark);
+        }
+        content.putInt(sections.size());
+        for (Map.Entry<String, ByteBuffer> section : sections.entrySet()) {
+            byte[] name = section.getKey().getBytes(StandardCharsets.UTF_8);
+            content.putInt(name.length).put(name);
+            content.putInt(section.getValue().remaining()).put(section.getValue().duplicate());
+        }
+        content.flip();
+        CRC32C crc = new CRC32C();
+        crc.update(content.duplicate());
+        ByteBuffer checksum = ByteBuffer.allocate(Integer.BYTES).putInt(0, (int) crc.getValue());
+
+        try (FileChannel channel = FileChannel.open(
+                file,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE
+        )) {
+            while (content.hasRemaining() || checksum.hasRemaining()) {
+                channel.write(new ByteBuffer[] {content, checksum});
+            }
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Maps the file and reads the snapshot from it. The sections are slices of the mapping.
+     *
+     * @throws IOException if the file is damaged or of another format version
+     */
+    static TotalsSnapshot read(Path file) throws IOException {
+        MappedByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        int length = mapped.capacity() - Integer.BYTES;
+        if (length < Integer.BYTES + Short.BYTES) {
+            throw new IOException(file + " is truncated");
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(mapped.slice(0, length));
+        if (mapped.getInt(length) != (int) crc.getValue()) {
+            throw new IOException(file + " is damaged, its checksum doesn't match");
+        }
+        ByteBuffer in = mapped.slice(0, length);
+        if (in.getInt() != MAGIC || in.getShort() != VERSION) {
+            throw new IOException(file + " is not a totals snapshot of version " + VERSION);
+        }
+
+        try {
+            long takenAtMillis = in.getLong();
+            long[] watermarks = new long[in.getInt()];
+            for (int i = 0; i < watermarks.length; i++) {
+                watermarks[i] = in.getLong();
+            }
+            int sectionCount = in.getInt();
+            Map<String, ByteBuffer> sections = new LinkedHashMap<>();
+            for (int i = 0; i < sectionCount; i++) {
+                byte[] name = new byte[in.getInt()];
+                in.get(name);
+                int sectionLength = in.getInt();
+                sections.put(new String(name, StandardCharsets.UTF_8), in.slice(in.position(), sectionLength));
+                in.position(in.position() + sectionLength);
+            }
+            return new TotalsSnapshot(takenAtMillis, watermarks, sections);
+        } catch (RuntimeException e) {
+            // A checksum collision or a bug; either way the file can't be used
+            throw new IOException(file + " can't be parsed", e);
+        }
+    }
+}
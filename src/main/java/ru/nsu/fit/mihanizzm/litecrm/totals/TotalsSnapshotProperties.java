@@ -0,0 +1,36 @@
+package ru.nsu.fit.mihanizzm.litecrm.totals;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Snapshots of the in-memory totals taken by {@link TotalsSnapshotter}.
+ *
+ * @param enabled       whether the totals are saved periodically and on shutdown, and restored on startup instead of
+ *                      being reloaded
+ * @param directory     directory of the snapshot files; every instance needs a directory of its own
+ * @param interval      delay between two snapshots
+ * @param catchUpMargin sellers changed by outbox events recorded this long before a snapshot are still re-read after
+ *                      restoring it, which covers transactions that commit long after writing their event
+ * @param retained      snapshot files kept; an older one is restored if the latest is damaged
+ */
+@ConfigurationProperties(prefix = "litecrm.totals-snapshot")
+public record TotalsSnapshotProperties(
+        @DefaultValue("true")
+        boolean enabled,
+
+        @DefaultValue("snapshots")
+        Path directory,
+
+        @DefaultValue("5m")
+        Duration interval,
+
+        @DefaultValue("1m")
+        Duration catchUpMargin,
+
+        @DefaultValue("2")
+        int retained
+) {}
@@ -0,0 +1,315 @@
+package ru.nsu.fit.mihanizzm.litecrm.totals;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+import ru.nsu.fit.mihanizzm.litecrm.cache.CacheInvalidationListener;
+import ru.nsu.fit.mihanizzm.litecrm.cache.ChangeEvent;
+import ru.nsu.fit.mihanizzm.litecrm.seed.SeedRunner;
+import ru.nsu.fit.mihanizzm.litecrm.sharding.ShardDataSources;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Saves the {@link InMemoryTotals} to a {@link TotalsSnapshot} periodically and on shutdown, and restores the latest
+ * snapshot on startup, so that a restarted instance doesn't reload every total from the read tables.
+ * <p>
+ * Every write to a transaction records an outbox event, whatever the write path, so the changes made while the
+ * instance was down are caught up by event ID: the sellers the projector marked with a later event in
+ * {@code app.seller_stats}, the sellers of the events it hasn't applied yet, and the restored sellers whose stats are
+ * gone are re-read. The watermark of a shard is the last event ID sampled at least the catch-up margin before the
+ * snapshot, since an event may commit long after it took its ID.
+ */
+@Slf4j
+@Component
+@Profile("!" + SeedRunner.PROFILE)
+@ConditionalOnProperty(prefix = "litecrm.totals-snapshot", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class TotalsSnapshotter implements AutoCloseable {
+    private static final String FILE_PREFIX = "totals-";
+    private static final String FILE_SUFFIX = ".snapshot";
+    private static final Duration SUBSCRIBE_TIMEOUT = Duration.ofSeconds(10);
+
+    private static final String LAST_EVENT_ID = "SELECT CASE WHEN is_called THEN last_value ELSE 0 END " +
+            "FROM app.transaction_event_id_seq";
+    private static final String CHANGED_SELLERS = "SELECT seller_id FROM app.seller_stats WHERE last_event_id > ? " +
+            "UNION SELECT seller_id FROM app.transaction_event WHERE id > ? " +
+            "UNION SELECT previous_seller_id FROM app.transaction_event " +
+            "WHERE id > ? AND previous_seller_id IS NOT NULL";
+    private static final String SELLERS_WITHOUT_STATS = "SELECT id FROM unnest(?) AS s(id) " +
+            "WHERE NOT EXISTS (SELECT 1 FROM app.seller_stats WHERE seller_id = s.id)";
+
+    private final List<InMemoryTotals> totals;
+    private final ShardDataSources dataSources;
+    private final ObjectProvider<CacheInvalidationListener> listener;
+    private final TotalsSnapshotProperties properties;
+    private final ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+    /** Last event IDs of every shard sampled since the oldest one still usable as a watermark, the latest last. */
+    private final Deque<Sample> samples = new ArrayDeque<>();
+
+    public TotalsSnapshotter(
+            List<InMemoryTotals> totals,
+            ShardDataSources dataSources,
+            ObjectProvider<CacheInvalidationListener> listener,
+            TotalsSnapshotProperties properties
+    ) {
+        this.totals = List.copyOf(totals);
+        this.dataSources = dataSources;
+        this.listener = listener;
+        this.properties = properties;
+        scheduler.setThreadNamePrefix("totals-snapshot-");
+        scheduler.initialize();
+    }
+
+    /**
+     * Runs before the totals are first reconciled, which the restored ones skip.
+     */
+    @EventListener(ApplicationStartedEvent.class)
+    public void restore() {
+        // Changes announced once the listener is subscribed are caught up by the totals themselves
+        CacheInvalidationListener invalidations = listener.getIfAvailable();
+        try {
+            if (invalidations != null && !invalidations.awaitSubscribed(SUBSCRIBE_TIMEOUT)) {
+                log.warn("not restoring the totals snapshot, the invalidation listener isn't subscribed");
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        long startNanos = System.nanoTime();
+        for (Path file : snapshotFiles()) {
+            TotalsSnapshot snapshot;
+            try {
+                snapshot = TotalsSnapshot.read(file);
+            } catch (IOException e) {
+                log.warn("skipping totals snapshot {}", file, e);
+                continue;
+            }
+            if (snapshot.watermarks().length != dataSources.count()) {
+                log.warn("skipping totals snapshot {}, it was taken with {} shards", file, snapshot.watermarks().length);
+                continue;
+            }
+
+            List<InMemoryTotals> restored = totals.stream()
+                    .filter(t -> restore(t, snapshot.sections().get(name(t))))
+                    .toList();
+            if (restored.isEmpty()) {
+                return;
+            }
+            Set<Integer> changed;
+            try {
+                changed = changedSince(snapshot.watermarks(), restored);
+            } catch (RuntimeException e) {
+                restored.forEach(InMemoryTotals::reconcile);
+                log.warn("reloaded the restored totals, couldn't catch up on the changes since", e);
+                return;
+            }
+            List<ChangeEvent> events = changed.stream().map(ChangeEvent::seller).toList();
+            for (InMemoryTotals t : restored) {
+                t.changed(events);
+                t.catchUp();
+            }
+            log.info(
+                    "restored {} from {} taken at {}, caught up on {} sellers in {} ms",
+                    restored.stream().map(TotalsSnapshotter::name).toList(),
+                    file.getFileName(),
+                    Instant.ofEpochMilli(snapshot.takenAtMillis()),
+                    changed.size(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos)
+            );
+            return;
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        sampleQuietly();
+        scheduler.scheduleWithFixedDelay(
+                this::saveQuietly,
+                Instant.now().plus(properties.interval()),
+                properties.interval()
+        );
+    }
+
+    /**
+     * Writes a snapshot of the loaded totals and deletes the snapshots beyond the retained ones. Nothing is written
+     * until event IDs have been sampled for longer than the catch-up margin.
+     */
+    public void save() throws IOException {
+        long startNanos = System.nanoTime();
+        sample();
+        long takenAtMillis = System.currentTimeMillis();
+        long[] watermarks = watermarks(takenAtMillis - properties.catchUpMargin().toMillis());
+        if (watermarks == null) {
+            return;
+        }
+
+        Map<String, ByteBuffer> sections = new LinkedHashMap<>();
+        for (InMemoryTotals t : totals) {
+            byte[] encoded = t.snapshot();
+            if (encoded != null) {
+                sections.put(name(t), ByteBuffer.wrap(encoded));
+            }
+        }
+        if (sections.isEmpty()) {
+            return;
+        }
+
+        Files.createDirectories(properties.directory());
+        Path file = properties.directory().resolve(String.format("%s%020d%s", FILE_PREFIX, takenAtMillis, FILE_SUFFIX));
+        Path temporary = properties.directory().resolve(file.getFileName() + ".tmp");
+        new TotalsSnapshot(takenAtMillis, watermarks, sections).write(temporary);
+        Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE);
+
+        List<Path> files = snapshotFiles();
+        for (Path old : files.subList(Math.min(Math.max(properties.retained(), 1), files.size()), files.size())) {
+            Files.deleteIfExists(old);
+        }
+        log.info(
+                "saved {} to {} up to events {} in {} ms",
+                sections.keySet(),
+                file.getFileName(),
+                Arrays.toString(watermarks),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos)
+        );
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdown();
+        saveQuietly();
+    }
+
+    private void saveQuietly() {
+        try {
+            save();
+        } catch (IOException | RuntimeException e) {
+            log.warn("couldn't save a totals snapshot", e);
+        }
+    }
+
+    private void sampleQuietly() {
+        try {
+            sample();
+        } catch (RuntimeException e) {
+            log.warn("couldn't sample the last outbox event IDs", e);
+        }
+    }
+
+    private void sample() {
+        long[] lastEventIds = new long[dataSources.count()];
+        for (int shard = 0; shard < lastEventIds.length; shard++) {
+            Long lastEventId = new JdbcTemplate(dataSources.oltp(shard)).queryForObject(LAST_EVENT_ID, Long.class);
+            lastEventIds[shard] = lastEventId == null ? 0 : lastEventId;
+        }
+        synchronized (samples) {
+            samples.addLast(new Sample(System.currentTimeMillis(), lastEventIds));
+        }
+    }
+
+    /**
+     * The latest sample taken before the cutoff, dropping the older ones.
+     *
+     * @return {@code null} if there is none
+     */
+    private long[] watermarks(long cutoffMillis) {
+        synchronized (samples) {
+            Sample watermark = null;
+            while (!samples.isEmpty() && samples.peekFirst().takenAtMillis() <= cutoffMillis) {
+                watermark = samples.pollFirst();
+            }
+            if (watermark == null) {
+                return null;
+            }
+            samples.addFirst(watermark);
+            return watermark.lastEventIds();
+        }
+    }
+
+    private static boolean restore(InMemoryTotals totals, ByteBuffer section) {
+        if (section == null) {
+            return false;
+        }
+        try {
+            return totals.restore(section.duplicate());
+        } catch (RuntimeException e) {
+            log.warn("couldn't restore the {} from the snapshot", name(totals), e);
+            return false;
+        }
+    }
+
+    /**
+     * Sellers changed on any shard after its watermark, and the restored sellers left without stats on every shard.
+     */
+    private Set<Integer> changedSince(long[] watermarks, List<InMemoryTotals> restored) {
+        Set<Integer> changed = new HashSet<>();
+        Set<Integer> withoutStats = new HashSet<>();
+        restored.forEach(t -> withoutStats.addAll(t.sellers()));
+        for (int shard = 0; shard < watermarks.length; shard++) {
+            JdbcTemplate jdbc = new JdbcTemplate(dataSources.oltp(shard));
+            long watermark = watermarks[shard];
+            changed.addAll(jdbc.queryForList(CHANGED_SELLERS, Integer.class, watermark, watermark, watermark));
+            if (!withoutStats.isEmpty()) {
+                withoutStats.retainAll(jdbc.queryForList(
+                        SELLERS_WITHOUT_STATS,
+                        Integer.class,
+                        (Object) withoutStats.toArray(Integer[]::new)
+                ));
+            }
+        }
+        changed.addAll(withoutStats);
+        return changed;
+    }
+
+    private static String name(InMemoryTotals totals) {
+        return ClassUtils.getUserClass(totals).getSimpleName();
+    }
+
+    /**
+     * Snapshot files, the latest first.
+     */
+    private List<Path> snapshotFiles() {
+        if (!Files.isDirectory(properties.directory())) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(properties.directory())) {
+            return files
+                    .filter(file -> {
+                        String name = file.getFileName().toString();
+                        return name.startsWith(FILE_PREFIX) && name.endsWith(FILE_SUFFIX);
+                    })
+                    .sorted(Comparator.comparing((Path file) -> file.getFileName().toString()).reversed())
+                    .toList();
+        } catch (IOException e) {
+            log.warn("couldn't list the totals snapshots in {}", properties.directory(), e);
+            return List.of();
+        }
+    }
+
+    private record Sample(long takenAtMillis, long[] lastEventIds) {}
+}
@@ -0,0 +1,50 @@
+package ru.nsu.fit.mihanizzm.litecrm.totals;
+
+import ru.nsu.fit.mihanizzm.litecrm.models.TransactionEvent;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Change of the totals of a seller on the day of {@code transactionDate} made by a committed write; a delta without
+ * a date removes the seller.
+ *
+ * @param count transactions added, or removed if negative
+ */
+public record TransactionDelta(int sellerId, LocalDateTime transactionDate, long count, BigDecimal amount) {
+    public static TransactionDelta created(int sellerId, long count, BigDecimal amount, LocalDateTime transactionDate) {
+        return new TransactionDelta(sellerId, transactionDate, count, amount);
+    }
+
+    public static TransactionDelta removed(int sellerId) {
+        return new TransactionDelta(sellerId, null, 0, BigDecimal.ZERO);
+    }
+
+    /**
+     * Deltas of an outbox event; a moved transaction changes the totals of both of its sellers.
+     */
+    public static List<TransactionDelta> of(TransactionEvent event) {
+        return switch (event.getType()) {
+            case CREATED -> List.of(created(event.getSellerId(), 1, event.getAmount(), event.getTransactionDate()));
+            case AMOUNT_CHANGED -> List.of(new TransactionDelta(
+                    event.getSellerId(),
+                    event.getTransactionDate(),
+                    0,
+                    event.getAmount().subtract(event.getPreviousAmount())
+            ));
+            case MOVED -> List.of(
+                    new TransactionDelta(event.getPreviousSellerId(), event.getTransactionDate(), -1,
+                            event.getPreviousAmount().negate()),
+                    created(event.getSellerId(), 1, event.getAmount(), event.getTransactionDate())
+            );
+            case DELETED -> List.of(new TransactionDelta(event.getSellerId(), event.getTransactionDate(), -1,
+                    event.getAmount().negate()));
+            case SELLER_CHANGED -> List.of(removed(event.getSellerId()));
+        };
+    }
+
+    public boolean removesSeller() {
+        return transactionDate == null;
+    }
+}
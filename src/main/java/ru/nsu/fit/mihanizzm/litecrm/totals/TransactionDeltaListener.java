@@ -0,0 +1,23 @@
+package ru.nsu.fit.mihanizzm.litecrm.totals;
+
+import ru.nsu.fit.mihanizzm.litecrm.cache.ChangeEvent;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * State derived from the transaction totals and kept in memory, told about every change of the totals by
+ * {@link TransactionDeltas}.
+ */
+public interface TransactionDeltaListener {
+    /**
+     * Applies the deltas of a write committed by this instance; called on the committing thread.
+     */
+    void apply(List<TransactionDelta> deltas);
+
+    /**
+     * Notes the sellers and days changed by a committed write of any instance, published on the cache invalidation
+     * channel. Called on the committing thread or the listener thread, so it mustn't touch the database.
+     */
+    void changed(Collection<ChangeEvent> events);
+}
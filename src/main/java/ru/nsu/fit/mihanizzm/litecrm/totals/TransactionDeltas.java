@@ -0,0 +1,54 @@
+package ru.nsu.fit.mihanizzm.litecrm.totals;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.nsu.fit.mihanizzm.litecrm.cache.CacheInvalidator;
+import ru.nsu.fit.mihanizzm.litecrm.models.TransactionEvent;
+
+import java.util.List;
+
+/**
+ * Passes the changes of the transaction totals made by this instance to every {@link TransactionDeltaListener} once
+ * the surrounding transaction commits, or right away outside a transaction. Write sites publish every change here
+ * once, whatever keeps totals in memory. The change events of every instance, this one included, are passed on from
+ * the {@link CacheInvalidator} too, so that the listeners can catch up with the writes of other instances.
+ */
+@Component
+public class TransactionDeltas {
+    private final List<TransactionDeltaListener> listeners;
+
+    public TransactionDeltas(List<TransactionDeltaListener> listeners, CacheInvalidator invalidator) {
+        this.listeners = List.copyOf(listeners);
+        invalidator.addListener(events -> this.listeners.forEach(listener -> listener.changed(events)));
+    }
+
+    public void record(TransactionEvent event) {
+        publish(TransactionDelta.of(event));
+    }
+
+    /**
+     * Publishes the deltas of writes that don't go through {@link TransactionEvent} entities.
+     */
+    public void publish(List<TransactionDelta> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    dispatch(deltas);
+                }
+            });
+        } else {
+            dispatch(deltas);
+        }
+    }
+
+    private void dispatch(List<TransactionDelta> deltas) {
+        for (TransactionDeltaListener listener : listeners) {
+            listener.apply(deltas);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package ru.nsu.fit.mihanizzm.litecrm.tracing;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import lombok.RequiredArgsConstructor;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Observes every JDBC statement as {@code litecrm.jdbc}, tagged with the SQL operation. The statement text
+ * and, for updates, the affected row count are attached as high-cardinality attributes.
+ */
+@RequiredArgsConstructor
+public class JdbcObservationListener implements QueryExecutionListener {
+    public static final String OBSERVATION_NAME = "litecrm.jdbc";
+
+    private static final String OBSERVATION = JdbcObservationListener.class.getName() + ".observation";
+    private static final int MAX_STATEMENT_LENGTH = 2000;
+
+    private final Supplier<ObservationRegistry> observationRegistry;
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        String sql = queryInfoList.stream().map(QueryInfo::getQuery).collect(Collectors.joining(";\n"));
+        String operation = operation(sql);
+        Observation observation = Observation.createNotStarted(OBSERVATION_NAME, observationRegistry.get())
+                .contextualName("jdbc " + operation)
+                .lowCardinalityKeyValue("db.operation", operation)
+                .highCardinalityKeyValue("db.statement", abbreviate(sql))
+                .start();
+        if (execInfo.isBatch()) {
+            observation.highCardinalityKeyValue("db.batch.size", Integer.toString(execInfo.getBatchSize()));
+        }
+        execInfo.addCustomValue(OBSERVATION, observation);
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        Observation observation = execInfo.getCustomValue(OBSERVATION, Observation.class);
+        if (observation == null) {
+            return;
+        }
+        Long rowsAffected = rowsAffected(execInfo.getResult());
+        if (rowsAffected != null) {
+            observation.highCardinalityKeyValue("db.rows.affected", Long.toString(rowsAffected));
+        }
+        if (execInfo.getThrowable() != null) {
+            observation.error(execInfo.getThrowable());
+        }
+        observation.stop();
+    }
+
+    static String operation(String sql) {
+        String trimmed = sql.stripLeading();
+        int end = 0;
+        while (end < trimmed.length() && Character.isLetter(trimmed.charAt(end))) {
+            end++;
+        }
+        return switch (trimmed.substring(0, end).toLowerCase(Locale.ROOT)) {
+            case "select", "with" -> "select";
+            case "insert" -> "insert";
+            case "update" -> "update";
+            case "delete" -> "delete";
+            default -> "other";
+        };
+    }
+
+    private static Long rowsAffected(Object result) {
+        return switch (result) {
+            case Integer count -> (long) count;
+            case Long count -> count;
+            case int[] counts -> IntStream.of(counts).asLongStream().sum();
+            case null, default -> null;
+        };
+    }
+
+    private static String abbreviate(String sql) {
+        return sql.length() <= MAX_STATEMENT_LENGTH ? sql : sql.substring(0, MAX_STATEMENT_LENGTH) + "...";
+    }
+}
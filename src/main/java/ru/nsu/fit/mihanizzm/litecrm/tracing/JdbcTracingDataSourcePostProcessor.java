@@ -0,0 +1,38 @@
+package ru.nsu.fit.mihanizzm.litecrm.tracing;
+
+import io.micrometer.observation.ObservationRegistry;
+import lombok.RequiredArgsConstructor;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.util.function.SingletonSupplier;
+
+import javax.sql.DataSource;
+
+/**
+ * Wraps the primary {@code dataSource} bean so every statement gets a {@link JdbcObservationListener} span
+ * nested under the repository call that issued it.
+ */
+@Component
+@ConditionalOnProperty(prefix = "litecrm.tracing", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class JdbcTracingDataSourcePostProcessor implements BeanPostProcessor {
+    private static final String DATA_SOURCE_BEAN = "dataSource";
+
+    // Post-processors are created before the observation registry, so it is looked up on the first statement.
+    private final ObjectProvider<ObservationRegistry> observationRegistry;
+
+    @Override
+    public Object postProcessAfterInitialization(@NonNull Object bean, @NonNull String beanName) {
+        if (!(bean instanceof DataSource dataSource) || !DATA_SOURCE_BEAN.equals(beanName)) {
+            return bean;
+        }
+        return ProxyDataSourceBuilder.create(dataSource)
+                .name(beanName)
+                .listener(new JdbcObservationListener(SingletonSupplier.of(observationRegistry::getObject)))
+                .build();
+    }
+}
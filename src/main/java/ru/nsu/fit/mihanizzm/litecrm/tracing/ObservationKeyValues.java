@@ -0,0 +1,65 @@
+package ru.nsu.fit.mihanizzm.litecrm.tracing;
+
+import io.micrometer.common.KeyValue;
+import io.micrometer.common.KeyValues;
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.reflect.CodeSignature;
+import org.springframework.data.domain.Slice;
+
+import java.time.temporal.Temporal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * High-cardinality attributes shared by the method-level observations. They end up on spans only,
+ * metrics are tagged with low-cardinality keys.
+ */
+public final class ObservationKeyValues {
+    public static final String RESULT_SIZE = "result.size";
+
+    private ObservationKeyValues() {
+    }
+
+    /**
+     * Scalar arguments of the call as {@code arg.<name>}, e.g. the period bounds of an analytics query.
+     * Request bodies and other structured arguments are left out.
+     */
+    public static KeyValues arguments(JoinPoint joinPoint) {
+        String[] names = ((CodeSignature) joinPoint.getSignature()).getParameterNames();
+        Object[] args = joinPoint.getArgs();
+        List<KeyValue> keyValues = new ArrayList<>(args.length);
+        for (int i = 0; i < args.length; i++) {
+            if (isScalar(args[i])) {
+                String name = names != null ? names[i] : String.valueOf(i);
+                keyValues.add(KeyValue.of("arg." + name, String.valueOf(args[i])));
+            }
+        }
+        return KeyValues.of(keyValues);
+    }
+
+    public static KeyValue resultSize(Object result) {
+        return KeyValue.of(RESULT_SIZE, Long.toString(sizeOf(result)));
+    }
+
+    /** Number of elements returned: collection or page size, 0 or 1 for optionals and single values. */
+    public static long sizeOf(Object result) {
+        if (result instanceof Collection<?> collection) {
+            return collection.size();
+        } else if (result instanceof Slice<?> slice) {
+            return slice.getNumberOfElements();
+        } else if (result instanceof Optional<?> optional) {
+            return optional.isPresent() ? 1 : 0;
+        }
+        return result == null ? 0 : 1;
+    }
+
+    private static boolean isScalar(Object arg) {
+        return arg instanceof Number
+                || arg instanceof CharSequence
+                || arg instanceof Temporal
+                || arg instanceof Enum<?>
+                || arg instanceof Boolean;
+    }
+}
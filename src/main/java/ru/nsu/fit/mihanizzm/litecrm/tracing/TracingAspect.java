@@ -0,0 +1,81 @@
+package ru.nsu.fit.mihanizzm.litecrm.tracing;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.nsu.fit.mihanizzm.litecrm.sql.SqlStats;
+import ru.nsu.fit.mihanizzm.litecrm.sql.SqlStatsContext;
+
+/**
+ * Observes controller and repository calls, so a trace shows a span per layer between the HTTP request
+ * and the JDBC statements. Services are observed by {@code ServiceMetricsAspect}.
+ * <p>
+ * Time between the end of a controller span and the end of its request span is response serialization;
+ * time inside a repository span but outside its JDBC spans is mostly Hibernate hydration.
+ */
+@Aspect
+@Component
+@ConditionalOnProperty(prefix = "litecrm.tracing", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class TracingAspect {
+    public static final String CONTROLLER_OBSERVATION = "litecrm.controller";
+    public static final String REPOSITORY_OBSERVATION = "litecrm.repository";
+    public static final String ROWS_FETCHED = "db.rows.fetched";
+
+    private final ObservationRegistry observationRegistry;
+
+    @Around("within(ru.nsu.fit.mihanizzm.litecrm.controllers..*) && execution(public * *(..))")
+    public Object observeController(ProceedingJoinPoint joinPoint) throws Throwable {
+        Observation observation = start(
+                CONTROLLER_OBSERVATION, joinPoint.getSignature().getDeclaringType(), joinPoint);
+        try (Observation.Scope ignored = observation.openScope()) {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            observation.error(e);
+            throw e;
+        } finally {
+            observation.stop();
+        }
+    }
+
+    @Around("execution(public * org.springframework.data.repository.Repository+.*(..))")
+    public Object observeRepository(ProceedingJoinPoint joinPoint) throws Throwable {
+        // Inherited methods like findById are declared by Spring Data, the proxy knows the actual repository.
+        Class<?> repository = AopProxyUtils.proxiedUserInterfaces(joinPoint.getThis())[0];
+        Observation observation = start(REPOSITORY_OBSERVATION, repository, joinPoint);
+        SqlStats sqlStats = SqlStatsContext.current();
+        long rowsBefore = sqlStats == null ? 0 : sqlStats.getRowsFetched();
+        try (Observation.Scope ignored = observation.openScope()) {
+            Object result = joinPoint.proceed();
+            observation.highCardinalityKeyValue(ObservationKeyValues.resultSize(result));
+            return result;
+        } catch (Throwable e) {
+            observation.error(e);
+            throw e;
+        } finally {
+            // Rows are read after the statement returns, so they are counted here rather than on JDBC spans.
+            if (sqlStats != null) {
+                observation.highCardinalityKeyValue(
+                        ROWS_FETCHED, Long.toString(sqlStats.getRowsFetched() - rowsBefore));
+            }
+            observation.stop();
+        }
+    }
+
+    private Observation start(String name, Class<?> declaringType, ProceedingJoinPoint joinPoint) {
+        String type = declaringType.getSimpleName();
+        String method = joinPoint.getSignature().getName();
+        return Observation.createNotStarted(name, observationRegistry)
+                .contextualName(type + "." + method)
+                .lowCardinalityKeyValue("class", type)
+                .lowCardinalityKeyValue("method", method)
+                .highCardinalityKeyValues(ObservationKeyValues.arguments(joinPoint))
+                .start();
+    }
+}
@@ -0,0 +1,15 @@
+package ru.nsu.fit.mihanizzm.litecrm.tracing;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Controller, repository and JDBC observations. They become OpenTelemetry spans through the Micrometer tracing
+ * bridge; sampling and the OTLP endpoint are configured with {@code management.tracing.*} and
+ * {@code management.otlp.tracing.*}.
+ */
+@ConfigurationProperties(prefix = "litecrm.tracing")
+public record TracingProperties(
+        @DefaultValue("false")
+        boolean enabled
+) {}
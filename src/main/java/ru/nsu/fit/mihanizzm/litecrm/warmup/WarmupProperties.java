@@ -0,0 +1,35 @@
+package ru.nsu.fit.mihanizzm.litecrm.warmup;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Read-only workload replayed by {@link WarmupRunner} before the instance reports ready.
+ *
+ * @param iterations  rounds of mapper, repository and analytics calls
+ * @param timeBudget  warm-up stops after this long even if not all iterations ran
+ * @param sampleSize  number of existing sellers and transactions read by id
+ * @param scratchDate analytics run on periods around this date; it should have no transactions,
+ *                    so the queries go through the whole code path but scan nothing
+ */
+@ConfigurationProperties(prefix = "litecrm.warmup")
+public record WarmupProperties(
+        @DefaultValue("true")
+        boolean enabled,
+
+        @DefaultValue("500")
+        int iterations,
+
+        @DefaultValue("60s")
+        Duration timeBudget,
+
+        @DefaultValue("20")
+        int sampleSize,
+
+        @DefaultValue("2000-01-01T00:00:00")
+        LocalDateTime scratchDate
+) {
+}
@@ -0,0 +1,154 @@
+package ru.nsu.fit.mihanizzm.litecrm.warmup;
+
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import ru.nsu.fit.mihanizzm.litecrm.bulkhead.AnalyticsBulkhead;
+import ru.nsu.fit.mihanizzm.litecrm.exception.ClientException;
+import ru.nsu.fit.mihanizzm.litecrm.models.PaymentType;
+import ru.nsu.fit.mihanizzm.litecrm.models.Period;
+import ru.nsu.fit.mihanizzm.litecrm.models.PeriodType;
+import ru.nsu.fit.mihanizzm.litecrm.models.Seller;
+import ru.nsu.fit.mihanizzm.litecrm.models.Transaction;
+import ru.nsu.fit.mihanizzm.litecrm.models.dtos.SellerRequestDto;
+import ru.nsu.fit.mihanizzm.litecrm.models.dtos.TransactionRequestDto;
+import ru.nsu.fit.mihanizzm.litecrm.models.mappers.SellerMapper;
+import ru.nsu.fit.mihanizzm.litecrm.models.mappers.TransactionMapper;
+import ru.nsu.fit.mihanizzm.litecrm.repositories.SellerRepository;
+import ru.nsu.fit.mihanizzm.litecrm.repositories.TransactionRepository;
+import ru.nsu.fit.mihanizzm.litecrm.seed.SeedRunner;
+import ru.nsu.fit.mihanizzm.litecrm.services.AnalyticsService;
+import ru.nsu.fit.mihanizzm.litecrm.services.SellerService;
+import ru.nsu.fit.mihanizzm.litecrm.services.TransactionService;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Replays a read-only workload through the service layer on startup so that the JIT, Hibernate's query
+ * plan cache and the connection pools are warm before the first real request. Spring Boot switches the
+ * readiness state to {@code ACCEPTING_TRAFFIC} only after application runners finish, so
+ * {@code /actuator/health/readiness} stays {@code OUT_OF_SERVICE} until warm-up completes or
+ * {@link WarmupProperties#timeBudget()} runs out. The budget is checked between iterations.
+ */
+@Slf4j
+@Component
+@Profile("!" + SeedRunner.PROFILE)
+@ConditionalOnProperty(prefix = "litecrm.warmup", name = "enabled", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+public class WarmupRunner implements ApplicationRunner {
+    private static final PaymentType[] PAYMENT_TYPES = PaymentType.values();
+    private static final PeriodType[] PERIOD_TYPES = PeriodType.values();
+    private static final int SELLERS_PAGE_SIZE = 100;
+
+    private final WarmupProperties properties;
+    private final SellerService sellerService;
+    private final TransactionService transactionService;
+    private final AnalyticsService analyticsService;
+    private final AnalyticsBulkhead analyticsBulkhead;
+    private final SellerRepository sellerRepository;
+    private final TransactionRepository transactionRepository;
+    private final SellerMapper sellerMapper;
+    private final TransactionMapper transactionMapper;
+    private final Validator validator;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long startNanos = System.nanoTime();
+        long deadlineNanos = startNanos + properties.timeBudget().toNanos();
+        int completed = 0;
+        try {
+            PageRequest sample = PageRequest.of(0, properties.sampleSize(), Sort.by("id"));
+            List<Integer> sellerIds = sellerRepository.findAll(sample).map(Seller::getId).getContent();
+            List<Integer> transactionIds = transactionRepository.findAll(sample).map(Transaction::getId).getContent();
+
+            while (completed < properties.iterations() && System.nanoTime() - deadlineNanos < 0) {
+                runIteration(completed, sellerIds, transactionIds);
+                completed++;
+            }
+        } catch (RuntimeException e) {
+            // A cold instance is still better than one that never becomes ready
+            log.warn("warm-up failed after {} iterations, continuing cold", completed, e);
+            return;
+        }
+
+        long elapsedMillis = (System.nanoTime() - startNanos) / 1_000_000;
+        if (completed < properties.iterations()) {
+            log.warn(
+                    "warm-up ran out of its {} budget after {} of {} iterations",
+                    properties.timeBudget(),
+                    completed,
+                    properties.iterations()
+            );
+        } else {
+            log.info("warm-up finished {} iterations in {} ms", completed, elapsedMillis);
+        }
+    }
+
+    private void runIteration(int iteration, List<Integer> sellerIds, List<Integer> transactionIds) {
+        SellerRequestDto sellerRequest = new SellerRequestDto("Warm-up seller " + iteration, "warmup@example.com");
+        Seller seller = sellerMapper.toEntity(sellerRequest);
+        validator.validate(seller);
+        sellerMapper.toResponse(seller);
+
+        TransactionRequestDto transactionRequest = new TransactionRequestDto(
+                null,
+                BigDecimal.valueOf(iteration + 1, 2),
+                PAYMENT_TYPES[iteration % PAYMENT_TYPES.length].name()
+        );
+        Transaction transaction = transactionMapper.toEntity(transactionRequest, seller);
+        validator.validate(transaction);
+        transactionMapper.toResponse(transaction);
+
+        if (!sellerIds.isEmpty()) {
+            Integer sellerId = sellerIds.get(iteration % sellerIds.size());
+            ignoringClientErrors(() -> sellerService.getSellerById(sellerId));
+            onAnalyticsExecutor(() -> analyticsService.getBestDayForSeller(sellerId));
+        }
+        if (!transactionIds.isEmpty()) {
+            Integer transactionId = transactionIds.get(iteration % transactionIds.size());
+            ignoringClientErrors(() -> transactionService.getTransactionById(transactionId));
+        }
+
+        PeriodType periodType = PERIOD_TYPES[iteration % PERIOD_TYPES.length];
+        Period scratch = Period.of(periodType, properties.scratchDate());
+        onAnalyticsExecutor(() -> analyticsService.getTopSeller(periodType, properties.scratchDate()));
+        onAnalyticsExecutor(() -> analyticsService.getSellersWithTotalAmountLessThan(
+                BigDecimal.ONE,
+                scratch.start(),
+                scratch.end(),
+                0,
+                SELLERS_PAGE_SIZE
+        ));
+    }
+
+    /**
+     * Runs analytics the way the controller does, so the analytics pool and executor warm up as well.
+     */
+    private void onAnalyticsExecutor(Supplier<?> call) {
+        try {
+            analyticsBulkhead.submit(call).join();
+        } catch (CompletionException e) {
+            if (!(e.getCause() instanceof ClientException)) {
+                throw e;
+            }
+        }
+    }
+
+    private static void ignoringClientErrors(Supplier<?> call) {
+        try {
+            call.get();
+        } catch (ClientException ignored) {
+            // A sampled row may have been deleted by another instance in the meantime
+        }
+    }
+}
@@ -0,0 +1,9 @@
+-- Period analytics (top seller, sellers below a threshold) filter by a date range and aggregate
+-- amounts per seller. Carrying seller_id and amount in the leaf pages lets them run as index-only scans.
+CREATE INDEX IF NOT EXISTS transaction_date_seller_amount_idx
+    ON app.transaction (transaction_date) INCLUDE (seller_id, amount);
+
+-- Best day of a seller groups its transactions by date; also serves the seller_id foreign key
+-- (loading Seller.transactions and the referential check when a seller is deleted).
+CREATE INDEX IF NOT EXISTS transaction_seller_date_idx
+    ON app.transaction (seller_id, transaction_date);
@@ -0,0 +1,12 @@
+-- Progress of background jobs. A job commits its watermark together with each chunk of work,
+-- so it resumes from the last committed chunk after a restart or on another instance.
+CREATE TABLE IF NOT EXISTS app.job_state (
+    name VARCHAR(100) PRIMARY KEY,
+    watermark VARCHAR(255),
+    chunks_processed BIGINT NOT NULL DEFAULT 0,
+    last_chunk_millis BIGINT,
+    last_run_started_at TIMESTAMP,
+    last_run_millis BIGINT,
+    last_run_owner VARCHAR(255),
+    last_error VARCHAR(1000)
+);
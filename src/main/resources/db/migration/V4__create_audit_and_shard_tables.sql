@@ -0,0 +1,33 @@
+-- Envers audit tables. Hibernate creates them on shard 0 through ddl-auto; additional shards
+-- are only migrated by Flyway and need them spelled out.
+CREATE SEQUENCE IF NOT EXISTS revinfo_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS revinfo (
+    rev INTEGER PRIMARY KEY,
+    revtstmp BIGINT
+);
+
+CREATE TABLE IF NOT EXISTS app.seller_aud (
+    id INTEGER NOT NULL,
+    rev INTEGER NOT NULL REFERENCES revinfo(rev),
+    revtype SMALLINT,
+    contact_info VARCHAR(255),
+    name VARCHAR(255),
+    PRIMARY KEY (rev, id)
+);
+
+CREATE TABLE IF NOT EXISTS app.transaction_aud (
+    id INTEGER NOT NULL,
+    rev INTEGER NOT NULL REFERENCES revinfo(rev),
+    revtype SMALLINT,
+    amount NUMERIC(38,2),
+    payment_type VARCHAR(255) CHECK (payment_type IN ('CASH', 'CARD', 'TRANSFER')),
+    seller_id INTEGER,
+    PRIMARY KEY (rev, id)
+);
+
+-- Shard of every seller that was moved off the shard its ID was allocated on. Only used on shard 0.
+CREATE TABLE IF NOT EXISTS app.seller_shard (
+    seller_id INTEGER PRIMARY KEY,
+    shard INTEGER NOT NULL
+);
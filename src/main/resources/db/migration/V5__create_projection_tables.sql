@@ -0,0 +1,62 @@
+-- Outbox of transaction changes, written in the same database transaction as the change and
+-- consumed by the projector, which keeps the read tables below up to date.
+CREATE TABLE IF NOT EXISTS app.transaction_event (
+    id BIGSERIAL PRIMARY KEY,
+    type VARCHAR(20) NOT NULL
+        CHECK (type IN ('CREATED', 'AMOUNT_CHANGED', 'MOVED', 'DELETED', 'SELLER_CHANGED')),
+    transaction_id INTEGER,
+    seller_id INTEGER NOT NULL,
+    previous_seller_id INTEGER,
+    amount DECIMAL(14,2),
+    previous_amount DECIMAL(14,2),
+    transaction_date TIMESTAMP,
+    created_at TIMESTAMP NOT NULL DEFAULT localtimestamp
+);
+
+-- Totals of every seller with transactions. No foreign keys: the projector removes the rows
+-- of deleted sellers itself. last_event_id is the latest event applied to any row of the seller,
+-- so that a snapshot of the in-memory totals can find the sellers changed after it.
+CREATE TABLE IF NOT EXISTS app.seller_stats (
+    seller_id INTEGER PRIMARY KEY,
+    transaction_count BIGINT NOT NULL,
+    total_amount DECIMAL(16,2) NOT NULL,
+    first_sale_at TIMESTAMP,
+    last_sale_at TIMESTAMP,
+    last_event_id BIGINT NOT NULL DEFAULT 0
+);
+
+-- Totals of every seller per day, month, quarter and year with transactions.
+CREATE TABLE IF NOT EXISTS app.seller_period_stats (
+    period_type VARCHAR(10) NOT NULL CHECK (period_type IN ('DAY', 'MONTH', 'QUARTER', 'YEAR')),
+    period_start TIMESTAMP NOT NULL,
+    seller_id INTEGER NOT NULL,
+    transaction_count BIGINT NOT NULL,
+    total_amount DECIMAL(16,2) NOT NULL,
+    PRIMARY KEY (period_type, period_start, seller_id)
+);
+
+-- Serves the best day of a seller and the recount of a seller.
+CREATE INDEX IF NOT EXISTS seller_period_stats_seller_idx
+    ON app.seller_period_stats (seller_id, period_type);
+
+-- Serves the top sellers of a period without reading every seller of it.
+CREATE INDEX IF NOT EXISTS seller_period_stats_top_idx
+    ON app.seller_period_stats (period_type, period_start, total_amount DESC, seller_id);
+
+INSERT INTO app.seller_stats (seller_id, transaction_count, total_amount, first_sale_at, last_sale_at)
+SELECT seller_id, COUNT(*), SUM(amount), MIN(transaction_date), MAX(transaction_date)
+FROM app.transaction
+GROUP BY seller_id
+ON CONFLICT DO NOTHING;
+
+INSERT INTO app.seller_period_stats (period_type, period_start, seller_id, transaction_count, total_amount)
+SELECT p.period_type, p.period_start, t.seller_id, COUNT(*), SUM(t.amount)
+FROM app.transaction t
+CROSS JOIN LATERAL (VALUES
+    ('DAY', date_trunc('day', t.transaction_date)),
+    ('MONTH', date_trunc('month', t.transaction_date)),
+    ('QUARTER', date_trunc('quarter', t.transaction_date)),
+    ('YEAR', date_trunc('year', t.transaction_date))
+) AS p(period_type, period_start)
+GROUP BY 1, 2, 3
+ON CONFLICT DO NOTHING;
@@ -0,0 +1,7 @@
+-- Position up to which the write-ahead log of an instance was replayed into app.transaction. Committed together
+-- with each replayed batch, so that a batch is never replayed twice.
+CREATE TABLE IF NOT EXISTS app.ingest_checkpoint (
+    log_id UUID PRIMARY KEY,
+    applied_lsn BIGINT NOT NULL,
+    updated_at TIMESTAMP NOT NULL DEFAULT localtimestamp
+);
@@ -0,0 +1,43 @@
+package ru.nsu.fit.mihanizzm.litecrm;
+
+import net.ttddyy.dsproxy.proxy.ProxyJdbcObject;
+import org.hibernate.envers.DefaultRevisionEntity;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+import ru.nsu.fit.mihanizzm.litecrm.models.dtos.LeaderboardDeltaDto;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LiteCrmRuntimeHintsTest {
+    private final RuntimeHints hints = new RuntimeHints();
+
+    LiteCrmRuntimeHintsTest() {
+        new LiteCrmRuntimeHints().registerHints(hints, getClass().getClassLoader());
+    }
+
+    @Test
+    void registersDatasourceProxyInterfacesInProxyOrder() {
+        assertThat(RuntimeHintsPredicates.proxies().forInterfaces(ProxyJdbcObject.class, Connection.class))
+                .accepts(hints);
+        assertThat(RuntimeHintsPredicates.proxies().forInterfaces(ProxyJdbcObject.class, PreparedStatement.class))
+                .accepts(hints);
+    }
+
+    @Test
+    void registersEnversRevisionEntity() {
+        assertThat(RuntimeHintsPredicates.reflection().onType(DefaultRevisionEntity.class)
+                .withMemberCategory(MemberCategory.DECLARED_FIELDS))
+                .accepts(hints);
+    }
+
+    @Test
+    void registersLeaderboardEventBinding() throws NoSuchMethodException {
+        assertThat(RuntimeHintsPredicates.reflection().onMethod(LeaderboardDeltaDto.class.getMethod("periodStart")))
+                .accepts(hints);
+    }
+}
@@ -0,0 +1,155 @@
+package ru.nsu.fit.mihanizzm.litecrm.admin;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import ru.nsu.fit.mihanizzm.litecrm.bulkhead.BulkheadMonitor;
+import ru.nsu.fit.mihanizzm.litecrm.controllers.AdminController;
+import ru.nsu.fit.mihanizzm.litecrm.controllers.ReportAdminController;
+import ru.nsu.fit.mihanizzm.litecrm.controllers.ShardController;
+import ru.nsu.fit.mihanizzm.litecrm.exception.handler.ClientErrorLogSampler;
+import ru.nsu.fit.mihanizzm.litecrm.jobs.JobRunner;
+import ru.nsu.fit.mihanizzm.litecrm.limiter.ConcurrencyLimiters;
+import ru.nsu.fit.mihanizzm.litecrm.projections.Projector;
+import ru.nsu.fit.mihanizzm.litecrm.reports.SellerReports;
+import ru.nsu.fit.mihanizzm.litecrm.sharding.ShardRebalancer;
+
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(MockitoExtension.class)
+class AdminAccessFilterTest {
+    private static final String TOKEN = "secret";
+
+    @Mock
+    private ConcurrencyLimiters concurrencyLimiters;
+
+    @Mock
+    private BulkheadMonitor bulkheadMonitor;
+
+    @Mock
+    private ClientErrorLogSampler clientErrorLogSampler;
+
+    @Mock
+    private JobRunner jobRunner;
+
+    @Mock
+    private Projector projector;
+
+    @Mock
+    private ShardRebalancer rebalancer;
+
+    @Mock
+    private SellerReports sellerReports;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = mockMvc(TOKEN);
+    }
+
+    @Test
+    void shouldResetJobWithToken() throws Exception {
+        mockMvc.perform(post("/api/v1/admin/jobs/period-stats-check/reset")
+                        .header(AdminAccessFilter.TOKEN_HEADER, TOKEN))
+                .andExpect(status().isNoContent());
+
+        verify(jobRunner).reset("period-stats-check");
+    }
+
+    @Test
+    void shouldRejectJobResetWithoutToken() throws Exception {
+        mockMvc.perform(post("/api/v1/admin/jobs/period-stats-check/reset"))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(post("/api/v1/admin/jobs/period-stats-check/reset")
+                        .header(AdminAccessFilter.TOKEN_HEADER, "guess"))
+                .andExpect(status().isUnauthorized());
+
+        verifyNoInteractions(jobRunner);
+    }
+
+    @Test
+    void shouldRejectProjectionRebuildWithoutToken() throws Exception {
+        mockMvc.perform(post("/api/v1/admin/projections/rebuild"))
+                .andExpect(status().isUnauthorized());
+
+        verifyNoInteractions(projector);
+    }
+
+    @Test
+    void shouldRebuildProjectionsWithToken() throws Exception {
+        mockMvc.perform(post("/api/v1/admin/projections/rebuild")
+                        .header(AdminAccessFilter.TOKEN_HEADER, TOKEN))
+                .andExpect(status().isNoContent());
+
+        verify(projector).rebuild();
+    }
+
+    @Test
+    void shouldMoveSellerWithToken() throws Exception {
+        mockMvc.perform(post("/api/v1/admin/shards/1/sellers/42")
+                        .header(AdminAccessFilter.TOKEN_HEADER, TOKEN))
+                .andExpect(status().isNoContent());
+
+        verify(rebalancer).moveSeller(42, 1);
+    }
+
+    @Test
+    void shouldRejectShardChangesWithoutToken() throws Exception {
+        mockMvc.perform(post("/api/v1/admin/shards/rebalance"))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(post("/api/v1/admin/shards/1/sellers/42"))
+                .andExpect(status().isUnauthorized());
+
+        verifyNoInteractions(rebalancer);
+    }
+
+    @Test
+    void shouldDeleteSellerReportsOnlyWithToken() throws Exception {
+        mockMvc.perform(delete("/api/v1/admin/reports/sellers"))
+                .andExpect(status().isUnauthorized());
+        verifyNoInteractions(sellerReports);
+
+        mockMvc.perform(delete("/api/v1/admin/reports/sellers")
+                        .header(AdminAccessFilter.TOKEN_HEADER, TOKEN))
+                .andExpect(status().isNoContent());
+
+        verify(sellerReports).deleteAll();
+    }
+
+    @Test
+    void shouldHideAdminApiWhenTokenIsNotConfigured() throws Exception {
+        mockMvc = mockMvc(" ");
+
+        mockMvc.perform(post("/api/v1/admin/jobs/period-stats-check/reset")
+                        .header(AdminAccessFilter.TOKEN_HEADER, " "))
+                .andExpect(status().isNotFound());
+
+        verifyNoInteractions(jobRunner);
+    }
+
+    private MockMvc mockMvc(String token) {
+        AdminController adminController = new AdminController(
+                concurrencyLimiters,
+                bulkheadMonitor,
+                clientErrorLogSampler,
+                jobRunner,
+                projector
+        );
+        return MockMvcBuilders.standaloneSetup(
+                        adminController,
+                        new ShardController(rebalancer),
+                        new ReportAdminController(sellerReports)
+                )
+                .addFilters(new AdminAccessFilter(new AdminProperties(token)))
+                .build();
+    }
+}
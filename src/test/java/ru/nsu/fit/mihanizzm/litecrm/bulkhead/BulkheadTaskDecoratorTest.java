@@ -0,0 +1,70 @@
+package ru.nsu.fit.mihanizzm.litecrm.bulkhead;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.Test;
+import ru.nsu.fit.mihanizzm.litecrm.sql.SqlStats;
+import ru.nsu.fit.mihanizzm.litecrm.sql.SqlStatsContext;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BulkheadTaskDecoratorTest {
+    @Test
+    void shouldRunTaskInsideBulkhead() {
+        AtomicReference<Bulkhead> observed = new AtomicReference<>();
+        Runnable task = new BulkheadTaskDecorator(Bulkhead.ANALYTICS, ObservationRegistry.NOOP)
+                .decorate(() -> observed.set(BulkheadContext.current()));
+
+        task.run();
+
+        assertThat(observed.get()).isEqualTo(Bulkhead.ANALYTICS);
+        assertThat(BulkheadContext.current()).isEqualTo(Bulkhead.OLTP);
+    }
+
+    @Test
+    void shouldCarrySqlStatsOfSubmittingThread() throws InterruptedException {
+        SqlStats stats = new SqlStats();
+        AtomicReference<SqlStats> observed = new AtomicReference<>();
+        SqlStatsContext.set(stats);
+        Runnable task;
+        try {
+            task = new BulkheadTaskDecorator(Bulkhead.ANALYTICS, ObservationRegistry.NOOP)
+                    .decorate(() -> observed.set(SqlStatsContext.current()));
+        } finally {
+            SqlStatsContext.clear();
+        }
+
+        Thread worker = new Thread(task);
+        worker.start();
+        worker.join();
+
+        assertThat(observed.get()).isSameAs(stats);
+    }
+
+    @Test
+    void shouldCarryCurrentObservationOfSubmittingThread() throws InterruptedException {
+        ObservationRegistry registry = ObservationRegistry.create();
+        registry.observationConfig().observationHandler(context -> true);
+        Observation observation = Observation.start("request", registry);
+        AtomicReference<Observation> observed = new AtomicReference<>();
+        Runnable task;
+        try (Observation.Scope ignored = observation.openScope()) {
+            task = new BulkheadTaskDecorator(Bulkhead.ANALYTICS, registry)
+                    .decorate(() -> observed.set(registry.getCurrentObservation()));
+        }
+
+        Thread worker = new Thread(task);
+        worker.start();
+        worker.join();
+        observation.stop();
+
+        assertThat(observed.get()).isSameAs(observation);
+    }
+
+    @Test
+    void shouldRoutePlainThreadsToOltp() {
+        assertThat(BulkheadContext.current()).isEqualTo(Bulkhead.OLTP);
+    }
+}
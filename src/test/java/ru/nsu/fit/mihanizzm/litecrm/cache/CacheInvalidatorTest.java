@@ -0,0 +1,105 @@
+package ru.nsu.fit.mihanizzm.litecrm.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import ru.nsu.fit.mihanizzm.litecrm.models.Period;
+import ru.nsu.fit.mihanizzm.litecrm.models.PeriodType;
+import ru.nsu.fit.mihanizzm.litecrm.models.dtos.BestDayResponseDto;
+import ru.nsu.fit.mihanizzm.litecrm.models.dtos.SellerResponseDto;
+import ru.nsu.fit.mihanizzm.litecrm.models.dtos.TransactionResponseDto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CacheInvalidatorTest {
+    private static final LocalDateTime JUNE_7 = LocalDateTime.of(2025, 6, 7, 12, 0);
+
+    private final CacheManager cacheManager = new CacheConfig().cacheManager(
+            new CacheProperties(true, 100, CacheProperties.DEFAULT_CHANNEL, null, 100, null)
+    );
+    private final CacheInvalidator invalidator = new CacheInvalidator(cacheManager, new SimpleMeterRegistry());
+
+    private final Period day = Period.of(PeriodType.DAY, JUNE_7);
+    private final Period month = Period.of(PeriodType.MONTH, JUNE_7);
+    private final Period otherMonth = Period.of(PeriodType.MONTH, JUNE_7.minusMonths(1));
+
+    @BeforeEach
+    void setUp() {
+        cache(CacheNames.SELLERS).put(1, seller(1));
+        cache(CacheNames.SELLERS).put(2, seller(2));
+        cache(CacheNames.TRANSACTIONS).put(10, transaction(10, 1));
+        cache(CacheNames.TRANSACTIONS).put(20, transaction(20, 2));
+        cache(CacheNames.BEST_DAY).put(1, new BestDayResponseDto(JUNE_7.toLocalDate()));
+        cache(CacheNames.BEST_DAY).put(2, new BestDayResponseDto(JUNE_7.toLocalDate()));
+        cache(CacheNames.TOP_SELLER).put(day, seller(2));
+        cache(CacheNames.TOP_SELLER).put(month, seller(2));
+        cache(CacheNames.TOP_SELLER).put(otherMonth, seller(1));
+    }
+
+    @Test
+    void shouldEvictEverythingDerivedFromSeller() {
+        invalidator.apply(List.of(ChangeEvent.seller(1)));
+
+        assertThat(cache(CacheNames.SELLERS).get(1)).isNull();
+        assertThat(cache(CacheNames.TRANSACTIONS).get(10)).isNull();
+        assertThat(cache(CacheNames.BEST_DAY).get(1)).isNull();
+        assertThat(cache(CacheNames.TOP_SELLER).get(otherMonth)).isNull();
+
+        assertThat(cache(CacheNames.SELLERS).get(2)).isNotNull();
+        assertThat(cache(CacheNames.TRANSACTIONS).get(20)).isNotNull();
+        assertThat(cache(CacheNames.TOP_SELLER).get(month)).isNotNull();
+    }
+
+    @Test
+    void shouldEvictPeriodsContainingTransactionDay() {
+        invalidator.apply(List.of(ChangeEvent.transaction(20, 2, LocalDate.of(2025, 6, 7))));
+
+        assertThat(cache(CacheNames.TRANSACTIONS).get(20)).isNull();
+        assertThat(cache(CacheNames.BEST_DAY).get(2)).isNull();
+        assertThat(cache(CacheNames.TOP_SELLER).get(day)).isNull();
+        assertThat(cache(CacheNames.TOP_SELLER).get(month)).isNull();
+
+        assertThat(cache(CacheNames.TOP_SELLER).get(otherMonth)).isNotNull();
+        assertThat(cache(CacheNames.BEST_DAY).get(1)).isNotNull();
+        assertThat(cache(CacheNames.SELLERS).get(2)).isNotNull();
+    }
+
+    @Test
+    void shouldFlushEverythingOnFlushEvent() {
+        invalidator.apply(List.of(ChangeEvent.seller(1), ChangeEvent.flushAll()));
+
+        for (String name : cacheManager.getCacheNames()) {
+            assertThat(cache(name).get(2)).isNull();
+        }
+        assertThat(cache(CacheNames.TOP_SELLER).get(month)).isNull();
+    }
+
+    @Test
+    void shouldStayWithinMaxEntries() {
+        for (int id = 100; id < 300; id++) {
+            cache(CacheNames.SELLERS).put(id, seller(id));
+        }
+
+        assertThat((Map<?, ?>) cache(CacheNames.SELLERS).getNativeCache()).hasSize(100);
+    }
+
+    private Cache cache(String name) {
+        return cacheManager.getCache(name);
+    }
+
+    private static SellerResponseDto seller(int id) {
+        return new SellerResponseDto(id, "Seller " + id, "seller" + id + "@example.com", JUNE_7.minusYears(1));
+    }
+
+    private static TransactionResponseDto transaction(int id, int sellerId) {
+        return new TransactionResponseDto(id, sellerId, BigDecimal.TEN, "CARD", JUNE_7);
+    }
+}
@@ -0,0 +1,107 @@
+package ru.nsu.fit.mihanizzm.litecrm.cache;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.nsu.fit.mihanizzm.litecrm.models.Period;
+import ru.nsu.fit.mihanizzm.litecrm.models.dtos.BestDayResponseDto;
+import ru.nsu.fit.mihanizzm.litecrm.models.dtos.SellerResponseDto;
+import ru.nsu.fit.mihanizzm.litecrm.models.dtos.TransactionResponseDto;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CacheSnapshotTest {
+    private static final LocalDateTime DATE = LocalDateTime.of(2025, 3, 14, 15, 9, 26, 535_897_000);
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void shouldReadWrittenEntries() throws IOException {
+        Path file = directory.resolve("cache.snapshot");
+        CacheSnapshot snapshot = snapshot();
+
+        snapshot.write(file);
+
+        CacheSnapshot read = CacheSnapshot.read(file);
+        assertThat(read.takenAtMillis()).isEqualTo(snapshot.takenAtMillis());
+        assertThat(read.watermark()).isEqualTo(snapshot.watermark());
+        assertThat(read.caches()).isEqualTo(snapshot.caches());
+    }
+
+    @Test
+    void shouldGrowBufferForManyEntries() throws IOException {
+        Path file = directory.resolve("cache.snapshot");
+        Map<Object, Object> sellers = new HashMap<>();
+        for (int id = 1; id <= 5_000; id++) {
+            sellers.put(id, new SellerResponseDto(id, "Seller " + id, "seller" + id + "@example.com", DATE));
+        }
+        CacheSnapshot snapshot = new CacheSnapshot(1L, 2L, Map.of(CacheNames.SELLERS, sellers));
+
+        snapshot.write(file);
+
+        assertThat(CacheSnapshot.read(file).caches()).isEqualTo(snapshot.caches());
+    }
+
+    @Test
+    void shouldRejectDamagedFile() throws IOException {
+        Path file = directory.resolve("cache.snapshot");
+        snapshot().write(file);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] {-1, -1, -1}), 40);
+        }
+
+        assertThatThrownBy(() -> CacheSnapshot.read(file)).isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void shouldRejectTruncatedFile() throws IOException {
+        Path file = directory.resolve("cache.snapshot");
+        Files.write(file, new byte[] {1, 2, 3});
+
+        assertThatThrownBy(() -> CacheSnapshot.read(file)).isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void shouldSupportOnlyCachedTypes() {
+        assertThat(CacheSnapshot.supports(1)).isTrue();
+        assertThat(CacheSnapshot.supports(new BestDayResponseDto(null))).isTrue();
+        assertThat(CacheSnapshot.supports("seller")).isFalse();
+        assertThat(CacheSnapshot.supports(1L)).isFalse();
+    }
+
+    private static CacheSnapshot snapshot() {
+        Map<String, Map<Object, Object>> caches = new LinkedHashMap<>();
+        caches.put(CacheNames.SELLERS, Map.of(
+                1, new SellerResponseDto(1, "Иван", "ivan@example.com", DATE),
+                2, new SellerResponseDto(2, "Anna", null, null)
+        ));
+        caches.put(CacheNames.TRANSACTIONS, Map.of(
+                10, new TransactionResponseDto(10, 1, new BigDecimal("12345678.90"), "CARD", DATE),
+                11, new TransactionResponseDto(11, 2, new BigDecimal("-0.01"), null, DATE.plusDays(1)),
+                12, new TransactionResponseDto(12, null, null, "CASH", null)
+        ));
+        caches.put(CacheNames.TOP_SELLER, Map.of(
+                new Period(DATE, DATE.plusMonths(1)), new SellerResponseDto(1, "Иван", "ivan@example.com", DATE),
+                new Period(null, DATE), new SellerResponseDto(2, "Anna", null, null)
+        ));
+        caches.put(CacheNames.BEST_DAY, Map.of(
+                1, new BestDayResponseDto(LocalDate.of(2025, 3, 14)),
+                2, new BestDayResponseDto(null)
+        ));
+        return new CacheSnapshot(1_741_954_166_535L, 42L, caches);
+    }
+}
@@ -0,0 +1,48 @@
+package ru.nsu.fit.mihanizzm.litecrm.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ChangeEventTest {
+    @Test
+    void shouldRoundTripEventsThroughOnePayload() {
+        List<ChangeEvent> events = List.of(
+                ChangeEvent.seller(42),
+                ChangeEvent.transaction(1001, 42, LocalDate.of(2025, 6, 7)),
+                ChangeEvent.flushAll()
+        );
+        String payload = events.stream().map(ChangeEvent::encode).collect(Collectors.joining(ChangeEvent.SEPARATOR));
+
+        assertThat(payload).isEqualTo("S42,T1001:42:20246,*");
+        assertThat(ChangeEvent.decodeAll(payload)).containsExactlyElementsOf(events);
+    }
+
+    @Test
+    void shouldTurnMalformedEventIntoFullFlush() {
+        assertThat(ChangeEvent.decodeAll("S1,T2:oops,X3"))
+                .containsExactly(ChangeEvent.seller(1), ChangeEvent.flushAll(), ChangeEvent.flushAll());
+    }
+
+    @Test
+    void shouldSplitLargeBatchIntoPayloadsPostgresAccepts() {
+        Set<String> encoded = IntStream.range(0, 2000)
+                .mapToObj(id -> ChangeEvent.transaction(1_000_000 + id, 7, LocalDate.of(2025, 1, 1)).encode())
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+
+        List<String> payloads = CacheInvalidationBus.payloads(encoded);
+
+        assertThat(payloads).hasSizeGreaterThan(1)
+                .allSatisfy(payload -> assertThat(payload.length()).isLessThanOrEqualTo(
+                        CacheInvalidationBus.MAX_PAYLOAD_LENGTH));
+        assertThat(payloads.stream().flatMap(payload -> ChangeEvent.decodeAll(payload).stream()).count())
+                .isEqualTo(2000);
+    }
+}
@@ -3,15 +3,19 @@ package ru.nsu.fit.mihanizzm.litecrm.controllers;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.SyncTaskExecutor;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import ru.nsu.fit.mihanizzm.litecrm.bulkhead.AnalyticsBulkhead;
 import ru.nsu.fit.mihanizzm.litecrm.models.PeriodType;
 import ru.nsu.fit.mihanizzm.litecrm.models.dtos.BestDayResponseDto;
 import ru.nsu.fit.mihanizzm.litecrm.models.dtos.SellerResponseDto;
+import ru.nsu.fit.mihanizzm.litecrm.models.dtos.SellerTotalDto;
+import ru.nsu.fit.mihanizzm.litecrm.models.dtos.SellerTotalsResponseDto;
 import ru.nsu.fit.mihanizzm.litecrm.services.AnalyticsService;
 
 import java.math.BigDecimal;
@@ -33,14 +37,15 @@ class AnalyticsControllerTest {
     @Mock
     private AnalyticsService analyticsService;
 
-    @InjectMocks
-    private AnalyticsController analyticsController;
-
     private SellerResponseDto sellerResponseDto;
     private BestDayResponseDto bestDayResponseDto;
 
     @BeforeEach
     void setUp() {
+        AnalyticsController analyticsController = new AnalyticsController(
+                analyticsService,
+                new AnalyticsBulkhead(new SyncTaskExecutor())
+        );
         mockMvc = MockMvcBuilders.standaloneSetup(analyticsController).build();
 
         sellerResponseDto = new SellerResponseDto(
@@ -57,9 +62,13 @@ class AnalyticsControllerTest {
         LocalDateTime referenceDate = LocalDateTime.of(2024, 6, 7, 0, 0);
         given(analyticsService.getTopSeller(PeriodType.DAY, referenceDate)).willReturn(sellerResponseDto);
 
-        mockMvc.perform(get("/api/v1/analytics/top-seller")
+        MvcResult mvcResult = mockMvc.perform(get("/api/v1/analytics/top-seller")
                         .param("period", "DAY")
                         .param("referenceDate", "2024-06-07T00:00:00.000"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
                 .andExpect(jsonPath("$.id").value(1))
@@ -74,27 +83,58 @@ class AnalyticsControllerTest {
         BigDecimal threshold = new BigDecimal("1000.00");
         LocalDateTime start = LocalDateTime.of(2024, 3, 1, 0, 0);
         LocalDateTime end = LocalDateTime.of(2024, 4, 1, 0, 0);
-        given(analyticsService.getSellersWithTotalAmountLessThan(threshold, start, end))
-                .willReturn(List.of(sellerResponseDto));
+        given(analyticsService.getSellersWithTotalAmountLessThan(threshold, start, end, 0, 100))
+                .willReturn(new SellerTotalsResponseDto(List.of(new SellerTotalDto(1, new BigDecimal("100.00"))), null));
 
-        mockMvc.perform(get("/api/v1/analytics/sellers-max-sum")
+        MvcResult mvcResult = mockMvc.perform(get("/api/v1/analytics/sellers-max-sum")
                         .param("threshold", "1000.00")
                         .param("start", "2024-03-01T00:00:00.000")
                         .param("end", "2024-04-01T00:00:00.000"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
-                .andExpect(jsonPath("$[0].id").value(1))
-                .andExpect(jsonPath("$[0].name").value("Миша"))
-                .andExpect(jsonPath("$[0].contactInfo").value("misha@example.com"));
+                .andExpect(jsonPath("$.sellers[0].sellerId").value(1))
+                .andExpect(jsonPath("$.sellers[0].totalAmount").value(100.00))
+                .andExpect(jsonPath("$.nextAfterId").doesNotExist());
+
+        verify(analyticsService).getSellersWithTotalAmountLessThan(threshold, start, end, 0, 100);
+    }
+
+    @Test
+    void shouldPassPageOfSellersWithTotalAmountLessThan() throws Exception {
+        BigDecimal threshold = new BigDecimal("1000.00");
+        LocalDateTime start = LocalDateTime.of(2024, 3, 1, 0, 0);
+        LocalDateTime end = LocalDateTime.of(2024, 4, 1, 0, 0);
+        given(analyticsService.getSellersWithTotalAmountLessThan(threshold, start, end, 5, 1))
+                .willReturn(new SellerTotalsResponseDto(List.of(new SellerTotalDto(7, BigDecimal.ZERO)), 7));
+
+        MvcResult mvcResult = mockMvc.perform(get("/api/v1/analytics/sellers-max-sum")
+                        .param("threshold", "1000.00")
+                        .param("start", "2024-03-01T00:00:00.000")
+                        .param("end", "2024-04-01T00:00:00.000")
+                        .param("afterId", "5")
+                        .param("limit", "1"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
 
-        verify(analyticsService).getSellersWithTotalAmountLessThan(threshold, start, end);
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.sellers[0].sellerId").value(7))
+                .andExpect(jsonPath("$.nextAfterId").value(7));
     }
 
     @Test
     void shouldReturnBestDayForSeller() throws Exception {
         given(analyticsService.getBestDayForSeller(1)).willReturn(bestDayResponseDto);
 
-        mockMvc.perform(get("/api/v1/analytics/best-day/1"))
+        MvcResult mvcResult = mockMvc.perform(get("/api/v1/analytics/best-day/1"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
                 .andExpect(jsonPath("$.bestDay[0]").value(2024))
@@ -0,0 +1,92 @@
+package ru.nsu.fit.mihanizzm.litecrm.controllers;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import ru.nsu.fit.mihanizzm.litecrm.admin.AdminAccessFilter;
+import ru.nsu.fit.mihanizzm.litecrm.admin.AdminProperties;
+import ru.nsu.fit.mihanizzm.litecrm.exception.RecordingInProgressException;
+import ru.nsu.fit.mihanizzm.litecrm.exception.handler.ClientErrorLogSampler;
+import ru.nsu.fit.mihanizzm.litecrm.exception.handler.ClientExceptionHandler;
+import ru.nsu.fit.mihanizzm.litecrm.exception.handler.ErrorLoggingProperties;
+import ru.nsu.fit.mihanizzm.litecrm.models.dtos.RecordingResponseDto;
+import ru.nsu.fit.mihanizzm.litecrm.profiling.JfrRecorder;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProfilingControllerTest {
+    private static final String TOKEN = "secret";
+
+    private MockMvc mockMvc;
+
+    @Mock
+    private JfrRecorder jfrRecorder;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = mockMvc(TOKEN);
+    }
+
+    @Test
+    void shouldStartRecording() throws Exception {
+        given(jfrRecorder.start("profile", Duration.ofSeconds(30))).willReturn(new RecordingResponseDto(
+                3, "profile", "RUNNING", Instant.parse("2025-06-07T10:15:30Z"), 30, null));
+
+        mockMvc.perform(post("/api/v1/admin/profiling/recordings")
+                        .header(AdminAccessFilter.TOKEN_HEADER, TOKEN)
+                        .param("duration", "30s"))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.id").value(3))
+                .andExpect(jsonPath("$.state").value("RUNNING"));
+    }
+
+    @Test
+    void shouldRejectDownloadOfRunningRecording() throws Exception {
+        given(jfrRecorder.file(3)).willThrow(new RecordingInProgressException(3));
+
+        mockMvc.perform(get("/api/v1/admin/profiling/recordings/3/file")
+                        .header(AdminAccessFilter.TOKEN_HEADER, TOKEN))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.code").value("RECORDING_IN_PROGRESS"));
+    }
+
+    @Test
+    void shouldRejectRequestWithWrongToken() throws Exception {
+        mockMvc.perform(post("/api/v1/admin/profiling/recordings")
+                        .header(AdminAccessFilter.TOKEN_HEADER, "guess")
+                        .param("duration", "30s"))
+                .andExpect(status().isUnauthorized());
+
+        verifyNoInteractions(jfrRecorder);
+    }
+
+    @Test
+    void shouldHideApiWhenTokenIsNotConfigured() throws Exception {
+        mockMvc = mockMvc(null);
+
+        mockMvc.perform(post("/api/v1/admin/profiling/continuous/dump")
+                        .header(AdminAccessFilter.TOKEN_HEADER, ""))
+                .andExpect(status().isNotFound());
+
+        verifyNoInteractions(jfrRecorder);
+    }
+
+    private MockMvc mockMvc(String token) {
+        return MockMvcBuilders.standaloneSetup(new ProfilingController(jfrRecorder))
+                .setControllerAdvice(new ClientExceptionHandler(
+                        new ClientErrorLogSampler(new ErrorLoggingProperties(1))))
+                .addFilters(new AdminAccessFilter(new AdminProperties(token)))
+                .build();
+    }
+}
@@ -0,0 +1,88 @@
+package ru.nsu.fit.mihanizzm.litecrm.exception.handler;
+
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import ru.nsu.fit.mihanizzm.litecrm.exception.ErrorCode;
+import ru.nsu.fit.mihanizzm.litecrm.exception.SellerNotFoundException;
+import ru.nsu.fit.mihanizzm.litecrm.exception.SellerValidationException;
+import ru.nsu.fit.mihanizzm.litecrm.models.Seller;
+import ru.nsu.fit.mihanizzm.litecrm.models.dtos.ErrorResponseDto;
+
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ClientExceptionHandlerTest {
+    private ClientErrorLogSampler errorLogSampler;
+    private ClientExceptionHandler handler;
+
+    @BeforeEach
+    void setUp() {
+        errorLogSampler = new ClientErrorLogSampler(new ErrorLoggingProperties(1));
+        handler = new ClientExceptionHandler(errorLogSampler);
+    }
+
+    @Test
+    void shouldNotCaptureStackTraceOfClientExceptions() {
+        SellerNotFoundException e = new SellerNotFoundException(42);
+
+        assertThat(e.getStackTrace()).isEmpty();
+    }
+
+    @Test
+    void shouldReturnStructuredNotFoundBody() {
+        ResponseEntity<ErrorResponseDto> response = handler.handleSellerNotFoundException(
+                new SellerNotFoundException(42)
+        );
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        assertThat(response.getBody()).isEqualTo(new ErrorResponseDto(
+                404,
+                "SELLER_NOT_FOUND",
+                "Couldn't find seller with id: 42"
+        ));
+    }
+
+    @Test
+    void shouldReturnViolationsOfValidationErrors() {
+        Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+        Seller seller = new Seller();
+        seller.setName("B");
+        seller.setContactInfo("bob@gmail.com");
+
+        ResponseEntity<ErrorResponseDto> response = handler.handleSellerValidationException(
+                new SellerValidationException(validator.validate(seller))
+        );
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(response.getBody()).isNotNull();
+        assertThat(response.getBody().code()).isEqualTo("SELLER_VALIDATION_FAILED");
+        assertThat(response.getBody().violations())
+                .extracting(ErrorResponseDto.ViolationDto::property)
+                .containsExactly("name");
+    }
+
+    @Test
+    void shouldCountEveryErrorEvenWhenLoggingIsSampled() {
+        for (int i = 0; i < 100; i++) {
+            handler.handleSellerNotFoundException(new SellerNotFoundException(i));
+        }
+
+        assertThat(errorLogSampler.count(ErrorCode.SELLER_NOT_FOUND)).isEqualTo(100);
+    }
+
+    @Test
+    void shouldAskToRetryWhenAnalyticsIsSaturated() {
+        ResponseEntity<ErrorResponseDto> response = handler.handleRejectedExecutionException(
+                new RejectedExecutionException("queue is full")
+        );
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+    }
+}
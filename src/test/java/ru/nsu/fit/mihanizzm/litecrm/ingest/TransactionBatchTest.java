@@ -0,0 +1,84 @@
+package ru.nsu.fit.mihanizzm.litecrm.ingest;
+
+import org.junit.jupiter.api.Test;
+import ru.nsu.fit.mihanizzm.litecrm.models.PaymentType;
+
+import java.nio.ByteBuffer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TransactionBatchTest {
+    @Test
+    void shouldDecodeRecords() {
+        ByteBuffer body = ByteBuffer.allocate(2 + (int) TransactionBatch.byteSize(2))
+                .put((byte) 7)
+                .put((byte) 7)
+                .putInt(2)
+                .putInt(42).putLong(2280).put((byte) 1)
+                .putInt(7).putLong(0).put((byte) 2)
+                .position(2);
+
+        TransactionBatch batch = TransactionBatch.decode(body, 10);
+
+        assertThat(batch.size()).isEqualTo(2);
+        assertThat(batch.sellerId(0)).isEqualTo(42);
+        assertThat(batch.amount(0)).isEqualTo(2280);
+        assertThat(batch.paymentType(0)).isEqualTo(PaymentType.CARD);
+        assertThat(batch.sellerId(1)).isEqualTo(7);
+        assertThat(batch.paymentType(1)).isEqualTo(PaymentType.TRANSFER);
+        assertThat(body.position()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldRejectLengthNotMatchingCount() {
+        ByteBuffer body = ByteBuffer.allocate((int) TransactionBatch.byteSize(1) - 1)
+                .putInt(1)
+                .putInt(42).putLong(2280)
+                .flip();
+
+        assertThatThrownBy(() -> TransactionBatch.decode(body, 10))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("takes");
+    }
+
+    @Test
+    void shouldRejectTooManyRecords() {
+        ByteBuffer body = ByteBuffer.allocate(Integer.BYTES).putInt(11).flip();
+
+        assertThatThrownBy(() -> TransactionBatch.decode(body, 10))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void shouldRejectInvalidRecord() {
+        ByteBuffer unknownPaymentType = batchOf(42, 2280, (byte) 3);
+        ByteBuffer negativeAmount = batchOf(42, -1, (byte) 0);
+        ByteBuffer tooLargeAmount = batchOf(42, TransactionBatch.MAX_AMOUNT + 1, (byte) 0);
+        ByteBuffer zeroSeller = batchOf(0, 2280, (byte) 0);
+
+        for (ByteBuffer body : new ByteBuffer[]{unknownPaymentType, negativeAmount, tooLargeAmount, zeroSeller}) {
+            assertThatThrownBy(() -> TransactionBatch.decode(body, 10))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageStartingWith("record 0");
+        }
+    }
+
+    @Test
+    void shouldEncodeIdsInOrder() {
+        ByteBuffer encoded = ByteBuffer.wrap(TransactionBatch.encodeIds(new int[]{5, 3, 9}));
+
+        assertThat(encoded.getInt()).isEqualTo(3);
+        assertThat(new int[]{encoded.getInt(), encoded.getInt(), encoded.getInt()}).containsExactly(5, 3, 9);
+        assertThat(encoded.hasRemaining()).isFalse();
+    }
+
+    private static ByteBuffer batchOf(int sellerId, long amount, byte paymentType) {
+        return ByteBuffer.allocate((int) TransactionBatch.byteSize(1))
+                .putInt(1)
+                .putInt(sellerId)
+                .putLong(amount)
+                .put(paymentType)
+                .flip();
+    }
+}
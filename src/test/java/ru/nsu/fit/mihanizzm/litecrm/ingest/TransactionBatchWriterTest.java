@@ -0,0 +1,238 @@
+package ru.nsu.fit.mihanizzm.litecrm.ingest;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import ru.nsu.fit.mihanizzm.litecrm.cache.CacheInvalidationBus;
+import ru.nsu.fit.mihanizzm.litecrm.controllers.TransactionBatchController;
+import ru.nsu.fit.mihanizzm.litecrm.exception.handler.ClientErrorLogSampler;
+import ru.nsu.fit.mihanizzm.litecrm.exception.handler.ClientExceptionHandler;
+import ru.nsu.fit.mihanizzm.litecrm.exception.handler.ErrorLoggingProperties;
+import ru.nsu.fit.mihanizzm.litecrm.models.PaymentType;
+import ru.nsu.fit.mihanizzm.litecrm.sharding.ShardDataSources;
+import ru.nsu.fit.mihanizzm.litecrm.sharding.ShardDirectory;
+import ru.nsu.fit.mihanizzm.litecrm.sharding.ShardSequences;
+import ru.nsu.fit.mihanizzm.litecrm.sharding.ShardingProperties;
+import ru.nsu.fit.mihanizzm.litecrm.totals.TransactionDeltas;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Posts binary batches of sellers on two shards to real databases: a batch is inserted with one statement per
+ * shard together with its outbox events and audit rows, and a batch with an unknown seller inserts nothing.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class TransactionBatchWriterTest {
+    private static final int ID_RANGE_SIZE = 1000;
+
+    static PostgreSQLContainer<?> shard0 = new PostgreSQLContainer<>("postgres:17")
+            .withDatabaseName("shard-0")
+            .withUsername("test")
+            .withPassword("test");
+
+    static PostgreSQLContainer<?> shard1 = new PostgreSQLContainer<>("postgres:17")
+            .withDatabaseName("shard-1")
+            .withUsername("test")
+            .withPassword("test");
+
+    private static HikariDataSource dataSource0;
+    private static HikariDataSource dataSource1;
+    private static ShardDataSources dataSources;
+    private static ShardingProperties properties;
+
+    private final CacheInvalidationBus cacheInvalidationBus = mock(CacheInvalidationBus.class);
+    private final TransactionDeltas transactionDeltas = mock(TransactionDeltas.class);
+    private MockMvc mockMvc;
+    private JdbcTemplate jdbc0;
+    private JdbcTemplate jdbc1;
+
+    @BeforeAll
+    static void startContainers() {
+        shard0.start();
+        shard1.start();
+        dataSource0 = dataSource(shard0);
+        dataSource1 = dataSource(shard1);
+        Flyway.configure().dataSource(dataSource0).load().migrate();
+        Flyway.configure().dataSource(dataSource1).load().migrate();
+
+        dataSources = mock(ShardDataSources.class);
+        when(dataSources.count()).thenReturn(2);
+        when(dataSources.oltp(0)).thenReturn(dataSource0);
+        when(dataSources.oltp(1)).thenReturn(dataSource1);
+        properties = new ShardingProperties(true, List.of(new ShardingProperties.Shard(shard1.getJdbcUrl(),
+                null, null)), ID_RANGE_SIZE);
+        new ShardSequences(dataSources, properties).afterSingletonsInstantiated();
+    }
+
+    @AfterAll
+    static void stopContainers() {
+        dataSource0.close();
+        dataSource1.close();
+        shard0.stop();
+        shard1.stop();
+    }
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        jdbc0 = new JdbcTemplate(dataSource0);
+        jdbc1 = new JdbcTemplate(dataSource1);
+        for (JdbcTemplate jdbc : List.of(jdbc0, jdbc1)) {
+            jdbc.execute("TRUNCATE app.transaction, app.seller, app.transaction_event, app.seller_shard, " +
+                    "app.transaction_aud, revinfo CASCADE");
+        }
+        ShardDirectory directory = new ShardDirectory(dataSources, properties);
+        directory.afterSingletonsInstantiated();
+        ObjectProvider<ShardDirectory> directoryProvider = mock(ObjectProvider.class);
+        when(directoryProvider.getIfAvailable()).thenReturn(directory);
+        TransactionBatchWriter writer = new TransactionBatchWriter(
+                dataSources,
+                directoryProvider,
+                cacheInvalidationBus,
+                transactionDeltas,
+                new MockEnvironment(),
+                new SimpleMeterRegistry()
+        );
+        IngestProperties ingestProperties = new IngestProperties(false, Path.of("wal"), null, Duration.ofMillis(2),
+                256, 1000, Duration.ofMillis(200), 5000, 100);
+        mockMvc = MockMvcBuilders.standaloneSetup(new TransactionBatchController(writer, ingestProperties))
+                .setControllerAdvice(new ClientExceptionHandler(
+                        new ClientErrorLogSampler(new ErrorLoggingProperties(1))))
+                .build();
+    }
+
+    @Test
+    void shouldInsertRecordsOnShardsOfTheirSellers() throws Exception {
+        int onShard0 = insertSeller(jdbc0);
+        int onShard1 = insertSeller(jdbc1);
+
+        byte[] response = mockMvc.perform(post("/api/v1/transactions/batch")
+                        .contentType(TransactionBatch.MEDIA_TYPE)
+                        .content(batch(
+                                new Record(onShard0, 1050, PaymentType.CASH),
+                                new Record(onShard1, 2280, PaymentType.CARD),
+                                new Record(onShard0, 99, PaymentType.TRANSFER)
+                        )))
+                .andExpect(status().isCreated())
+                .andReturn()
+                .getResponse()
+                .getContentAsByteArray();
+
+        ByteBuffer ids = ByteBuffer.wrap(response);
+        int first = ids.getInt(Integer.BYTES);
+        int second = ids.getInt(2 * Integer.BYTES);
+        int third = ids.getInt(3 * Integer.BYTES);
+        assertThat(ids.getInt(0)).isEqualTo(3);
+        assertThat(List.of(first, third)).allSatisfy(id -> assertThat(id).isBetween(1, ID_RANGE_SIZE));
+        assertThat(second).isBetween(ID_RANGE_SIZE + 1, 2 * ID_RANGE_SIZE);
+        assertThat(transactions(jdbc0)).isEqualTo(Map.of(
+                first, List.of(onShard0, new BigDecimal("10.50"), "CASH"),
+                third, List.of(onShard0, new BigDecimal("0.99"), "TRANSFER")
+        ));
+        assertThat(transactions(jdbc1)).isEqualTo(Map.of(
+                second, List.of(onShard1, new BigDecimal("22.80"), "CARD")
+        ));
+        assertThat(createdEvents(jdbc0)).containsExactlyInAnyOrder(first, third);
+        assertThat(createdEvents(jdbc1)).containsExactly(second);
+        assertThat(audited(jdbc0)).containsExactlyInAnyOrder(first, third);
+        assertThat(audited(jdbc1)).containsExactly(second);
+        verify(cacheInvalidationBus, times(2)).publish(any());
+        verify(transactionDeltas, times(2)).publish(any());
+    }
+
+    @Test
+    void shouldInsertNothingOfBatchWithUnknownSeller() throws Exception {
+        int onShard0 = insertSeller(jdbc0);
+        int onShard1 = insertSeller(jdbc1);
+
+        mockMvc.perform(post("/api/v1/transactions/batch")
+                        .contentType(TransactionBatch.MEDIA_TYPE)
+                        .content(batch(
+                                new Record(onShard0, 1050, PaymentType.CASH),
+                                new Record(onShard1, 2280, PaymentType.CARD),
+                                new Record(onShard1 + 1, 99, PaymentType.TRANSFER)
+                        )))
+                .andExpect(status().isNotFound());
+
+        for (JdbcTemplate jdbc : List.of(jdbc0, jdbc1)) {
+            assertThat(transactions(jdbc)).isEmpty();
+            assertThat(createdEvents(jdbc)).isEmpty();
+            assertThat(audited(jdbc)).isEmpty();
+            assertThat(jdbc.queryForObject("SELECT count(*) FROM revinfo", Integer.class)).isZero();
+        }
+        verifyNoInteractions(cacheInvalidationBus, transactionDeltas);
+    }
+
+    private record Record(int sellerId, long cents, PaymentType paymentType) {}
+
+    private static byte[] batch(Record... records) {
+        ByteBuffer body = ByteBuffer.allocate((int) TransactionBatch.byteSize(records.length)).putInt(records.length);
+        for (Record record : records) {
+            body.putInt(record.sellerId()).putLong(record.cents()).put((byte) record.paymentType().ordinal());
+        }
+        return body.array();
+    }
+
+    private static Map<Integer, List<Object>> transactions(JdbcTemplate jdbc) {
+        return jdbc.query("SELECT id, seller_id, amount, payment_type FROM app.transaction", rs -> {
+            Map<Integer, List<Object>> transactions = new HashMap<>();
+            while (rs.next()) {
+                transactions.put(rs.getInt(1), List.of(rs.getInt(2), rs.getBigDecimal(3), rs.getString(4)));
+            }
+            return transactions;
+        });
+    }
+
+    private static List<Integer> createdEvents(JdbcTemplate jdbc) {
+        return jdbc.queryForList(
+                "SELECT transaction_id FROM app.transaction_event WHERE type = 'CREATED'",
+                Integer.class
+        );
+    }
+
+    private static List<Integer> audited(JdbcTemplate jdbc) {
+        return jdbc.queryForList("SELECT id FROM app.transaction_aud WHERE revtype = 0", Integer.class);
+    }
+
+    private static int insertSeller(JdbcTemplate jdbc) {
+        return jdbc.queryForObject(
+                "INSERT INTO app.seller (name, registration_date) VALUES ('Seller', now()) RETURNING id",
+                Integer.class
+        );
+    }
+
+    private static HikariDataSource dataSource(PostgreSQLContainer<?> container) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(container.getJdbcUrl());
+        dataSource.setUsername(container.getUsername());
+        dataSource.setPassword(container.getPassword());
+        return dataSource;
+    }
+}
@@ -0,0 +1,169 @@
+package ru.nsu.fit.mihanizzm.litecrm.ingest;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.nsu.fit.mihanizzm.litecrm.models.PaymentType;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class WriteAheadLogTest {
+    private static final int RECORDS_PER_SEGMENT = 4;
+    private static final LocalDateTime DATE = LocalDateTime.of(2025, 3, 14, 15, 9, 26, 535_897_000);
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void shouldReadAppendedRecords() throws IOException {
+        try (WriteAheadLog log = open(0)) {
+            List<WalRecord> records = records(1, 10);
+            records.forEach(log::append);
+
+            assertThat(log.durableLsn()).isEqualTo(10);
+            assertThat(log.read(0, 100)).isEqualTo(records);
+            assertThat(log.read(8, 100)).isEqualTo(records.subList(8, 10));
+        }
+    }
+
+    @Test
+    void shouldForceConcurrentAppendsTogether() throws Exception {
+        try (WriteAheadLog log = open(0);
+             ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            List<Future<?>> appends = new ArrayList<>();
+            for (WalRecord record : records(1, 200)) {
+                appends.add(executor.submit(() -> log.append(record)));
+            }
+            for (Future<?> append : appends) {
+                append.get();
+            }
+
+            assertThat(log.read(0, 1000)).extracting(WalRecord::id)
+                    .containsExactlyInAnyOrderElementsOf(IntStream.rangeClosed(1, 200).boxed().toList());
+        }
+    }
+
+    @Test
+    void shouldReplayFromAppliedLsnAfterReopening() throws IOException {
+        List<WalRecord> records = records(1, 10);
+        try (WriteAheadLog log = open(0)) {
+            records.forEach(log::append);
+        }
+
+        try (WriteAheadLog log = open(6)) {
+            assertThat(log.releasedLsn()).isEqualTo(6);
+            assertThat(log.durableLsn()).isEqualTo(10);
+            assertThat(log.read(6, 100)).isEqualTo(records.subList(6, 10));
+            // Segment 0 only held applied records
+            assertThat(segments()).hasSize(2);
+
+            log.append(record(11));
+            assertThat(log.read(10, 100)).containsExactly(record(11));
+        }
+    }
+
+    @Test
+    void shouldCutOffRecordsAfterDamagedOne() throws IOException {
+        try (WriteAheadLog log = open(0)) {
+            records(1, 7).forEach(log::append);
+        }
+        // Record 5 (LSN 4) was only partially written
+        try (FileChannel segment = FileChannel.open(segments().get(1), StandardOpenOption.WRITE)) {
+            segment.write(ByteBuffer.wrap(new byte[] {-1, -1, -1}), 10);
+        }
+
+        try (WriteAheadLog log = open(0)) {
+            assertThat(log.durableLsn()).isEqualTo(4);
+            log.append(record(8));
+            assertThat(log.read(0, 100)).extracting(WalRecord::id).containsExactly(1, 2, 3, 4, 8);
+        }
+        try (WriteAheadLog log = open(0)) {
+            assertThat(log.read(0, 100)).extracting(WalRecord::id).containsExactly(1, 2, 3, 4, 8);
+        }
+    }
+
+    @Test
+    void shouldDeleteReleasedSegments() throws IOException {
+        try (WriteAheadLog log = open(0)) {
+            records(1, 10).forEach(log::append);
+            assertThat(segments()).hasSize(3);
+
+            log.release(9);
+
+            assertThat(segments()).hasSize(1);
+            assertThat(log.read(9, 100)).containsExactly(record(10));
+        }
+    }
+
+    @Test
+    void shouldKeepIdAcrossReopening() throws IOException {
+        WriteAheadLog first = open(0);
+        first.close();
+        try (WriteAheadLog second = open(0)) {
+            assertThat(second.id()).isEqualTo(first.id());
+        }
+    }
+
+    @Test
+    void shouldNotBeOpenedTwice() throws IOException {
+        try (WriteAheadLog ignored = open(0)) {
+            assertThatThrownBy(() -> open(0)).isInstanceOf(IllegalStateException.class);
+        }
+    }
+
+    @Test
+    void shouldRejectAppendsAfterClosing() throws IOException {
+        WriteAheadLog log = open(0);
+        log.close();
+
+        assertThatThrownBy(() -> log.append(record(1))).isInstanceOf(IllegalStateException.class);
+    }
+
+    private WriteAheadLog open(long appliedLsn) throws IOException {
+        return new WriteAheadLog(
+                directory,
+                (long) RECORDS_PER_SEGMENT * WalRecord.SIZE,
+                Duration.ofMillis(1),
+                16,
+                id -> appliedLsn,
+                new SimpleMeterRegistry()
+        );
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.toString().endsWith(".wal")).sorted().toList();
+        }
+    }
+
+    private static List<WalRecord> records(int fromId, int toId) {
+        return IntStream.rangeClosed(fromId, toId).mapToObj(WriteAheadLogTest::record).toList();
+    }
+
+    private static WalRecord record(int id) {
+        return new WalRecord(
+                id,
+                id % 3 + 1,
+                id * 1_050L,
+                PaymentType.values()[id % PaymentType.values().length],
+                DATE.plusMinutes(id)
+        );
+    }
+}
@@ -0,0 +1,201 @@
+package ru.nsu.fit.mihanizzm.litecrm.jobs;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import ru.nsu.fit.mihanizzm.litecrm.exception.JobNotFoundException;
+import ru.nsu.fit.mihanizzm.litecrm.models.JobState;
+import ru.nsu.fit.mihanizzm.litecrm.repositories.JobStateRepository;
+import ru.nsu.fit.mihanizzm.litecrm.sharding.ShardContext;
+import ru.nsu.fit.mihanizzm.litecrm.sharding.ShardDataSources;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class JobRunnerTest {
+    @Mock
+    private JobStateRepository jobStateRepository;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CountingJob job = new CountingJob(3);
+    private JobState committed;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(jobStateRepository.findForUpdate(CountingJob.NAME))
+                .thenAnswer(invocation -> Optional.ofNullable(committed).map(JobRunnerTest::copy));
+        lenient().when(jobStateRepository.save(any())).thenAnswer(invocation -> {
+            committed = copy(invocation.getArgument(0));
+            return committed;
+        });
+    }
+
+    @Test
+    void shouldProcessChunksUntilCaughtUp() {
+        given(jobStateRepository.tryLock(CountingJob.NAME)).willReturn(true);
+
+        JobOutcome outcome = runner(Duration.ofMinutes(1)).run(job, 0);
+
+        assertThat(outcome).isEqualTo(JobOutcome.CAUGHT_UP);
+        assertThat(job.seen).containsExactly(null, "1", "2", "3");
+        assertThat(committed.getWatermark()).isEqualTo("3");
+        assertThat(committed.getChunksProcessed()).isEqualTo(3);
+        assertThat(committed.getLastRunOwner()).isNotBlank();
+        assertThat(committed.getLastError()).isNull();
+        assertThat(meterRegistry.get("litecrm.jobs.chunks").tag("job", CountingJob.NAME).timer().count())
+                .isEqualTo(3);
+    }
+
+    @Test
+    void shouldSkipWhileAnotherInstanceHoldsTheLock() {
+        given(jobStateRepository.tryLock(CountingJob.NAME)).willReturn(false);
+
+        JobOutcome outcome = runner(Duration.ofMinutes(1)).run(job, 0);
+
+        assertThat(outcome).isEqualTo(JobOutcome.SKIPPED);
+        assertThat(job.seen).isEmpty();
+        verify(jobStateRepository, never()).save(any());
+    }
+
+    @Test
+    void shouldResumeFromLastCommittedChunkAfterFailure() {
+        given(jobStateRepository.tryLock(CountingJob.NAME)).willReturn(true);
+        job.failAt = 2;
+
+        JobOutcome failed = runner(Duration.ofMinutes(1)).run(job, 0);
+
+        assertThat(failed).isEqualTo(JobOutcome.FAILED);
+        assertThat(committed.getWatermark()).isEqualTo("2");
+        assertThat(committed.getLastError()).contains("chunk 3 failed");
+
+        job.failAt = -1;
+        JobOutcome resumed = runner(Duration.ofMinutes(1)).run(job, 0);
+
+        assertThat(resumed).isEqualTo(JobOutcome.CAUGHT_UP);
+        assertThat(job.seen).containsExactly(null, "1", "2", "2", "3");
+        assertThat(committed.getLastError()).isNull();
+    }
+
+    @Test
+    void shouldPauseWhenRunBudgetRunsOut() {
+        given(jobStateRepository.tryLock(CountingJob.NAME)).willReturn(true);
+
+        JobOutcome outcome = runner(Duration.ZERO).run(job, 0);
+
+        assertThat(outcome).isEqualTo(JobOutcome.PAUSED);
+        assertThat(committed.getWatermark()).isEqualTo("1");
+    }
+
+    @Test
+    void shouldRejectResetOfUnknownJob() {
+        assertThatThrownBy(() -> runner(Duration.ofMinutes(1)).reset("nope"))
+                .isInstanceOf(JobNotFoundException.class);
+        verify(jobStateRepository, never()).findForUpdate(anyString());
+    }
+
+    @Test
+    void shouldRunChunksOnGivenShard() {
+        given(jobStateRepository.tryLock(CountingJob.NAME)).willReturn(true);
+
+        JobOutcome outcome = runner(Duration.ofMinutes(1)).run(job, 1);
+
+        assertThat(outcome).isEqualTo(JobOutcome.CAUGHT_UP);
+        assertThat(job.shards).containsOnly(1);
+        assertThat(ShardContext.current()).isZero();
+        assertThat(meterRegistry.get("litecrm.jobs.chunks").tag("shard", "1").timer().count()).isEqualTo(3);
+    }
+
+    @Test
+    void shouldResetJobOnEveryShard() {
+        committed = new JobState(CountingJob.NAME);
+        committed.setWatermark("3");
+
+        runner(Duration.ofMinutes(1)).reset(CountingJob.NAME);
+
+        verify(jobStateRepository, times(2)).findForUpdate(CountingJob.NAME);
+        assertThat(committed.getWatermark()).isNull();
+    }
+
+    private JobRunner runner(Duration runBudget) {
+        JobProperties properties = new JobProperties(true, 1, runBudget, null);
+        ShardDataSources dataSources = mock(ShardDataSources.class);
+        lenient().when(dataSources.count()).thenReturn(2);
+        return new JobRunner(
+                List.of(job),
+                jobStateRepository,
+                properties,
+                dataSources,
+                transactionManager,
+                meterRegistry
+        );
+    }
+
+    private static JobState copy(JobState state) {
+        JobState copy = new JobState(state.getName());
+        copy.setWatermark(state.getWatermark());
+        copy.setChunksProcessed(state.getChunksProcessed());
+        copy.setLastChunkMillis(state.getLastChunkMillis());
+        copy.setLastRunStartedAt(state.getLastRunStartedAt());
+        copy.setLastRunMillis(state.getLastRunMillis());
+        copy.setLastRunOwner(state.getLastRunOwner());
+        copy.setLastError(state.getLastError());
+        return copy;
+    }
+
+    /**
+     * Counts from the watermark up to a limit, one number per chunk.
+     */
+    private static class CountingJob implements ChunkedJob {
+        static final String NAME = "counting";
+
+        private final int limit;
+        private final List<String> seen = new ArrayList<>();
+        private final List<Integer> shards = new ArrayList<>();
+        private int failAt = -1;
+
+        CountingJob(int limit) {
+            this.limit = limit;
+        }
+
+        @Override
+        public String name() {
+            return NAME;
+        }
+
+        @Override
+        public Duration interval() {
+            return Duration.ofMinutes(1);
+        }
+
+        @Override
+        public Optional<String> processNextChunk(String watermark) {
+            seen.add(watermark);
+            shards.add(ShardContext.current());
+            int done = watermark == null ? 0 : Integer.parseInt(watermark);
+            if (done == failAt) {
+                throw new IllegalStateException("chunk " + (done + 1) + " failed");
+            }
+            return done < limit ? Optional.of(String.valueOf(done + 1)) : Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package ru.nsu.fit.mihanizzm.litecrm.leaderboard;
+
+import org.junit.jupiter.api.Test;
+import ru.nsu.fit.mihanizzm.litecrm.cache.ChangeEvent;
+import ru.nsu.fit.mihanizzm.litecrm.models.PaymentType;
+import ru.nsu.fit.mihanizzm.litecrm.models.PeriodType;
+import ru.nsu.fit.mihanizzm.litecrm.models.Seller;
+import ru.nsu.fit.mihanizzm.litecrm.models.Transaction;
+import ru.nsu.fit.mihanizzm.litecrm.models.TransactionEvent;
+import ru.nsu.fit.mihanizzm.litecrm.models.dtos.LeaderboardDeltaDto;
+import ru.nsu.fit.mihanizzm.litecrm.models.dtos.LeaderboardEntryDto;
+import ru.nsu.fit.mihanizzm.litecrm.models.dtos.LeaderboardResponseDto;
+import ru.nsu.fit.mihanizzm.litecrm.sharding.ShardDataSources;
+import ru.nsu.fit.mihanizzm.litecrm.totals.TransactionDelta;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+class LeaderboardTest {
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 3, 14, 15, 0);
+    private static final Clock CLOCK = Clock.fixed(NOW.toInstant(ZoneOffset.UTC), ZoneId.of("UTC"));
+
+    private final ShardDataSources dataSources = mock(ShardDataSources.class);
+    private final Leaderboard leaderboard = leaderboard(CLOCK);
+
+    @Test
+    void shouldRankSellersByTotal() {
+        leaderboard.apply(TransactionDelta.of(TransactionEvent.created(transaction(1, 1, "100.00", NOW))));
+        leaderboard.apply(TransactionDelta.of(TransactionEvent.created(transaction(2, 2, "300.00", NOW))));
+        leaderboard.apply(TransactionDelta.of(TransactionEvent.created(transaction(3, 3, "100.00", NOW))));
+        leaderboard.apply(TransactionDelta.of(TransactionEvent.created(transaction(4, 1, "50.00", NOW.minusDays(1)))));
+
+        Standings standings = leaderboard.standings();
+
+        assertThat(board(standings, PeriodType.DAY).entries()).containsExactly(
+                new LeaderboardEntryDto(1, 2, 1, new BigDecimal("300.00")),
+                new LeaderboardEntryDto(2, 1, 1, new BigDecimal("100.00"))
+        );
+        assertThat(board(standings, PeriodType.MONTH).entries()).containsExactly(
+                new LeaderboardEntryDto(1, 2, 1, new BigDecimal("300.00")),
+                new LeaderboardEntryDto(2, 1, 2, new BigDecimal("150.00"))
+        );
+        assertThat(board(standings, PeriodType.DAY).periodStart()).isEqualTo(NOW.toLocalDate().atStartOfDay());
+    }
+
+    @Test
+    void shouldApplyChangesOfTransactions() {
+        Transaction moved = transaction(1, 1, "100.00", NOW);
+        leaderboard.apply(TransactionDelta.of(TransactionEvent.created(moved)));
+        Transaction deleted = transaction(2, 2, "80.00", NOW);
+        leaderboard.apply(TransactionDelta.of(TransactionEvent.created(deleted)));
+        Transaction changed = transaction(3, 3, "10.00", NOW);
+        leaderboard.apply(TransactionDelta.of(TransactionEvent.created(changed)));
+
+        moved.setSeller(seller(3));
+        moved.setAmount(new BigDecimal("110.00"));
+        leaderboard.apply(TransactionDelta.of(TransactionEvent.moved(moved, 1, new BigDecimal("100.00"))));
+        leaderboard.apply(TransactionDelta.of(TransactionEvent.deleted(deleted)));
+        changed.setAmount(new BigDecimal("5.00"));
+        leaderboard.apply(TransactionDelta.of(TransactionEvent.amountChanged(changed, new BigDecimal("10.00"))));
+
+        assertThat(board(leaderboard.standings(), PeriodType.YEAR).entries()).containsExactly(
+                new LeaderboardEntryDto(1, 3, 2, new BigDecimal("115.00"))
+        );
+    }
+
+    @Test
+    void shouldRemoveDeletedSeller() {
+        leaderboard.apply(TransactionDelta.of(TransactionEvent.created(transaction(1, 1, "100.00", NOW))));
+        leaderboard.apply(TransactionDelta.of(TransactionEvent.created(transaction(2, 2, "50.00", NOW))));
+
+        leaderboard.apply(TransactionDelta.of(TransactionEvent.sellerChanged(1)));
+
+        assertThat(board(leaderboard.standings(), PeriodType.QUARTER).entries())
+                .extracting(LeaderboardEntryDto::sellerId)
+                .containsExactly(2);
+    }
+
+    @Test
+    void shouldStartNewPeriodOnItsFirstTransaction() {
+        leaderboard.apply(TransactionDelta.of(TransactionEvent.created(transaction(1, 1, "100.00", NOW))));
+        LocalDateTime tomorrow = NOW.plusDays(1);
+
+        leaderboard.apply(List.of(TransactionDelta.created(2, 1, new BigDecimal("5.00"), tomorrow)));
+
+        Standings standings = leaderboard.standings();
+        assertThat(board(standings, PeriodType.DAY).periodStart()).isEqualTo(tomorrow.toLocalDate().atStartOfDay());
+        assertThat(board(standings, PeriodType.DAY).entries()).extracting(LeaderboardEntryDto::sellerId)
+                .containsExactly(2);
+        assertThat(board(standings, PeriodType.MONTH).entries()).extracting(LeaderboardEntryDto::sellerId)
+                .containsExactly(1, 2);
+    }
+
+    @Test
+    void shouldNotReadChangesOfPastYears() {
+        leaderboard.changed(List.of(ChangeEvent.transaction(1, 1, NOW.toLocalDate().minusYears(1))));
+
+        leaderboard.catchUp();
+
+        verifyNoInteractions(dataSources);
+    }
+
+    @Test
+    void shouldKeepVersionWhileBoardsDontChange() {
+        leaderboard.apply(TransactionDelta.of(TransactionEvent.created(transaction(1, 1, "100.00", NOW))));
+        leaderboard.apply(TransactionDelta.of(TransactionEvent.created(transaction(2, 2, "90.00", NOW))));
+        Standings before = leaderboard.standings();
+
+        // Seller 3 stays below the top two
+        leaderboard.apply(List.of(TransactionDelta.created(3, 1, new BigDecimal("10.00"), NOW)));
+
+        assertThat(leaderboard.standings()).isSameAs(before);
+    }
+
+    @Test
+    void shouldDescribeOnlyChangedEntries() {
+        leaderboard.apply(TransactionDelta.of(TransactionEvent.created(transaction(1, 1, "100.00", NOW))));
+        leaderboard.apply(TransactionDelta.of(TransactionEvent.created(transaction(2, 2, "90.00", NOW))));
+        Standings before = leaderboard.standings();
+
+        leaderboard.apply(List.of(TransactionDelta.created(2, 1, new BigDecimal("5.00"), NOW.minusYears(1))));
+        leaderboard.apply(List.of(TransactionDelta.created(2, 1, new BigDecimal("5.00"), NOW.minusMonths(1))));
+        Standings after = leaderboard.standings();
+
+        assertThat(after.version()).isGreaterThan(before.version());
+        List<LeaderboardDeltaDto> deltas = after.changesSince(before);
+        // Last year counts nowhere, February counts in the quarter and the year
+        assertThat(deltas).extracting(LeaderboardDeltaDto::period)
+                .containsExactlyInAnyOrder(PeriodType.QUARTER, PeriodType.YEAR);
+        LeaderboardDeltaDto year = deltas.stream()
+                .filter(delta -> delta.period() == PeriodType.YEAR)
+                .findFirst()
+                .orElseThrow();
+        assertThat(year.size()).isEqualTo(2);
+        assertThat(year.changed()).containsExactly(new LeaderboardEntryDto(2, 2, 2, new BigDecimal("95.00")));
+    }
+
+    @Test
+    void shouldRankSameAfterRestoringSnapshot() {
+        leaderboard.reconcile();
+        leaderboard.apply(TransactionDelta.of(TransactionEvent.created(transaction(1, 1, "100.00", NOW))));
+        leaderboard.apply(TransactionDelta.of(TransactionEvent.created(transaction(2, 2, "300.10", NOW))));
+        leaderboard.apply(TransactionDelta.of(TransactionEvent.created(transaction(3, 1, "50.05", NOW.minusDays(1)))));
+        Leaderboard restored = leaderboard(CLOCK);
+
+        assertThat(restored.restore(ByteBuffer.wrap(leaderboard.snapshot()))).isTrue();
+
+        assertThat(restored.standings().boards()).isEqualTo(leaderboard.standings().boards());
+        assertThat(restored.sellers()).containsExactlyInAnyOrder(1, 2);
+    }
+
+    @Test
+    void shouldNotRestoreSnapshotOfPastPeriod() {
+        leaderboard.reconcile();
+        leaderboard.apply(TransactionDelta.of(TransactionEvent.created(transaction(1, 1, "100.00", NOW))));
+        Leaderboard restored = leaderboard(Clock.offset(CLOCK, Duration.ofDays(1)));
+
+        assertThat(restored.restore(ByteBuffer.wrap(leaderboard.snapshot()))).isFalse();
+
+        assertThat(restored.loaded()).isFalse();
+    }
+
+    private Leaderboard leaderboard(Clock clock) {
+        return new Leaderboard(
+                new LeaderboardProperties(true, 2, Duration.ofSeconds(1), Duration.ofSeconds(5), Duration.ofSeconds(1),
+                        Duration.ofSeconds(15), Duration.ofMinutes(30), 100, 1),
+                dataSources,
+                clock
+        );
+    }
+
+    private static LeaderboardResponseDto board(Standings standings, PeriodType period) {
+        return standings.boards().stream()
+                .filter(board -> board.period() == period)
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private static Transaction transaction(int id, int sellerId, String amount, LocalDateTime date) {
+        return new Transaction(id, seller(sellerId), new BigDecimal(amount), PaymentType.CARD, date);
+    }
+
+    private static Seller seller(int id) {
+        return new Seller(id, "Seller " + id, null, null, new ArrayList<>());
+    }
+}
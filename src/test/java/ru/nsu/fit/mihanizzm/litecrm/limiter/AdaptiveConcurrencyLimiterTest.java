@@ -0,0 +1,74 @@
+package ru.nsu.fit.mihanizzm.litecrm.limiter;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveConcurrencyLimiterTest {
+    private final ConcurrencyLimitProperties.GroupSettings settings =
+            new ConcurrencyLimitProperties.GroupSettings(4, 1, 50, 0.5, 1.5, 100);
+
+    @Test
+    void shouldRejectRequestsAboveLimit() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(settings);
+
+        for (int i = 0; i < 4; i++) {
+            assertThat(limiter.tryAcquire()).isTrue();
+        }
+
+        assertThat(limiter.tryAcquire()).isFalse();
+        assertThat(limiter.getInFlight()).isEqualTo(4);
+        assertThat(limiter.getRejectedCount()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldGrowLimitWhileLatencyIsStable() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(settings);
+
+        for (int i = 0; i < 20; i++) {
+            saturateAndRelease(limiter, TimeUnit.MILLISECONDS.toNanos(10));
+        }
+
+        assertThat(limiter.getLimit()).isGreaterThan(4);
+    }
+
+    @Test
+    void shouldShrinkLimitWhenLatencyGrows() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(settings);
+        for (int i = 0; i < 20; i++) {
+            saturateAndRelease(limiter, TimeUnit.MILLISECONDS.toNanos(10));
+        }
+        int grownLimit = limiter.getLimit();
+
+        for (int i = 0; i < 3; i++) {
+            saturateAndRelease(limiter, TimeUnit.MILLISECONDS.toNanos(200));
+        }
+
+        assertThat(limiter.getLimit()).isLessThan(grownLimit);
+    }
+
+    @Test
+    void shouldBackOffOnDrop() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(
+                new ConcurrencyLimitProperties.GroupSettings(20, 1, 50, 0.5, 1.5, 10)
+        );
+
+        limiter.tryAcquire();
+        limiter.release(TimeUnit.MILLISECONDS.toNanos(10), true);
+
+        assertThat(limiter.getLimit()).isEqualTo(18);
+        assertThat(limiter.getInFlight()).isZero();
+    }
+
+    private void saturateAndRelease(AdaptiveConcurrencyLimiter limiter, long rttNanos) {
+        int acquired = 0;
+        while (limiter.tryAcquire()) {
+            acquired++;
+        }
+        for (int i = 0; i < acquired; i++) {
+            limiter.release(rttNanos, false);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package ru.nsu.fit.mihanizzm.litecrm.metrics;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.observation.DefaultMeterObservationHandler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import ru.nsu.fit.mihanizzm.litecrm.exception.NoTransactionsInThisPeriodException;
+import ru.nsu.fit.mihanizzm.litecrm.models.PeriodType;
+import ru.nsu.fit.mihanizzm.litecrm.models.dtos.BestDayResponseDto;
+import ru.nsu.fit.mihanizzm.litecrm.models.dtos.SellerResponseDto;
+import ru.nsu.fit.mihanizzm.litecrm.services.AnalyticsService;
+import ru.nsu.fit.mihanizzm.litecrm.services.impl.AnalyticsServiceImpl;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ServiceMetricsAspectTest {
+    private SimpleMeterRegistry meterRegistry;
+    private AnalyticsServiceImpl target;
+    private AnalyticsService proxy;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        target = mock(AnalyticsServiceImpl.class);
+
+        ObservationRegistry observationRegistry = ObservationRegistry.create();
+        observationRegistry.observationConfig().observationHandler(new DefaultMeterObservationHandler(meterRegistry));
+
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.addAspect(new ServiceMetricsAspect(observationRegistry));
+        proxy = factory.getProxy();
+    }
+
+    @Test
+    void shouldTagTimerWithPeriodAndSuccess() {
+        LocalDateTime date = LocalDateTime.of(2024, 3, 15, 10, 0);
+        when(target.getTopSeller(PeriodType.MONTH, date))
+                .thenReturn(new SellerResponseDto(1, "Bob", "bob@gmail.com", date));
+
+        proxy.getTopSeller(PeriodType.MONTH, date);
+
+        Timer timer = meterRegistry.find(ServiceMetricsAspect.METRIC_NAME)
+                .tags("method", "getTopSeller", "period", "MONTH", "outcome", "success")
+                .timer();
+        assertThat(timer).isNotNull();
+        assertThat(timer.count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldTagClientErrors() {
+        LocalDateTime date = LocalDateTime.of(2024, 3, 15, 10, 0);
+        when(target.getTopSeller(PeriodType.DAY, date))
+                .thenThrow(new NoTransactionsInThisPeriodException(date, date.plusDays(1)));
+
+        assertThatThrownBy(() -> proxy.getTopSeller(PeriodType.DAY, date))
+                .isInstanceOf(NoTransactionsInThisPeriodException.class);
+
+        assertThat(meterRegistry.find(ServiceMetricsAspect.METRIC_NAME)
+                .tags("period", "DAY", "outcome", "client_error")
+                .timer()).isNotNull();
+    }
+
+    @Test
+    void shouldUseNonePeriodForMethodsWithoutPeriod() {
+        when(target.getBestDayForSeller(1)).thenReturn(new BestDayResponseDto(LocalDate.of(2024, 3, 15)));
+
+        proxy.getBestDayForSeller(1);
+
+        assertThat(meterRegistry.find(ServiceMetricsAspect.METRIC_NAME)
+                .tags("method", "getBestDayForSeller", "period", "none")
+                .timer()).isNotNull();
+    }
+}
@@ -0,0 +1,34 @@
+package ru.nsu.fit.mihanizzm.litecrm.models;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PeriodTest {
+    @ParameterizedTest
+    @CsvSource({
+            "DAY,     2025-03-14T12:30, 2025-03-14T00:00, 2025-03-15T00:00",
+            "MONTH,   2025-03-14T12:30, 2025-03-01T00:00, 2025-04-01T00:00",
+            "QUARTER, 2025-01-01T00:00, 2025-01-01T00:00, 2025-04-01T00:00",
+            "QUARTER, 2025-03-31T23:59, 2025-01-01T00:00, 2025-04-01T00:00",
+            "QUARTER, 2025-06-15T10:00, 2025-04-01T00:00, 2025-07-01T00:00",
+            "QUARTER, 2025-12-31T10:00, 2025-10-01T00:00, 2026-01-01T00:00",
+            "YEAR,    2025-07-04T08:00, 2025-01-01T00:00, 2026-01-01T00:00"
+    })
+    void shouldComputeBoundariesContainingReferenceDate(
+            PeriodType type,
+            LocalDateTime referenceDate,
+            LocalDateTime expectedStart,
+            LocalDateTime expectedEnd
+    ) {
+        Period period = Period.of(type, referenceDate);
+
+        assertThat(period.start()).isEqualTo(expectedStart);
+        assertThat(period.end()).isEqualTo(expectedEnd);
+        assertThat(period.contains(referenceDate)).isTrue();
+        assertThat(period.contains(expectedEnd)).isFalse();
+    }
+}
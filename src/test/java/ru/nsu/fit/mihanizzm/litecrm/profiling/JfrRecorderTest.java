@@ -0,0 +1,86 @@
+package ru.nsu.fit.mihanizzm.litecrm.profiling;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+import ru.nsu.fit.mihanizzm.litecrm.exception.RecordingInProgressException;
+import ru.nsu.fit.mihanizzm.litecrm.exception.RecordingNotFoundException;
+import ru.nsu.fit.mihanizzm.litecrm.models.dtos.RecordingResponseDto;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+class JfrRecorderTest {
+    private JfrRecorder recorder;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        recorder = new JfrRecorder(new ProfilingProperties(
+                Duration.ofMinutes(1),
+                new ProfilingProperties.Continuous(true, "default", Duration.ofMinutes(1), DataSize.ofMegabytes(10),
+                        Duration.ofMillis(20))
+        ));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        recorder.close();
+    }
+
+    @Test
+    void shouldWriteCustomEventsToOnDemandRecording() throws Exception {
+        RecordingResponseDto started = recorder.start("default", Duration.ofSeconds(1));
+        assertThatThrownBy(() -> recorder.start("default", Duration.ofSeconds(1)))
+                .isInstanceOf(RecordingInProgressException.class);
+
+        ServiceCallEvent event = new ServiceCallEvent();
+        event.begin();
+        event.service = "AnalyticsServiceImpl";
+        event.method = "getTopSeller";
+        event.commit();
+
+        await().atMost(Duration.ofSeconds(10))
+                .until(() -> recorder.get(started.id()).sizeBytes() != null);
+        List<RecordedEvent> events = RecordingFile.readAllEvents(recorder.file(started.id()));
+        assertThat(events)
+                .filteredOn(recorded -> recorded.getEventType().getName().equals(ServiceCallEvent.NAME))
+                .singleElement()
+                .satisfies(recorded -> assertThat(recorded.getString("method")).isEqualTo("getTopSeller"));
+    }
+
+    @Test
+    void shouldDeleteRecordingWithItsFile() throws Exception {
+        RecordingResponseDto started = recorder.start("default", Duration.ofSeconds(1));
+        await().atMost(Duration.ofSeconds(10))
+                .until(() -> recorder.get(started.id()).sizeBytes() != null);
+        Path file = recorder.file(started.id());
+
+        recorder.delete(started.id());
+
+        assertThat(file).doesNotExist();
+        assertThatThrownBy(() -> recorder.get(started.id())).isInstanceOf(RecordingNotFoundException.class);
+    }
+
+    @Test
+    void shouldRejectDurationAboveMaximum() {
+        assertThatThrownBy(() -> recorder.start("default", Duration.ofMinutes(2)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void shouldDumpContinuousRecording() throws Exception {
+        Path dump = recorder.dumpContinuous();
+
+        assertThat(Files.size(dump)).isPositive();
+        assertThat(RecordingFile.readAllEvents(dump)).isNotEmpty();
+    }
+}
@@ -0,0 +1,107 @@
+package ru.nsu.fit.mihanizzm.litecrm.projections;
+
+import org.junit.jupiter.api.Test;
+import ru.nsu.fit.mihanizzm.litecrm.models.PeriodType;
+import ru.nsu.fit.mihanizzm.litecrm.models.TransactionEventType;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProjectorTest {
+    private static final LocalDateTime MARCH_15 = LocalDateTime.of(2024, 3, 15, 10, 30);
+    private static final LocalDateTime APRIL_2 = LocalDateTime.of(2024, 4, 2, 18, 0);
+
+    @Test
+    void shouldSumChangesPerSellerAndPeriod() {
+        Projector.Deltas deltas = Projector.Deltas.of(List.of(
+                created(1, 7, "100.00", MARCH_15),
+                created(2, 7, "50.00", APRIL_2),
+                event(3, TransactionEventType.AMOUNT_CHANGED, 1, 7, null, "120.00", "100.00", MARCH_15)
+        ), Set.of());
+
+        Projector.SellerDelta seller = deltas.sellers().get(7);
+        assertThat(seller.count).isEqualTo(2);
+        assertThat(seller.amount).isEqualByComparingTo("170.00");
+        assertThat(seller.firstSaleAt).isEqualTo(MARCH_15);
+        assertThat(seller.lastSaleAt).isEqualTo(APRIL_2);
+        assertThat(deltas.shrunk()).isEmpty();
+
+        Projector.PeriodDelta march = deltas.periods()
+                .get(new Projector.PeriodKey(PeriodType.MONTH, LocalDateTime.of(2024, 3, 1, 0, 0), 7));
+        assertThat(march.count).isEqualTo(1);
+        assertThat(march.amount).isEqualByComparingTo("120.00");
+        Projector.PeriodDelta quarter = deltas.periods()
+                .get(new Projector.PeriodKey(PeriodType.QUARTER, LocalDateTime.of(2024, 1, 1, 0, 0), 7));
+        assertThat(quarter.count).isEqualTo(1);
+        assertThat(deltas.periods()).containsKey(
+                new Projector.PeriodKey(PeriodType.QUARTER, LocalDateTime.of(2024, 4, 1, 0, 0), 7));
+    }
+
+    @Test
+    void shouldMoveTotalsBetweenSellers() {
+        Projector.Deltas deltas = Projector.Deltas.of(List.of(
+                event(1, TransactionEventType.MOVED, 5, 8, 7, "30.00", "25.00", MARCH_15)
+        ), Set.of());
+
+        assertThat(deltas.sellers().get(7).count).isEqualTo(-1);
+        assertThat(deltas.sellers().get(7).amount).isEqualByComparingTo("-25.00");
+        assertThat(deltas.sellers().get(8).count).isEqualTo(1);
+        assertThat(deltas.sellers().get(8).amount).isEqualByComparingTo("30.00");
+        assertThat(deltas.shrunk()).containsExactly(7);
+    }
+
+    @Test
+    void shouldDropRowsWhoseChangesCancelOut() {
+        Projector.Deltas deltas = Projector.Deltas.of(List.of(
+                created(1, 7, "10.00", MARCH_15),
+                event(2, TransactionEventType.DELETED, 1, 7, null, "10.00", null, MARCH_15)
+        ), Set.of());
+
+        assertThat(deltas.sellers()).isEmpty();
+        assertThat(deltas.periods()).isEmpty();
+        assertThat(deltas.shrunk()).containsExactly(7);
+    }
+
+    @Test
+    void shouldSkipRecountedSellers() {
+        Projector.Deltas deltas = Projector.Deltas.of(List.of(
+                event(1, TransactionEventType.SELLER_CHANGED, null, 7, null, null, null, null),
+                created(2, 7, "10.00", MARCH_15),
+                event(3, TransactionEventType.MOVED, 2, 8, 7, "10.00", "10.00", MARCH_15)
+        ), Set.of(7));
+
+        assertThat(deltas.sellers()).containsOnlyKeys(8);
+        assertThat(deltas.shrunk()).isEmpty();
+    }
+
+    private static Projector.Event created(long id, int sellerId, String amount, LocalDateTime date) {
+        return event(id, TransactionEventType.CREATED, (int) id, sellerId, null, amount, null, date);
+    }
+
+    private static Projector.Event event(
+            long id,
+            TransactionEventType type,
+            Integer transactionId,
+            int sellerId,
+            Integer previousSellerId,
+            String amount,
+            String previousAmount,
+            LocalDateTime date
+    ) {
+        return new Projector.Event(
+                id,
+                type,
+                transactionId,
+                sellerId,
+                previousSellerId,
+                amount == null ? null : new BigDecimal(amount),
+                previousAmount == null ? null : new BigDecimal(previousAmount),
+                date,
+                0
+        );
+    }
+}
@@ -0,0 +1,114 @@
+package ru.nsu.fit.mihanizzm.litecrm.reports;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FileDownloadTest {
+    private static final String CONTENT = "seller_id,total\n1,100.00\n2,50.00\n";
+
+    @TempDir
+    private Path directory;
+
+    private Path file;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        file = Files.writeString(directory.resolve("report.csv"), CONTENT);
+    }
+
+    @Test
+    void shouldSendWholeFile() throws IOException {
+        MockHttpServletResponse response = send(get());
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getContentAsString()).isEqualTo(CONTENT);
+        assertThat(response.getContentLengthLong()).isEqualTo(CONTENT.length());
+        assertThat(response.getHeader(HttpHeaders.ETAG)).isNotNull();
+        assertThat(response.getHeader(HttpHeaders.CONTENT_DISPOSITION)).contains("report.csv");
+    }
+
+    @Test
+    void shouldSendRequestedRange() throws IOException {
+        MockHttpServletRequest request = get();
+        request.addHeader(HttpHeaders.RANGE, "bytes=16-");
+
+        MockHttpServletResponse response = send(request);
+
+        assertThat(response.getStatus()).isEqualTo(206);
+        assertThat(response.getContentAsString()).isEqualTo(CONTENT.substring(16));
+        assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE))
+                .isEqualTo("bytes 16-" + (CONTENT.length() - 1) + "/" + CONTENT.length());
+    }
+
+    @Test
+    void shouldRejectRangeBeyondFile() throws IOException {
+        MockHttpServletRequest request = get();
+        request.addHeader(HttpHeaders.RANGE, "bytes=1000-");
+
+        MockHttpServletResponse response = send(request);
+
+        assertThat(response.getStatus()).isEqualTo(416);
+        assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes */" + CONTENT.length());
+        assertThat(response.getContentAsByteArray()).isEmpty();
+    }
+
+    @Test
+    void shouldSendWholeFileForRangeOfAnotherVersion() throws IOException {
+        MockHttpServletRequest request = get();
+        request.addHeader(HttpHeaders.RANGE, "bytes=0-9");
+        request.addHeader(HttpHeaders.IF_RANGE, "\"other\"");
+
+        MockHttpServletResponse response = send(request);
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getContentAsString()).isEqualTo(CONTENT);
+    }
+
+    @Test
+    void shouldAnswerNotModifiedForKnownVersion() throws IOException {
+        String etag = send(get()).getHeader(HttpHeaders.ETAG);
+        MockHttpServletRequest request = get();
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, etag);
+
+        MockHttpServletResponse response = send(request);
+
+        assertThat(response.getStatus()).isEqualTo(304);
+        assertThat(response.getContentAsByteArray()).isEmpty();
+    }
+
+    @Test
+    void shouldHandLargeFileOverToConnector() throws IOException {
+        Files.write(file, new byte[(int) FileDownload.SENDFILE_MIN_SIZE * 2]);
+        MockHttpServletRequest request = get();
+        request.setAttribute(FileDownload.SENDFILE_SUPPORTED, Boolean.TRUE);
+        request.addHeader(HttpHeaders.RANGE, "bytes=10-");
+
+        MockHttpServletResponse response = send(request);
+
+        assertThat(response.getContentAsByteArray()).isEmpty();
+        assertThat(request.getAttribute(FileDownload.SENDFILE_FILENAME)).isEqualTo(file.toAbsolutePath().toString());
+        assertThat(request.getAttribute(FileDownload.SENDFILE_START)).isEqualTo(10L);
+        assertThat(request.getAttribute(FileDownload.SENDFILE_END)).isEqualTo(FileDownload.SENDFILE_MIN_SIZE * 2);
+    }
+
+    private MockHttpServletResponse send(MockHttpServletRequest request) throws IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        FileDownload.send(file, MediaType.TEXT_PLAIN, request, response);
+        return response;
+    }
+
+    private static MockHttpServletRequest get() {
+        return new MockHttpServletRequest("GET", "/report.csv");
+    }
+}
@@ -0,0 +1,83 @@
+package ru.nsu.fit.mihanizzm.litecrm.reports;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.nsu.fit.mihanizzm.litecrm.cache.CacheInvalidator;
+import ru.nsu.fit.mihanizzm.litecrm.cache.ChangeEvent;
+import ru.nsu.fit.mihanizzm.litecrm.exception.PeriodNotClosedException;
+import ru.nsu.fit.mihanizzm.litecrm.models.PeriodType;
+import ru.nsu.fit.mihanizzm.litecrm.sharding.ShardDataSources;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+class SellerReportsTest {
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 4, 1, 0, 30);
+    private static final Clock CLOCK = Clock.fixed(NOW.toInstant(ZoneOffset.UTC), ZoneId.of("UTC"));
+
+    @TempDir
+    private Path directory;
+
+    private SellerReports reports;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        reports = new SellerReports(
+                new ReportProperties(true, directory, Duration.ofHours(1), 1000, Duration.ofMinutes(5), 1),
+                mock(ShardDataSources.class),
+                mock(CacheInvalidator.class),
+                CLOCK
+        );
+    }
+
+    @Test
+    void shouldRejectPeriodClosedRecently() {
+        // March ended half an hour ago
+        assertThatThrownBy(() -> reports.report(PeriodType.MONTH, LocalDateTime.of(2025, 3, 10, 0, 0)))
+                .isInstanceOf(PeriodNotClosedException.class);
+    }
+
+    @Test
+    void shouldServeWrittenReport() throws IOException {
+        Path written = Files.writeString(reports.file(PeriodType.MONTH, LocalDate.of(2025, 2, 1)), "seller_id\n");
+
+        assertThat(reports.report(PeriodType.MONTH, LocalDateTime.of(2025, 2, 14, 12, 0))).isEqualTo(written);
+    }
+
+    @Test
+    void shouldDeleteReportsOfChangedDay() throws IOException {
+        Path february = Files.writeString(reports.file(PeriodType.MONTH, LocalDate.of(2025, 2, 1)), "");
+        Path quarter = Files.writeString(reports.file(PeriodType.QUARTER, LocalDate.of(2025, 1, 1)), "");
+        Path january = Files.writeString(reports.file(PeriodType.MONTH, LocalDate.of(2025, 1, 1)), "");
+
+        reports.evict(List.of(ChangeEvent.transaction(1, 1, LocalDate.of(2025, 2, 14)), ChangeEvent.seller(2)));
+
+        assertThat(february).doesNotExist();
+        assertThat(quarter).doesNotExist();
+        assertThat(january).exists();
+    }
+
+    @Test
+    void shouldDeleteEveryReportOnFullFlush() throws IOException {
+        Path january = Files.writeString(reports.file(PeriodType.MONTH, LocalDate.of(2025, 1, 1)), "");
+        Path year = Files.writeString(reports.file(PeriodType.YEAR, LocalDate.of(2024, 1, 1)), "");
+
+        reports.evict(List.of(ChangeEvent.flushAll()));
+
+        assertThat(january).doesNotExist();
+        assertThat(year).doesNotExist();
+    }
+}
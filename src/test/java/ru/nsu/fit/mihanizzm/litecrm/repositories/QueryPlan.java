@@ -0,0 +1,63 @@
+package ru.nsu.fit.mihanizzm.litecrm.repositories;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Result of {@code EXPLAIN (ANALYZE, BUFFERS, FORMAT JSON)} for a statement captured from a repository call,
+ * replayed with the same bind parameters.
+ */
+record QueryPlan(String sql, JsonNode root) {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    static QueryPlan explain(DataSource dataSource, QueryInfo query) throws Exception {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     "EXPLAIN (ANALYZE, BUFFERS, FORMAT JSON) " + query.getQuery())) {
+            if (!query.getParametersList().isEmpty()) {
+                for (ParameterSetOperation operation : query.getParametersList().getFirst()) {
+                    operation.getMethod().invoke(statement, operation.getArgs());
+                }
+            }
+            try (ResultSet resultSet = statement.executeQuery()) {
+                resultSet.next();
+                return new QueryPlan(query.getQuery(), MAPPER.readTree(resultSet.getString(1)).get(0).get("Plan"));
+            }
+        }
+    }
+
+    /** Relations read with a sequential scan anywhere in the plan. */
+    List<String> seqScannedRelations() {
+        List<String> relations = new ArrayList<>();
+        collectSeqScans(root, relations);
+        return relations;
+    }
+
+    /** Shared buffers touched by the whole plan, whether found in the cache or read from disk. */
+    long sharedBuffers() {
+        return root.path("Shared Hit Blocks").asLong() + root.path("Shared Read Blocks").asLong();
+    }
+
+    @Override
+    public String toString() {
+        return sql + System.lineSeparator() + root.toPrettyString();
+    }
+
+    private static void collectSeqScans(JsonNode node, List<String> relations) {
+        if ("Seq Scan".equals(node.path("Node Type").asText())) {
+            relations.add(node.path("Relation Name").asText());
+        }
+        for (JsonNode child : node.path("Plans")) {
+            collectSeqScans(child, relations);
+        }
+    }
+}
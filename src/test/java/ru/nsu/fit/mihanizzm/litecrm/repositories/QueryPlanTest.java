@@ -0,0 +1,250 @@
+package ru.nsu.fit.mihanizzm.litecrm.repositories;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.lang.NonNull;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import ru.nsu.fit.mihanizzm.litecrm.models.Period;
+import ru.nsu.fit.mihanizzm.litecrm.models.PeriodType;
+import ru.nsu.fit.mihanizzm.litecrm.seed.DataSeeder;
+import ru.nsu.fit.mihanizzm.litecrm.seed.SeedProperties;
+import ru.nsu.fit.mihanizzm.litecrm.seed.SeedResult;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs every custom repository query against seeded data under {@code EXPLAIN (ANALYZE, BUFFERS)} and fails
+ * when a plan falls back to a sequential scan of the table it reads or touches more buffers than budgeted.
+ * The budget is well below a full scan of the seeded {@code transaction} table, which touches about 1500 buffers,
+ * or of {@code seller_period_stats}, filled from it the way the projector would.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({DataSeeder.class, QueryPlanTest.CapturingDataSourceConfig.class})
+@EnableConfigurationProperties(SeedProperties.class)
+@TestPropertySource(properties = {
+        "litecrm.seed.sellers=1000",
+        "litecrm.seed.transactions=200000",
+        "litecrm.seed.days=365"
+})
+@Testcontainers(disabledWithoutDocker = true)
+class QueryPlanTest {
+    private static final long BUFFER_BUDGET = 400;
+
+    private static final List<QueryInfo> capturedQueries = new ArrayList<>();
+    private static volatile boolean capturing;
+    private static SeedResult seedResult;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private SellerRepository sellerRepository;
+
+    @Autowired
+    private SellerPeriodStatsRepository sellerPeriodStatsRepository;
+
+    @Autowired
+    private DataSeeder dataSeeder;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:17")
+            .withDatabaseName("test-db")
+            .withUsername("test")
+            .withPassword("test");
+
+    @BeforeAll
+    static void startContainer() {
+        postgres.start();
+    }
+
+    @AfterAll
+    static void stopContainer() {
+        postgres.stop();
+    }
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @BeforeEach
+    void seedOnce() {
+        if (seedResult != null) {
+            return;
+        }
+        seedResult = dataSeeder.seed();
+        // The projector isn't running here
+        jdbcTemplate.update("INSERT INTO app.seller_period_stats " +
+                "SELECT p.period_type, p.period_start, t.seller_id, COUNT(*), SUM(t.amount) " +
+                "FROM app.transaction t CROSS JOIN LATERAL (VALUES " +
+                "('DAY', date_trunc('day', t.transaction_date)), " +
+                "('MONTH', date_trunc('month', t.transaction_date)), " +
+                "('QUARTER', date_trunc('quarter', t.transaction_date)), " +
+                "('YEAR', date_trunc('year', t.transaction_date))" +
+                ") AS p(period_type, period_start) " +
+                "GROUP BY 1, 2, 3");
+        // Index-only scans need an up-to-date visibility map, which autovacuum maintains in production.
+        jdbcTemplate.execute("VACUUM ANALYZE app.transaction");
+        jdbcTemplate.execute("VACUUM ANALYZE app.seller_period_stats");
+    }
+
+    @Test
+    void topSellersShouldUseIndex() throws Exception {
+        Period month = lastFullMonth();
+
+        QueryPlan plan = explain(() -> sellerPeriodStatsRepository.findTopSellers(
+                PeriodType.MONTH, month.start(), Limit.of(1)));
+
+        assertIndexed(plan, "seller_period_stats");
+    }
+
+    @Test
+    void topSellerTotalsShouldUseIndex() throws Exception {
+        Period month = lastFullMonth();
+
+        QueryPlan plan = explain(() -> sellerPeriodStatsRepository.findTopSellerTotals(
+                PeriodType.MONTH, month.start(), Limit.of(1)));
+
+        assertIndexed(plan, "seller_period_stats");
+    }
+
+    @Test
+    void sellersWithTotalAmountLessThanShouldUseIndex() throws Exception {
+        Period month = lastFullMonth();
+
+        QueryPlan plan = explain(() -> transactionRepository.findSellerTotalsLessThan(
+                BigDecimal.valueOf(1000), month.start(), month.end(), 0, Limit.of(100)));
+
+        assertIndexed(plan);
+    }
+
+    @Test
+    void sellersWithoutTransactionsShouldUseIndex() throws Exception {
+        Period day = Period.of(PeriodType.DAY, lastFullMonth().start());
+
+        QueryPlan plan = explain(() -> sellerRepository.findIdsWithoutTransactions(
+                day.start(), day.end(), 0, Limit.of(100)));
+
+        assertIndexed(plan);
+    }
+
+    @Test
+    void bestDayForBusiestSellerShouldUseIndex() throws Exception {
+        int busiestSeller = seedResult.sellerIdsByPopularity()[0];
+
+        QueryPlan plan = explain(() -> sellerPeriodStatsRepository.findBusiestDays(busiestSeller, Limit.of(1)));
+
+        assertIndexed(plan, "seller_period_stats");
+    }
+
+    @Test
+    void bestDayForTypicalSellerShouldUseIndex() throws Exception {
+        int[] sellers = seedResult.sellerIdsByPopularity();
+        int typicalSeller = sellers[sellers.length / 2];
+
+        QueryPlan plan = explain(() -> sellerPeriodStatsRepository.findBusiestDays(typicalSeller, Limit.of(1)));
+
+        assertIndexed(plan, "seller_period_stats");
+    }
+
+    private QueryPlan explain(Runnable repositoryCall) throws Exception {
+        synchronized (capturedQueries) {
+            capturedQueries.clear();
+        }
+        capturing = true;
+        try {
+            repositoryCall.run();
+        } finally {
+            capturing = false;
+        }
+        synchronized (capturedQueries) {
+            assertThat(capturedQueries).as("statements issued by the repository call").hasSize(1);
+            return QueryPlan.explain(dataSource, capturedQueries.getFirst());
+        }
+    }
+
+    private static void assertIndexed(QueryPlan plan) {
+        assertIndexed(plan, "transaction");
+    }
+
+    private static void assertIndexed(QueryPlan plan, String relation) {
+        assertThat(plan.seqScannedRelations()).as("sequentially scanned relations in%n%s", plan)
+                .doesNotContain(relation);
+        assertThat(plan.sharedBuffers()).as("shared buffers touched by%n%s", plan)
+                .isLessThanOrEqualTo(BUFFER_BUDGET);
+    }
+
+    private static Period lastFullMonth() {
+        return Period.of(PeriodType.MONTH, LocalDateTime.now().minusMonths(1));
+    }
+
+    @TestConfiguration
+    static class CapturingDataSourceConfig {
+        @Bean
+        static BeanPostProcessor capturingDataSourcePostProcessor() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(@NonNull Object bean, @NonNull String beanName) {
+                    if (!(bean instanceof DataSource dataSource) || !"dataSource".equals(beanName)) {
+                        return bean;
+                    }
+                    return ProxyDataSourceBuilder.create(dataSource)
+                            .listener(new CapturingListener())
+                            .build();
+                }
+            };
+        }
+    }
+
+    private static class CapturingListener implements QueryExecutionListener {
+        @Override
+        public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        }
+
+        @Override
+        public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+            if (capturing) {
+                synchronized (capturedQueries) {
+                    capturedQueries.addAll(queryInfoList);
+                }
+            }
+        }
+    }
+}
@@ -6,6 +6,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
 import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
 import org.springframework.test.context.TestPropertySource;
@@ -13,6 +14,7 @@ import org.testcontainers.containers.PostgreSQLContainer;
 import org.testcontainers.junit.jupiter.Testcontainers;
 import ru.nsu.fit.mihanizzm.litecrm.models.PaymentType;
 import ru.nsu.fit.mihanizzm.litecrm.models.Seller;
+import ru.nsu.fit.mihanizzm.litecrm.models.SellerTotal;
 import ru.nsu.fit.mihanizzm.litecrm.models.Transaction;
 
 import java.math.BigDecimal;
@@ -60,7 +62,7 @@ class TransactionRepositoryTest {
     }
 
     @Test
-    void shouldFindTopSellerByPeriod() {
+    void shouldFindSellersWithTotalAmountLessThan() {
         Seller seller1 = new Seller();
         seller1.setName("Миша");
         seller1.setContactInfo("misha@example.com");
@@ -83,7 +85,7 @@ class TransactionRepositoryTest {
 
         Transaction transaction2 = new Transaction();
         transaction2.setSeller(seller2);
-        transaction2.setAmount(new BigDecimal("2000.00"));
+        transaction2.setAmount(new BigDecimal("200.00"));
         transaction2.setTransactionDate(start.plusDays(2));
         transaction2.setPaymentType(PaymentType.CARD);
 
@@ -96,22 +98,19 @@ class TransactionRepositoryTest {
         transactionRepository.save(transaction1);
         transactionRepository.save(transaction2);
 
-        Optional<Object[]> result = transactionRepository.findTopSellerByPeriod(start, end);
-
-        assertThat(result).isPresent();
-        Object[] topSellerData = result.get();
-        assertThat(topSellerData).isNotEmpty();
+        List<SellerTotal> result = transactionRepository.findSellerTotalsLessThan(
+                new BigDecimal("1000.00"),
+                start,
+                end,
+                0,
+                Limit.of(10)
+        );
 
-        Object[] topSeller = (Object[]) topSellerData[0];
-        Seller topSellerEntity = (Seller) topSeller[0];
-        BigDecimal totalAmount = (BigDecimal) topSeller[1];
-
-        assertThat(topSellerEntity).isEqualTo(seller1);
-        assertThat(totalAmount).isEqualByComparingTo("5000.00");
+        assertThat(result).containsExactly(new SellerTotal(seller2.getId(), new BigDecimal("200.00")));
     }
 
     @Test
-    void shouldFindSellersWithTotalAmountLessThan() {
+    void shouldFindSellersWithoutTransactions() {
         Seller seller1 = new Seller();
         seller1.setName("Миша");
         seller1.setContactInfo("misha@example.com");
@@ -124,82 +123,33 @@ class TransactionRepositoryTest {
         seller2 = sellerRepository.save(seller2);
 
         LocalDateTime start = LocalDateTime.of(2024, 3, 1, 0, 0);
-        LocalDateTime end = LocalDateTime.of(2024, 3, 31, 23, 59);
-
-        Transaction transaction1 = new Transaction();
-        transaction1.setSeller(seller1);
-        transaction1.setAmount(new BigDecimal("5000.00"));
-        transaction1.setTransactionDate(start.plusDays(1));
-        transaction1.setPaymentType(PaymentType.CARD);
-
-        Transaction transaction2 = new Transaction();
-        transaction2.setSeller(seller2);
-        transaction2.setAmount(new BigDecimal("200.00"));
-        transaction2.setTransactionDate(start.plusDays(2));
-        transaction2.setPaymentType(PaymentType.CARD);
-
-        transactionRepository.save(transaction1);
-        transactionRepository.save(transaction2);
-
-        transaction1.setTransactionDate(start.plusDays(1));
-        transaction2.setTransactionDate(start.plusDays(2));
-
-        transactionRepository.save(transaction1);
-        transactionRepository.save(transaction2);
-
-        List<Seller> result = transactionRepository.findSellersWithTotalAmountLessThan(new BigDecimal("1000.00"), start, end);
-
-        assertThat(result).hasSize(1);
-        assertThat(result.getFirst()).isEqualTo(seller2);
-    }
-
-    @Test
-    void shouldFindBestDayForSeller() {
-        Seller seller = new Seller();
-        seller.setName("Миша");
-        seller.setContactInfo("misha@example.com");
-        seller = sellerRepository.save(seller);
-
-        LocalDateTime day1 = LocalDateTime.of(2024, 3, 10, 10, 0);
-        LocalDateTime day2 = LocalDateTime.of(2024, 3, 11, 10, 0);
-
-        Transaction transaction1 = new Transaction();
-        transaction1.setSeller(seller);
-        transaction1.setAmount(new BigDecimal("5000.00"));
-        transaction1.setTransactionDate(day1);
-        transaction1.setPaymentType(PaymentType.CARD);
+        LocalDateTime end = LocalDateTime.of(2024, 4, 1, 0, 0);
 
-        Transaction transaction2 = new Transaction();
-        transaction2.setSeller(seller);
-        transaction2.setAmount(new BigDecimal("1000.00"));
-        transaction2.setTransactionDate(day1);
-        transaction2.setPaymentType(PaymentType.CARD);
+        Transaction inRange = new Transaction();
+        inRange.setSeller(seller1);
+        inRange.setAmount(new BigDecimal("100.00"));
+        inRange.setTransactionDate(start.plusDays(1));
+        inRange.setPaymentType(PaymentType.CARD);
 
-        Transaction transaction3 = new Transaction();
-        transaction3.setSeller(seller);
-        transaction3.setAmount(new BigDecimal("3000.00"));
-        transaction3.setTransactionDate(day2);
-        transaction3.setPaymentType(PaymentType.CARD);
+        Transaction afterRange = new Transaction();
+        afterRange.setSeller(seller2);
+        afterRange.setAmount(new BigDecimal("100.00"));
+        afterRange.setTransactionDate(end);
+        afterRange.setPaymentType(PaymentType.CARD);
 
-        transactionRepository.save(transaction1);
-        transactionRepository.save(transaction2);
-        transactionRepository.save(transaction3);
-
-        transaction1.setTransactionDate(day1);
-        transaction2.setTransactionDate(day1);
-        transaction3.setTransactionDate(day2);
-
-        transactionRepository.save(transaction1);
-        transactionRepository.save(transaction2);
-        transactionRepository.save(transaction3);
+        transactionRepository.save(inRange);
+        transactionRepository.save(afterRange);
 
+        inRange.setTransactionDate(start.plusDays(1));
+        afterRange.setTransactionDate(end);
 
-        Object result = transactionRepository.findBestDayForSellerNative(seller.getId());
+        transactionRepository.save(inRange);
+        transactionRepository.save(afterRange);
 
-        assertThat(result).isNotNull();
-        Object[] resultArray = (Object[]) result;
-        assertThat(resultArray).hasSize(2);
-        assertThat(resultArray[0]).isEqualTo(java.sql.Date.valueOf(day1.toLocalDate())); // День с наибольшим числом транзакций
+        assertThat(sellerRepository.findIdsWithoutTransactions(start, end, 0, Limit.of(10)))
+                .containsExactly(seller2.getId());
+        assertThat(sellerRepository.findIdsWithoutTransactions(start, end, seller2.getId(), Limit.of(10)))
+                .isEmpty();
     }
 
     @Test
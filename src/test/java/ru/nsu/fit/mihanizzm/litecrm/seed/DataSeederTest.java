@@ -0,0 +1,126 @@
+package ru.nsu.fit.mihanizzm.litecrm.seed;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import(DataSeeder.class)
+@EnableConfigurationProperties(SeedProperties.class)
+@TestPropertySource(properties = {
+        "litecrm.seed.sellers=50",
+        "litecrm.seed.transactions=1000",
+        "litecrm.seed.batch-size=300",
+        "litecrm.seed.parallelism=2",
+        "litecrm.seed.end-date=2025-01-01"
+})
+@Testcontainers(disabledWithoutDocker = true)
+class DataSeederTest {
+    @Autowired
+    private DataSeeder dataSeeder;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:17")
+            .withDatabaseName("test-db")
+            .withUsername("test")
+            .withPassword("test");
+
+    @BeforeAll
+    static void startContainer() {
+        postgres.start();
+    }
+
+    @AfterAll
+    static void stopContainer() {
+        postgres.stop();
+    }
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @BeforeEach
+    void cleanUp() {
+        jdbcTemplate.execute("TRUNCATE app.transaction_aud, app.seller_aud, revinfo, app.transaction, app.seller");
+    }
+
+    @Test
+    void shouldSeedRowsWithMatchingAuditTrail() {
+        SeedResult result = dataSeeder.seed();
+
+        assertThat(result.audited()).isTrue();
+        assertThat(result.lastTransactionId() - result.firstTransactionId() + 1).isEqualTo(1000);
+        assertThat(count("app.seller")).isEqualTo(50);
+        assertThat(count("app.transaction")).isEqualTo(1000);
+        // One revision per batch: 1 for sellers, 4 for transactions.
+        assertThat(count("revinfo")).isEqualTo(5);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM app.transaction t "
+                        + "JOIN app.transaction_aud a ON a.id = t.id AND a.revtype = 0 "
+                        + "AND a.amount = t.amount AND a.seller_id = t.seller_id",
+                Long.class
+        )).isEqualTo(1000);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM app.seller s JOIN app.seller_aud a ON a.id = s.id AND a.name = s.name",
+                Long.class
+        )).isEqualTo(50);
+    }
+
+    @Test
+    void shouldGiveMostTransactionsToMostPopularSeller() {
+        SeedResult result = dataSeeder.seed();
+
+        Integer busiestSeller = jdbcTemplate.queryForObject(
+                "SELECT seller_id FROM app.transaction WHERE id BETWEEN ? AND ? "
+                        + "GROUP BY seller_id ORDER BY count(*) DESC LIMIT 1",
+                Integer.class,
+                result.firstTransactionId(),
+                result.lastTransactionId()
+        );
+        assertThat(busiestSeller).isEqualTo(result.sellerIdsByPopularity()[0]);
+    }
+
+    @Test
+    void shouldSeedTransactionsInDaysBeforeEndDate() {
+        dataSeeder.seed();
+
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT min(transaction_date) FROM app.transaction",
+                LocalDateTime.class
+        )).isAfterOrEqualTo(LocalDate.of(2024, 1, 2).atStartOfDay());
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT max(transaction_date) FROM app.transaction",
+                LocalDateTime.class
+        )).isBefore(LocalDate.of(2025, 1, 1).atStartOfDay());
+    }
+
+    private long count(String table) {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM " + table, Long.class);
+    }
+}
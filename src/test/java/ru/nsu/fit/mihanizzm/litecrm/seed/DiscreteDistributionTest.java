@@ -0,0 +1,62 @@
+package ru.nsu.fit.mihanizzm.litecrm.seed;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.offset;
+
+class DiscreteDistributionTest {
+    private static final int SAMPLES = 100_000;
+
+    @Test
+    void shouldFollowWeights() {
+        DiscreteDistribution distribution = DiscreteDistribution.weighted(60, 25, 15, 0);
+
+        int[] counts = sample(distribution);
+
+        assertThat(counts[0] / (double) SAMPLES).isCloseTo(0.60, offset(0.01));
+        assertThat(counts[1] / (double) SAMPLES).isCloseTo(0.25, offset(0.01));
+        assertThat(counts[2] / (double) SAMPLES).isCloseTo(0.15, offset(0.01));
+        assertThat(counts[3]).isZero();
+    }
+
+    @Test
+    void shouldSkewZipfTowardsFirstRanks() {
+        DiscreteDistribution distribution = DiscreteDistribution.zipf(1000, 1.1);
+
+        int[] counts = sample(distribution);
+
+        assertThat(counts[0]).isGreaterThan(counts[1]);
+        assertThat(counts[1]).isGreaterThan(counts[9]);
+        assertThat(counts[0]).isGreaterThan(SAMPLES / 10);
+    }
+
+    @Test
+    void shouldBeReproducibleForSameSeed() {
+        DiscreteDistribution distribution = DiscreteDistribution.zipf(100, 1.1);
+        SplittableRandom first = new SplittableRandom(42);
+        SplittableRandom second = new SplittableRandom(42);
+
+        for (int i = 0; i < 1000; i++) {
+            assertThat(distribution.sample(first)).isEqualTo(distribution.sample(second));
+        }
+    }
+
+    @Test
+    void shouldRejectZeroTotalWeight() {
+        assertThatThrownBy(() -> DiscreteDistribution.weighted(0, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static int[] sample(DiscreteDistribution distribution) {
+        SplittableRandom random = new SplittableRandom(7);
+        int[] counts = new int[distribution.size()];
+        for (int i = 0; i < SAMPLES; i++) {
+            counts[distribution.sample(random)]++;
+        }
+        return counts;
+    }
+}
@@ -7,17 +7,23 @@ import org.mapstruct.factory.Mappers;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 import ru.nsu.fit.mihanizzm.litecrm.exception.NoTransactionsInThisPeriodException;
 import ru.nsu.fit.mihanizzm.litecrm.exception.SellerHasNoTransactionsException;
 import ru.nsu.fit.mihanizzm.litecrm.models.PeriodType;
 import ru.nsu.fit.mihanizzm.litecrm.models.Seller;
+import ru.nsu.fit.mihanizzm.litecrm.models.SellerTotal;
 import ru.nsu.fit.mihanizzm.litecrm.models.dtos.BestDayResponseDto;
 import ru.nsu.fit.mihanizzm.litecrm.models.dtos.SellerResponseDto;
+import ru.nsu.fit.mihanizzm.litecrm.models.dtos.SellerTotalDto;
+import ru.nsu.fit.mihanizzm.litecrm.models.dtos.SellerTotalsResponseDto;
 import ru.nsu.fit.mihanizzm.litecrm.models.mappers.SellerMapper;
+import ru.nsu.fit.mihanizzm.litecrm.repositories.SellerPeriodStatsRepository;
+import ru.nsu.fit.mihanizzm.litecrm.repositories.SellerRepository;
 import ru.nsu.fit.mihanizzm.litecrm.repositories.TransactionRepository;
+import ru.nsu.fit.mihanizzm.litecrm.totals.DailyTotals;
 
 import java.math.BigDecimal;
-import java.sql.Date;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.Month;
@@ -28,8 +34,12 @@ import java.util.Optional;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -37,6 +47,15 @@ class AnalyticsServiceImplTest {
     @Mock
     private TransactionRepository transactionRepository;
 
+    @Mock
+    private SellerPeriodStatsRepository sellerPeriodStatsRepository;
+
+    @Mock
+    private SellerRepository sellerRepository;
+
+    @Mock
+    private DailyTotals dailyTotals;
+
     private final SellerMapper sellerMapper = Mappers.getMapper(SellerMapper.class);
 
     @InjectMocks
@@ -49,7 +68,10 @@ class AnalyticsServiceImplTest {
     void setUp() {
         analyticsService = new AnalyticsServiceImpl(
                 transactionRepository,
-                sellerMapper
+                sellerMapper,
+                sellerPeriodStatsRepository,
+                sellerRepository,
+                dailyTotals
         );
 
         seller = new Seller(
@@ -66,20 +88,17 @@ class AnalyticsServiceImplTest {
     void shouldReturnTopSeller() {
         LocalDateTime startDate = LocalDateTime.of(2024, 3, 15, 10, 0);
         LocalDateTime expectedStart = LocalDateTime.of(2024, 3, 1, 0, 0);
-        LocalDateTime expectedEnd = expectedStart.plusMonths(1);
 
-        Object[] topSellerObj = new Object[]{seller, 5000.00};
-        Optional<Object[]> resultOpt = Optional.of(new Object[]{topSellerObj});
-
-        when(transactionRepository.findTopSellerByPeriod(expectedStart, expectedEnd)).thenReturn(resultOpt);
+        when(sellerPeriodStatsRepository.findTopSellers(PeriodType.MONTH, expectedStart, Limit.of(1)))
+                .thenReturn(List.of(seller));
 
         SellerResponseDto result = analyticsService.getTopSeller(PeriodType.MONTH, startDate);
 
         assertThat(result).isNotNull();
         assertThat(result).isEqualTo(sellerResponseDto);
 
-        verify(transactionRepository, times(1))
-                .findTopSellerByPeriod(expectedStart, expectedEnd);
+        verify(sellerPeriodStatsRepository, times(1))
+                .findTopSellers(PeriodType.MONTH, expectedStart, Limit.of(1));
     }
 
     @Test
@@ -88,15 +107,13 @@ class AnalyticsServiceImplTest {
         LocalDateTime expectedStart = LocalDateTime.of(2024, 3, 1, 0, 0);
         LocalDateTime expectedEnd = expectedStart.plusMonths(1);
 
-        when(transactionRepository.findTopSellerByPeriod(expectedStart, expectedEnd)).thenReturn(Optional.empty());
+        when(sellerPeriodStatsRepository.findTopSellers(PeriodType.MONTH, expectedStart, Limit.of(1)))
+                .thenReturn(Collections.emptyList());
 
         assertThatThrownBy(() -> analyticsService.getTopSeller(PeriodType.MONTH, startDate))
                 .isInstanceOf(NoTransactionsInThisPeriodException.class)
                 .hasFieldOrPropertyWithValue("start", expectedStart)
                 .hasFieldOrPropertyWithValue("end", expectedEnd);
-
-        verify(transactionRepository, times(1))
-                .findTopSellerByPeriod(expectedStart, expectedEnd);
     }
 
     @Test
@@ -105,76 +122,153 @@ class AnalyticsServiceImplTest {
         LocalDateTime startDate = LocalDateTime.of(2024, 3, 1, 0, 0);
         LocalDateTime endDate = LocalDateTime.of(2024, 3, 31, 23, 59);
 
-        List<Seller> sellers = List.of(seller);
+        when(transactionRepository.findSellerTotalsLessThan(maxSum, startDate, endDate, 0, Limit.of(10)))
+                .thenReturn(List.of(new SellerTotal(1, new BigDecimal("100.00"))));
+        when(sellerRepository.findIdsWithoutTransactions(startDate, endDate, 0, Limit.of(10)))
+                .thenReturn(List.of(2));
+
+        SellerTotalsResponseDto result = analyticsService.getSellersWithTotalAmountLessThan(
+                maxSum,
+                startDate,
+                endDate,
+                0,
+                10
+        );
+
+        assertThat(result).isEqualTo(new SellerTotalsResponseDto(
+                List.of(new SellerTotalDto(1, new BigDecimal("100.00")), new SellerTotalDto(2, BigDecimal.ZERO)),
+                null
+        ));
+    }
 
-        when(transactionRepository.findSellersWithTotalAmountLessThan(maxSum, startDate, endDate))
-                .thenReturn(sellers);
+    @Test
+    void shouldReturnEmptyPageIfNoSellersFound() {
+        BigDecimal maxSum = new BigDecimal("1000.00");
+        LocalDateTime startDate = LocalDateTime.of(2024, 3, 1, 0, 0);
+        LocalDateTime endDate = LocalDateTime.of(2024, 3, 31, 23, 59);
 
-        List<SellerResponseDto> result = analyticsService.getSellersWithTotalAmountLessThan(maxSum, startDate, endDate);
+        when(transactionRepository.findSellerTotalsLessThan(maxSum, startDate, endDate, 0, Limit.of(10)))
+                .thenReturn(Collections.emptyList());
+        when(sellerRepository.findIdsWithoutTransactions(startDate, endDate, 0, Limit.of(10)))
+                .thenReturn(Collections.emptyList());
 
-        assertThat(result).isNotNull();
-        assertThat(result.size()).isEqualTo(1);
-        assertThat(result.getFirst()).isEqualTo(sellerResponseDto);
+        SellerTotalsResponseDto result = analyticsService.getSellersWithTotalAmountLessThan(
+                maxSum,
+                startDate,
+                endDate,
+                0,
+                10
+        );
 
-        verify(transactionRepository, times(1))
-                .findSellersWithTotalAmountLessThan(maxSum, startDate, endDate);
+        assertThat(result).isEqualTo(new SellerTotalsResponseDto(List.of(), null));
     }
 
     @Test
-    void shouldReturnEmptyListIfNoSellersFound() {
+    void shouldNotLookForSellersWithoutTransactionsBelowNonPositiveThreshold() {
+        LocalDateTime startDate = LocalDateTime.of(2024, 3, 1, 0, 0);
+        LocalDateTime endDate = LocalDateTime.of(2024, 4, 1, 0, 0);
+
+        when(transactionRepository.findSellerTotalsLessThan(BigDecimal.ZERO, startDate, endDate, 0, Limit.of(10)))
+                .thenReturn(List.of(new SellerTotal(3, new BigDecimal("-5.00"))));
+
+        SellerTotalsResponseDto result = analyticsService.getSellersWithTotalAmountLessThan(
+                BigDecimal.ZERO,
+                startDate,
+                endDate,
+                0,
+                10
+        );
+
+        assertThat(result.sellers()).isEqualTo(List.of(new SellerTotalDto(3, new BigDecimal("-5.00"))));
+        verifyNoInteractions(sellerRepository);
+    }
+
+    @Test
+    void shouldMergeSellersWithAndWithoutTransactionsIntoFullPage() {
         BigDecimal maxSum = new BigDecimal("1000.00");
         LocalDateTime startDate = LocalDateTime.of(2024, 3, 1, 0, 0);
-        LocalDateTime endDate = LocalDateTime.of(2024, 3, 31, 23, 59);
+        LocalDateTime endDate = LocalDateTime.of(2024, 4, 1, 0, 0);
+
+        when(transactionRepository.findSellerTotalsLessThan(maxSum, startDate, endDate, 4, Limit.of(2)))
+                .thenReturn(List.of(new SellerTotal(6, new BigDecimal("10.00")), new SellerTotal(9, BigDecimal.TEN)));
+        when(sellerRepository.findIdsWithoutTransactions(startDate, endDate, 4, Limit.of(2)))
+                .thenReturn(List.of(5, 7));
+
+        SellerTotalsResponseDto result = analyticsService.getSellersWithTotalAmountLessThan(
+                maxSum,
+                startDate,
+                endDate,
+                4,
+                2
+        );
 
-        when(transactionRepository.findSellersWithTotalAmountLessThan(maxSum, startDate, endDate))
-                .thenReturn(Collections.emptyList());
+        assertThat(result).isEqualTo(new SellerTotalsResponseDto(
+                List.of(new SellerTotalDto(5, BigDecimal.ZERO), new SellerTotalDto(6, new BigDecimal("10.00"))),
+                6
+        ));
+    }
 
-        List<SellerResponseDto> result = analyticsService.getSellersWithTotalAmountLessThan(maxSum, startDate, endDate);
+    @Test
+    void shouldFindSellersFromDailyTotals() {
+        BigDecimal maxSum = new BigDecimal("1000.00");
+        LocalDateTime startDate = LocalDateTime.of(2024, 3, 1, 12, 0);
+        LocalDateTime endDate = LocalDateTime.of(2024, 3, 31, 23, 59);
 
-        assertThat(result).isNotNull();
-        assertThat(result.size()).isEqualTo(0);
+        when(dailyTotals.sellersWithTotalLessThan(eq(maxSum), eq(startDate), eq(endDate), eq(0), any()))
+                .thenReturn(Optional.of(List.of(new SellerTotal(1, new BigDecimal("20.00")))));
+        when(sellerRepository.findIdsWithoutTransactions(startDate, endDate, 0, Limit.of(10)))
+                .thenReturn(List.of());
+
+        SellerTotalsResponseDto result = analyticsService.getSellersWithTotalAmountLessThan(
+                maxSum,
+                startDate,
+                endDate,
+                0,
+                10
+        );
 
-        verify(transactionRepository, times(1))
-                .findSellersWithTotalAmountLessThan(maxSum, startDate, endDate);
+        assertThat(result.sellers()).isEqualTo(List.of(new SellerTotalDto(1, new BigDecimal("20.00"))));
+        verify(transactionRepository, times(0)).findSellerTotalsLessThan(any(), any(), any(), anyInt(), any());
+    }
+
+    @Test
+    void shouldRejectEmptyRangeAndWrongLimit() {
+        LocalDateTime date = LocalDateTime.of(2024, 3, 1, 0, 0);
+
+        assertThatThrownBy(() -> analyticsService.getSellersWithTotalAmountLessThan(BigDecimal.TEN, date, date, 0, 10))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> analyticsService.getSellersWithTotalAmountLessThan(
+                BigDecimal.TEN,
+                date,
+                date.plusDays(1),
+                0,
+                AnalyticsServiceImpl.MAX_PAGE_SIZE + 1
+        )).isInstanceOf(IllegalArgumentException.class);
     }
 
     @Test
     void shouldReturnBestDayForSeller() {
         Integer sellerId = 1;
         LocalDate bestDay = LocalDate.of(2024, 3, 15);
-        Object[] mockResult = new Object[]{Date.valueOf(bestDay)}; // Имитация ответа БД
 
-        when(transactionRepository.findBestDayForSellerNative(sellerId)).thenReturn(mockResult);
+        when(sellerPeriodStatsRepository.findBusiestDays(sellerId, Limit.of(1)))
+                .thenReturn(List.of(bestDay.atStartOfDay()));
 
         BestDayResponseDto result = analyticsService.getBestDayForSeller(sellerId);
 
         assertThat(result).isNotNull();
         assertThat(result.bestDay()).isEqualTo(bestDay);
 
-        verify(transactionRepository, times(1)).findBestDayForSellerNative(sellerId);
+        verify(sellerPeriodStatsRepository, times(1)).findBusiestDays(sellerId, Limit.of(1));
     }
 
     @Test
     void shouldThrowExceptionIfNoTransactionsForSeller() {
         Integer sellerId = 1;
-        when(transactionRepository.findBestDayForSellerNative(sellerId)).thenReturn(null);
-
-        assertThatThrownBy(() -> analyticsService.getBestDayForSeller(sellerId))
-                .isInstanceOf(SellerHasNoTransactionsException.class)
-                .hasFieldOrPropertyWithValue("sellerId", sellerId);
-
-        verify(transactionRepository, times(1)).findBestDayForSellerNative(sellerId);
-    }
-
-    @Test
-    void shouldThrowExceptionIfEmptyResultArray() {
-        Integer sellerId = 1;
-        when(transactionRepository.findBestDayForSellerNative(sellerId)).thenReturn(new Object[]{});
+        when(sellerPeriodStatsRepository.findBusiestDays(sellerId, Limit.of(1))).thenReturn(Collections.emptyList());
 
         assertThatThrownBy(() -> analyticsService.getBestDayForSeller(sellerId))
                 .isInstanceOf(SellerHasNoTransactionsException.class)
                 .hasFieldOrPropertyWithValue("sellerId", sellerId);
-
-        verify(transactionRepository, times(1)).findBestDayForSellerNative(sellerId);
     }
-}
\ No newline at end of file
+}
@@ -11,17 +11,25 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import ru.nsu.fit.mihanizzm.litecrm.cache.CacheInvalidationBus;
+import ru.nsu.fit.mihanizzm.litecrm.cache.ChangeEvent;
 import ru.nsu.fit.mihanizzm.litecrm.exception.SellerNotFoundException;
 import ru.nsu.fit.mihanizzm.litecrm.exception.SellerValidationException;
 import ru.nsu.fit.mihanizzm.litecrm.models.PaymentType;
 import ru.nsu.fit.mihanizzm.litecrm.models.Seller;
 import ru.nsu.fit.mihanizzm.litecrm.models.Transaction;
+import ru.nsu.fit.mihanizzm.litecrm.models.TransactionEvent;
+import ru.nsu.fit.mihanizzm.litecrm.models.TransactionEventType;
 import ru.nsu.fit.mihanizzm.litecrm.models.dtos.SellerRequestDto;
 import ru.nsu.fit.mihanizzm.litecrm.models.dtos.SellerResponseDto;
+import ru.nsu.fit.mihanizzm.litecrm.models.dtos.SellerStatsResponseDto;
 import ru.nsu.fit.mihanizzm.litecrm.models.dtos.TransactionResponseDto;
 import ru.nsu.fit.mihanizzm.litecrm.models.mappers.SellerMapper;
 import ru.nsu.fit.mihanizzm.litecrm.models.mappers.TransactionMapper;
 import ru.nsu.fit.mihanizzm.litecrm.repositories.SellerRepository;
+import ru.nsu.fit.mihanizzm.litecrm.repositories.SellerStatsRepository;
+import ru.nsu.fit.mihanizzm.litecrm.repositories.TransactionEventRepository;
+import ru.nsu.fit.mihanizzm.litecrm.totals.TransactionDeltas;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -43,6 +51,18 @@ class SellerServiceImplTest {
     @Mock
     private SellerRepository sellerRepository;
 
+    @Mock
+    private CacheInvalidationBus cacheInvalidationBus;
+
+    @Mock
+    private TransactionEventRepository transactionEventRepository;
+
+    @Mock
+    private SellerStatsRepository sellerStatsRepository;
+
+    @Mock
+    private TransactionDeltas transactionDeltas;
+
     private final SellerMapper sellerMapper = Mappers.getMapper(SellerMapper.class);
     private final TransactionMapper transactionMapper = Mappers.getMapper(TransactionMapper.class);
     private final ValidatorFactory validatorFactory = Validation.buildDefaultValidatorFactory();
@@ -57,7 +77,11 @@ class SellerServiceImplTest {
                 sellerRepository,
                 sellerMapper,
                 transactionMapper,
-                validator
+                validator,
+                cacheInvalidationBus,
+                transactionEventRepository,
+                sellerStatsRepository,
+                transactionDeltas
         );
     }
 
@@ -401,6 +425,12 @@ class SellerServiceImplTest {
 
         verify(sellerRepository, times(1)).findById(id);
         verify(sellerRepository, times(1)).delete(seller);
+        verify(cacheInvalidationBus).publish(ChangeEvent.seller(id));
+
+        ArgumentCaptor<TransactionEvent> eventCaptor = ArgumentCaptor.forClass(TransactionEvent.class);
+        verify(transactionEventRepository).save(eventCaptor.capture());
+        assertThat(eventCaptor.getValue().getType()).isEqualTo(TransactionEventType.SELLER_CHANGED);
+        assertThat(eventCaptor.getValue().getSellerId()).isEqualTo(id);
     }
 
     @Test
@@ -475,4 +505,27 @@ class SellerServiceImplTest {
 
         verify(sellerRepository, times(1)).findById(1);
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldGetEmptyStatsOfSellerWithoutTransactions() {
+        Integer id = 1;
+        when(sellerRepository.existsById(id)).thenReturn(true);
+        when(sellerStatsRepository.findById(id)).thenReturn(Optional.empty());
+
+        SellerStatsResponseDto stats = sellerService.getSellerStats(id);
+
+        assertThat(stats).isEqualTo(new SellerStatsResponseDto(id, 0, BigDecimal.ZERO, null, null));
+    }
+
+    @Test
+    void shouldThrowSellerNotFoundExceptionWhenSellerNotFoundOnGetStats() {
+        Integer id = 1;
+        when(sellerRepository.existsById(id)).thenReturn(false);
+
+        assertThatThrownBy(() -> sellerService.getSellerStats(id))
+                .isInstanceOf(SellerNotFoundException.class)
+                .hasFieldOrPropertyWithValue("id", id);
+
+        verify(sellerStatsRepository, times(0)).findById(any(Integer.class));
+    }
+}
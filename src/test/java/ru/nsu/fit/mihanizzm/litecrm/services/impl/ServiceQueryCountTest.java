@@ -0,0 +1,145 @@
+package ru.nsu.fit.mihanizzm.litecrm.services.impl;
+
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mapstruct.factory.Mappers;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import ru.nsu.fit.mihanizzm.litecrm.cache.CacheInvalidationBus;
+import ru.nsu.fit.mihanizzm.litecrm.models.PaymentType;
+import ru.nsu.fit.mihanizzm.litecrm.models.Seller;
+import ru.nsu.fit.mihanizzm.litecrm.models.Transaction;
+import ru.nsu.fit.mihanizzm.litecrm.models.mappers.SellerMapper;
+import ru.nsu.fit.mihanizzm.litecrm.models.mappers.TransactionMapper;
+import ru.nsu.fit.mihanizzm.litecrm.repositories.SellerRepository;
+import ru.nsu.fit.mihanizzm.litecrm.repositories.SellerStatsRepository;
+import ru.nsu.fit.mihanizzm.litecrm.repositories.TransactionEventRepository;
+import ru.nsu.fit.mihanizzm.litecrm.repositories.TransactionRepository;
+import ru.nsu.fit.mihanizzm.litecrm.sql.SqlStatsDataSourcePostProcessor;
+import ru.nsu.fit.mihanizzm.litecrm.totals.TransactionDeltas;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+
+import static org.mockito.Mockito.mock;
+import static ru.nsu.fit.mihanizzm.litecrm.sql.SqlStatsAssert.assertThatSql;
+
+/**
+ * Guards the entity graph around {@code Seller.transactions} and {@code Transaction.seller} against N+1 selects:
+ * the statement count of these calls must not grow with the number of sellers or transactions.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(SqlStatsDataSourcePostProcessor.class)
+@Testcontainers(disabledWithoutDocker = true)
+class ServiceQueryCountTest {
+    private static final int SELLERS = 5;
+    private static final int TRANSACTIONS_PER_SELLER = 4;
+
+    @Autowired
+    private SellerRepository sellerRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private SellerServiceImpl sellerService;
+    private TransactionServiceImpl transactionService;
+    private Seller seller;
+    private Transaction transaction;
+
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:17")
+            .withDatabaseName("test-db")
+            .withUsername("test")
+            .withPassword("test");
+
+    @BeforeAll
+    static void startContainer() {
+        postgres.start();
+    }
+
+    @AfterAll
+    static void stopContainer() {
+        postgres.stop();
+    }
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @BeforeEach
+    void setUp() {
+        SellerMapper sellerMapper = Mappers.getMapper(SellerMapper.class);
+        TransactionMapper transactionMapper = Mappers.getMapper(TransactionMapper.class);
+        Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+        CacheInvalidationBus cacheInvalidationBus = mock(CacheInvalidationBus.class);
+        sellerService = new SellerServiceImpl(
+                sellerRepository,
+                sellerMapper,
+                transactionMapper,
+                validator,
+                cacheInvalidationBus,
+                mock(TransactionEventRepository.class),
+                mock(SellerStatsRepository.class),
+                mock(TransactionDeltas.class)
+        );
+        transactionService = new TransactionServiceImpl(
+                transactionRepository,
+                transactionMapper,
+                sellerRepository,
+                validator,
+                cacheInvalidationBus,
+                mock(TransactionEventRepository.class),
+                mock(TransactionDeltas.class)
+        );
+
+        for (int i = 0; i < SELLERS; i++) {
+            seller = new Seller(null, "Seller " + i, "seller" + i + "@example.com", null, new ArrayList<>());
+            for (int j = 0; j < TRANSACTIONS_PER_SELLER; j++) {
+                transaction = new Transaction(null, null, new BigDecimal("10.00"), PaymentType.CARD, null);
+                seller.addTransaction(transaction);
+            }
+            entityManager.persist(seller);
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void getAllTransactionsShouldNotLoadSellersOneByOne() {
+        assertThatSql(() -> transactionService.getAllTransactions())
+                .executesExactly(1)
+                .fetchesAtMost(SELLERS * TRANSACTIONS_PER_SELLER);
+    }
+
+    @Test
+    void getTransactionByIdShouldExecuteSingleStatement() {
+        assertThatSql(() -> transactionService.getTransactionById(transaction.getId())).executesExactly(1);
+    }
+
+    @Test
+    void getAllSellersShouldNotLoadTransactions() {
+        assertThatSql(() -> sellerService.getAllSellers()).executesExactly(1);
+    }
+
+    @Test
+    void getSellerTransactionsShouldExecuteAtMostTwoStatements() {
+        assertThatSql(() -> sellerService.getSellerTransactions(seller.getId())).executesAtMost(2);
+    }
+}
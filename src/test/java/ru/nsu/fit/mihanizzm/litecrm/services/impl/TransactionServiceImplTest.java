@@ -11,6 +11,8 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import ru.nsu.fit.mihanizzm.litecrm.cache.CacheInvalidationBus;
+import ru.nsu.fit.mihanizzm.litecrm.cache.ChangeEvent;
 import ru.nsu.fit.mihanizzm.litecrm.exception.InvalidPaymentTypeException;
 import ru.nsu.fit.mihanizzm.litecrm.exception.NullSellerIdException;
 import ru.nsu.fit.mihanizzm.litecrm.exception.SellerNotFoundException;
@@ -19,13 +21,18 @@ import ru.nsu.fit.mihanizzm.litecrm.exception.TransactionValidationException;
 import ru.nsu.fit.mihanizzm.litecrm.models.PaymentType;
 import ru.nsu.fit.mihanizzm.litecrm.models.Seller;
 import ru.nsu.fit.mihanizzm.litecrm.models.Transaction;
+import ru.nsu.fit.mihanizzm.litecrm.models.TransactionEvent;
+import ru.nsu.fit.mihanizzm.litecrm.models.TransactionEventType;
 import ru.nsu.fit.mihanizzm.litecrm.models.dtos.TransactionRequestDto;
 import ru.nsu.fit.mihanizzm.litecrm.models.dtos.TransactionResponseDto;
 import ru.nsu.fit.mihanizzm.litecrm.models.mappers.TransactionMapper;
 import ru.nsu.fit.mihanizzm.litecrm.repositories.SellerRepository;
+import ru.nsu.fit.mihanizzm.litecrm.repositories.TransactionEventRepository;
 import ru.nsu.fit.mihanizzm.litecrm.repositories.TransactionRepository;
+import ru.nsu.fit.mihanizzm.litecrm.totals.TransactionDeltas;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.Month;
 import java.util.ArrayList;
@@ -48,6 +55,15 @@ class TransactionServiceImplTest {
     @Mock
     private TransactionRepository transactionRepository;
 
+    @Mock
+    private CacheInvalidationBus cacheInvalidationBus;
+
+    @Mock
+    private TransactionEventRepository transactionEventRepository;
+
+    @Mock
+    private TransactionDeltas transactionDeltas;
+
     private final TransactionMapper transactionMapper = Mappers.getMapper(TransactionMapper.class);
     private final ValidatorFactory validatorFactory = Validation.buildDefaultValidatorFactory();
 
@@ -61,7 +77,10 @@ class TransactionServiceImplTest {
                 transactionRepository,
                 transactionMapper,
                 sellerRepository,
-                validator
+                validator,
+                cacheInvalidationBus,
+                transactionEventRepository,
+                transactionDeltas
         );
     }
 
@@ -183,6 +202,13 @@ class TransactionServiceImplTest {
         );
 
         when(sellerRepository.findById(1)).thenReturn(Optional.of(seller));
+        LocalDateTime createdAt = LocalDateTime.of(2025, Month.MARCH, 3, 12, 0);
+        when(transactionRepository.save(any(Transaction.class))).thenAnswer(invocation -> {
+            Transaction persisted = invocation.getArgument(0);
+            persisted.setId(10);
+            persisted.setTransactionDate(createdAt);
+            return persisted;
+        });
 
         TransactionResponseDto result = transactionService.createTransaction(request);
 
@@ -205,6 +231,7 @@ class TransactionServiceImplTest {
 
         verify(sellerRepository, times(1)).findById(1);
         verify(transactionRepository, times(1)).save(savedTransaction);
+        verify(cacheInvalidationBus).publish(ChangeEvent.transaction(10, 1, createdAt.toLocalDate()));
     }
 
     @Test
@@ -384,6 +411,21 @@ class TransactionServiceImplTest {
         verify(transactionRepository, times(1)).findById(id);
         verify(sellerRepository, times(1)).findById(newSellerId);
         verify(transactionRepository, times(1)).save(updatedTransaction);
+        LocalDate day = LocalDate.of(2024, Month.JANUARY, 1);
+        verify(cacheInvalidationBus).publish(
+                ChangeEvent.transaction(id, sellerId, day),
+                ChangeEvent.transaction(id, newSellerId, day)
+        );
+
+        ArgumentCaptor<TransactionEvent> eventCaptor = ArgumentCaptor.forClass(TransactionEvent.class);
+        verify(transactionEventRepository).save(eventCaptor.capture());
+        TransactionEvent event = eventCaptor.getValue();
+        assertThat(event.getType()).isEqualTo(TransactionEventType.MOVED);
+        assertThat(event.getSellerId()).isEqualTo(newSellerId);
+        assertThat(event.getPreviousSellerId()).isEqualTo(sellerId);
+        assertThat(event.getAmount()).isEqualTo(request.amount());
+        assertThat(event.getPreviousAmount()).isEqualTo(BigDecimal.valueOf(50.0));
+        verify(transactionDeltas).record(event);
     }
 
     @Test
@@ -435,6 +477,11 @@ class TransactionServiceImplTest {
         verify(transactionRepository, times(1)).findById(id);
         verify(sellerRepository, times(0)).findById(any(Integer.class));
         verify(transactionRepository, times(1)).save(updatedTransaction);
+
+        ArgumentCaptor<TransactionEvent> eventCaptor = ArgumentCaptor.forClass(TransactionEvent.class);
+        verify(transactionEventRepository).save(eventCaptor.capture());
+        assertThat(eventCaptor.getValue().getType()).isEqualTo(TransactionEventType.AMOUNT_CHANGED);
+        assertThat(eventCaptor.getValue().getPreviousAmount()).isEqualTo(BigDecimal.valueOf(50.0));
     }
 
     @Test
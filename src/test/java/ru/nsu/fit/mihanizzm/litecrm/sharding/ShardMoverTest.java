@@ -0,0 +1,226 @@
+package ru.nsu.fit.mihanizzm.litecrm.sharding;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import ru.nsu.fit.mihanizzm.litecrm.cache.CacheInvalidationBus;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs the sharding primitives against two real databases: ID ranges of the shards, moving a seller with its
+ * transactions, and cleaning up after moves interrupted between the copy and the deletion of the source rows.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class ShardMoverTest {
+    private static final int ID_RANGE_SIZE = 1000;
+
+    static PostgreSQLContainer<?> shard0 = new PostgreSQLContainer<>("postgres:17")
+            .withDatabaseName("shard-0")
+            .withUsername("test")
+            .withPassword("test");
+
+    static PostgreSQLContainer<?> shard1 = new PostgreSQLContainer<>("postgres:17")
+            .withDatabaseName("shard-1")
+            .withUsername("test")
+            .withPassword("test");
+
+    private static HikariDataSource dataSource0;
+    private static HikariDataSource dataSource1;
+    private static ShardDataSources dataSources;
+    private static ShardingProperties properties;
+
+    private ShardDirectory directory;
+    private ShardMover mover;
+    private JdbcTemplate jdbc0;
+    private JdbcTemplate jdbc1;
+
+    @BeforeAll
+    static void startContainers() {
+        shard0.start();
+        shard1.start();
+        dataSource0 = dataSource(shard0);
+        dataSource1 = dataSource(shard1);
+        Flyway.configure().dataSource(dataSource0).load().migrate();
+        Flyway.configure().dataSource(dataSource1).load().migrate();
+
+        dataSources = mock(ShardDataSources.class);
+        when(dataSources.count()).thenReturn(2);
+        when(dataSources.oltp(0)).thenReturn(dataSource0);
+        when(dataSources.oltp(1)).thenReturn(dataSource1);
+        properties = new ShardingProperties(true, List.of(new ShardingProperties.Shard(shard1.getJdbcUrl(),
+                null, null)), ID_RANGE_SIZE);
+        new ShardSequences(dataSources, properties).afterSingletonsInstantiated();
+    }
+
+    @AfterAll
+    static void stopContainers() {
+        dataSource0.close();
+        dataSource1.close();
+        shard0.stop();
+        shard1.stop();
+    }
+
+    @BeforeEach
+    void setUp() {
+        jdbc0 = new JdbcTemplate(dataSource0);
+        jdbc1 = new JdbcTemplate(dataSource1);
+        for (JdbcTemplate jdbc : List.of(jdbc0, jdbc1)) {
+            jdbc.execute("TRUNCATE app.transaction, app.seller, app.transaction_event, app.seller_shard CASCADE");
+        }
+        directory = new ShardDirectory(dataSources, properties);
+        directory.afterSingletonsInstantiated();
+        mover = new ShardMover(dataSources, directory, mock(CacheInvalidationBus.class));
+    }
+
+    @Test
+    void shouldAllocateIdsFromRangeOfShard() {
+        int onShard0 = insertSeller(jdbc0);
+        int onShard1 = insertSeller(jdbc1);
+        int transactionOnShard1 = insertTransaction(jdbc1, onShard1);
+
+        assertThat(onShard0).isBetween(1, ID_RANGE_SIZE);
+        assertThat(onShard1).isBetween(ID_RANGE_SIZE + 1, 2 * ID_RANGE_SIZE);
+        assertThat(transactionOnShard1).isBetween(ID_RANGE_SIZE + 1, 2 * ID_RANGE_SIZE);
+        assertThat(directory.homeShard(onShard0)).isZero();
+        assertThat(directory.shardOfSeller(onShard1)).isEqualTo(1);
+        assertThat(directory.homeShard(transactionOnShard1)).isEqualTo(1);
+    }
+
+    @Test
+    void shouldKeepRangesWhenSequencesAreAlignedAgain() {
+        int before = insertSeller(jdbc1);
+
+        new ShardSequences(dataSources, properties).afterSingletonsInstantiated();
+
+        assertThat(insertSeller(jdbc1)).isEqualTo(before + 1);
+    }
+
+    @Test
+    void shouldMoveSellerWithTransactions() {
+        int sellerId = insertSeller(jdbc0);
+        int first = insertTransaction(jdbc0, sellerId);
+        int second = insertTransaction(jdbc0, sellerId);
+        int otherSellerId = insertSeller(jdbc0);
+        insertTransaction(jdbc0, otherSellerId);
+
+        int moved = mover.moveSeller(sellerId, 1);
+
+        assertThat(moved).isEqualTo(2);
+        assertThat(sellerIds(jdbc1)).containsExactly(sellerId);
+        assertThat(transactionIds(jdbc1, sellerId)).containsExactlyInAnyOrder(first, second);
+        assertThat(sellerIds(jdbc0)).containsExactly(otherSellerId);
+        assertThat(transactionIds(jdbc0, sellerId)).isEmpty();
+        assertThat(directory.shardOfSeller(sellerId)).isEqualTo(1);
+        assertThat(jdbc0.queryForObject("SELECT shard FROM app.seller_shard WHERE seller_id = ?", Integer.class,
+                sellerId)).isEqualTo(1);
+        assertThat(jdbc0.queryForObject(
+                "SELECT count(*) FROM app.transaction_event WHERE type = 'SELLER_CHANGED' AND seller_id = ?",
+                Integer.class,
+                sellerId
+        )).isEqualTo(1);
+    }
+
+    @Test
+    void shouldMoveSellerBackToHomeShard() {
+        int sellerId = insertSeller(jdbc0);
+        int transactionId = insertTransaction(jdbc0, sellerId);
+
+        mover.moveSeller(sellerId, 1);
+        int moved = mover.moveSeller(sellerId, 0);
+
+        assertThat(moved).isEqualTo(1);
+        assertThat(transactionIds(jdbc0, sellerId)).containsExactly(transactionId);
+        assertThat(sellerIds(jdbc1)).isEmpty();
+        assertThat(directory.shardOfSeller(sellerId)).isZero();
+    }
+
+    @Test
+    void shouldDeleteSourceRowsOfRecordedMoveOnStartup() {
+        int sellerId = insertSeller(jdbc0);
+        insertTransaction(jdbc0, sellerId);
+        // The copy was committed and recorded, then the instance died before deleting the source rows
+        copySeller(sellerId);
+        directory.relocate(sellerId, 1);
+
+        ShardDirectory restartedDirectory = new ShardDirectory(dataSources, properties);
+        restartedDirectory.afterSingletonsInstantiated();
+        new ShardMover(dataSources, restartedDirectory, mock(CacheInvalidationBus.class)).afterSingletonsInstantiated();
+
+        assertThat(sellerIds(jdbc0)).isEmpty();
+        assertThat(transactionIds(jdbc0, sellerId)).isEmpty();
+        assertThat(sellerIds(jdbc1)).containsExactly(sellerId);
+        assertThat(transactionIds(jdbc1, sellerId)).hasSize(1);
+    }
+
+    @Test
+    void shouldReplaceUnrecordedCopyOnNextMove() {
+        int sellerId = insertSeller(jdbc0);
+        int transactionId = insertTransaction(jdbc0, sellerId);
+        // The copy was committed, then the instance died before recording the move
+        copySeller(sellerId);
+        int laterTransactionId = insertTransaction(jdbc0, sellerId);
+
+        int moved = mover.moveSeller(sellerId, 1);
+
+        assertThat(moved).isEqualTo(2);
+        assertThat(sellerIds(jdbc1)).containsExactly(sellerId);
+        assertThat(transactionIds(jdbc1, sellerId)).containsExactlyInAnyOrder(transactionId, laterTransactionId);
+        assertThat(sellerIds(jdbc0)).isEmpty();
+    }
+
+    private void copySeller(int sellerId) {
+        jdbc0.query("SELECT id, name, contact_info, registration_date FROM app.seller WHERE id = ?", rs -> {
+            jdbc1.update("INSERT INTO app.seller (id, name, contact_info, registration_date) VALUES (?, ?, ?, ?)",
+                    rs.getInt(1), rs.getString(2), rs.getString(3), rs.getTimestamp(4));
+        }, sellerId);
+        jdbc0.query("SELECT id, amount, payment_type, transaction_date FROM app.transaction WHERE seller_id = ?",
+                rs -> {
+                    jdbc1.update("INSERT INTO app.transaction (id, seller_id, amount, payment_type, transaction_date) "
+                                    + "VALUES (?, ?, ?, ?, ?)",
+                            rs.getInt(1), sellerId, rs.getBigDecimal(2), rs.getString(3), rs.getTimestamp(4));
+                }, sellerId);
+    }
+
+    private static int insertSeller(JdbcTemplate jdbc) {
+        return jdbc.queryForObject(
+                "INSERT INTO app.seller (name, registration_date) VALUES ('Seller', now()) RETURNING id",
+                Integer.class
+        );
+    }
+
+    private static int insertTransaction(JdbcTemplate jdbc, int sellerId) {
+        return jdbc.queryForObject(
+                "INSERT INTO app.transaction (seller_id, amount, payment_type, transaction_date) "
+                        + "VALUES (?, 10.00, 'CASH', now()) RETURNING id",
+                Integer.class,
+                sellerId
+        );
+    }
+
+    private static List<Integer> sellerIds(JdbcTemplate jdbc) {
+        return jdbc.queryForList("SELECT id FROM app.seller", Integer.class);
+    }
+
+    private static List<Integer> transactionIds(JdbcTemplate jdbc, int sellerId) {
+        return jdbc.queryForList("SELECT id FROM app.transaction WHERE seller_id = ?", Integer.class, sellerId);
+    }
+
+    private static HikariDataSource dataSource(PostgreSQLContainer<?> container) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(container.getJdbcUrl());
+        dataSource.setUsername(container.getUsername());
+        dataSource.setPassword(container.getPassword());
+        return dataSource;
+    }
+}
@@ -0,0 +1,39 @@
+package ru.nsu.fit.mihanizzm.litecrm.sharding;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ShardRebalancerTest {
+    @Test
+    void shouldMoveSurplusToEmptierShards() {
+        List<ShardRebalancer.Transfer> plan = ShardRebalancer.plan(new long[] {10, 1, 1}, 100);
+
+        assertThat(plan).containsExactly(
+                new ShardRebalancer.Transfer(0, 1, 3),
+                new ShardRebalancer.Transfer(0, 2, 3)
+        );
+    }
+
+    @Test
+    void shouldLeaveRemainderOnFullestShards() {
+        List<ShardRebalancer.Transfer> plan = ShardRebalancer.plan(new long[] {3, 7}, 100);
+
+        assertThat(plan).containsExactly(new ShardRebalancer.Transfer(1, 0, 2));
+    }
+
+    @Test
+    void shouldNotMoveAnythingWhenShardsDifferByOne() {
+        assertThat(ShardRebalancer.plan(new long[] {5, 4, 5}, 100)).isEmpty();
+        assertThat(ShardRebalancer.plan(new long[] {0, 0}, 100)).isEmpty();
+    }
+
+    @Test
+    void shouldStopAtMaxMoves() {
+        List<ShardRebalancer.Transfer> plan = ShardRebalancer.plan(new long[] {1000, 0, 0}, 5);
+
+        assertThat(plan).containsExactly(new ShardRebalancer.Transfer(0, 1, 5));
+    }
+}
@@ -0,0 +1,93 @@
+package ru.nsu.fit.mihanizzm.litecrm.sharding;
+
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.nsu.fit.mihanizzm.litecrm.exception.NoTransactionsInThisPeriodException;
+import ru.nsu.fit.mihanizzm.litecrm.models.PeriodType;
+import ru.nsu.fit.mihanizzm.litecrm.models.SellerTotal;
+import ru.nsu.fit.mihanizzm.litecrm.models.dtos.SellerResponseDto;
+import ru.nsu.fit.mihanizzm.litecrm.services.impl.AnalyticsServiceImpl;
+import ru.nsu.fit.mihanizzm.litecrm.services.impl.SellerServiceImpl;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.lenient;
+
+@ExtendWith(MockitoExtension.class)
+class ShardedAnalyticsServiceTest {
+    private static final LocalDateTime START = LocalDateTime.of(2025, 3, 1, 0, 0);
+
+    @Mock
+    private AnalyticsServiceImpl analyticsService;
+    @Mock
+    private SellerServiceImpl sellerService;
+    @Mock
+    private ShardDirectory directory;
+
+    private ShardRouter router;
+    private ShardedAnalyticsService service;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(directory.shardCount()).thenReturn(3);
+        lenient().when(directory.shardOfSeller(any(Integer.class)))
+                .thenAnswer(invocation -> (int) invocation.getArgument(0) / 100);
+        router = new ShardRouter(directory, ObservationRegistry.NOOP);
+        service = new ShardedAnalyticsService(analyticsService, sellerService, router);
+    }
+
+    @AfterEach
+    void tearDown() {
+        router.close();
+    }
+
+    @Test
+    void shouldPickLargestTotalAcrossShardsAndLoadSellerFromItsShard() {
+        Map<Integer, Optional<SellerTotal>> tops = Map.of(
+                0, Optional.of(new SellerTotal(7, new BigDecimal("120.00"))),
+                1, Optional.of(new SellerTotal(150, new BigDecimal("310.50"))),
+                2, Optional.empty()
+        );
+        given(analyticsService.getTopSellerTotal(PeriodType.MONTH, START))
+                .willAnswer(invocation -> tops.get(ShardContext.current()));
+        given(sellerService.getSellerById(150)).willAnswer(invocation ->
+                new SellerResponseDto(150, "shard " + ShardContext.current(), null, START));
+
+        SellerResponseDto top = service.getTopSeller(PeriodType.MONTH, START);
+
+        assertThat(top.id()).isEqualTo(150);
+        assertThat(top.name()).isEqualTo("shard 1");
+    }
+
+    @Test
+    void shouldThrowWhenNoShardHasTransactions() {
+        given(analyticsService.getTopSellerTotal(any(), any())).willReturn(Optional.empty());
+
+        assertThatThrownBy(() -> service.getTopSeller(PeriodType.DAY, START))
+                .isInstanceOf(NoTransactionsInThisPeriodException.class);
+    }
+
+    @Test
+    void shouldBreakTiesTowardsLowerId() {
+        Optional<SellerTotal> merged = ShardedAnalyticsService.merge(List.of(
+                Optional.of(new SellerTotal(205, new BigDecimal("50"))),
+                Optional.of(new SellerTotal(12, new BigDecimal("50.00"))),
+                Optional.of(new SellerTotal(130, new BigDecimal("49.99")))
+        ));
+
+        assertThat(merged).map(SellerTotal::sellerId).contains(12);
+    }
+}
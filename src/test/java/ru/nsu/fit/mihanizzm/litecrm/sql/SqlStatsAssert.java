@@ -0,0 +1,50 @@
+package ru.nsu.fit.mihanizzm.litecrm.sql;
+
+import org.assertj.core.api.AbstractAssert;
+
+/**
+ * Assertions on the JDBC work of a piece of code, e.g.
+ * {@code assertThatSql(() -> sellerService.getSellerTransactions(id)).executesAtMost(2)}.
+ * The code has to run against a data source wrapped by {@link SqlStatsDataSourcePostProcessor}.
+ */
+public class SqlStatsAssert extends AbstractAssert<SqlStatsAssert, SqlStats> {
+    private SqlStatsAssert(SqlStats actual) {
+        super(actual, SqlStatsAssert.class);
+    }
+
+    public static SqlStatsAssert assertThatSql(Runnable work) {
+        return new SqlStatsAssert(SqlStatsContext.measure(work));
+    }
+
+    public SqlStatsAssert executesAtMost(long statements) {
+        isNotNull();
+        if (actual.getStatements() > statements) {
+            failWithMessage(
+                    "Expected at most <%d> SQL statements but <%d> were executed, an N+1 select?",
+                    statements,
+                    actual.getStatements()
+            );
+        }
+        return this;
+    }
+
+    public SqlStatsAssert executesExactly(long statements) {
+        isNotNull();
+        if (actual.getStatements() != statements) {
+            failWithMessage(
+                    "Expected <%d> SQL statements but <%d> were executed",
+                    statements,
+                    actual.getStatements()
+            );
+        }
+        return this;
+    }
+
+    public SqlStatsAssert fetchesAtMost(long rows) {
+        isNotNull();
+        if (actual.getRowsFetched() > rows) {
+            failWithMessage("Expected at most <%d> rows to be fetched but <%d> were", rows, actual.getRowsFetched());
+        }
+        return this;
+    }
+}
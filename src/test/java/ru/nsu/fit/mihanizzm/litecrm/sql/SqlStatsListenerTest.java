@@ -0,0 +1,91 @@
+package ru.nsu.fit.mihanizzm.litecrm.sql;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static ru.nsu.fit.mihanizzm.litecrm.sql.SqlStatsAssert.assertThatSql;
+
+class SqlStatsListenerTest {
+    private DataSource dataSource;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        DataSource target = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        PreparedStatement statement = mock(PreparedStatement.class);
+        when(target.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        when(statement.executeQuery()).thenAnswer(invocation -> {
+            ResultSet resultSet = mock(ResultSet.class);
+            when(resultSet.next()).thenReturn(true, true, true, false);
+            return resultSet;
+        });
+
+        dataSource = (DataSource) new SqlStatsDataSourcePostProcessor()
+                .postProcessAfterInitialization(target, "dataSource");
+    }
+
+    @Test
+    void shouldCountStatementsAndFetchedRows() {
+        SqlStats stats = SqlStatsContext.measure(() -> {
+            query();
+            query();
+        });
+
+        assertThat(stats.getStatements()).isEqualTo(2);
+        assertThat(stats.getRowsFetched()).isEqualTo(6);
+        assertThat(stats.getJdbcTimeNanos()).isPositive();
+    }
+
+    @Test
+    void shouldNotRecordOutsideOfMeasuredWork() {
+        SqlStats stats = SqlStatsContext.measure(this::query);
+        query();
+
+        assertThat(stats.getStatements()).isEqualTo(1);
+        assertThat(SqlStatsContext.current()).isNull();
+    }
+
+    @Test
+    void shouldFailAssertionWhenTooManyStatementsAreExecuted() {
+        assertThatSql(this::query).executesExactly(1).fetchesAtMost(3);
+
+        assertThatThrownBy(() -> assertThatSql(() -> {
+                    query();
+                    query();
+                }).executesAtMost(1))
+                .isInstanceOf(AssertionError.class)
+                .hasMessageContaining("N+1");
+    }
+
+    @Test
+    void shouldLeaveOtherDataSourcesUnwrapped() {
+        DataSource pool = mock(DataSource.class);
+
+        assertThat(new SqlStatsDataSourcePostProcessor().postProcessAfterInitialization(pool, "oltpDataSource"))
+                .isSameAs(pool);
+    }
+
+    private void query() {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement("SELECT 1");
+             ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+                resultSet.getInt(1);
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,356 @@
+package ru.nsu.fit.mihanizzm.litecrm.totals;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import ru.nsu.fit.mihanizzm.litecrm.cache.CacheInvalidationBus;
+import ru.nsu.fit.mihanizzm.litecrm.cache.ChangeEvent;
+import ru.nsu.fit.mihanizzm.litecrm.models.SellerTotal;
+import ru.nsu.fit.mihanizzm.litecrm.projections.ProjectionProperties;
+import ru.nsu.fit.mihanizzm.litecrm.projections.Projector;
+import ru.nsu.fit.mihanizzm.litecrm.repositories.TransactionRepository;
+import ru.nsu.fit.mihanizzm.litecrm.sharding.ShardDataSources;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Loads the {@link DailyTotals} from seeded read tables and pending outbox events, then checks that they find the
+ * same sellers as {@link TransactionRepository#findSellerTotalsLessThan} over random ranges, thresholds and
+ * {@code afterId}, after the load, after catching up with changes it was only told about by change events and after
+ * restoring a snapshot taken before later changes, some of them projected.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Testcontainers(disabledWithoutDocker = true)
+class DailyTotalsQueryTest {
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 3, 14, 15, 0);
+    private static final Clock CLOCK = Clock.fixed(NOW.toInstant(ZoneOffset.UTC), ZoneId.of("UTC"));
+    private static final int SELLERS = 50;
+    private static final int TRANSACTIONS = 3000;
+    private static final int DAYS = 90;
+
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:17")
+            .withDatabaseName("test-db")
+            .withUsername("test")
+            .withPassword("test");
+
+    private static HikariDataSource dataSource;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    private final Random random = new Random(42);
+    private JdbcTemplate jdbc;
+    private List<Integer> sellerIds;
+    private ShardDataSources dataSources;
+    private DailyTotals dailyTotals;
+
+    @TempDir
+    private Path directory;
+
+    @BeforeAll
+    static void startContainer() {
+        postgres.start();
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(postgres.getJdbcUrl());
+        dataSource.setUsername(postgres.getUsername());
+        dataSource.setPassword(postgres.getPassword());
+    }
+
+    @AfterAll
+    static void stopContainer() {
+        dataSource.close();
+        postgres.stop();
+    }
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @BeforeEach
+    void seed() {
+        jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("TRUNCATE app.transaction, app.seller, app.transaction_event, app.seller_stats, " +
+                "app.seller_period_stats CASCADE");
+        sellerIds = new ArrayList<>();
+        for (int i = 0; i < SELLERS; i++) {
+            sellerIds.add(jdbc.queryForObject(
+                    "INSERT INTO app.seller (name, registration_date) VALUES ('Seller', ?) RETURNING id",
+                    Integer.class,
+                    Timestamp.valueOf(NOW.minusDays(DAYS + 1))
+            ));
+        }
+        List<Integer> projected = new ArrayList<>();
+        for (int i = 0; i < TRANSACTIONS; i++) {
+            projected.add(insertTransaction(randomSeller(), randomDate()));
+        }
+        // The projector has applied these, the rest of the changes are pending in the outbox
+        jdbc.update("INSERT INTO app.seller_period_stats " +
+                "SELECT 'DAY', date_trunc('day', transaction_date), seller_id, COUNT(*), SUM(amount) " +
+                "FROM app.transaction GROUP BY 2, 3");
+        jdbc.update("INSERT INTO app.seller_stats (seller_id, transaction_count, total_amount) " +
+                "SELECT seller_id, COUNT(*), SUM(amount) FROM app.transaction GROUP BY seller_id");
+        for (int i = 0; i < 500; i++) {
+            created(insertTransaction(randomSeller(), randomDate()));
+        }
+        Collections.shuffle(projected, random);
+        for (int id : projected.subList(0, 100)) {
+            amountChanged(id);
+        }
+        for (int id : projected.subList(100, 200)) {
+            moved(id, randomSeller());
+        }
+        for (int id : projected.subList(200, 300)) {
+            deleted(id);
+        }
+
+        dataSources = mock(ShardDataSources.class);
+        when(dataSources.count()).thenReturn(1);
+        when(dataSources.oltp(0)).thenReturn(dataSource);
+        dailyTotals = dailyTotals();
+        dailyTotals.reconcile();
+    }
+
+    @Test
+    void shouldFindSameSellersAsQueryAfterLoad() {
+        assertSameAsQuery();
+    }
+
+    @Test
+    void shouldFindSameSellersAsQueryAfterCatchingUp() {
+        List<ChangeEvent> events = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            int sellerId = randomSeller();
+            LocalDateTime date = randomDate();
+            int id = created(insertTransaction(sellerId, date));
+            events.add(ChangeEvent.transaction(id, sellerId, date.toLocalDate()));
+        }
+        List<Integer> ids = jdbc.queryForList("SELECT id FROM app.transaction ORDER BY id", Integer.class);
+        Collections.shuffle(ids, random);
+        for (int id : ids.subList(0, 50)) {
+            events.addAll(amountChanged(id));
+        }
+        for (int id : ids.subList(50, 100)) {
+            events.addAll(moved(id, randomSeller()));
+        }
+        for (int id : ids.subList(100, 150)) {
+            events.addAll(deleted(id));
+        }
+        int sellerId = randomSeller();
+        created(insertTransaction(sellerId, NOW.minusDays(DAYS + 30)));
+        events.add(ChangeEvent.seller(sellerId));
+
+        dailyTotals.changed(events);
+        dailyTotals.catchUp();
+
+        assertSameAsQuery();
+    }
+
+    @Test
+    void shouldFindSameSellersAsQueryAfterRestoringSnapshot() throws IOException {
+        try (TotalsSnapshotter snapshotter = snapshotter(dailyTotals)) {
+            snapshotter.save();
+        }
+        Projector projector = new Projector(
+                dataSources,
+                new ProjectionProperties(true, Duration.ofMillis(500), 100),
+                mock(CacheInvalidationBus.class),
+                new SimpleMeterRegistry()
+        );
+        List<Integer> ids = jdbc.queryForList("SELECT id FROM app.transaction ORDER BY id", Integer.class);
+        Collections.shuffle(ids, random);
+        for (int id : ids.subList(0, 50)) {
+            amountChanged(id);
+        }
+        for (int id : ids.subList(50, 100)) {
+            moved(id, randomSeller());
+        }
+        for (int i = 0; i < 100; i++) {
+            created(insertTransaction(randomSeller(), randomDate()));
+        }
+        // A seller left without transactions loses its stats too
+        int emptied = randomSeller();
+        jdbc.queryForList("SELECT id FROM app.transaction WHERE seller_id = ?", Integer.class, emptied)
+                .forEach(this::deleted);
+        projector.project();
+        for (int id : ids.subList(100, 150)) {
+            if (!events(id).isEmpty()) {
+                deleted(id);
+            }
+        }
+        for (int i = 0; i < 100; i++) {
+            int sellerId = randomSeller();
+            if (sellerId != emptied) {
+                created(insertTransaction(sellerId, randomDate()));
+            }
+        }
+
+        dailyTotals = dailyTotals();
+        try (TotalsSnapshotter snapshotter = snapshotter(dailyTotals)) {
+            snapshotter.restore();
+        }
+
+        assertThat(dailyTotals.loaded()).isTrue();
+        assertThat(dailyTotals.sellers()).doesNotContain(emptied);
+        assertSameAsQuery();
+    }
+
+    private DailyTotals dailyTotals() {
+        return new DailyTotals(
+                new DailyTotalsProperties(true, Duration.ofSeconds(1), Duration.ofHours(1)),
+                dataSources,
+                null,
+                CLOCK
+        );
+    }
+
+    @SuppressWarnings("unchecked")
+    private TotalsSnapshotter snapshotter(DailyTotals dailyTotals) {
+        return new TotalsSnapshotter(
+                List.of(dailyTotals),
+                dataSources,
+                mock(ObjectProvider.class),
+                new TotalsSnapshotProperties(true, directory, Duration.ofMinutes(5), Duration.ZERO, 2)
+        );
+    }
+
+    private void assertSameAsQuery() {
+        for (int i = 0; i < 300; i++) {
+            LocalDateTime start = NOW.minusMinutes(random.nextInt((DAYS + 40) * 24 * 60));
+            if (random.nextBoolean()) {
+                start = start.toLocalDate().atStartOfDay();
+            }
+            LocalDateTime end = start.plusMinutes(random.nextInt(40 * 24 * 60));
+            BigDecimal threshold = BigDecimal.valueOf(random.nextInt(5_000_000), 2);
+            int afterId = random.nextInt(4) == 0 ? 0 : sellerIds.get(random.nextInt(SELLERS));
+
+            List<SellerTotal> expected = transactionRepository.findSellerTotalsLessThan(
+                    threshold,
+                    start,
+                    end,
+                    afterId,
+                    Limit.unlimited()
+            );
+
+            assertThat(dailyTotals.sellersWithTotalLessThan(
+                    threshold,
+                    start,
+                    end,
+                    afterId,
+                    transactionRepository::findSellerTotals
+            )).as("below %s in [%s, %s) after %d", threshold, start, end, afterId).contains(expected);
+        }
+    }
+
+    private int insertTransaction(int sellerId, LocalDateTime date) {
+        return jdbc.queryForObject(
+                "INSERT INTO app.transaction (seller_id, amount, payment_type, transaction_date) " +
+                        "VALUES (?, ?, 'CARD', ?) RETURNING id",
+                Integer.class,
+                sellerId,
+                randomAmount(),
+                Timestamp.valueOf(date)
+        );
+    }
+
+    private int created(int id) {
+        jdbc.update("INSERT INTO app.transaction_event (type, transaction_id, seller_id, amount, transaction_date) " +
+                "SELECT 'CREATED', id, seller_id, amount, transaction_date FROM app.transaction WHERE id = ?", id);
+        return id;
+    }
+
+    private List<ChangeEvent> amountChanged(int id) {
+        jdbc.update("WITH previous AS (SELECT id, amount FROM app.transaction WHERE id = ?), " +
+                        "changed AS (UPDATE app.transaction t SET amount = ? FROM previous p WHERE t.id = p.id " +
+                        "RETURNING t.id, t.seller_id, t.amount, p.amount AS previous_amount, t.transaction_date) " +
+                        "INSERT INTO app.transaction_event " +
+                        "(type, transaction_id, seller_id, amount, previous_amount, transaction_date) " +
+                        "SELECT 'AMOUNT_CHANGED', id, seller_id, amount, previous_amount, transaction_date FROM changed",
+                id, randomAmount());
+        return events(id);
+    }
+
+    private List<ChangeEvent> moved(int id, int sellerId) {
+        List<ChangeEvent> events = events(id);
+        jdbc.update("WITH previous AS (SELECT id, seller_id FROM app.transaction WHERE id = ?), " +
+                        "changed AS (UPDATE app.transaction t SET seller_id = ? FROM previous p WHERE t.id = p.id " +
+                        "RETURNING t.id, t.seller_id, p.seller_id AS previous_seller_id, t.amount, " +
+                        "t.transaction_date) " +
+                        "INSERT INTO app.transaction_event (type, transaction_id, seller_id, previous_seller_id, " +
+                        "amount, previous_amount, transaction_date) " +
+                        "SELECT 'MOVED', id, seller_id, previous_seller_id, amount, amount, transaction_date " +
+                        "FROM changed",
+                id, sellerId);
+        events.addAll(events(id));
+        return events;
+    }
+
+    private List<ChangeEvent> deleted(int id) {
+        List<ChangeEvent> events = events(id);
+        jdbc.update("WITH deleted AS (DELETE FROM app.transaction WHERE id = ? " +
+                "RETURNING id, seller_id, amount, transaction_date) " +
+                "INSERT INTO app.transaction_event (type, transaction_id, seller_id, amount, transaction_date) " +
+                "SELECT 'DELETED', id, seller_id, amount, transaction_date FROM deleted", id);
+        return events;
+    }
+
+    private List<ChangeEvent> events(int id) {
+        return new ArrayList<>(jdbc.query(
+                "SELECT id, seller_id, transaction_date FROM app.transaction WHERE id = ?",
+                (rs, row) -> ChangeEvent.transaction(
+                        rs.getInt(1),
+                        rs.getInt(2),
+                        rs.getTimestamp(3).toLocalDateTime().toLocalDate()
+                ),
+                id
+        ));
+    }
+
+    private int randomSeller() {
+        return sellerIds.get(random.nextInt(SELLERS));
+    }
+
+    private LocalDateTime randomDate() {
+        return NOW.minusMinutes(random.nextInt(DAYS * 24 * 60));
+    }
+
+    private BigDecimal randomAmount() {
+        return BigDecimal.valueOf(random.nextInt(100_000), 2);
+    }
+}
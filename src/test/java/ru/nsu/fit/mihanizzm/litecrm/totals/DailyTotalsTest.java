@@ -0,0 +1,268 @@
+package ru.nsu.fit.mihanizzm.litecrm.totals;
+
+import org.junit.jupiter.api.Test;
+import ru.nsu.fit.mihanizzm.litecrm.models.PaymentType;
+import ru.nsu.fit.mihanizzm.litecrm.models.Seller;
+import ru.nsu.fit.mihanizzm.litecrm.models.SellerTotal;
+import ru.nsu.fit.mihanizzm.litecrm.models.Transaction;
+import ru.nsu.fit.mihanizzm.litecrm.models.TransactionEvent;
+import ru.nsu.fit.mihanizzm.litecrm.sharding.ShardContext;
+import ru.nsu.fit.mihanizzm.litecrm.sharding.ShardDataSources;
+import ru.nsu.fit.mihanizzm.litecrm.sharding.ShardDirectory;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DailyTotalsTest {
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 3, 14, 15, 0);
+    private static final Clock CLOCK = Clock.fixed(NOW.toInstant(ZoneOffset.UTC), ZoneId.of("UTC"));
+    private static final int SELLERS = 20;
+    private static final int DAYS = 60;
+
+    /** Transactions as the database holds them, for the reference query. */
+    private final Map<Integer, Transaction> transactions = new HashMap<>();
+
+    @Test
+    void shouldFindSameSellersAsQueryOverTransactions() {
+        DailyTotals dailyTotals = reconciled(null);
+        Random random = new Random(42);
+        for (int id = 1; id <= 2000; id++) {
+            LocalDateTime date = NOW.minusMinutes(random.nextInt(DAYS * 24 * 60));
+            long cents = random.nextInt(10) == 0 ? 0 : random.nextInt(100_000);
+            Transaction transaction = transaction(id, 1 + random.nextInt(SELLERS), cents, date);
+            transactions.put(id, transaction);
+            dailyTotals.apply(TransactionDelta.of(TransactionEvent.created(transaction)));
+        }
+        for (int i = 0; i < 300; i++) {
+            Transaction transaction = transactions.get(1 + random.nextInt(2000));
+            if (transaction == null) {
+                continue;
+            }
+            switch (random.nextInt(3)) {
+                case 0 -> {
+                    transactions.remove(transaction.getId());
+                    dailyTotals.apply(TransactionDelta.of(TransactionEvent.deleted(transaction)));
+                }
+                case 1 -> {
+                    BigDecimal previousAmount = transaction.getAmount();
+                    transaction.setAmount(BigDecimal.valueOf(random.nextInt(100_000), 2));
+                    dailyTotals.apply(TransactionDelta.of(TransactionEvent.amountChanged(transaction, previousAmount)));
+                }
+                default -> {
+                    Integer previousSeller = transaction.getSeller().getId();
+                    BigDecimal previousAmount = transaction.getAmount();
+                    transaction.setSeller(seller(1 + random.nextInt(SELLERS)));
+                    dailyTotals.apply(TransactionDelta.of(
+                            TransactionEvent.moved(transaction, previousSeller, previousAmount)
+                    ));
+                }
+            }
+        }
+
+        for (int i = 0; i < 500; i++) {
+            LocalDateTime start = NOW.minusMinutes(random.nextInt((DAYS + 5) * 24 * 60));
+            LocalDateTime end = random.nextBoolean()
+                    ? start.plusMinutes(random.nextInt(10 * 24 * 60))
+                    : start.toLocalDate().plusDays(random.nextInt(20)).atStartOfDay();
+            BigDecimal threshold = BigDecimal.valueOf(random.nextInt(3_000_000), 2);
+
+            int afterId = random.nextInt(4) == 0 ? random.nextInt(SELLERS) : 0;
+
+            Optional<List<SellerTotal>> sellers = dailyTotals.sellersWithTotalLessThan(
+                    threshold,
+                    start,
+                    end,
+                    afterId,
+                    this::sellerTotals
+            );
+
+            assertThat(sellers).as("sellers after %d below %s in [%s, %s)", afterId, threshold, start, end)
+                    .contains(sellersWithTotalLessThan(threshold, start, end, afterId));
+        }
+    }
+
+    @Test
+    void shouldGrowToCoverChangesOutsideOfTrees() {
+        DailyTotals dailyTotals = reconciled(null);
+        LocalDateTime longAgo = NOW.minusDays(400);
+        LocalDateTime later = NOW.plusDays(200);
+        dailyTotals.apply(TransactionDelta.of(TransactionEvent.created(transaction(1, 1, 1000, NOW))));
+        dailyTotals.apply(TransactionDelta.of(TransactionEvent.created(transaction(2, 1, 2000, longAgo))));
+        dailyTotals.apply(TransactionDelta.of(TransactionEvent.created(transaction(3, 2, 4000, later))));
+
+        assertThat(dailyTotals.sellersWithTotalLessThan(
+                new BigDecimal("30.01"),
+                longAgo.toLocalDate().atStartOfDay(),
+                NOW.plusDays(1),
+                0,
+                (start, end) -> List.of()
+        )).contains(List.of(new SellerTotal(1, new BigDecimal("30.00"))));
+        assertThat(dailyTotals.sellersWithTotalLessThan(
+                new BigDecimal("40.01"),
+                longAgo.toLocalDate().atStartOfDay(),
+                later.plusDays(1).toLocalDate().atStartOfDay(),
+                0,
+                (start, end) -> List.of()
+        )).contains(List.of(new SellerTotal(1, new BigDecimal("30.00")), new SellerTotal(2, new BigDecimal("40.00"))));
+    }
+
+    @Test
+    void shouldRemoveDeletedSeller() {
+        DailyTotals dailyTotals = reconciled(null);
+        dailyTotals.apply(TransactionDelta.of(TransactionEvent.created(transaction(1, 1, 1000, NOW))));
+        dailyTotals.apply(TransactionDelta.of(TransactionEvent.created(transaction(2, 2, 1000, NOW))));
+
+        dailyTotals.apply(TransactionDelta.of(TransactionEvent.sellerChanged(1)));
+
+        assertThat(dailyTotals.sellersWithTotalLessThan(
+                new BigDecimal("100.00"),
+                NOW.toLocalDate().atStartOfDay(),
+                NOW.toLocalDate().plusDays(1).atStartOfDay(),
+                0,
+                (start, end) -> List.of()
+        )).contains(List.of(new SellerTotal(2, new BigDecimal("10.00"))));
+    }
+
+    @Test
+    void shouldOnlyReturnSellersOfCurrentShard() {
+        ShardDirectory directory = mock(ShardDirectory.class);
+        when(directory.shardOfSeller(1)).thenReturn(0);
+        when(directory.shardOfSeller(2)).thenReturn(1);
+        DailyTotals dailyTotals = reconciled(directory);
+        dailyTotals.apply(TransactionDelta.of(TransactionEvent.created(transaction(1, 1, 1000, NOW))));
+        dailyTotals.apply(TransactionDelta.of(TransactionEvent.created(transaction(2, 2, 1000, NOW))));
+
+        ShardContext.set(1);
+        try {
+            assertThat(dailyTotals.sellersWithTotalLessThan(
+                    new BigDecimal("100.00"),
+                    NOW.toLocalDate().atStartOfDay(),
+                    NOW.toLocalDate().plusDays(1).atStartOfDay(),
+                    0,
+                    (start, end) -> List.of()
+            )).contains(List.of(new SellerTotal(2, new BigDecimal("10.00"))));
+        } finally {
+            ShardContext.clear();
+        }
+    }
+
+    @Test
+    void shouldAnswerNothingUntilReconciled() {
+        DailyTotals dailyTotals = new DailyTotals(properties(), mock(ShardDataSources.class), null, CLOCK);
+        dailyTotals.apply(TransactionDelta.of(TransactionEvent.created(transaction(1, 1, 1000, NOW))));
+
+        assertThat(dailyTotals.sellersWithTotalLessThan(
+                new BigDecimal("100.00"),
+                NOW.minusDays(1),
+                NOW.plusDays(1),
+                0,
+                (start, end) -> List.of()
+        )).isEmpty();
+    }
+
+    @Test
+    void shouldAnswerSameAfterRestoringSnapshot() {
+        DailyTotals dailyTotals = reconciled(null);
+        Random random = new Random(7);
+        for (int id = 1; id <= 500; id++) {
+            LocalDateTime date = NOW.minusMinutes(random.nextInt(DAYS * 24 * 60));
+            Transaction transaction = transaction(id, 1 + random.nextInt(SELLERS), random.nextInt(100_000), date);
+            transactions.put(id, transaction);
+            dailyTotals.apply(TransactionDelta.of(TransactionEvent.created(transaction)));
+        }
+        DailyTotals restored = new DailyTotals(properties(), mock(ShardDataSources.class), null, CLOCK);
+
+        assertThat(restored.restore(ByteBuffer.wrap(dailyTotals.snapshot()))).isTrue();
+
+        assertThat(restored.loaded()).isTrue();
+        assertThat(restored.sellers()).isEqualTo(dailyTotals.sellers());
+        for (int i = 0; i < 100; i++) {
+            LocalDateTime start = NOW.minusDays(random.nextInt(DAYS + 5)).toLocalDate().atStartOfDay();
+            LocalDateTime end = start.plusDays(1 + random.nextInt(20));
+            BigDecimal threshold = BigDecimal.valueOf(random.nextInt(3_000_000), 2);
+
+            assertThat(restored.sellersWithTotalLessThan(threshold, start, end, 0, this::sellerTotals))
+                    .contains(sellersWithTotalLessThan(threshold, start, end, 0));
+        }
+        assertThat(restored.restore(ByteBuffer.wrap(dailyTotals.snapshot()))).isFalse();
+    }
+
+    @Test
+    void shouldNotSnapshotUntilReconciled() {
+        DailyTotals dailyTotals = new DailyTotals(properties(), mock(ShardDataSources.class), null, CLOCK);
+
+        assertThat(dailyTotals.snapshot()).isNull();
+    }
+
+    /**
+     * Reconciled against no shards, so that the totals start out empty.
+     */
+    private static DailyTotals reconciled(ShardDirectory directory) {
+        DailyTotals dailyTotals = new DailyTotals(properties(), mock(ShardDataSources.class), directory, CLOCK);
+        dailyTotals.reconcile();
+        return dailyTotals;
+    }
+
+    private static DailyTotalsProperties properties() {
+        return new DailyTotalsProperties(true, Duration.ofSeconds(1), Duration.ofHours(1));
+    }
+
+    /**
+     * {@code TransactionRepository.findSellerTotals} over the transactions.
+     */
+    private List<SellerTotal> sellerTotals(LocalDateTime start, LocalDateTime end) {
+        return totals(start, end).entrySet().stream()
+                .map(total -> new SellerTotal(total.getKey(), total.getValue()))
+                .toList();
+    }
+
+    /**
+     * {@code TransactionRepository.findSellerTotalsLessThan} over the transactions, without a limit.
+     */
+    private List<SellerTotal> sellersWithTotalLessThan(
+            BigDecimal threshold,
+            LocalDateTime start,
+            LocalDateTime end,
+            int afterId
+    ) {
+        return totals(start, end).entrySet().stream()
+                .filter(total -> total.getKey() > afterId && total.getValue().compareTo(threshold) < 0)
+                .map(total -> new SellerTotal(total.getKey(), total.getValue()))
+                .toList();
+    }
+
+    private Map<Integer, BigDecimal> totals(LocalDateTime start, LocalDateTime end) {
+        Map<Integer, BigDecimal> totals = new TreeMap<>();
+        for (Transaction transaction : transactions.values()) {
+            LocalDateTime date = transaction.getTransactionDate();
+            if (!date.isBefore(start) && date.isBefore(end)) {
+                totals.merge(transaction.getSeller().getId(), transaction.getAmount(), BigDecimal::add);
+            }
+        }
+        return totals;
+    }
+
+    private static Transaction transaction(int id, int sellerId, long cents, LocalDateTime date) {
+        return new Transaction(id, seller(sellerId), BigDecimal.valueOf(cents, 2), PaymentType.CARD, date);
+    }
+
+    private static Seller seller(int id) {
+        return new Seller(id, "Seller " + id, null, null, new ArrayList<>());
+    }
+}
@@ -0,0 +1,62 @@
+package ru.nsu.fit.mihanizzm.litecrm.totals;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TotalsSnapshotTest {
+    @TempDir
+    private Path directory;
+
+    @Test
+    void shouldReadWrittenSections() throws IOException {
+        Path file = directory.resolve("totals.snapshot");
+        TotalsSnapshot snapshot = snapshot();
+
+        snapshot.write(file);
+
+        TotalsSnapshot read = TotalsSnapshot.read(file);
+        assertThat(read.takenAtMillis()).isEqualTo(snapshot.takenAtMillis());
+        assertThat(read.watermarks()).containsExactly(snapshot.watermarks());
+        assertThat(read.sections()).containsOnlyKeys("DailyTotals", "Leaderboard");
+        assertThat(read.sections().get("DailyTotals")).isEqualTo(ByteBuffer.wrap(new byte[] {1, 2, 3, 4, 5}));
+        assertThat(read.sections().get("Leaderboard")).isEqualTo(ByteBuffer.wrap(new byte[] {6}));
+    }
+
+    @Test
+    void shouldRejectDamagedFile() throws IOException {
+        Path file = directory.resolve("totals.snapshot");
+        snapshot().write(file);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] {-1, -1}), 30);
+        }
+
+        assertThatThrownBy(() -> TotalsSnapshot.read(file)).isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void shouldRejectTruncatedFile() throws IOException {
+        Path file = directory.resolve("totals.snapshot");
+        Files.write(file, new byte[] {1, 2, 3});
+
+        assertThatThrownBy(() -> TotalsSnapshot.read(file)).isInstanceOf(IOException.class);
+    }
+
+    private static TotalsSnapshot snapshot() {
+        Map<String, ByteBuffer> sections = new LinkedHashMap<>();
+        sections.put("DailyTotals", ByteBuffer.wrap(new byte[] {1, 2, 3, 4, 5}));
+        sections.put("Leaderboard", ByteBuffer.wrap(new byte[] {6}));
+        return new TotalsSnapshot(1_700_000_000_000L, new long[] {42, 7}, sections);
+    }
+}
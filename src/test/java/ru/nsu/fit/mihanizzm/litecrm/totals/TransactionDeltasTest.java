@@ -0,0 +1,87 @@
+package ru.nsu.fit.mihanizzm.litecrm.totals;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.nsu.fit.mihanizzm.litecrm.cache.CacheInvalidator;
+import ru.nsu.fit.mihanizzm.litecrm.cache.ChangeEvent;
+import ru.nsu.fit.mihanizzm.litecrm.models.PaymentType;
+import ru.nsu.fit.mihanizzm.litecrm.models.Seller;
+import ru.nsu.fit.mihanizzm.litecrm.models.Transaction;
+import ru.nsu.fit.mihanizzm.litecrm.models.TransactionEvent;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+class TransactionDeltasTest {
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 3, 14, 15, 0);
+
+    private final TransactionDeltaListener first = mock(TransactionDeltaListener.class);
+    private final TransactionDeltaListener second = mock(TransactionDeltaListener.class);
+    private final CacheInvalidator invalidator = mock(CacheInvalidator.class);
+    private final TransactionDeltas transactionDeltas = new TransactionDeltas(List.of(first, second), invalidator);
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void shouldPassMoveToEveryListenerAsDeltasOfBothSellers() {
+        Transaction transaction = new Transaction(1, seller(2), new BigDecimal("30.00"), PaymentType.CARD, NOW);
+
+        transactionDeltas.record(TransactionEvent.moved(transaction, 1, new BigDecimal("20.00")));
+
+        List<TransactionDelta> expected = List.of(
+                new TransactionDelta(1, NOW, -1, new BigDecimal("-20.00")),
+                new TransactionDelta(2, NOW, 1, new BigDecimal("30.00"))
+        );
+        verify(first).apply(expected);
+        verify(second).apply(expected);
+    }
+
+    @Test
+    void shouldPublishOnlyAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        List<TransactionDelta> deltas = List.of(TransactionDelta.created(1, 3, new BigDecimal("9.00"), NOW));
+
+        transactionDeltas.publish(deltas);
+
+        verifyNoInteractions(first, second);
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        assertThat(synchronizations).hasSize(1);
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+        verify(first).apply(deltas);
+        verify(second).apply(deltas);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldPassChangeEventsToEveryListener() {
+        ArgumentCaptor<Consumer<Collection<ChangeEvent>>> listener = ArgumentCaptor.forClass(Consumer.class);
+        verify(invalidator).addListener(listener.capture());
+        List<ChangeEvent> events = List.of(ChangeEvent.seller(1), ChangeEvent.transaction(2, 1, NOW.toLocalDate()));
+
+        listener.getValue().accept(events);
+
+        verify(first).changed(events);
+        verify(second).changed(events);
+    }
+
+    private static Seller seller(int id) {
+        return new Seller(id, "Seller " + id, null, null, new ArrayList<>());
+    }
+}
@@ -0,0 +1,94 @@
+package ru.nsu.fit.mihanizzm.litecrm.tracing;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.tracing.handler.DefaultTracingObservationHandler;
+import io.micrometer.tracing.otel.bridge.OtelBaggageManager;
+import io.micrometer.tracing.otel.bridge.OtelCurrentTraceContext;
+import io.micrometer.tracing.otel.bridge.OtelTracer;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.sdk.testing.exporter.InMemorySpanExporter;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the observations through the Micrometer tracing bridge the way Spring Boot wires it, with the OTLP exporter
+ * swapped for an in-memory one.
+ */
+class OpenTelemetryTracingTest {
+    private final InMemorySpanExporter exporter = InMemorySpanExporter.create();
+    private SdkTracerProvider tracerProvider;
+
+    @AfterEach
+    void shutdown() {
+        tracerProvider.close();
+    }
+
+    @Test
+    void shouldExportNestedObservationsAsOneTrace() {
+        ObservationRegistry registry = registry(1.0);
+        JdbcObservationListener listener = new JdbcObservationListener(() -> registry);
+        List<QueryInfo> queries = List.of(new QueryInfo("SELECT * FROM app.seller WHERE id = ?"));
+
+        Observation repository = Observation.createNotStarted("litecrm.repository", registry)
+                .contextualName("SellerRepository.findById")
+                .highCardinalityKeyValue("arg.id", "42")
+                .start();
+        try (Observation.Scope ignored = repository.openScope()) {
+            ExecutionInfo execution = new ExecutionInfo();
+            listener.beforeQuery(execution, queries);
+            listener.afterQuery(execution, queries);
+        }
+        repository.stop();
+
+        List<SpanData> spans = exporter.getFinishedSpanItems();
+        assertThat(spans).hasSize(2);
+        SpanData jdbc = spans.get(0);
+        SpanData root = spans.get(1);
+        assertThat(root.getName()).isEqualTo("seller-repository.find-by-id");
+        assertThat(root.getParentSpanContext().isValid()).isFalse();
+        assertThat(root.getAttributes().get(AttributeKey.stringKey("arg.id"))).isEqualTo("42");
+        assertThat(jdbc.getName()).isEqualTo("jdbc select");
+        assertThat(jdbc.getTraceId()).isEqualTo(root.getTraceId());
+        assertThat(jdbc.getParentSpanId()).isEqualTo(root.getSpanId());
+        assertThat(jdbc.getAttributes().get(AttributeKey.stringKey("db.statement")))
+                .isEqualTo("SELECT * FROM app.seller WHERE id = ?");
+    }
+
+    @Test
+    void shouldSkipWholeTraceWhenRootIsNotSampled() {
+        ObservationRegistry registry = registry(0.0);
+
+        Observation.createNotStarted("litecrm.controller", registry).observe(() ->
+                Observation.createNotStarted("litecrm.repository", registry).observe(() -> { }));
+
+        assertThat(exporter.getFinishedSpanItems()).isEmpty();
+    }
+
+    private ObservationRegistry registry(double samplingProbability) {
+        tracerProvider = SdkTracerProvider.builder()
+                .setSampler(Sampler.parentBased(Sampler.traceIdRatioBased(samplingProbability)))
+                .addSpanProcessor(SimpleSpanProcessor.create(exporter))
+                .build();
+        OtelCurrentTraceContext currentTraceContext = new OtelCurrentTraceContext();
+        OtelTracer tracer = new OtelTracer(
+                tracerProvider.get("litecrm"),
+                currentTraceContext,
+                event -> { },
+                new OtelBaggageManager(currentTraceContext, List.of(), List.of())
+        );
+        ObservationRegistry registry = ObservationRegistry.create();
+        registry.observationConfig().observationHandler(new DefaultTracingObservationHandler(tracer));
+        return registry;
+    }
+}
@@ -0,0 +1,127 @@
+package ru.nsu.fit.mihanizzm.litecrm.warmup;
+
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import ru.nsu.fit.mihanizzm.litecrm.bulkhead.AnalyticsBulkhead;
+import ru.nsu.fit.mihanizzm.litecrm.exception.NoTransactionsInThisPeriodException;
+import ru.nsu.fit.mihanizzm.litecrm.exception.SellerHasNoTransactionsException;
+import ru.nsu.fit.mihanizzm.litecrm.models.PeriodType;
+import ru.nsu.fit.mihanizzm.litecrm.models.Seller;
+import ru.nsu.fit.mihanizzm.litecrm.models.Transaction;
+import ru.nsu.fit.mihanizzm.litecrm.models.mappers.SellerMapperImpl;
+import ru.nsu.fit.mihanizzm.litecrm.models.mappers.TransactionMapperImpl;
+import ru.nsu.fit.mihanizzm.litecrm.repositories.SellerRepository;
+import ru.nsu.fit.mihanizzm.litecrm.repositories.TransactionRepository;
+import ru.nsu.fit.mihanizzm.litecrm.services.AnalyticsService;
+import ru.nsu.fit.mihanizzm.litecrm.services.SellerService;
+import ru.nsu.fit.mihanizzm.litecrm.services.TransactionService;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+@ExtendWith(MockitoExtension.class)
+class WarmupRunnerTest {
+    private static final LocalDateTime SCRATCH_DATE = LocalDateTime.of(2000, 1, 1, 0, 0);
+
+    @Mock
+    private SellerService sellerService;
+    @Mock
+    private TransactionService transactionService;
+    @Mock
+    private AnalyticsService analyticsService;
+    @Mock
+    private SellerRepository sellerRepository;
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @BeforeEach
+    void setUp() {
+        Seller seller = new Seller();
+        seller.setId(7);
+        Transaction transaction = new Transaction();
+        transaction.setId(11);
+        given(sellerRepository.findAll(any(Pageable.class))).willReturn(new PageImpl<>(List.of(seller)));
+        given(transactionRepository.findAll(any(Pageable.class))).willReturn(new PageImpl<>(List.of(transaction)));
+    }
+
+    @Test
+    void replaysReadsOnlyForEachIteration() {
+        runner(3, Duration.ofMinutes(1)).run(null);
+
+        verify(sellerService, times(3)).getSellerById(7);
+        verify(transactionService, times(3)).getTransactionById(11);
+        verify(analyticsService, times(3)).getBestDayForSeller(7);
+        verify(analyticsService, times(3)).getTopSeller(any(PeriodType.class), any(LocalDateTime.class));
+        verify(analyticsService, times(3)).getSellersWithTotalAmountLessThan(any(), any(), any(), anyInt(), anyInt());
+        verifyNoMoreInteractions(sellerService, transactionService, analyticsService);
+    }
+
+    @Test
+    void keepsAnalyticsOnTheScratchPeriod() {
+        runner(4, Duration.ofMinutes(1)).run(null);
+
+        for (PeriodType type : PeriodType.values()) {
+            verify(analyticsService).getTopSeller(type, SCRATCH_DATE);
+        }
+    }
+
+    @Test
+    void ignoresExpectedClientErrors() {
+        given(analyticsService.getTopSeller(any(), any()))
+                .willThrow(new NoTransactionsInThisPeriodException(SCRATCH_DATE, SCRATCH_DATE.plusDays(1)));
+        given(analyticsService.getBestDayForSeller(anyInt())).willThrow(new SellerHasNoTransactionsException(7));
+
+        runner(2, Duration.ofMinutes(1)).run(null);
+
+        verify(sellerService, times(2)).getSellerById(7);
+    }
+
+    @Test
+    void stopsWhenTimeBudgetRunsOut() {
+        runner(1000, Duration.ZERO).run(null);
+
+        verifyNoInteractions(sellerService, transactionService, analyticsService);
+    }
+
+    @Test
+    void doesNotFailStartupWhenWarmupFails() {
+        given(sellerService.getSellerById(7)).willThrow(new IllegalStateException("connection refused"));
+
+        assertThatCode(() -> runner(10, Duration.ofMinutes(1)).run(null)).doesNotThrowAnyException();
+        verify(sellerService).getSellerById(7);
+        verify(transactionService, never()).getTransactionById(anyInt());
+    }
+
+    private WarmupRunner runner(int iterations, Duration timeBudget) {
+        return new WarmupRunner(
+                new WarmupProperties(true, iterations, timeBudget, 20, SCRATCH_DATE),
+                sellerService,
+                transactionService,
+                analyticsService,
+                new AnalyticsBulkhead(new SyncTaskExecutor()),
+                sellerRepository,
+                transactionRepository,
+                new SellerMapperImpl(),
+                new TransactionMapperImpl(),
+                Validation.buildDefaultValidatorFactory().getValidator()
+        );
+    }
+}